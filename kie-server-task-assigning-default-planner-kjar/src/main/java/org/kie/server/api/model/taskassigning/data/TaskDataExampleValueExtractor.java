@@ -17,12 +17,15 @@
 package org.kie.server.api.model.taskassigning.data;
 
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 import org.kie.server.api.model.taskassigning.TaskData;
 import org.kie.server.services.taskassigning.core.model.DefaultLabels;
+import org.kie.server.services.taskassigning.skills.SkillsParser;
+import org.kie.server.services.taskassigning.solver.label.EncodedLabelSet;
+import org.kie.server.services.taskassigning.solver.label.LabelDictionary;
+import org.kie.server.services.taskassigning.solver.label.LabelValuesCache;
 
 /**
  * Example value extractor for showing the ability of implementing your own tasks labeling strategy.
@@ -33,9 +36,22 @@ import org.kie.server.services.taskassigning.core.model.DefaultLabels;
  * Note: Value extractors must be declared in the resource
  * <p>
  * src/main/resources/META-INF/services/org.kie.server.api.model.taskassigning.data.LabelValueExtractor
+ * <p>
+ * String values are parsed by the SkillsParser, so that a value like "EN, ES" produces the individual skills EN and
+ * ES, that can be matched with the users skills.
+ * <p>
+ * The extracted values are encoded against the SKILLS LabelDictionary, so that the score rules can evaluate them with
+ * bitset operations, see EncodedLabels. The encoded sets are immutable, and memoized by value in a LabelValuesCache,
+ * so tasks with the same skills share the same set, and re-extracting them doesn't allocate.
  */
 public class TaskDataExampleValueExtractor implements LabelValueExtractor<TaskData> {
 
+    private static final LabelDictionary DICTIONARY = LabelDictionary.forLabel(DefaultLabels.SKILLS.name());
+
+    private static final LabelValuesCache<Object> CACHE = new LabelValuesCache<>();
+
+    private static final SkillsParser PARSER = new SkillsParser();
+
     public TaskDataExampleValueExtractor() {
         //SPI constructor.
     }
@@ -55,6 +71,11 @@ public class TaskDataExampleValueExtractor implements LabelValueExtractor<TaskDa
     public Set<Object> extract(TaskData source) {
         Map<String, Object> inputs = source.getInputData();
         Object value = inputs != null ? inputs.get("skills") : null;
-        return value != null ? new HashSet<Object>(Collections.singleton(value)) : null;
+        return value != null ? CACHE.get(value, TaskDataExampleValueExtractor::encode) : null;
+    }
+
+    private static Set<Object> encode(Object value) {
+        final Set<Object> skills = value instanceof String ? PARSER.parse((String) value) : Collections.singleton(value);
+        return EncodedLabelSet.encode(DICTIONARY, skills);
     }
 }
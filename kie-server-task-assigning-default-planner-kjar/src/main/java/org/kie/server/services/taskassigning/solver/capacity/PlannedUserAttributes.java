@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.solver.capacity;
+
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Not modifiable view of the user attributes that also keeps the available minutes calculated at the planning time,
+ * see PlanningTimeCommand. The calculated values are not exposed as entries, so the view is equal to the original
+ * attributes and the users synchronization doesn't see a change.
+ */
+final class PlannedUserAttributes extends AbstractMap<String, Object> {
+
+    private final Map<String, Object> attributes;
+
+    private final LocalDateTime planningTime;
+
+    private final int availableMinutes;
+
+    PlannedUserAttributes(Map<String, Object> attributes, LocalDateTime planningTime, int availableMinutes) {
+        this.attributes = Collections.unmodifiableMap(attributes);
+        this.planningTime = planningTime;
+        this.availableMinutes = availableMinutes;
+    }
+
+    /**
+     * @return the attributes before the available minutes were calculated.
+     */
+    static Map<String, Object> unwrap(Map<String, Object> attributes) {
+        return attributes instanceof PlannedUserAttributes ? ((PlannedUserAttributes) attributes).attributes : attributes;
+    }
+
+    LocalDateTime getPlanningTime() {
+        return planningTime;
+    }
+
+    int getAvailableMinutes() {
+        return availableMinutes;
+    }
+
+    @Override
+    public Object get(Object key) {
+        return attributes.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return attributes.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return attributes.size();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return attributes.entrySet();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return attributes.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return attributes.hashCode();
+    }
+}
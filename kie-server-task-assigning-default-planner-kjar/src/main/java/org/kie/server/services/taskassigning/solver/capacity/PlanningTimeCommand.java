@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.solver.capacity;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.kie.server.services.taskassigning.core.model.User;
+import org.optaplanner.core.impl.phase.custom.CustomPhaseCommand;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+
+import static org.kie.server.services.taskassigning.core.model.ModelConstants.IS_PLANNING_USER;
+
+/**
+ * Captures the planning time and sets the available minutes at that time on the users with a working calendar, see
+ * UserCapacity. It must be configured as the first custom phase, so it's executed each time the solver is started or
+ * restarted, e.g. after problem fact changes in daemon mode, and the "User capacity" constraint works with the same
+ * planning time until the next restart.
+ * <p>
+ * The users are changed as problem properties, so both the score rules and the incremental score calculator see the
+ * new values.
+ */
+public class PlanningTimeCommand implements CustomPhaseCommand<TaskAssigningSolution> {
+
+    @Override
+    public void changeWorkingSolution(ScoreDirector<TaskAssigningSolution> scoreDirector) {
+        if (apply(scoreDirector, LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES)) > 0) {
+            ((InnerScoreDirector<TaskAssigningSolution>) scoreDirector).calculateScore();
+        }
+    }
+
+    /**
+     * @return the number of users which available minutes changed.
+     */
+    static int apply(ScoreDirector<TaskAssigningSolution> scoreDirector, LocalDateTime planningTime) {
+        final TaskAssigningSolution solution = scoreDirector.getWorkingSolution();
+        if (solution.getUserList() == null) {
+            return 0;
+        }
+        int changedUsers = 0;
+        for (User user : solution.getUserList()) {
+            if (IS_PLANNING_USER.test(user.getEntityId())) {
+                continue;
+            }
+            final Map<String, Object> attributes = PlannedUserAttributes.unwrap(user.getAttributes());
+            if (!UserCapacity.hasWorkingCalendar(attributes)) {
+                continue;
+            }
+            final int availableMinutes = UserCapacity.calculateAvailableMinutes(attributes, planningTime);
+            if (user.getAttributes() instanceof PlannedUserAttributes &&
+                    ((PlannedUserAttributes) user.getAttributes()).getAvailableMinutes() == availableMinutes) {
+                continue;
+            }
+            scoreDirector.beforeProblemPropertyChanged(user);
+            user.setAttributes(new PlannedUserAttributes(attributes, planningTime, availableMinutes));
+            scoreDirector.afterProblemPropertyChanged(user);
+            changedUsers++;
+        }
+        return changedUsers;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.capacity;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.kie.server.services.taskassigning.core.model.User;
+
+import static org.kie.server.services.taskassigning.core.model.ModelConstants.IS_PLANNING_USER;
+
+/**
+ * Helper methods for the "User capacity" constraint. The minutes of work a user can take are given by the
+ * AVAILABLE_MINUTES user attribute when set. Otherwise they are calculated from the user capacity and working calendar
+ * attributes, e.g. as loaded by the DBUserSystemService:
+ * <ul>
+ * <li>CAPACITY_MINUTES: the maximum amount of work in minutes.</li>
+ * <li>WORKING_DAYS: seven characters mask from Monday to Sunday, where '1' stands for a working day.</li>
+ * <li>SHIFT_START_MINUTE and SHIFT_END_MINUTE: the daily working hours as minutes of the day. A shift end lower or equal
+ * than the shift start ends the next day.</li>
+ * </ul>
+ * The working calendar depends on the planning time, that is captured once per solver start by the PlanningTimeCommand,
+ * which sets the minutes calculated at that time on the users. This way the constraint never reads the clock, and
+ * stays stable, and incrementally calculable, during the whole solving. When the PlanningTimeCommand is not configured
+ * only the CAPACITY_MINUTES are considered. Users without these attributes, and the PLANNING_USER, are not limited.
+ */
+public class UserCapacity {
+
+    public static final String AVAILABLE_MINUTES = "availableMinutes";
+
+    public static final String CAPACITY_MINUTES = "capacityMinutes";
+
+    public static final String WORKING_DAYS = "workingDays";
+
+    public static final String SHIFT_START_MINUTE = "shiftStartMinute";
+
+    public static final String SHIFT_END_MINUTE = "shiftEndMinute";
+
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private UserCapacity() {
+    }
+
+    /**
+     * @return the AVAILABLE_MINUTES of the user if set, the minutes calculated by the PlanningTimeCommand at the
+     * planning time if any, the CAPACITY_MINUTES otherwise, or UNLIMITED if none of them is set.
+     */
+    public static int getAvailableMinutes(User user) {
+        if (user == null || IS_PLANNING_USER.test(user.getEntityId())) {
+            return UNLIMITED;
+        }
+        final Map<String, Object> attributes = user.getAttributes();
+        if (attributes == null || attributes.isEmpty()) {
+            return UNLIMITED;
+        }
+        if (attributes instanceof PlannedUserAttributes) {
+            return ((PlannedUserAttributes) attributes).getAvailableMinutes();
+        }
+        final Integer availableMinutes = toInteger(attributes.get(AVAILABLE_MINUTES));
+        if (availableMinutes != null) {
+            return Math.max(0, availableMinutes);
+        }
+        final Integer capacityMinutes = toInteger(attributes.get(CAPACITY_MINUTES));
+        return capacityMinutes != null ? Math.max(0, capacityMinutes) : UNLIMITED;
+    }
+
+    /**
+     * @return true if the available minutes given by the attributes depend on the planning time, i.e. there is a
+     * working calendar and no AVAILABLE_MINUTES.
+     */
+    public static boolean hasWorkingCalendar(Map<String, Object> attributes) {
+        return attributes != null && !attributes.containsKey(AVAILABLE_MINUTES) &&
+                (attributes.containsKey(WORKING_DAYS) || attributes.containsKey(SHIFT_START_MINUTE));
+    }
+
+    /**
+     * @return the minutes of work that can be taken starting at the given time, i.e. the CAPACITY_MINUTES limited by
+     * the remaining minutes of the current working day or shift, 0 when off-shift, or UNLIMITED when not limited.
+     */
+    public static int calculateAvailableMinutes(Map<String, Object> attributes, LocalDateTime time) {
+        final Integer capacityMinutes = toInteger(attributes.get(CAPACITY_MINUTES));
+        final Integer remainingMinutes = calculateRemainingWorkingMinutes(attributes, time);
+        if (capacityMinutes == null) {
+            return remainingMinutes != null ? remainingMinutes : UNLIMITED;
+        }
+        final int capacity = Math.max(0, capacityMinutes);
+        return remainingMinutes != null ? Math.min(capacity, remainingMinutes) : capacity;
+    }
+
+    private static Integer calculateRemainingWorkingMinutes(Map<String, Object> attributes, LocalDateTime time) {
+        final Object workingDaysValue = attributes.get(WORKING_DAYS);
+        final String workingDays = workingDaysValue != null && !workingDaysValue.toString().trim().isEmpty() ? workingDaysValue.toString().trim() : null;
+        final Integer shiftStart = toInteger(attributes.get(SHIFT_START_MINUTE));
+        final Integer shiftEnd = toInteger(attributes.get(SHIFT_END_MINUTE));
+        final int minuteOfDay = time.getHour() * 60 + time.getMinute();
+        final DayOfWeek today = time.getDayOfWeek();
+        if (shiftStart == null || shiftEnd == null) {
+            if (workingDays == null) {
+                return null;
+            }
+            return isWorkingDay(workingDays, today) ? MINUTES_PER_DAY - minuteOfDay : 0;
+        }
+        final int shiftStartMinute = Math.floorMod(shiftStart, MINUTES_PER_DAY);
+        final int shiftEndMinute = Math.floorMod(shiftEnd, MINUTES_PER_DAY);
+        if (shiftStartMinute < shiftEndMinute) {
+            final boolean onShift = minuteOfDay >= shiftStartMinute && minuteOfDay < shiftEndMinute;
+            return onShift && isWorkingDay(workingDays, today) ? shiftEndMinute - minuteOfDay : 0;
+        }
+        // the shift ends the next day.
+        if (minuteOfDay >= shiftStartMinute) {
+            return isWorkingDay(workingDays, today) ? MINUTES_PER_DAY - minuteOfDay + shiftEndMinute : 0;
+        }
+        if (minuteOfDay < shiftEndMinute) {
+            return isWorkingDay(workingDays, today.minus(1)) ? shiftEndMinute - minuteOfDay : 0;
+        }
+        return 0;
+    }
+
+    private static boolean isWorkingDay(String workingDays, DayOfWeek day) {
+        if (workingDays == null) {
+            return true;
+        }
+        final int index = day.getValue() - 1;
+        return index < workingDays.length() && workingDays.charAt(index) == '1';
+    }
+
+    private static Integer toInteger(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Integer.parseInt(((String) value).trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    public static boolean isOverCapacity(User user, Integer endTimeInMinutes) {
+        return calculateOverCapacityPenalty(getAvailableMinutes(user), endTimeInMinutes) != 0;
+    }
+
+    public static long calculateOverCapacityPenalty(User user, Integer endTimeInMinutes) {
+        return calculateOverCapacityPenalty(getAvailableMinutes(user), endTimeInMinutes);
+    }
+
+    /**
+     * @param availableMinutes the user available minutes.
+     * @param endTimeInMinutes the end time of the last task of the user, i.e. the user planned work.
+     * @return the squared minutes of work planned beyond the available minutes as a negative value, analogous to the
+     * makespan penalty, or 0 if the work fits.
+     */
+    public static long calculateOverCapacityPenalty(int availableMinutes, Integer endTimeInMinutes) {
+        if (availableMinutes == UNLIMITED || endTimeInMinutes == null || endTimeInMinutes <= availableMinutes) {
+            return 0;
+        }
+        final long overflow = (long) endTimeInMinutes - availableMinutes;
+        return -(overflow * overflow);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.checkpoint;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.kie.server.services.taskassigning.core.model.User;
+
+/**
+ * Immutable snapshot of the assignments of a solution, i.e. the ordered ids of the tasks in the chain of each user,
+ * keyed by the user entity id. Only the identifiers are kept, so that the assignments can be restored in a later
+ * solution that contains the same tasks and users, see WarmStartRestoreCommand.
+ */
+public class SolutionCheckpoint {
+
+    private final long timestamp;
+
+    private final Map<String, long[]> assignments;
+
+    public SolutionCheckpoint(long timestamp, Map<String, long[]> assignments) {
+        this.timestamp = timestamp;
+        this.assignments = Collections.unmodifiableMap(new LinkedHashMap<>(assignments));
+    }
+
+    public static SolutionCheckpoint fromSolution(TaskAssigningSolution solution, long timestamp) {
+        final Map<String, long[]> assignments = new LinkedHashMap<>();
+        if (solution.getUserList() != null) {
+            for (User user : solution.getUserList()) {
+                int size = 0;
+                for (Task task = user.getNextTask(); task != null; task = task.getNextTask()) {
+                    size++;
+                }
+                if (size > 0) {
+                    final long[] taskIds = new long[size];
+                    int i = 0;
+                    for (Task task = user.getNextTask(); task != null; task = task.getNextTask()) {
+                        taskIds[i++] = task.getId();
+                    }
+                    assignments.put(user.getEntityId(), taskIds);
+                }
+            }
+        }
+        return new SolutionCheckpoint(timestamp, assignments);
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the ordered task ids by user entity id. Users without tasks are not included.
+     */
+    public Map<String, long[]> getAssignments() {
+        return assignments;
+    }
+
+    /**
+     * @return true if both checkpoints have the same assignments, regardless of the timestamps.
+     */
+    public boolean hasSameAssignments(SolutionCheckpoint other) {
+        if (other == null || assignments.size() != other.assignments.size()) {
+            return false;
+        }
+        for (Map.Entry<String, long[]> entry : assignments.entrySet()) {
+            if (!Arrays.equals(entry.getValue(), other.assignments.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.checkpoint;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append only binary file of SolutionCheckpoints. The file starts with a header, MAGIC and FORMAT_VERSION, followed
+ * by the checkpoint records:
+ * <p>
+ * [int payload length][long payload crc32][payload]
+ * <p>
+ * where the payload is:
+ * <p>
+ * [long timestamp][int users]([int user id length][user id utf-8 bytes][int tasks][long task id]*)*
+ * <p>
+ * A new checkpoint is appended as a single record, so a crash while writing can only leave an incomplete record at
+ * the end of the file, that is detected by the length and the checksum and ignored when reading. When appending a
+ * record would make the file exceed the max size, the file is compacted, i.e. atomically replaced by a new file that
+ * only contains the new record.
+ * <p>
+ * The latest checkpoint is read by memory mapping the file and scanning the records headers, only the latest valid
+ * record is decoded.
+ */
+public class SolutionCheckpointFile {
+
+    static final int MAGIC = 0x54414350;
+
+    static final int FORMAT_VERSION = 1;
+
+    private static final int FILE_HEADER_SIZE = 8;
+
+    private static final int RECORD_HEADER_SIZE = 12;
+
+    public static final long DEFAULT_MAX_FILE_SIZE = 16 * 1024 * 1024;
+
+    private final Path path;
+
+    private final long maxFileSize;
+
+    public SolutionCheckpointFile(Path path, long maxFileSize) {
+        this.path = path;
+        this.maxFileSize = maxFileSize;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public synchronized void append(SolutionCheckpoint checkpoint) throws IOException {
+        final ByteBuffer record = encode(checkpoint);
+        final long currentSize = Files.exists(path) ? Files.size(path) : 0;
+        if (currentSize == 0 || currentSize + record.remaining() > maxFileSize) {
+            compact(record);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            write(channel, record);
+            channel.force(false);
+        }
+    }
+
+    /**
+     * @return the latest valid checkpoint in the file, or null if the file doesn't exist or has no valid checkpoints.
+     */
+    public synchronized SolutionCheckpoint readLatest() throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < FILE_HEADER_SIZE || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            int latestPosition = -1;
+            int latestLength = 0;
+            while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+                final int length = buffer.getInt();
+                final long checksum = buffer.getLong();
+                if (length < 0 || length > buffer.remaining() || checksum(buffer, buffer.position(), length) != checksum) {
+                    // incomplete or corrupted record, the following bytes can't be trusted.
+                    break;
+                }
+                latestPosition = buffer.position();
+                latestLength = length;
+                buffer.position(buffer.position() + length);
+            }
+            if (latestPosition < 0) {
+                return null;
+            }
+            buffer.position(latestPosition);
+            buffer.limit(latestPosition + latestLength);
+            return decode(buffer.slice());
+        }
+    }
+
+    private void compact(ByteBuffer record) throws IOException {
+        final Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        final Path tmp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                final ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+                header.putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+                write(channel, header);
+                write(channel, record);
+                channel.force(true);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    static ByteBuffer encode(SolutionCheckpoint checkpoint) {
+        int payloadSize = 8 + 4;
+        final Map<byte[], long[]> encodedAssignments = new LinkedHashMap<>();
+        for (Map.Entry<String, long[]> entry : checkpoint.getAssignments().entrySet()) {
+            final byte[] userId = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            encodedAssignments.put(userId, entry.getValue());
+            payloadSize += 4 + userId.length + 4 + 8 * entry.getValue().length;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + payloadSize);
+        buffer.position(RECORD_HEADER_SIZE);
+        buffer.putLong(checkpoint.getTimestamp());
+        buffer.putInt(encodedAssignments.size());
+        for (Map.Entry<byte[], long[]> entry : encodedAssignments.entrySet()) {
+            buffer.putInt(entry.getKey().length);
+            buffer.put(entry.getKey());
+            buffer.putInt(entry.getValue().length);
+            for (long taskId : entry.getValue()) {
+                buffer.putLong(taskId);
+            }
+        }
+        buffer.putInt(0, payloadSize);
+        buffer.putLong(4, checksum(buffer, RECORD_HEADER_SIZE, payloadSize));
+        buffer.position(0);
+        return buffer;
+    }
+
+    static SolutionCheckpoint decode(ByteBuffer payload) {
+        final long timestamp = payload.getLong();
+        final int users = payload.getInt();
+        final Map<String, long[]> assignments = new LinkedHashMap<>(users * 2);
+        for (int i = 0; i < users; i++) {
+            final byte[] userId = new byte[payload.getInt()];
+            payload.get(userId);
+            final long[] taskIds = new long[payload.getInt()];
+            for (int j = 0; j < taskIds.length; j++) {
+                taskIds[j] = payload.getLong();
+            }
+            assignments.put(new String(userId, StandardCharsets.UTF_8), taskIds);
+        }
+        return new SolutionCheckpoint(timestamp, assignments);
+    }
+
+    private static long checksum(ByteBuffer buffer, int position, int length) {
+        final ByteBuffer view = buffer.duplicate();
+        view.limit(position + length);
+        view.position(position);
+        final CRC32 crc = new CRC32();
+        crc.update(view);
+        return crc.getValue();
+    }
+}
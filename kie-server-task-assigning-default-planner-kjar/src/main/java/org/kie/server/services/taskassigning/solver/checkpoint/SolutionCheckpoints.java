@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.checkpoint;
+
+import java.nio.file.Paths;
+
+/**
+ * Configuration of the solution checkpointing, see WarmStartRestoreCommand.
+ */
+public class SolutionCheckpoints {
+
+    /**
+     * System property for configuring the path of the checkpoint file. When not configured the checkpointing is
+     * disabled.
+     */
+    public static final String FILE_PROPERTY = "org.kie.server.services.taskassigning.solver.checkpoint.file";
+
+    /**
+     * System property for configuring the max size in bytes of the checkpoint file before it is compacted.
+     * Defaults to 16 MB.
+     */
+    public static final String MAX_FILE_SIZE_PROPERTY = "org.kie.server.services.taskassigning.solver.checkpoint.maxFileSize";
+
+    private SolutionCheckpoints() {
+    }
+
+    /**
+     * @return the configured checkpoint file, or null if the checkpointing is not enabled.
+     */
+    public static SolutionCheckpointFile getConfiguredFile() {
+        final String file = System.getProperty(FILE_PROPERTY);
+        if (file == null || file.trim().isEmpty()) {
+            return null;
+        }
+        long maxFileSize;
+        try {
+            maxFileSize = Long.parseLong(System.getProperty(MAX_FILE_SIZE_PROPERTY, Long.toString(SolutionCheckpointFile.DEFAULT_MAX_FILE_SIZE)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("maxFileSize wasn't properly set: " + e.getMessage(), e);
+        }
+        return new SolutionCheckpointFile(Paths.get(file.trim()), maxFileSize);
+    }
+}
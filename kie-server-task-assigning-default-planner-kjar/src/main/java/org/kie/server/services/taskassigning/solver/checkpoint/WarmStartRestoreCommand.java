@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.checkpoint;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.kie.server.services.taskassigning.core.model.TaskOrUser;
+import org.kie.server.services.taskassigning.core.model.User;
+import org.kie.server.services.taskassigning.solver.eligibility.EligibilityIndex;
+import org.kie.server.services.taskassigning.solver.eligibility.TaskChangeMove;
+import org.optaplanner.core.impl.phase.custom.CustomPhaseCommand;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Seeds the initial solution with the assignments of the latest checkpoint, so that after a server restart the solver
+ * starts from the last known plan instead of constructing it from scratch, and writes the checkpoints. It must be
+ * configured as a custom phase before the construction heuristic.
+ * <p>
+ * Only the not initialized and not pinned tasks are restored, and only to users that still exist and are eligible
+ * for them, see EligibilityIndex. Restored tasks are appended to the users chains in the checkpoint order, after the
+ * already assigned tasks, and the remaining tasks are left to the construction heuristic. The restoring is done once,
+ * on the first execution of the phase.
+ * <p>
+ * Further executions are produced each time the solver is restarted, e.g. after problem fact changes in daemon mode,
+ * that starts from the best solution found so far with the changes applied. That working solution is appended to
+ * the checkpoint file, unless it has the same assignments as the last written checkpoint. Unlike a phase after the
+ * local search, this phase is executed even when the local search has no termination, as usual in daemon mode.
+ * Read and write errors are logged and never interrupt the solver.
+ */
+public class WarmStartRestoreCommand implements CustomPhaseCommand<TaskAssigningSolution> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarmStartRestoreCommand.class);
+
+    private boolean restored;
+
+    private SolutionCheckpoint lastCheckpoint;
+
+    @Override
+    public void changeWorkingSolution(ScoreDirector<TaskAssigningSolution> scoreDirector) {
+        final SolutionCheckpointFile file = SolutionCheckpoints.getConfiguredFile();
+        final TaskAssigningSolution solution = scoreDirector.getWorkingSolution();
+        if (!restored) {
+            restored = true;
+            restore(scoreDirector, file, solution);
+        } else if (file != null) {
+            writeCheckpoint(file, solution);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void restore(ScoreDirector<TaskAssigningSolution> scoreDirector, SolutionCheckpointFile file, TaskAssigningSolution solution) {
+        if (file == null || solution.getTaskList() == null || solution.getUserList() == null) {
+            return;
+        }
+        final SolutionCheckpoint checkpoint;
+        try {
+            checkpoint = file.readLatest();
+        } catch (IOException e) {
+            LOGGER.warn("Solution checkpoint couldn't be read from file: {}, {}", file.getPath(), e.getMessage());
+            return;
+        }
+        if (checkpoint == null) {
+            return;
+        }
+        final int restoredTasks = restore(scoreDirector, solution, checkpoint);
+        if (restoredTasks > 0) {
+            ((InnerScoreDirector<TaskAssigningSolution>) scoreDirector).calculateScore();
+        }
+        LOGGER.info("{} tasks were restored from the solution checkpoint of file: {}, with timestamp: {}",
+                    restoredTasks, file.getPath(), checkpoint.getTimestamp());
+    }
+
+    private void writeCheckpoint(SolutionCheckpointFile file, TaskAssigningSolution solution) {
+        final SolutionCheckpoint checkpoint = SolutionCheckpoint.fromSolution(solution, System.currentTimeMillis());
+        if (checkpoint.hasSameAssignments(lastCheckpoint)) {
+            return;
+        }
+        try {
+            file.append(checkpoint);
+            lastCheckpoint = checkpoint;
+            LOGGER.debug("Solution checkpoint was written to file: {}", file.getPath());
+        } catch (IOException e) {
+            LOGGER.warn("Solution checkpoint couldn't be written to file: {}, {}", file.getPath(), e.getMessage());
+        }
+    }
+
+    static int restore(ScoreDirector<TaskAssigningSolution> scoreDirector, TaskAssigningSolution solution, SolutionCheckpoint checkpoint) {
+        final Map<String, User> usersById = new HashMap<>();
+        for (User user : solution.getUserList()) {
+            usersById.put(user.getEntityId(), user);
+        }
+        final Map<Long, Task> pendingTasksById = new HashMap<>();
+        for (Task task : solution.getTaskList()) {
+            if (task.getPreviousTaskOrUser() == null && !task.isPinned()) {
+                pendingTasksById.put(task.getId(), task);
+            }
+        }
+        if (pendingTasksById.isEmpty()) {
+            return 0;
+        }
+        final EligibilityIndex index = new EligibilityIndex(solution);
+        int restoredTasks = 0;
+        for (Map.Entry<String, long[]> assignment : checkpoint.getAssignments().entrySet()) {
+            final User user = usersById.get(assignment.getKey());
+            if (user == null) {
+                continue;
+            }
+            TaskOrUser last = user;
+            while (last.getNextTask() != null) {
+                last = last.getNextTask();
+            }
+            for (long taskId : assignment.getValue()) {
+                final Task task = pendingTasksById.get(taskId);
+                if (task != null && index.isEligible(task, user)) {
+                    pendingTasksById.remove(taskId);
+                    new TaskChangeMove(task, last).doMove(scoreDirector);
+                    last = task;
+                    restoredTasks++;
+                }
+            }
+        }
+        return restoredTasks;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.eligibility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.kie.server.services.taskassigning.core.model.DefaultLabels;
+import org.kie.server.services.taskassigning.core.model.OrganizationalEntity;
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.kie.server.services.taskassigning.core.model.User;
+import org.kie.server.services.taskassigning.core.model.solver.condition.TaskAssigningConditions;
+import org.kie.server.services.taskassigning.solver.label.EncodedLabels;
+
+/**
+ * Precomputed set of users that can be assigned to each task of a solution without breaking the hard constraints,
+ * i.e. the users that are potential owners of the task and have all the required skills, and the planning user.
+ * <p>
+ * Tasks with the same potential owners and required skills share the same eligible users, so the users are only
+ * evaluated once per distinct combination, e.g. 8 combinations for the CreditDispute process, regardless of the number
+ * of tasks.
+ * <p>
+ * The index is bound to a working solution and must be rebuilt when the users or the tasks changes. Each selector
+ * or phase command builds its own instance and keeps it while the working solution instance doesn't change, see
+ * isBoundTo(), since the solver applies the problem fact changes to a new working solution before restarting the
+ * phases. An instance is only used by the solver thread that created it, but the calculated eligible users can be
+ * safely read by other threads.
+ */
+public class EligibilityIndex {
+
+    private final TaskAssigningSolution solution;
+
+    private final List<User> users;
+
+    private final Map<List<Object>, EligibleUsers> eligibleUsersByRequirements = new ConcurrentHashMap<>();
+
+    private final Map<Task, EligibleUsers> eligibleUsersByTask = new ConcurrentHashMap<>();
+
+    private static class EligibleUsers {
+
+        private final List<User> users;
+        private final Set<User> usersSet;
+
+        private EligibleUsers(List<User> users) {
+            this.users = Collections.unmodifiableList(users);
+            this.usersSet = Collections.newSetFromMap(new IdentityHashMap<>(users.size()));
+            this.usersSet.addAll(users);
+        }
+    }
+
+    public EligibilityIndex(TaskAssigningSolution solution) {
+        this.solution = solution;
+        this.users = solution.getUserList() != null ? new ArrayList<>(solution.getUserList()) : Collections.emptyList();
+    }
+
+    /**
+     * @return true if the index was built for the given working solution instance.
+     */
+    public boolean isBoundTo(TaskAssigningSolution workingSolution) {
+        return solution == workingSolution;
+    }
+
+    /**
+     * @return the users that can be assigned to the task, the planning user included.
+     */
+    public List<User> getEligibleUsers(Task task) {
+        return getOrCalculate(task).users;
+    }
+
+    public boolean isEligible(Task task, User user) {
+        return getOrCalculate(task).usersSet.contains(user);
+    }
+
+    private EligibleUsers getOrCalculate(Task task) {
+        EligibleUsers eligibleUsers = eligibleUsersByTask.get(task);
+        if (eligibleUsers == null) {
+            eligibleUsers = eligibleUsersByRequirements.computeIfAbsent(requirementsKey(task), key -> calculate(task));
+            eligibleUsersByTask.put(task, eligibleUsers);
+        }
+        return eligibleUsers;
+    }
+
+    private EligibleUsers calculate(Task task) {
+        final List<User> eligibleUsers = new ArrayList<>();
+        for (User user : users) {
+            if (TaskAssigningConditions.userMeetsPotentialOwnerOrPlanningUserCondition(task, user) &&
+                    EncodedLabels.userMeetsRequiredSkillsOrPlanningUserCondition(task, user)) {
+                eligibleUsers.add(user);
+            }
+        }
+        return new EligibleUsers(eligibleUsers);
+    }
+
+    private static List<Object> requirementsKey(Task task) {
+        final Set<String> potentialOwners = new HashSet<>();
+        if (task.getPotentialOwners() != null) {
+            for (OrganizationalEntity potentialOwner : task.getPotentialOwners()) {
+                potentialOwners.add((potentialOwner.isUser() ? "user:" : "group:") + potentialOwner.getEntityId());
+            }
+        }
+        final Set<Object> skills = task.getLabelValues(DefaultLabels.SKILLS.name());
+        return Arrays.asList(potentialOwners, skills != null ? new HashSet<>(skills) : Collections.emptySet());
+    }
+}
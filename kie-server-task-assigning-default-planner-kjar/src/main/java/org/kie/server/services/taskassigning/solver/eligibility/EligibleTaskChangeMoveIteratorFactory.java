@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.eligibility;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.kie.server.services.taskassigning.core.model.TaskOrUser;
+import org.kie.server.services.taskassigning.core.model.User;
+import org.optaplanner.core.impl.heuristic.selector.move.factory.MoveIteratorFactory;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+
+/**
+ * Generates TaskChangeMoves that only move each task into the chain of one of its eligible users, see
+ * EligibilityIndex, instead of into any user chain like the generic change move selector does. With thousands of users
+ * the vast majority of the generic moves break the "Required Potential Owner" or the "Required Skills" constraints,
+ * and are evaluated just to be discarded.
+ * <p>
+ * Random selection picks a not pinned task, one of its eligible users, and a random position in that user chain.
+ */
+public class EligibleTaskChangeMoveIteratorFactory implements MoveIteratorFactory<TaskAssigningSolution> {
+
+    private EligibilityIndex index;
+
+    private List<Task> movableTasks;
+
+    @Override
+    public long getSize(ScoreDirector<TaskAssigningSolution> scoreDirector) {
+        long size = 0;
+        for (Task task : getMovableTasks(scoreDirector)) {
+            size += getIndex(scoreDirector).getEligibleUsers(task).size();
+        }
+        return size;
+    }
+
+    @Override
+    public Iterator<TaskChangeMove> createOriginalMoveIterator(ScoreDirector<TaskAssigningSolution> scoreDirector) {
+        final EligibilityIndex currentIndex = getIndex(scoreDirector);
+        final Iterator<Task> tasks = getMovableTasks(scoreDirector).iterator();
+        return new Iterator<TaskChangeMove>() {
+            private Iterator<TaskChangeMove> taskMoves = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!taskMoves.hasNext() && tasks.hasNext()) {
+                    taskMoves = createTaskMoves(tasks.next(), currentIndex).iterator();
+                }
+                return taskMoves.hasNext();
+            }
+
+            @Override
+            public TaskChangeMove next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return taskMoves.next();
+            }
+        };
+    }
+
+    @Override
+    public Iterator<TaskChangeMove> createRandomMoveIterator(ScoreDirector<TaskAssigningSolution> scoreDirector, Random workingRandom) {
+        final EligibilityIndex currentIndex = getIndex(scoreDirector);
+        final List<Task> tasks = getMovableTasks(scoreDirector);
+        return new Iterator<TaskChangeMove>() {
+            @Override
+            public boolean hasNext() {
+                return !tasks.isEmpty();
+            }
+
+            @Override
+            public TaskChangeMove next() {
+                if (tasks.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                final Task task = tasks.get(workingRandom.nextInt(tasks.size()));
+                final List<User> users = currentIndex.getEligibleUsers(task);
+                if (users.isEmpty()) {
+                    // can't happen when the solution contains the planning user, generate a not doable move.
+                    return new TaskChangeMove(task, task.getPreviousTaskOrUser());
+                }
+                final User user = users.get(workingRandom.nextInt(users.size()));
+                return new TaskChangeMove(task, randomPosition(user, task, workingRandom));
+            }
+        };
+    }
+
+    /**
+     * @return a random position of the user chain, i.e. the user or any of its tasks, where the task can be inserted.
+     */
+    static TaskOrUser randomPosition(User user, Task task, Random random) {
+        int positions = 0;
+        for (TaskOrUser position = user; position != null; position = position.getNextTask()) {
+            if (isAvailablePosition(position, task)) {
+                positions++;
+            }
+        }
+        if (positions == 0) {
+            return user;
+        }
+        int selected = random.nextInt(positions);
+        for (TaskOrUser position = user; position != null; position = position.getNextTask()) {
+            if (isAvailablePosition(position, task) && selected-- == 0) {
+                return position;
+            }
+        }
+        return user;
+    }
+
+    static List<TaskChangeMove> createTaskMoves(Task task, EligibilityIndex index) {
+        final List<TaskChangeMove> moves = new ArrayList<>();
+        for (User user : index.getEligibleUsers(task)) {
+            for (TaskOrUser position = user; position != null; position = position.getNextTask()) {
+                if (isAvailablePosition(position, task)) {
+                    moves.add(new TaskChangeMove(task, position));
+                }
+            }
+        }
+        return moves;
+    }
+
+    private static boolean isAvailablePosition(TaskOrUser position, Task task) {
+        final Task next = position.getNextTask();
+        return position != task && next != task && (next == null || !next.isPinned());
+    }
+
+    private EligibilityIndex getIndex(ScoreDirector<TaskAssigningSolution> scoreDirector) {
+        refresh(scoreDirector.getWorkingSolution());
+        return index;
+    }
+
+    private List<Task> getMovableTasks(ScoreDirector<TaskAssigningSolution> scoreDirector) {
+        refresh(scoreDirector.getWorkingSolution());
+        return movableTasks;
+    }
+
+    /**
+     * The problem fact changes are always applied to a new working solution, a clone of the best solution, before the
+     * solver restarts the phases. So the index and the movable tasks only need to be rebuilt when the working solution
+     * is a different instance.
+     */
+    private void refresh(TaskAssigningSolution solution) {
+        if (index != null && index.isBoundTo(solution)) {
+            return;
+        }
+        index = new EligibilityIndex(solution);
+        movableTasks = new ArrayList<>();
+        if (solution.getTaskList() != null) {
+            for (Task task : solution.getTaskList()) {
+                if (!task.isPinned()) {
+                    movableTasks.add(task);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.eligibility;
+
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.kie.server.services.taskassigning.core.model.TaskOrUser;
+import org.kie.server.services.taskassigning.core.model.User;
+import org.optaplanner.core.api.score.buildin.bendablelong.BendableLongScore;
+import org.optaplanner.core.impl.heuristic.move.Move;
+import org.optaplanner.core.impl.phase.custom.CustomPhaseCommand;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+
+/**
+ * First fit construction heuristic that only evaluates the positions in the chains of the users that are eligible
+ * for each task, see EligibilityIndex. It assigns the not initialized tasks in the solution order, each one to the
+ * position with the best score, like the default construction heuristic with the TaskByGroupAndSkillsChangeMoveFilter
+ * does, but without iterating over the positions of the not eligible users.
+ */
+public class EligibleTaskConstructionHeuristicCommand implements CustomPhaseCommand<TaskAssigningSolution> {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void changeWorkingSolution(ScoreDirector<TaskAssigningSolution> scoreDirector) {
+        final InnerScoreDirector<TaskAssigningSolution> innerScoreDirector = (InnerScoreDirector<TaskAssigningSolution>) scoreDirector;
+        final TaskAssigningSolution solution = scoreDirector.getWorkingSolution();
+        if (solution.getTaskList() == null) {
+            return;
+        }
+        final EligibilityIndex index = new EligibilityIndex(solution);
+        for (Task task : solution.getTaskList()) {
+            if (task.getPreviousTaskOrUser() == null) {
+                assignToBestPosition(innerScoreDirector, index, task);
+            }
+        }
+    }
+
+    private static void assignToBestPosition(InnerScoreDirector<TaskAssigningSolution> scoreDirector, EligibilityIndex index, Task task) {
+        BendableLongScore bestScore = null;
+        TaskOrUser bestPosition = null;
+        for (User user : index.getEligibleUsers(task)) {
+            TaskOrUser position = user;
+            while (position != null) {
+                // read before doing the move, the undo move restores it.
+                final Task next = position.getNextTask();
+                if (next == null || !next.isPinned()) {
+                    final Move<TaskAssigningSolution> undoMove = new TaskChangeMove(task, position).doMove(scoreDirector);
+                    final BendableLongScore score = (BendableLongScore) scoreDirector.calculateScore();
+                    if (bestScore == null || score.compareTo(bestScore) > 0) {
+                        bestScore = score;
+                        bestPosition = position;
+                    }
+                    undoMove.doMove(scoreDirector);
+                }
+                position = next;
+            }
+        }
+        if (bestPosition != null) {
+            new TaskChangeMove(task, bestPosition).doMove(scoreDirector);
+            scoreDirector.calculateScore();
+        }
+    }
+}
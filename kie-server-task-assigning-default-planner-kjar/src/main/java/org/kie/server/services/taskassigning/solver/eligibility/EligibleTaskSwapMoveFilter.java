@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.eligibility;
+
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.optaplanner.core.impl.heuristic.selector.common.decorator.SelectionFilter;
+import org.optaplanner.core.impl.heuristic.selector.move.generic.SwapMove;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+
+/**
+ * Filters the swap moves where any of the tasks would be assigned to a user that is not eligible for it, see
+ * EligibilityIndex.
+ * <p>
+ * The solver creates a filter instance per selector, so the index is kept by the instance and only rebuilt when the
+ * working solution changes, i.e. on each solver (re)start, instead of being looked up on every move.
+ */
+public class EligibleTaskSwapMoveFilter implements SelectionFilter<TaskAssigningSolution, SwapMove<TaskAssigningSolution>> {
+
+    private EligibilityIndex index;
+
+    @Override
+    public boolean accept(ScoreDirector<TaskAssigningSolution> scoreDirector, SwapMove<TaskAssigningSolution> move) {
+        final Task leftTask = (Task) move.getLeftEntity();
+        final Task rightTask = (Task) move.getRightEntity();
+        if (leftTask.getUser() == null || rightTask.getUser() == null) {
+            return true;
+        }
+        final TaskAssigningSolution solution = scoreDirector.getWorkingSolution();
+        if (index == null || !index.isBoundTo(solution)) {
+            index = new EligibilityIndex(solution);
+        }
+        return index.isEligible(leftTask, rightTask.getUser()) && index.isEligible(rightTask, leftTask.getUser());
+    }
+}
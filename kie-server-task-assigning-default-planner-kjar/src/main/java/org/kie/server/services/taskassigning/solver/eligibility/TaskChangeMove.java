@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.eligibility;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.kie.server.services.taskassigning.core.model.TaskOrUser;
+import org.optaplanner.core.impl.heuristic.move.AbstractMove;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+
+/**
+ * Chained change move that takes a task out of its current chain, if any, and inserts it right after the destination,
+ * that is a user or a task of a user chain. A null destination just takes the task out of its chain, and is only
+ * used for undoing the initial assignment of a task.
+ */
+public class TaskChangeMove extends AbstractMove<TaskAssigningSolution> {
+
+    static final String PREVIOUS_TASK_OR_USER = "previousTaskOrUser";
+
+    private final Task task;
+
+    private final TaskOrUser destination;
+
+    public TaskChangeMove(Task task, TaskOrUser destination) {
+        this.task = task;
+        this.destination = destination;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public TaskOrUser getDestination() {
+        return destination;
+    }
+
+    @Override
+    public boolean isMoveDoable(ScoreDirector<TaskAssigningSolution> scoreDirector) {
+        if (task.isPinned()) {
+            return false;
+        }
+        if (destination == null) {
+            return task.getPreviousTaskOrUser() != null;
+        }
+        if (destination == task || destination == task.getPreviousTaskOrUser()) {
+            return false;
+        }
+        if (destination instanceof Task && ((Task) destination).getPreviousTaskOrUser() == null) {
+            // the destination is not in a chain.
+            return false;
+        }
+        final Task destinationNext = destination.getNextTask();
+        return destinationNext == null || !destinationNext.isPinned();
+    }
+
+    @Override
+    protected TaskChangeMove createUndoMove(ScoreDirector<TaskAssigningSolution> scoreDirector) {
+        return new TaskChangeMove(task, task.getPreviousTaskOrUser());
+    }
+
+    @Override
+    protected void doMoveOnGenuineVariables(ScoreDirector<TaskAssigningSolution> scoreDirector) {
+        // the next tasks are inverse shadow variables that are only updated when the variable listeners are triggered,
+        // so they must be read before changing any chain.
+        final TaskOrUser oldPrevious = task.getPreviousTaskOrUser();
+        final Task oldNext = task.getNextTask();
+        final Task newNext = destination != null ? destination.getNextTask() : null;
+
+        // close the old chain.
+        if (oldPrevious != null && oldNext != null) {
+            setPrevious(scoreDirector, oldNext, oldPrevious);
+        }
+        // move the task.
+        setPrevious(scoreDirector, task, destination);
+        // reroute the new chain.
+        if (newNext != null) {
+            setPrevious(scoreDirector, newNext, task);
+        }
+    }
+
+    private static void setPrevious(ScoreDirector<TaskAssigningSolution> scoreDirector, Task task, TaskOrUser previous) {
+        scoreDirector.beforeVariableChanged(task, PREVIOUS_TASK_OR_USER);
+        task.setPreviousTaskOrUser(previous);
+        scoreDirector.afterVariableChanged(task, PREVIOUS_TASK_OR_USER);
+    }
+
+    @Override
+    public TaskChangeMove rebase(ScoreDirector<TaskAssigningSolution> destinationScoreDirector) {
+        return new TaskChangeMove(destinationScoreDirector.lookUpWorkingObject(task),
+                                  destination != null ? destinationScoreDirector.lookUpWorkingObject(destination) : null);
+    }
+
+    @Override
+    public String getSimpleMoveTypeDescription() {
+        return getClass().getSimpleName() + "(" + Task.class.getSimpleName() + "." + PREVIOUS_TASK_OR_USER + ")";
+    }
+
+    @Override
+    public Collection<? extends Object> getPlanningEntities() {
+        return Collections.singletonList(task);
+    }
+
+    @Override
+    public Collection<? extends Object> getPlanningValues() {
+        return Collections.singletonList(destination);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TaskChangeMove)) {
+            return false;
+        }
+        final TaskChangeMove other = (TaskChangeMove) o;
+        return task == other.task && destination == other.destination;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(System.identityHashCode(task), System.identityHashCode(destination));
+    }
+
+    @Override
+    public String toString() {
+        return task + " {" + task.getPreviousTaskOrUser() + " -> " + destination + "}";
+    }
+}
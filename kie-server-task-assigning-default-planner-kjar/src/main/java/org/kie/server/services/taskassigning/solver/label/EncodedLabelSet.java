@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.label;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of label values encoded as a bitset over the ids of a LabelDictionary.
+ * <p>
+ * It behaves as a regular Set<Object> of the label values, but containment and intersection checks against another
+ * EncodedLabelSet of the same dictionary are resolved with word wise bit operations, and don't allocate.
+ */
+public class EncodedLabelSet extends AbstractSet<Object> {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final LabelDictionary dictionary;
+
+    private final long[] words;
+
+    private final int size;
+
+    private EncodedLabelSet(LabelDictionary dictionary, long[] words, int size) {
+        this.dictionary = dictionary;
+        this.words = words;
+        this.size = size;
+    }
+
+    /**
+     * Encodes the values, adding them to the dictionary when needed.
+     */
+    public static EncodedLabelSet encode(LabelDictionary dictionary, Collection<?> values) {
+        if (values == null || values.isEmpty()) {
+            return new EncodedLabelSet(dictionary, EMPTY, 0);
+        }
+        long[] words = EMPTY;
+        int size = 0;
+        for (Object value : values) {
+            final int id = dictionary.intern(value);
+            final int wordIndex = id >>> 6;
+            if (wordIndex >= words.length) {
+                final long[] newWords = new long[wordIndex + 1];
+                System.arraycopy(words, 0, newWords, 0, words.length);
+                words = newWords;
+            }
+            final long mask = 1L << id;
+            if ((words[wordIndex] & mask) == 0) {
+                words[wordIndex] |= mask;
+                size++;
+            }
+        }
+        return new EncodedLabelSet(dictionary, words, size);
+    }
+
+    public LabelDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * @return true if this set contains all the values of the other set.
+     */
+    public boolean containsAll(EncodedLabelSet other) {
+        if (other.dictionary != dictionary) {
+            return super.containsAll(other);
+        }
+        final long[] otherWords = other.words;
+        for (int i = 0; i < otherWords.length; i++) {
+            final long word = i < words.length ? words[i] : 0;
+            if ((otherWords[i] & ~word) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of values contained in both this set and the other set.
+     */
+    public int countMatches(EncodedLabelSet other) {
+        if (other.dictionary != dictionary) {
+            int count = 0;
+            for (Object value : other) {
+                if (contains(value)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        final int length = Math.min(words.length, other.words.length);
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            count += Long.bitCount(words[i] & other.words[i]);
+        }
+        return count;
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if (c instanceof EncodedLabelSet) {
+            return containsAll((EncodedLabelSet) c);
+        }
+        return super.containsAll(c);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        final int id = dictionary.find(o);
+        if (id < 0) {
+            return false;
+        }
+        final int wordIndex = id >>> 6;
+        return wordIndex < words.length && (words[wordIndex] & (1L << id)) != 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return new Iterator<Object>() {
+            private int next = nextId(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Object next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                final Object value = dictionary.getValue(next);
+                next = nextId(next + 1);
+                return value;
+            }
+        };
+    }
+
+    private int nextId(int fromId) {
+        int wordIndex = fromId >>> 6;
+        if (wordIndex >= words.length) {
+            return -1;
+        }
+        long word = words[wordIndex] & (-1L << fromId);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == words.length) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+    }
+}
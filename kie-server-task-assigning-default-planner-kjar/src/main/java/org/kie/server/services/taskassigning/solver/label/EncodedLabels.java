@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.label;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.kie.server.services.taskassigning.core.model.DefaultLabels;
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.User;
+import org.kie.server.services.taskassigning.core.model.solver.TaskHelper;
+import org.kie.server.services.taskassigning.core.model.solver.condition.TaskAssigningConditions;
+
+import static org.kie.server.services.taskassigning.core.model.ModelConstants.IS_PLANNING_USER;
+
+/**
+ * Label conditions used by the score rules, with the same semantics as the ones provided by the TaskHelper and the
+ * TaskAssigningConditions, but resolved with bitset operations when the task labels were encoded at extraction time,
+ * see TaskDataExampleValueExtractor.
+ * <p>
+ * The user labels are calculated by the user system extractors, that might live in a different kjar, so they are
+ * encoded on first use and cached by user. An encoded entry is only reused while the user still holds the same label
+ * set instance it was calculated from, so a users refresh is picked up transparently. The cache is bounded, see
+ * USER_LABELS_CACHE_MAX_SIZE_PROPERTY, and it's cleared when the bound is reached, so that the entries of the users
+ * that were removed from the solution don't accumulate.
+ * When the task labels weren't encoded the calculation is delegated to the product helpers.
+ */
+public class EncodedLabels {
+
+    /**
+     * System property for configuring the max number of users whose encoded labels are cached, per label name.
+     * Defaults to 65536.
+     */
+    public static final String USER_LABELS_CACHE_MAX_SIZE_PROPERTY = "org.kie.server.services.taskassigning.solver.label.userLabelsCacheMaxSize";
+
+    public static final int DEFAULT_USER_LABELS_CACHE_MAX_SIZE = 65536;
+
+    private static final UserLabelsCache USER_LABELS = new UserLabelsCache(parseCacheMaxSize());
+
+    private EncodedLabels() {
+    }
+
+    public static boolean userMeetsRequiredSkillsOrPlanningUserCondition(Task task, User user) {
+        if (user == null || !user.isEnabled()) {
+            return false;
+        }
+        if (IS_PLANNING_USER.test(user.getEntityId())) {
+            return true;
+        }
+        final String labelName = DefaultLabels.SKILLS.name();
+        final Set<Object> taskLabels = task.getLabelValues(labelName);
+        if (!(taskLabels instanceof EncodedLabelSet)) {
+            return TaskAssigningConditions.userMeetsRequiredSkillsOrPlanningUserCondition(task, user);
+        }
+        if (taskLabels.isEmpty()) {
+            return true;
+        }
+        final EncodedLabelSet userLabels = USER_LABELS.get(user, labelName, (EncodedLabelSet) taskLabels);
+        return userLabels != null && userLabels.containsAll((EncodedLabelSet) taskLabels);
+    }
+
+    public static long countMatchingLabels(Task task, User user, String labelName) {
+        final Set<Object> taskLabels = task.getLabelValues(labelName);
+        if (!(taskLabels instanceof EncodedLabelSet)) {
+            return TaskHelper.countMatchingLabels(task, user, labelName);
+        }
+        if (taskLabels.isEmpty() || user == null) {
+            return 0;
+        }
+        final EncodedLabelSet userLabels = USER_LABELS.get(user, labelName, (EncodedLabelSet) taskLabels);
+        return userLabels != null ? userLabels.countMatches((EncodedLabelSet) taskLabels) : 0;
+    }
+
+    private static int parseCacheMaxSize() {
+        try {
+            return Math.max(1, Integer.parseInt(System.getProperty(USER_LABELS_CACHE_MAX_SIZE_PROPERTY,
+                                                                   Integer.toString(DEFAULT_USER_LABELS_CACHE_MAX_SIZE))));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("userLabelsCacheMaxSize wasn't properly set: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Encoded user labels by label name and user, bounded to maxSize users per label name.
+     */
+    static class UserLabelsCache {
+
+        private final int maxSize;
+
+        private final ConcurrentMap<String, ConcurrentMap<String, CachedLabels>> entries = new ConcurrentHashMap<>();
+
+        UserLabelsCache(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * @return the user labels encoded with the dictionary of the task labels, or null if the user has no labels.
+         */
+        EncodedLabelSet get(User user, String labelName, EncodedLabelSet taskLabels) {
+            final Set<Object> labels = user.getLabelValues(labelName);
+            if (labels == null) {
+                return null;
+            }
+            if (labels instanceof EncodedLabelSet) {
+                return (EncodedLabelSet) labels;
+            }
+            final LabelDictionary dictionary = taskLabels.getDictionary();
+            final ConcurrentMap<String, CachedLabels> cache = entries.computeIfAbsent(labelName, name -> new ConcurrentHashMap<>());
+            CachedLabels cached = cache.get(user.getEntityId());
+            if (cached == null || cached.source != labels || cached.encoded.getDictionary() != dictionary) {
+                if (cached == null && cache.size() >= maxSize) {
+                    cache.clear();
+                }
+                cached = new CachedLabels(labels, EncodedLabelSet.encode(dictionary, labels));
+                cache.put(user.getEntityId(), cached);
+            }
+            return cached.encoded;
+        }
+
+        int size(String labelName) {
+            final ConcurrentMap<String, CachedLabels> cache = entries.get(labelName);
+            return cache != null ? cache.size() : 0;
+        }
+    }
+
+    private static class CachedLabels {
+
+        private final Set<Object> source;
+        private final EncodedLabelSet encoded;
+
+        private CachedLabels(Set<Object> source, EncodedLabelSet encoded) {
+            this.source = source;
+            this.encoded = encoded;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.label;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maps the values of a label, e.g. the SKILLS, to dense integer ids, so that sets of label values can be encoded as
+ * bitsets. There is one dictionary per label name, shared by all the tasks and users in the kjar. Ids are never
+ * reused nor removed, so a dictionary grows with the number of distinct values of the label.
+ */
+public class LabelDictionary {
+
+    private static final ConcurrentMap<String, LabelDictionary> DICTIONARIES = new ConcurrentHashMap<>();
+
+    private final String labelName;
+
+    private final Map<Object, Integer> ids = new ConcurrentHashMap<>();
+
+    private volatile Object[] values = new Object[64];
+
+    private int size;
+
+    private LabelDictionary(String labelName) {
+        this.labelName = labelName;
+    }
+
+    public static LabelDictionary forLabel(String labelName) {
+        return DICTIONARIES.computeIfAbsent(labelName, LabelDictionary::new);
+    }
+
+    public String getLabelName() {
+        return labelName;
+    }
+
+    /**
+     * @return the id of the value, adding it to the dictionary if it wasn't present.
+     */
+    public int intern(Object value) {
+        final Integer id = ids.get(value);
+        return id != null ? id : add(value);
+    }
+
+    /**
+     * @return the id of the value, or -1 if the value is not in the dictionary.
+     */
+    public int find(Object value) {
+        final Integer id = value != null ? ids.get(value) : null;
+        return id != null ? id : -1;
+    }
+
+    public Object getValue(int id) {
+        return values[id];
+    }
+
+    private synchronized int add(Object value) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            Object[] currentValues = values;
+            if (size == currentValues.length) {
+                currentValues = Arrays.copyOf(currentValues, size * 2);
+            }
+            currentValues[size] = value;
+            values = currentValues;
+            id = size++;
+            // the value is stored before the id is published.
+            ids.put(value, id);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.label;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bounded, least recently used, memoization of the label value sets produced by a LabelValueExtractor. The sets are
+ * computed once per key, e.g. the extracted raw value, and shared by all the entities with the same key. So the
+ * computed sets must be immutable.
+ * <p>
+ * Extractors are executed for every task and user on each solution refresh, so for the unchanged entities a lookup
+ * resolves the label values without allocating.
+ */
+public class LabelValuesCache<K> {
+
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final Map<K, Set<Object>> entries;
+
+    public LabelValuesCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public LabelValuesCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than zero: " + maxSize);
+        }
+        this.entries = new LinkedHashMap<K, Set<Object>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Set<Object>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return the cached set for the key, or the set computed by the function, that is cached if not null.
+     */
+    public synchronized Set<Object> get(K key, Function<? super K, Set<Object>> function) {
+        Set<Object> result = entries.get(key);
+        if (result == null) {
+            result = function.apply(key);
+            if (result != null) {
+                entries.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.partition;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.kie.server.services.taskassigning.core.model.User;
+import org.kie.server.services.taskassigning.solver.eligibility.EligibilityIndex;
+import org.optaplanner.core.impl.partitionedsearch.partitioner.SolutionPartitioner;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.kie.server.services.taskassigning.core.model.ModelConstants.IS_PLANNING_USER;
+
+/**
+ * Splits the working solution into independent partitions by the connectivity of the tasks and the users that are
+ * eligible for them, see EligibilityIndex. The tasks that share eligible users, e.g. the ResolveDispute tasks of the
+ * CreditAnalyst group, are kept together, while the tasks with disjoint eligible users, e.g. the NotifyCustomer tasks
+ * of the ClientRelations group, can be solved in parallel.
+ * <p>
+ * The connected components are calculated with a union-find over the tasks and users, where a task is connected to:
+ * <ul>
+ * <li>the user of the chain it's currently assigned to, so that the chains are never split. Pinned tasks are only
+ * connected to it.</li>
+ * <li>its eligible users, except the planning user.</li>
+ * <li>the planning user, only when it's not initialized and has no other eligible user, or when it's currently
+ * assigned to the planning user. In the second case the task is not connected to its eligible users, otherwise the
+ * planning user would connect all the components. The following global local search can move these tasks.</li>
+ * </ul>
+ * The components are packed, largest first, into at most partCount partitions of similar number of tasks. The
+ * working solution is planning cloned once, and each partition is built from the cloned users and tasks of its
+ * components. Since no chain spans two partitions, the partitions never modify the same entities. The tasks might
+ * still reference the users of other partitions as potential owners, but only their problem properties are read.
+ */
+public class TaskAssigningSolutionPartitioner implements SolutionPartitioner<TaskAssigningSolution> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskAssigningSolutionPartitioner.class);
+
+    private int partCount = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Configured by the solutionPartitionerCustomProperties of the partitionedSearch.
+     */
+    public void setPartCount(int partCount) {
+        if (partCount <= 0) {
+            throw new IllegalArgumentException("partCount must be greater than zero: " + partCount);
+        }
+        this.partCount = partCount;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<TaskAssigningSolution> splitWorkingSolution(ScoreDirector<TaskAssigningSolution> scoreDirector, Integer runnablePartThreadLimit) {
+        final TaskAssigningSolution original = scoreDirector.getWorkingSolution();
+        final List<Partition> partitions = calculatePartitions(original, partCount);
+        final List<TaskAssigningSolution> result = new ArrayList<>(partitions.size());
+        final TaskAssigningSolution clone = ((InnerScoreDirector<TaskAssigningSolution>) scoreDirector).cloneSolution(original);
+        for (Partition partition : partitions) {
+            final List<User> users = new ArrayList<>(partition.userIndexes.size());
+            for (int userIndex : partition.userIndexes) {
+                users.add(clone.getUserList().get(userIndex));
+            }
+            final List<Task> tasks = new ArrayList<>(partition.taskIndexes.size());
+            for (int taskIndex : partition.taskIndexes) {
+                tasks.add(clone.getTaskList().get(taskIndex));
+            }
+            result.add(new TaskAssigningSolution(original.getId(), users, tasks));
+        }
+        if (LOGGER.isDebugEnabled()) {
+            for (int i = 0; i < partitions.size(); i++) {
+                LOGGER.debug("Partition {}: users: {}, tasks: {}", i, partitions.get(i).userIndexes.size(), partitions.get(i).taskIndexes.size());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the partitions as lists of indexes into the solution users and tasks lists.
+     */
+    static List<Partition> calculatePartitions(TaskAssigningSolution solution, int partCount) {
+        final List<User> users = solution.getUserList() != null ? solution.getUserList() : new ArrayList<>();
+        final List<Task> tasks = solution.getTaskList() != null ? solution.getTaskList() : new ArrayList<>();
+        final int userCount = users.size();
+        final Map<User, Integer> userIndexes = new IdentityHashMap<>(userCount);
+        int planningUserIndex = -1;
+        for (int i = 0; i < userCount; i++) {
+            final User user = users.get(i);
+            userIndexes.put(user, i);
+            if (IS_PLANNING_USER.test(user.getEntityId())) {
+                planningUserIndex = i;
+            }
+        }
+
+        final UnionFind unionFind = new UnionFind(userCount + tasks.size());
+        final EligibilityIndex index = new EligibilityIndex(solution);
+        for (int i = 0; i < tasks.size(); i++) {
+            final Task task = tasks.get(i);
+            final int taskNode = userCount + i;
+            final User currentUser = task.getUser();
+            if (currentUser != null) {
+                unionFind.union(taskNode, userIndexes.get(currentUser));
+                if (task.isPinned() || IS_PLANNING_USER.test(currentUser.getEntityId())) {
+                    continue;
+                }
+            }
+            boolean hasEligibleUsers = false;
+            for (User user : index.getEligibleUsers(task)) {
+                if (!IS_PLANNING_USER.test(user.getEntityId())) {
+                    unionFind.union(taskNode, userIndexes.get(user));
+                    hasEligibleUsers = true;
+                }
+            }
+            if (!hasEligibleUsers && currentUser == null && planningUserIndex >= 0) {
+                unionFind.union(taskNode, planningUserIndex);
+            }
+        }
+
+        final Map<Integer, Partition> components = new HashMap<>();
+        for (int i = 0; i < userCount; i++) {
+            components.computeIfAbsent(unionFind.find(i), root -> new Partition()).userIndexes.add(i);
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            components.computeIfAbsent(unionFind.find(userCount + i), root -> new Partition()).taskIndexes.add(i);
+        }
+        return pack(new ArrayList<>(components.values()), partCount);
+    }
+
+    /**
+     * Packs the components into at most partCount partitions, by adding each component, largest first, to the
+     * partition with less tasks.
+     */
+    private static List<Partition> pack(List<Partition> components, int partCount) {
+        final Comparator<Partition> bySize = Comparator.comparingInt((Partition partition) -> partition.taskIndexes.size())
+                .thenComparingInt(partition -> partition.userIndexes.size());
+        components.sort(bySize.reversed());
+        final int size = Math.min(partCount, components.size());
+        final List<Partition> partitions = new ArrayList<>(size);
+        final PriorityQueue<Partition> queue = new PriorityQueue<>(Math.max(1, size), bySize);
+        for (int i = 0; i < size; i++) {
+            final Partition partition = new Partition();
+            partitions.add(partition);
+            queue.add(partition);
+        }
+        for (Partition component : components) {
+            final Partition partition = queue.poll();
+            partition.userIndexes.addAll(component.userIndexes);
+            partition.taskIndexes.addAll(component.taskIndexes);
+            queue.add(partition);
+        }
+        return partitions;
+    }
+
+    static class Partition {
+
+        final List<Integer> userIndexes = new ArrayList<>();
+        final List<Integer> taskIndexes = new ArrayList<>();
+    }
+
+    /**
+     * Union-find with path halving and union by size.
+     */
+    static class UnionFind {
+
+        private final int[] parents;
+        private final int[] sizes;
+
+        UnionFind(int size) {
+            parents = new int[size];
+            sizes = new int[size];
+            for (int i = 0; i < size; i++) {
+                parents[i] = i;
+                sizes[i] = 1;
+            }
+        }
+
+        int find(int node) {
+            int current = node;
+            while (parents[current] != current) {
+                parents[current] = parents[parents[current]];
+                current = parents[current];
+            }
+            return current;
+        }
+
+        void union(int a, int b) {
+            int rootA = find(a);
+            int rootB = find(b);
+            if (rootA == rootB) {
+                return;
+            }
+            if (sizes[rootA] < sizes[rootB]) {
+                final int tmp = rootA;
+                rootA = rootB;
+                rootB = tmp;
+            }
+            parents[rootB] = rootA;
+            sizes[rootA] += sizes[rootB];
+        }
+    }
+}
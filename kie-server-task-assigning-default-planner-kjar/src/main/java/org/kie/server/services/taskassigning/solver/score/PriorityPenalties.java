@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.score;
+
+import org.kie.server.services.taskassigning.core.model.solver.PriorityHelper;
+
+/**
+ * Lookup table for the "Priority" constraint, with the soft level and the end time weight of each task priority
+ * precomputed from the PriorityHelper when the class is loaded, so that the level classification and the weight
+ * calculation are resolved with two array reads:
+ * <ul>
+ * <li>High level priorities are penalized at soft level 1.</li>
+ * <li>Medium level priorities are penalized at soft level 4.</li>
+ * <li>Low level priorities are penalized at soft level 5.</li>
+ * </ul>
+ * The table covers the MIN_PRIORITY to MAX_PRIORITY range, and it's only used if the PriorityHelper penalty is linear
+ * in the end time, which is verified when the table is built. Other priorities, or a not linear penalty, are
+ * delegated to the PriorityHelper, so the results are always the ones of the high, medium and low level priority
+ * calculations.
+ */
+public class PriorityPenalties {
+
+    public static final int HIGH_LEVEL = 1;
+    public static final int MEDIUM_LEVEL = 4;
+    public static final int LOW_LEVEL = 5;
+
+    /**
+     * Level of the priorities that are not penalized.
+     */
+    public static final int NO_LEVEL = -1;
+
+    static final int MIN_PRIORITY = 0;
+    static final int MAX_PRIORITY = 10;
+
+    private static final int[] CHECKED_END_TIMES = {0, 2, 3, 60, 1_000_000};
+
+    private static final int[] LEVELS = new int[MAX_PRIORITY - MIN_PRIORITY + 1];
+
+    private static final long[] WEIGHTS = new long[MAX_PRIORITY - MIN_PRIORITY + 1];
+
+    private static final boolean LINEAR;
+
+    static {
+        boolean linear = true;
+        for (int priority = MIN_PRIORITY; priority <= MAX_PRIORITY; priority++) {
+            LEVELS[priority - MIN_PRIORITY] = calculateLevel(priority);
+            final long weight = PriorityHelper.calculateWeightedPenalty(priority, 1);
+            WEIGHTS[priority - MIN_PRIORITY] = weight;
+            for (int endTime : CHECKED_END_TIMES) {
+                linear &= PriorityHelper.calculateWeightedPenalty(priority, endTime) == weight * endTime;
+            }
+        }
+        LINEAR = linear;
+    }
+
+    private PriorityPenalties() {
+    }
+
+    /**
+     * @return the soft level the given priority is penalized at, or NO_LEVEL.
+     */
+    public static int getSoftLevel(int priority) {
+        return isTabulated(priority) ? LEVELS[priority - MIN_PRIORITY] : calculateLevel(priority);
+    }
+
+    public static boolean isPenalized(int priority) {
+        return getSoftLevel(priority) != NO_LEVEL;
+    }
+
+    /**
+     * @return the same value as PriorityHelper.calculateWeightedPenalty(priority, endTimeInMinutes).
+     */
+    public static long calculatePenalty(int priority, int endTimeInMinutes) {
+        return LINEAR && isTabulated(priority) ? WEIGHTS[priority - MIN_PRIORITY] * endTimeInMinutes :
+                PriorityHelper.calculateWeightedPenalty(priority, endTimeInMinutes);
+    }
+
+    private static boolean isTabulated(int priority) {
+        return priority >= MIN_PRIORITY && priority <= MAX_PRIORITY;
+    }
+
+    private static int calculateLevel(int priority) {
+        if (PriorityHelper.isHighLevel(priority)) {
+            return HIGH_LEVEL;
+        } else if (PriorityHelper.isMediumLevel(priority)) {
+            return MEDIUM_LEVEL;
+        } else if (PriorityHelper.isLowLevel(priority)) {
+            return LOW_LEVEL;
+        }
+        return NO_LEVEL;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.score;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.kie.server.services.taskassigning.core.model.DefaultLabels;
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.kie.server.services.taskassigning.core.model.User;
+import org.kie.server.services.taskassigning.core.model.solver.condition.TaskAssigningConditions;
+import org.kie.server.services.taskassigning.solver.capacity.UserCapacity;
+import org.kie.server.services.taskassigning.solver.label.EncodedLabels;
+import org.optaplanner.core.api.score.buildin.bendablelong.BendableLongScore;
+import org.optaplanner.core.impl.score.director.incremental.IncrementalScoreCalculator;
+
+import static org.kie.server.services.taskassigning.core.model.ModelConstants.IS_PLANNING_USER;
+
+/**
+ * Java implementation of the taskAssigningScoreRules.drl constraints that produces exactly the same BendableLongScore.
+ * It can be selected by configuring the taskAssigningIncrementalSolverConfig.xml as the solver configuration.
+ * <p>
+ * Every task contributes to the score only by means of its own variables, so the calculator keeps the contribution
+ * of each task, retracts it before any variable of the task changes and recalculates it afterwards. The user
+ * dependent parts of a contribution, i.e. the potential owner, skills, planning user and affinities levels, and the
+ * user available minutes, are only recalculated when the task is assigned to a different user. The priority level of
+ * a task doesn't change during the solving, so it's resolved by the PriorityPenalties when the contribution is created.
+ */
+public class TaskAssigningIncrementalScoreCalculator implements IncrementalScoreCalculator<TaskAssigningSolution> {
+
+    static final int HARD_LEVELS = 2;
+    static final int SOFT_LEVELS = 6;
+
+    static final int HARD_REQUIRED_POTENTIAL_OWNER = 0;
+    static final int HARD_REQUIRED_SKILLS = 1;
+
+    static final int SOFT_PLANNING_USER = 0;
+    static final int SOFT_HIGH_PRIORITY = PriorityPenalties.HIGH_LEVEL;
+    static final int SOFT_DESIRED_AFFINITIES = 2;
+    static final int SOFT_MAKESPAN = 3;
+    static final int SOFT_MEDIUM_PRIORITY = PriorityPenalties.MEDIUM_LEVEL;
+    static final int SOFT_LOW_PRIORITY = PriorityPenalties.LOW_LEVEL;
+
+    private final Map<Task, Contribution> contributions = new IdentityHashMap<>();
+
+    private final long[] hardScores = new long[HARD_LEVELS];
+    private final long[] softScores = new long[SOFT_LEVELS];
+
+    /**
+     * Score contribution of a task.
+     */
+    private static class Contribution {
+
+        private User user;
+        private int availableMinutes;
+        private final int priorityLevel;
+        private final long[] hard = new long[HARD_LEVELS];
+        private final long[] soft = new long[SOFT_LEVELS];
+        private boolean inserted;
+
+        private Contribution(Task task) {
+            this.priorityLevel = PriorityPenalties.getSoftLevel(task.getPriority());
+        }
+    }
+
+    @Override
+    public void resetWorkingSolution(TaskAssigningSolution solution) {
+        contributions.clear();
+        Arrays.fill(hardScores, 0);
+        Arrays.fill(softScores, 0);
+        if (solution.getTaskList() != null) {
+            for (Task task : solution.getTaskList()) {
+                insert(task);
+            }
+        }
+    }
+
+    @Override
+    public void beforeEntityAdded(Object entity) {
+        // nothing to do, the task is inserted when it was added.
+    }
+
+    @Override
+    public void afterEntityAdded(Object entity) {
+        if (entity instanceof Task) {
+            insert((Task) entity);
+        }
+    }
+
+    @Override
+    public void beforeVariableChanged(Object entity, String variableName) {
+        if (entity instanceof Task) {
+            retract((Task) entity);
+        }
+    }
+
+    @Override
+    public void afterVariableChanged(Object entity, String variableName) {
+        if (entity instanceof Task) {
+            insert((Task) entity);
+        }
+    }
+
+    @Override
+    public void beforeEntityRemoved(Object entity) {
+        if (entity instanceof Task) {
+            retract((Task) entity);
+            contributions.remove(entity);
+        }
+    }
+
+    @Override
+    public void afterEntityRemoved(Object entity) {
+        // nothing to do, the task was retracted before the removal.
+    }
+
+    @Override
+    public BendableLongScore calculateScore() {
+        return BendableLongScore.of(hardScores.clone(), softScores.clone());
+    }
+
+    private void insert(Task task) {
+        Contribution contribution = contributions.get(task);
+        if (contribution == null) {
+            contribution = new Contribution(task);
+            contributions.put(task, contribution);
+        } else if (contribution.inserted) {
+            // the variable change events of a task are always paired, but be defensive with nested notifications.
+            retract(contribution);
+        }
+        calculate(task, contribution);
+        add(contribution, 1);
+        contribution.inserted = true;
+    }
+
+    private void retract(Task task) {
+        final Contribution contribution = contributions.get(task);
+        if (contribution != null && contribution.inserted) {
+            retract(contribution);
+        }
+    }
+
+    private void retract(Contribution contribution) {
+        add(contribution, -1);
+        contribution.inserted = false;
+    }
+
+    private void add(Contribution contribution, int sign) {
+        for (int i = 0; i < HARD_LEVELS; i++) {
+            hardScores[i] += sign * contribution.hard[i];
+        }
+        for (int i = 0; i < SOFT_LEVELS; i++) {
+            softScores[i] += sign * contribution.soft[i];
+        }
+    }
+
+    private static void calculate(Task task, Contribution contribution) {
+        final User user = task.getUser();
+        if (user == null) {
+            contribution.user = null;
+            Arrays.fill(contribution.hard, 0);
+            Arrays.fill(contribution.soft, 0);
+            return;
+        }
+
+        if (contribution.user != user) {
+            contribution.user = user;
+            // "Required Potential Owner"
+            contribution.hard[HARD_REQUIRED_POTENTIAL_OWNER] = TaskAssigningConditions.userMeetsPotentialOwnerOrPlanningUserCondition(task, user) ? 0 : -1;
+            // "Required Skills"
+            contribution.hard[HARD_REQUIRED_SKILLS] = EncodedLabels.userMeetsRequiredSkillsOrPlanningUserCondition(task, user) ? 0 : -1;
+            // "PlanningUser assignment"
+            contribution.soft[SOFT_PLANNING_USER] = IS_PLANNING_USER.test(user.getEntityId()) ? -1 : 0;
+            // "Desired Affinities"
+            contribution.soft[SOFT_DESIRED_AFFINITIES] = user.isEnabled() ? EncodedLabels.countMatchingLabels(task, user, DefaultLabels.AFFINITIES.name()) : 0;
+            // "User capacity"
+            contribution.availableMinutes = UserCapacity.getAvailableMinutes(user);
+        }
+
+        final int endTimeInMinutes = task.getEndTimeInMinutes() != null ? task.getEndTimeInMinutes() : 0;
+
+        // "Priority"
+        if (contribution.priorityLevel != PriorityPenalties.NO_LEVEL) {
+            contribution.soft[contribution.priorityLevel] = PriorityPenalties.calculatePenalty(task.getPriority(), endTimeInMinutes);
+        }
+
+        // "Minimize makespan (starting with the latest ending user first)" and "User capacity"
+        // the rule squares the Integer end time with int arithmetic, so the same is done here for an identical score.
+        contribution.soft[SOFT_MAKESPAN] = task.getNextTask() == null ?
+                -(endTimeInMinutes * endTimeInMinutes) + UserCapacity.calculateOverCapacityPenalty(contribution.availableMinutes, task.getEndTimeInMinutes()) : 0;
+    }
+}
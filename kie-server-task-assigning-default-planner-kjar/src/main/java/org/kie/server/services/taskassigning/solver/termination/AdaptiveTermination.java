@@ -0,0 +1,191 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.termination;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.optaplanner.core.impl.phase.scope.AbstractPhaseScope;
+import org.optaplanner.core.impl.phase.scope.AbstractStepScope;
+import org.optaplanner.core.impl.solver.scope.DefaultSolverScope;
+import org.optaplanner.core.impl.solver.termination.AbstractTermination;
+import org.optaplanner.core.impl.solver.termination.Termination;
+import org.optaplanner.core.impl.solver.thread.ChildThreadType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local search termination with limits that depend on the backlog size, see BacklogSizeProfile, instead of a fixed
+ * unimprovedSpentLimit. The profile is chosen when the phase starts, and the phase terminates when:
+ * <ul>
+ * <li>UNIMPROVED: the best score wasn't improved during the profile unimprovedSpentLimitMillis.</li>
+ * <li>PLATEAU: the best score improvement rate decayed, i.e. the time since the last improvement is PLATEAU_FACTOR
+ * times the median interval between the last IMPROVEMENTS_WINDOW improvements, and the profile minSpentMillis passed.
+ * </li>
+ * <li>MAX_SPENT: the phase ran during the profile maxSpentMillis.</li>
+ * </ul>
+ * The chosen profile and the phase results are reported by the AdaptiveTerminationMetrics.
+ * <p>
+ * It must be configured as the localSearch termination, e.g. by means of the terminationClass. In daemon mode the
+ * phases are restarted after the problem fact changes, and the profile is chosen again.
+ * <p>
+ * The OptaPlanner 7 Termination contract is declared with raw scopes, so the overridden methods can't be
+ * parameterized, they work on the typed view of the scopes given by the typed methods instead.
+ */
+public class AdaptiveTermination extends AbstractTermination {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveTermination.class);
+
+    static final int IMPROVEMENTS_WINDOW = 16;
+
+    static final int PLATEAU_FACTOR = 20;
+
+    private static final String UNIMPROVED = "UNIMPROVED";
+    private static final String PLATEAU = "PLATEAU";
+    private static final String MAX_SPENT = "MAX_SPENT";
+
+    private BacklogSizeProfile profile = BacklogSizeProfile.SMALL;
+
+    private long phaseStartMillis;
+
+    private long lastImprovementMillis;
+
+    private long improvements;
+
+    private final long[] improvementIntervals = new long[IMPROVEMENTS_WINDOW];
+
+    private final long[] sortedImprovementIntervals = new long[IMPROVEMENTS_WINDOW];
+
+    /**
+     * The unimproved time that makes a PLATEAU, recalculated on each best score improvement since
+     * isPhaseTerminated() is invoked far more often.
+     */
+    private long plateauMillis;
+
+    private String terminationReason;
+
+    private final LongSupplier clock;
+
+    public AdaptiveTermination() {
+        this(System::currentTimeMillis);
+    }
+
+    AdaptiveTermination(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public void phaseStarted(AbstractPhaseScope phaseScope) {
+        final TaskAssigningSolution solution = typed(phaseScope).getWorkingSolution();
+        final int tasks = solution.getTaskList() != null ? solution.getTaskList().size() : 0;
+        profile = BacklogSizeProfile.forTasks(tasks);
+        phaseStartMillis = clock.getAsLong();
+        lastImprovementMillis = phaseStartMillis;
+        improvements = 0;
+        plateauMillis = Long.MAX_VALUE;
+        terminationReason = null;
+        AdaptiveTerminationMetrics.getInstance().phaseStarted(profile, tasks);
+        LOGGER.debug("Adaptive termination profile: {} was chosen for {} tasks.", profile, tasks);
+    }
+
+    @Override
+    public void stepEnded(AbstractStepScope stepScope) {
+        if (Boolean.TRUE.equals(typed(stepScope).getBestScoreImproved())) {
+            final long now = clock.getAsLong();
+            improvementIntervals[(int) (improvements % IMPROVEMENTS_WINDOW)] = now - lastImprovementMillis;
+            improvements++;
+            lastImprovementMillis = now;
+            if (improvements >= IMPROVEMENTS_WINDOW) {
+                plateauMillis = calculatePlateauMillis();
+            }
+        }
+    }
+
+    @Override
+    public void phaseEnded(AbstractPhaseScope phaseScope) {
+        final long spentMillis = clock.getAsLong() - phaseStartMillis;
+        AdaptiveTerminationMetrics.getInstance().phaseEnded(spentMillis, improvements, terminationReason);
+        LOGGER.debug("Adaptive termination profile: {}, spent: {} ms, best score improvements: {}, reason: {}",
+                     profile, spentMillis, improvements, terminationReason);
+    }
+
+    @Override
+    public boolean isSolverTerminated(DefaultSolverScope solverScope) {
+        // only intended for terminating the local search phase.
+        return false;
+    }
+
+    @Override
+    public boolean isPhaseTerminated(AbstractPhaseScope phaseScope) {
+        final long now = clock.getAsLong();
+        final long spentMillis = now - phaseStartMillis;
+        final long unimprovedMillis = now - lastImprovementMillis;
+        if (spentMillis >= profile.getMaxSpentMillis()) {
+            terminationReason = MAX_SPENT;
+        } else if (unimprovedMillis >= profile.getUnimprovedSpentLimitMillis()) {
+            terminationReason = UNIMPROVED;
+        } else if (spentMillis >= profile.getMinSpentMillis() && unimprovedMillis >= plateauMillis) {
+            terminationReason = PLATEAU;
+        }
+        return terminationReason != null;
+    }
+
+    private long calculatePlateauMillis() {
+        System.arraycopy(improvementIntervals, 0, sortedImprovementIntervals, 0, IMPROVEMENTS_WINDOW);
+        Arrays.sort(sortedImprovementIntervals);
+        final long medianInterval = Math.max(1, sortedImprovementIntervals[IMPROVEMENTS_WINDOW / 2]);
+        return PLATEAU_FACTOR * medianInterval;
+    }
+
+    @Override
+    public double calculateSolverTimeGradient(DefaultSolverScope solverScope) {
+        // not supported, see isSolverTerminated.
+        return -1.0;
+    }
+
+    @Override
+    public double calculatePhaseTimeGradient(AbstractPhaseScope phaseScope) {
+        final long now = clock.getAsLong();
+        final double spentGradient = (double) (now - phaseStartMillis) / profile.getMaxSpentMillis();
+        final double unimprovedGradient = (double) (now - lastImprovementMillis) / profile.getUnimprovedSpentLimitMillis();
+        return Math.min(1.0, Math.max(spentGradient, unimprovedGradient));
+    }
+
+    @Override
+    public Termination createChildThreadTermination(DefaultSolverScope solverScope, ChildThreadType childThreadType) {
+        return new AdaptiveTermination(clock);
+    }
+
+    BacklogSizeProfile getProfile() {
+        return profile;
+    }
+
+    String getTerminationReason() {
+        return terminationReason;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AbstractPhaseScope<TaskAssigningSolution> typed(AbstractPhaseScope phaseScope) {
+        return phaseScope;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AbstractStepScope<TaskAssigningSolution> typed(AbstractStepScope stepScope) {
+        return stepScope;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.termination;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exposes the profile chosen by the AdaptiveTermination and the results of the phases by JMX under the OBJECT_NAME
+ * name, so that they can be correlated with the solver throughput.
+ */
+public class AdaptiveTerminationMetrics implements AdaptiveTerminationMetricsMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveTerminationMetrics.class);
+
+    public static final String OBJECT_NAME = "org.kie.server.services.taskassigning.solver:type=AdaptiveTermination";
+
+    private static final AdaptiveTerminationMetrics INSTANCE = new AdaptiveTerminationMetrics();
+
+    private volatile BacklogSizeProfile profile;
+    private volatile int tasks;
+    private volatile long phases;
+    private volatile long lastPhaseSpentMillis;
+    private volatile long lastPhaseBestScoreImprovements;
+    private volatile String lastTerminationReason;
+
+    private AdaptiveTerminationMetrics() {
+        register();
+    }
+
+    public static AdaptiveTerminationMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    void phaseStarted(BacklogSizeProfile profile, int tasks) {
+        this.profile = profile;
+        this.tasks = tasks;
+    }
+
+    synchronized void phaseEnded(long spentMillis, long bestScoreImprovements, String terminationReason) {
+        this.phases++;
+        this.lastPhaseSpentMillis = spentMillis;
+        this.lastPhaseBestScoreImprovements = bestScoreImprovements;
+        this.lastTerminationReason = terminationReason;
+    }
+
+    @Override
+    public String getProfile() {
+        final BacklogSizeProfile current = profile;
+        return current != null ? current.name() : null;
+    }
+
+    @Override
+    public int getTasks() {
+        return tasks;
+    }
+
+    @Override
+    public String getRecommendedMoveThreadCount() {
+        final BacklogSizeProfile current = profile;
+        return current != null ? current.getRecommendedMoveThreadCount() : null;
+    }
+
+    @Override
+    public int getRecommendedLateAcceptanceSize() {
+        final BacklogSizeProfile current = profile;
+        return current != null ? current.getRecommendedLateAcceptanceSize() : 0;
+    }
+
+    @Override
+    public long getPhases() {
+        return phases;
+    }
+
+    @Override
+    public long getLastPhaseSpentMillis() {
+        return lastPhaseSpentMillis;
+    }
+
+    @Override
+    public long getLastPhaseBestScoreImprovements() {
+        return lastPhaseBestScoreImprovements;
+    }
+
+    @Override
+    public synchronized double getLastPhaseImprovementRate() {
+        return lastPhaseSpentMillis > 0 ? lastPhaseBestScoreImprovements * 1000.0 / lastPhaseSpentMillis : 0;
+    }
+
+    @Override
+    public String getLastTerminationReason() {
+        return lastTerminationReason;
+    }
+
+    /**
+     * Registers this instance in the platform MBeanServer, replacing any previously registered instance, e.g. the
+     * one registered by a previous deployment of the kjar.
+     */
+    private void register() {
+        try {
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(this, objectName);
+        } catch (JMException e) {
+            LOGGER.warn("AdaptiveTerminationMetrics couldn't be registered under name {}: {}", OBJECT_NAME, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.termination;
+
+/**
+ * Management interface for the AdaptiveTermination metrics. The values correspond to the last finished phase, or to
+ * the phase in progress when indicated.
+ */
+public interface AdaptiveTerminationMetricsMXBean {
+
+    /**
+     * @return the profile of the phase in progress or the last finished one.
+     */
+    String getProfile();
+
+    int getTasks();
+
+    String getRecommendedMoveThreadCount();
+
+    int getRecommendedLateAcceptanceSize();
+
+    long getPhases();
+
+    long getLastPhaseSpentMillis();
+
+    long getLastPhaseBestScoreImprovements();
+
+    /**
+     * @return the best score improvements per second of the last phase.
+     */
+    double getLastPhaseImprovementRate();
+
+    /**
+     * @return UNIMPROVED, PLATEAU or MAX_SPENT.
+     */
+    String getLastTerminationReason();
+}
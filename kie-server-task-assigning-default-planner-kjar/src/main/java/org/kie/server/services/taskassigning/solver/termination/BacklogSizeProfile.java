@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.termination;
+
+/**
+ * Solving profiles by backlog size, i.e. the number of tasks in the solution. Each profile gives the limits used by
+ * the AdaptiveTermination, and the recommended moveThreadCount and acceptor settings for the solver configuration.
+ * <p>
+ * The moveThreadCount and the acceptor are fixed when the solver is built, so they can't change with the backlog
+ * size of each solving. They are reported by the AdaptiveTerminationMetrics, for choosing the solver configuration.
+ */
+public enum BacklogSizeProfile {
+
+    SMALL(500, 5_000, 10_000, 60_000, "NONE", 200),
+    MEDIUM(5_000, 10_000, 30_000, 180_000, "2", 400),
+    LARGE(20_000, 30_000, 120_000, 600_000, "AUTO", 1_000),
+    HUGE(Integer.MAX_VALUE, 60_000, 300_000, 1_200_000, "AUTO", 2_000);
+
+    private final int maxTasks;
+    private final long minSpentMillis;
+    private final long unimprovedSpentLimitMillis;
+    private final long maxSpentMillis;
+    private final String recommendedMoveThreadCount;
+    private final int recommendedLateAcceptanceSize;
+
+    BacklogSizeProfile(int maxTasks, long minSpentMillis, long unimprovedSpentLimitMillis, long maxSpentMillis,
+                       String recommendedMoveThreadCount, int recommendedLateAcceptanceSize) {
+        this.maxTasks = maxTasks;
+        this.minSpentMillis = minSpentMillis;
+        this.unimprovedSpentLimitMillis = unimprovedSpentLimitMillis;
+        this.maxSpentMillis = maxSpentMillis;
+        this.recommendedMoveThreadCount = recommendedMoveThreadCount;
+        this.recommendedLateAcceptanceSize = recommendedLateAcceptanceSize;
+    }
+
+    public static BacklogSizeProfile forTasks(int tasks) {
+        for (BacklogSizeProfile profile : values()) {
+            if (tasks < profile.maxTasks) {
+                return profile;
+            }
+        }
+        return HUGE;
+    }
+
+    /**
+     * @return the time the phase runs at least before a plateau can terminate it.
+     */
+    public long getMinSpentMillis() {
+        return minSpentMillis;
+    }
+
+    /**
+     * @return the time without best score improvements that terminates the phase.
+     */
+    public long getUnimprovedSpentLimitMillis() {
+        return unimprovedSpentLimitMillis;
+    }
+
+    /**
+     * @return the max time the phase can run, regardless of the best score improvements.
+     */
+    public long getMaxSpentMillis() {
+        return maxSpentMillis;
+    }
+
+    public String getRecommendedMoveThreadCount() {
+        return recommendedMoveThreadCount;
+    }
+
+    /**
+     * @return the recommended lateAcceptanceSize of the localSearch acceptor.
+     */
+    public int getRecommendedLateAcceptanceSize() {
+        return recommendedLateAcceptanceSize;
+    }
+}
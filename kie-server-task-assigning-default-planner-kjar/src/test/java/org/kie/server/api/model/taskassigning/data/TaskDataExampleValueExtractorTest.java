@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.api.model.taskassigning.data;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.kie.server.api.model.taskassigning.TaskData;
+import org.kie.server.services.taskassigning.solver.label.EncodedLabelSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TaskDataExampleValueExtractorTest {
+
+    private final TaskDataExampleValueExtractor extractor = new TaskDataExampleValueExtractor();
+
+    @Test
+    public void extractParsesAndEncodesTheSkills() {
+        final Set<Object> skills = extractor.extract(newTaskData("EN, ES"));
+        assertTrue(skills instanceof EncodedLabelSet);
+        assertEquals(new HashSet<>(Arrays.asList("EN", "ES")), skills);
+    }
+
+    @Test
+    public void extractReturnsTheSameSetForUnchangedSkills() {
+        final Set<Object> skills = extractor.extract(newTaskData("DE, IT"));
+        assertSame(skills, extractor.extract(newTaskData("DE, IT")));
+        assertSame(skills, extractor.extract(newTaskData(new String("DE, IT"))));
+    }
+
+    @Test
+    public void extractedSetsAreNotModifiable() {
+        final Set<Object> skills = extractor.extract(newTaskData("PT"));
+        try {
+            skills.add("ZH");
+            fail("the extracted set must not be modifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            skills.clear();
+            fail("the extracted set must not be modifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertEquals(Collections.singleton("PT"), extractor.extract(newTaskData("PT")));
+    }
+
+    @Test
+    public void extractWithoutSkills() {
+        assertNull(extractor.extract(TaskData.builder().build()));
+        assertNull(extractor.extract(TaskData.builder().inputData(Collections.emptyMap()).build()));
+    }
+
+    private static TaskData newTaskData(String skills) {
+        return TaskData.builder().inputData(Collections.singletonMap("skills", skills)).build();
+    }
+}
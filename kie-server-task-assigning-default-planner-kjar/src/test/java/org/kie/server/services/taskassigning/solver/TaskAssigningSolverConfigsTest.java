@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.solver;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The taskAssigningSolverConfig.xml is the source of truth of the solver configurations, and the variants can only
+ * differ from it where their header states it.
+ */
+public class TaskAssigningSolverConfigsTest {
+
+    private static final String SOLVER_CONFIG = "taskAssigningSolverConfig.xml";
+    private static final String INCREMENTAL_SOLVER_CONFIG = "taskAssigningIncrementalSolverConfig.xml";
+    private static final String ADAPTIVE_SOLVER_CONFIG = "taskAssigningAdaptiveSolverConfig.xml";
+    private static final String PARTITIONED_SOLVER_CONFIG = "taskAssigningPartitionedSolverConfig.xml";
+
+    private static final String SCORE_DIRECTOR_FACTORY = "scoreDirectorFactory";
+    private static final String MOVE_THREAD_COUNT = "moveThreadCount";
+    private static final String CUSTOM_PHASE = "customPhase";
+    private static final String LOCAL_SEARCH = "localSearch";
+    private static final String PARTITIONED_SEARCH = "partitionedSearch";
+    private static final String TERMINATION = "termination";
+    private static final String CONSTRUCTION_HEURISTIC_COMMAND = "EligibleTaskConstructionHeuristicCommand";
+
+    @Test
+    public void incrementalSolverConfigOnlyDiffersInTheScoreDirectorFactory() throws Exception {
+        final List<String> expected = describeChildren(read(SOLVER_CONFIG), SCORE_DIRECTOR_FACTORY);
+        final List<String> actual = describeChildren(read(INCREMENTAL_SOLVER_CONFIG), SCORE_DIRECTOR_FACTORY);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void adaptiveSolverConfigOnlyDiffersInTheLocalSearchTermination() throws Exception {
+        final Element solverConfig = read(SOLVER_CONFIG);
+        final Element adaptiveSolverConfig = read(ADAPTIVE_SOLVER_CONFIG);
+        assertEquals(describeChildren(solverConfig, LOCAL_SEARCH), describeChildren(adaptiveSolverConfig, LOCAL_SEARCH));
+        assertEquals(describeChildren(child(solverConfig, LOCAL_SEARCH), TERMINATION),
+                     describeChildren(child(adaptiveSolverConfig, LOCAL_SEARCH), TERMINATION));
+    }
+
+    @Test
+    public void partitionedSolverConfigOnlyDiffersInThePartitionedSearch() throws Exception {
+        final Element solverConfig = read(SOLVER_CONFIG);
+        final Element partitionedSolverConfig = read(PARTITIONED_SOLVER_CONFIG);
+
+        // the construction heuristic is moved to the partitioned search, and the moveThreadCount is not configured.
+        final List<String> expected = new ArrayList<>();
+        String constructionHeuristic = null;
+        for (Element element : children(solverConfig)) {
+            final String description = describe(element);
+            if (MOVE_THREAD_COUNT.equals(element.getTagName())) {
+                continue;
+            }
+            if (CUSTOM_PHASE.equals(element.getTagName()) && description.contains(CONSTRUCTION_HEURISTIC_COMMAND)) {
+                constructionHeuristic = description;
+                continue;
+            }
+            expected.add(description);
+        }
+        assertEquals(expected, describeChildren(partitionedSolverConfig, PARTITIONED_SEARCH));
+
+        final Element partitionedSearch = child(partitionedSolverConfig, PARTITIONED_SEARCH);
+        assertEquals(constructionHeuristic, describe(child(partitionedSearch, CUSTOM_PHASE)));
+        assertEquals(describeChildren(child(solverConfig, LOCAL_SEARCH), TERMINATION),
+                     describeChildren(child(partitionedSearch, LOCAL_SEARCH), TERMINATION));
+    }
+
+    private static Element read(String resource) throws Exception {
+        try (InputStream in = TaskAssigningSolverConfigsTest.class.getResourceAsStream(resource)) {
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in).getDocumentElement();
+        }
+    }
+
+    private static List<Element> children(Element element) {
+        final List<Element> result = new ArrayList<>();
+        final NodeList nodes = element.getChildNodes();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            if (nodes.item(i).getNodeType() == Node.ELEMENT_NODE) {
+                result.add((Element) nodes.item(i));
+            }
+        }
+        return result;
+    }
+
+    private static Element child(Element element, String tagName) {
+        for (Element child : children(element)) {
+            if (tagName.equals(child.getTagName())) {
+                return child;
+            }
+        }
+        throw new AssertionError(tagName + " was not found in " + element.getTagName());
+    }
+
+    /**
+     * @return the description of the element children, excluding the ones with the given tag name.
+     */
+    private static List<String> describeChildren(Element element, String excludedTagName) {
+        final List<String> result = new ArrayList<>();
+        for (Element child : children(element)) {
+            if (!excludedTagName.equals(child.getTagName())) {
+                result.add(describe(child));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the element with its text and children, without the comments and formatting.
+     */
+    private static String describe(Element element) {
+        final List<Element> children = children(element);
+        if (children.isEmpty()) {
+            return element.getTagName() + "=" + element.getTextContent().trim();
+        }
+        final StringBuilder result = new StringBuilder(element.getTagName()).append('{');
+        for (Element child : children) {
+            result.append(describe(child)).append(';');
+        }
+        return result.append('}').toString();
+    }
+}
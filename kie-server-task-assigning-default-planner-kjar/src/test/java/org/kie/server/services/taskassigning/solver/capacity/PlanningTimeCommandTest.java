@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.solver.capacity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.kie.server.services.taskassigning.core.model.DefaultLabels;
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.kie.server.services.taskassigning.core.model.TaskOrUser;
+import org.kie.server.services.taskassigning.core.model.User;
+import org.optaplanner.core.api.score.buildin.bendablelong.BendableLongScore;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.core.impl.score.director.ScoreDirectorFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.kie.server.services.taskassigning.core.model.ModelConstants.PLANNING_USER_ID;
+
+public class PlanningTimeCommandTest {
+
+    private static final String SCORE_RULES_SOLVER_CONFIG = "org/kie/server/services/taskassigning/solver/score/taskAssigningScoreRulesSolverConfig.xml";
+    private static final String INCREMENTAL_SOLVER_CONFIG = "org/kie/server/services/taskassigning/solver/taskAssigningIncrementalSolverConfig.xml";
+
+    // 2020-06-01 is a Monday.
+    private static final LocalDateTime MONDAY_10_00 = LocalDateTime.of(2020, 6, 1, 10, 0);
+
+    private static final LocalDateTime MONDAY_16_50 = LocalDateTime.of(2020, 6, 1, 16, 50);
+
+    private final ScoreDirectorFactory<TaskAssigningSolution> scoreRulesFactory =
+            SolverFactory.<TaskAssigningSolution>createFromXmlResource(SCORE_RULES_SOLVER_CONFIG).getScoreDirectorFactory();
+
+    @Test
+    public void availableMinutesAreSetAtThePlanningTime() {
+        final TaskAssigningSolution solution = newSolution();
+        final User user1 = solution.getUserList().get(1);
+        final User user2 = solution.getUserList().get(2);
+        final Map<String, Object> user1Attributes = user1.getAttributes();
+        final Map<String, Object> user2Attributes = user2.getAttributes();
+        try (ScoreDirector<TaskAssigningSolution> scoreDirector = buildScoreDirector(scoreRulesFactory, solution)) {
+            assertEquals(1, PlanningTimeCommand.apply(scoreDirector, MONDAY_10_00));
+        }
+        assertEquals(60, UserCapacity.getAvailableMinutes(user1));
+        assertEquals(MONDAY_10_00, ((PlannedUserAttributes) user1.getAttributes()).getPlanningTime());
+        // the attributes don't change for the users synchronization.
+        assertEquals(user1Attributes, user1.getAttributes());
+        assertEquals(user1.getAttributes(), user1Attributes);
+        assertEquals(user1Attributes.hashCode(), user1.getAttributes().hashCode());
+        // users without a working calendar are not changed.
+        assertSame(user2Attributes, user2.getAttributes());
+    }
+
+    @Test
+    public void usersAreOnlyChangedWhenTheAvailableMinutesChange() {
+        final TaskAssigningSolution solution = newSolution();
+        try (ScoreDirector<TaskAssigningSolution> scoreDirector = buildScoreDirector(scoreRulesFactory, solution)) {
+            assertEquals(1, PlanningTimeCommand.apply(scoreDirector, MONDAY_10_00));
+            assertEquals(0, PlanningTimeCommand.apply(scoreDirector, MONDAY_10_00.plusMinutes(5)));
+            assertEquals(1, PlanningTimeCommand.apply(scoreDirector, MONDAY_16_50));
+        }
+        assertEquals(10, UserCapacity.getAvailableMinutes(solution.getUserList().get(1)));
+    }
+
+    @Test
+    public void scoreRulesAndIncrementalScoreSeeTheAvailableMinutes() {
+        final ScoreDirectorFactory<TaskAssigningSolution> incrementalFactory =
+                SolverFactory.<TaskAssigningSolution>createFromXmlResource(INCREMENTAL_SOLVER_CONFIG).getScoreDirectorFactory();
+        final TaskAssigningSolution solution = newSolution();
+        try (ScoreDirector<TaskAssigningSolution> rulesScoreDirector = buildScoreDirector(scoreRulesFactory, solution);
+             ScoreDirector<TaskAssigningSolution> incrementalScoreDirector = buildScoreDirector(incrementalFactory, solution)) {
+            final BendableLongScore initialScore = (BendableLongScore) rulesScoreDirector.calculateScore();
+            assertEquals(initialScore, incrementalScoreDirector.calculateScore());
+
+            PlanningTimeCommand.apply(rulesScoreDirector, MONDAY_16_50);
+            final BendableLongScore rulesScore = (BendableLongScore) rulesScoreDirector.calculateScore();
+            // the user1 work ends at minute 30, 20 minutes beyond the 10 available ones.
+            assertTrue(rulesScore.compareTo(initialScore) < 0);
+            assertEquals(calculateScore(scoreRulesFactory, solution), rulesScore);
+
+            // the incremental score director shares the solution, restore the attributes so it's notified of the change too.
+            final Map<String, Object> attributes = PlannedUserAttributes.unwrap(solution.getUserList().get(1).getAttributes());
+            solution.getUserList().get(1).setAttributes(attributes);
+            PlanningTimeCommand.apply(incrementalScoreDirector, MONDAY_16_50);
+            assertEquals(rulesScore, incrementalScoreDirector.calculateScore());
+        }
+    }
+
+    private static ScoreDirector<TaskAssigningSolution> buildScoreDirector(ScoreDirectorFactory<TaskAssigningSolution> factory, TaskAssigningSolution solution) {
+        final ScoreDirector<TaskAssigningSolution> scoreDirector = factory.buildScoreDirector();
+        scoreDirector.setWorkingSolution(solution);
+        return scoreDirector;
+    }
+
+    private static BendableLongScore calculateScore(ScoreDirectorFactory<TaskAssigningSolution> factory, TaskAssigningSolution solution) {
+        try (ScoreDirector<TaskAssigningSolution> scoreDirector = buildScoreDirector(factory, solution)) {
+            return (BendableLongScore) scoreDirector.calculateScore();
+        }
+    }
+
+    /**
+     * @return a solution with the planning user, the user1 with a 09:00 to 17:00 shift on working days and the tasks 1
+     * and 2 assigned, and the user2 without working calendar.
+     */
+    private static TaskAssigningSolution newSolution() {
+        final User planningUser = new User(0, PLANNING_USER_ID, true);
+        final Map<String, Object> shift = new HashMap<>();
+        shift.put(UserCapacity.CAPACITY_MINUTES, 60);
+        shift.put(UserCapacity.WORKING_DAYS, "1111100");
+        shift.put(UserCapacity.SHIFT_START_MINUTE, 540);
+        shift.put(UserCapacity.SHIFT_END_MINUTE, 1020);
+        final User user1 = newUser(1, "user1", shift);
+        final User user2 = newUser(2, "user2", Collections.singletonMap(UserCapacity.CAPACITY_MINUTES, 30));
+        final List<Task> tasks = new ArrayList<>();
+        for (long id = 1; id <= 2; id++) {
+            final Task task = new Task(id, "task" + id, 0);
+            task.setDurationInMinutes(15);
+            task.setLabelValues(DefaultLabels.SKILLS.name(), Collections.emptySet());
+            task.getPotentialOwners().add(user1);
+            tasks.add(task);
+        }
+        assign(user1, tasks.get(0), tasks.get(1));
+        return new TaskAssigningSolution(-1, new ArrayList<>(Arrays.asList(planningUser, user1, user2)), tasks);
+    }
+
+    private static User newUser(long id, String entityId, Map<String, Object> attributes) {
+        final User user = new User(id, entityId, true);
+        user.setLabelValues(DefaultLabels.SKILLS.name(), Collections.emptySet());
+        user.setAttributes(attributes);
+        return user;
+    }
+
+    private static void assign(User user, Task... tasks) {
+        TaskOrUser previous = user;
+        int endTime = 0;
+        for (Task task : tasks) {
+            task.setPreviousTaskOrUser(previous);
+            previous.setNextTask(task);
+            task.setUser(user);
+            task.setStartTimeInMinutes(endTime);
+            endTime += task.getDurationInMinutes();
+            task.setEndTime(endTime);
+            previous = task;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.solver.capacity;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.kie.server.services.taskassigning.core.model.User;
+
+import static org.junit.Assert.assertEquals;
+import static org.kie.server.services.taskassigning.solver.capacity.UserCapacity.AVAILABLE_MINUTES;
+import static org.kie.server.services.taskassigning.solver.capacity.UserCapacity.CAPACITY_MINUTES;
+import static org.kie.server.services.taskassigning.solver.capacity.UserCapacity.SHIFT_END_MINUTE;
+import static org.kie.server.services.taskassigning.solver.capacity.UserCapacity.SHIFT_START_MINUTE;
+import static org.kie.server.services.taskassigning.solver.capacity.UserCapacity.UNLIMITED;
+import static org.kie.server.services.taskassigning.solver.capacity.UserCapacity.WORKING_DAYS;
+import static org.kie.server.services.taskassigning.solver.capacity.UserCapacity.calculateAvailableMinutes;
+
+public class UserCapacityTest {
+
+    // 2020-06-01 is a Monday.
+    private static final LocalDateTime MONDAY_10_00 = LocalDateTime.of(2020, 6, 1, 10, 0);
+
+    private static final LocalDateTime SATURDAY_10_00 = LocalDateTime.of(2020, 6, 6, 10, 0);
+
+    private static final LocalDateTime TUESDAY_02_00 = LocalDateTime.of(2020, 6, 2, 2, 0);
+
+    @Test
+    public void calculateAvailableMinutesWithoutRestrictions() {
+        assertEquals(UNLIMITED, calculateAvailableMinutes(new HashMap<>(), MONDAY_10_00));
+    }
+
+    @Test
+    public void calculateAvailableMinutesWithCapacity() {
+        assertEquals(120, calculateAvailableMinutes(attributes(120, null, null, null), MONDAY_10_00));
+    }
+
+    @Test
+    public void calculateAvailableMinutesWithWorkingDays() {
+        assertEquals(14 * 60, calculateAvailableMinutes(attributes(null, "1111100", null, null), MONDAY_10_00));
+        assertEquals(0, calculateAvailableMinutes(attributes(null, "1111100", null, null), SATURDAY_10_00));
+    }
+
+    @Test
+    public void calculateAvailableMinutesWithShift() {
+        // 09:00 to 17:00
+        final Map<String, Object> attributes = attributes(600, "1111100", 540, 1020);
+        assertEquals(7 * 60, calculateAvailableMinutes(attributes, MONDAY_10_00));
+        assertEquals(0, calculateAvailableMinutes(attributes, SATURDAY_10_00));
+        assertEquals(0, calculateAvailableMinutes(attributes, TUESDAY_02_00));
+        assertEquals(60, calculateAvailableMinutes(attributes(60, "1111100", 540, 1020), MONDAY_10_00));
+    }
+
+    @Test
+    public void calculateAvailableMinutesWithShiftEndingTheNextDay() {
+        // 22:00 to 06:00, the Monday shift ends on Tuesday.
+        final Map<String, Object> attributes = attributes(null, "1000000", 1320, 360);
+        assertEquals(4 * 60, calculateAvailableMinutes(attributes, TUESDAY_02_00));
+        assertEquals(0, calculateAvailableMinutes(attributes, MONDAY_10_00));
+        assertEquals(8 * 60, calculateAvailableMinutes(attributes, LocalDateTime.of(2020, 6, 1, 22, 0)));
+    }
+
+    @Test
+    public void calculateAvailableMinutesWithStringValues() {
+        final Map<String, Object> attributes = new HashMap<>();
+        attributes.put(CAPACITY_MINUTES, "600");
+        attributes.put(SHIFT_START_MINUTE, "540");
+        attributes.put(SHIFT_END_MINUTE, "1020");
+        assertEquals(7 * 60, calculateAvailableMinutes(attributes, MONDAY_10_00));
+    }
+
+    @Test
+    public void getAvailableMinutesPrefersTheAvailableMinutesAttribute() {
+        final Map<String, Object> attributes = attributes(600, "0000000", null, null);
+        attributes.put(AVAILABLE_MINUTES, 30);
+        final User user = new User(1, "user1", true);
+        user.setAttributes(attributes);
+        assertEquals(30, UserCapacity.getAvailableMinutes(user));
+    }
+
+    @Test
+    public void getAvailableMinutesForUnrestrictedUser() {
+        final User user = new User(1, "user1", true);
+        user.setAttributes(new HashMap<>());
+        assertEquals(UNLIMITED, UserCapacity.getAvailableMinutes(user));
+    }
+
+    @Test
+    public void getAvailableMinutesWithoutPlanningTimeOnlyConsidersTheCapacity() {
+        final User user = new User(1, "user1", true);
+        user.setAttributes(attributes(600, "0000000", 540, 1020));
+        assertEquals(600, UserCapacity.getAvailableMinutes(user));
+    }
+
+    @Test
+    public void getAvailableMinutesAtThePlanningTime() {
+        final Map<String, Object> attributes = attributes(600, "1111100", 540, 1020);
+        final User user = new User(1, "user1", true);
+        user.setAttributes(new PlannedUserAttributes(attributes, MONDAY_10_00, calculateAvailableMinutes(attributes, MONDAY_10_00)));
+        assertEquals(7 * 60, UserCapacity.getAvailableMinutes(user));
+    }
+
+    private static Map<String, Object> attributes(Integer capacityMinutes, String workingDays, Integer shiftStartMinute, Integer shiftEndMinute) {
+        final Map<String, Object> attributes = new HashMap<>();
+        if (capacityMinutes != null) {
+            attributes.put(CAPACITY_MINUTES, capacityMinutes);
+        }
+        if (workingDays != null) {
+            attributes.put(WORKING_DAYS, workingDays);
+        }
+        if (shiftStartMinute != null) {
+            attributes.put(SHIFT_START_MINUTE, shiftStartMinute);
+            attributes.put(SHIFT_END_MINUTE, shiftEndMinute);
+        }
+        return attributes;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.solver.checkpoint;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kie.server.services.taskassigning.core.model.DefaultLabels;
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.kie.server.services.taskassigning.core.model.TaskOrUser;
+import org.kie.server.services.taskassigning.core.model.User;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class WarmStartRestoreCommandTest {
+
+    private static final String SCORE_RULES_SOLVER_CONFIG = "org/kie/server/services/taskassigning/solver/score/taskAssigningScoreRulesSolverConfig.xml";
+
+    private final SolverFactory<TaskAssigningSolution> solverFactory = SolverFactory.createFromXmlResource(SCORE_RULES_SOLVER_CONFIG);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File checkpointFile;
+
+    @Before
+    public void setUp() {
+        checkpointFile = new File(temporaryFolder.getRoot(), "checkpoint.bin");
+        System.setProperty(SolutionCheckpoints.FILE_PROPERTY, checkpointFile.getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty(SolutionCheckpoints.FILE_PROPERTY);
+    }
+
+    @Test
+    public void checkpointIsWrittenWhenTheSolverIsRestarted() throws Exception {
+        final TaskAssigningSolution solution = newSolution();
+        assign(solution.getUserList().get(0), solution.getTaskList().get(1), solution.getTaskList().get(0));
+        assign(solution.getUserList().get(1), solution.getTaskList().get(2));
+        final WarmStartRestoreCommand command = new WarmStartRestoreCommand();
+        try (ScoreDirector<TaskAssigningSolution> scoreDirector = buildScoreDirector(solution)) {
+            // the first execution only restores.
+            command.changeWorkingSolution(scoreDirector);
+            assertFalse(checkpointFile.exists());
+
+            // the following ones, i.e. the restarts, write the working solution.
+            command.changeWorkingSolution(scoreDirector);
+            final SolutionCheckpoint checkpoint = SolutionCheckpoints.getConfiguredFile().readLatest();
+            assertEquals(2, checkpoint.getAssignments().size());
+            assertArrayEquals(new long[]{2, 1}, checkpoint.getAssignments().get("user1"));
+            assertArrayEquals(new long[]{3}, checkpoint.getAssignments().get("user2"));
+
+            final long size = checkpointFile.length();
+            command.changeWorkingSolution(scoreDirector);
+            assertEquals("the same assignments are not written again", size, checkpointFile.length());
+        }
+    }
+
+    @Test
+    public void checkpointIsRestored() throws Exception {
+        final Map<String, long[]> assignments = new LinkedHashMap<>();
+        assignments.put("user1", new long[]{2, 1});
+        assignments.put("user2", new long[]{3});
+        SolutionCheckpoints.getConfiguredFile().append(new SolutionCheckpoint(1, assignments));
+
+        final TaskAssigningSolution solution = newSolution();
+        try (ScoreDirector<TaskAssigningSolution> scoreDirector = buildScoreDirector(solution)) {
+            new WarmStartRestoreCommand().changeWorkingSolution(scoreDirector);
+        }
+        final User user1 = solution.getUserList().get(0);
+        final User user2 = solution.getUserList().get(1);
+        assertEquals(Long.valueOf(2), user1.getNextTask().getId());
+        assertEquals(Long.valueOf(1), user1.getNextTask().getNextTask().getId());
+        assertNull(user1.getNextTask().getNextTask().getNextTask());
+        // the task 3 is not restored since user2 is not a potential owner.
+        assertNull(user2.getNextTask());
+        assertNull(solution.getTaskList().get(2).getPreviousTaskOrUser());
+    }
+
+    private ScoreDirector<TaskAssigningSolution> buildScoreDirector(TaskAssigningSolution solution) {
+        final ScoreDirector<TaskAssigningSolution> scoreDirector = solverFactory.getScoreDirectorFactory().buildScoreDirector();
+        scoreDirector.setWorkingSolution(solution);
+        return scoreDirector;
+    }
+
+    /**
+     * @return a not initialized solution with the users user1 and user2, and the tasks 1, 2 and 3 owned by user1.
+     */
+    private static TaskAssigningSolution newSolution() {
+        final User user1 = newUser(1, "user1");
+        final User user2 = newUser(2, "user2");
+        final List<Task> tasks = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            final Task task = new Task(id, "task" + id, 0);
+            task.setDurationInMinutes(10);
+            task.setLabelValues(DefaultLabels.SKILLS.name(), Collections.emptySet());
+            task.getPotentialOwners().add(user1);
+            tasks.add(task);
+        }
+        return new TaskAssigningSolution(-1, new ArrayList<>(Arrays.asList(user1, user2)), tasks);
+    }
+
+    private static User newUser(long id, String entityId) {
+        final User user = new User(id, entityId, true);
+        user.setLabelValues(DefaultLabels.SKILLS.name(), Collections.emptySet());
+        return user;
+    }
+
+    private static void assign(User user, Task... tasks) {
+        TaskOrUser previous = user;
+        for (Task task : tasks) {
+            task.setPreviousTaskOrUser(previous);
+            previous.setNextTask(task);
+            task.setUser(user);
+            previous = task;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.solver.eligibility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.kie.server.services.taskassigning.core.model.DefaultLabels;
+import org.kie.server.services.taskassigning.core.model.Group;
+import org.kie.server.services.taskassigning.core.model.ModelConstants;
+import org.kie.server.services.taskassigning.core.model.OrganizationalEntity;
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.kie.server.services.taskassigning.core.model.TaskOrUser;
+import org.kie.server.services.taskassigning.core.model.User;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+
+/**
+ * Builds the solutions used by the eligibility tests:
+ * <ul>
+ * <li>user1: group HR, skills EN and ES.</li>
+ * <li>user2: group HR, skill ES.</li>
+ * <li>user3: group IT, skill EN.</li>
+ * <li>the planning user.</li>
+ * <li>task1: group HR, skill EN, eligible users: user1 and the planning user.</li>
+ * <li>task2: group HR, no skills, eligible users: user1, user2 and the planning user.</li>
+ * <li>task3: user3, skill EN, eligible users: user3 and the planning user.</li>
+ * <li>task4: group IT, skill ZH, eligible users: the planning user.</li>
+ * </ul>
+ * All the tasks are initially not assigned.
+ */
+class EligibilityTestSolutions {
+
+    private static final String SCORE_RULES_SOLVER_CONFIG = "org/kie/server/services/taskassigning/solver/score/taskAssigningScoreRulesSolverConfig.xml";
+
+    private static final SolverFactory<TaskAssigningSolution> SOLVER_FACTORY = SolverFactory.createFromXmlResource(SCORE_RULES_SOLVER_CONFIG);
+
+    private EligibilityTestSolutions() {
+    }
+
+    static TaskAssigningSolution newSolution() {
+        final Group hr = new Group(1, "HR");
+        final Group it = new Group(2, "IT");
+        final User user1 = newUser(1, "user1", hr, "EN", "ES");
+        final User user2 = newUser(2, "user2", hr, "ES");
+        final User user3 = newUser(3, "user3", it, "EN");
+        final User planningUser = newUser(4, ModelConstants.PLANNING_USER_ID, null);
+        final List<Task> tasks = new ArrayList<>();
+        tasks.add(newTask(1, hr, "EN"));
+        tasks.add(newTask(2, hr));
+        tasks.add(newTask(3, user3, "EN"));
+        tasks.add(newTask(4, it, "ZH"));
+        return new TaskAssigningSolution(-1, new ArrayList<>(Arrays.asList(user1, user2, user3, planningUser)), tasks);
+    }
+
+    @SuppressWarnings("unchecked")
+    static InnerScoreDirector<TaskAssigningSolution> buildScoreDirector(TaskAssigningSolution solution) {
+        final InnerScoreDirector<TaskAssigningSolution> scoreDirector =
+                (InnerScoreDirector<TaskAssigningSolution>) SOLVER_FACTORY.getScoreDirectorFactory().buildScoreDirector();
+        scoreDirector.setWorkingSolution(solution);
+        scoreDirector.calculateScore();
+        return scoreDirector;
+    }
+
+    static User user(TaskAssigningSolution solution, String entityId) {
+        return solution.getUserList().stream().filter(user -> user.getEntityId().equals(entityId)).findFirst().orElse(null);
+    }
+
+    static Task task(TaskAssigningSolution solution, long id) {
+        return solution.getTaskList().stream().filter(task -> task.getId() == id).findFirst().orElse(null);
+    }
+
+    /**
+     * Appends the tasks to the user chain by doing the corresponding moves.
+     */
+    static void assign(InnerScoreDirector<TaskAssigningSolution> scoreDirector, User user, Task... tasks) {
+        TaskOrUser last = user;
+        while (last.getNextTask() != null) {
+            last = last.getNextTask();
+        }
+        for (Task task : tasks) {
+            new TaskChangeMove(task, last).doMove(scoreDirector);
+            last = task;
+        }
+        scoreDirector.calculateScore();
+    }
+
+    /**
+     * @return the ids of the tasks in the user chain.
+     */
+    static List<Long> chain(User user) {
+        final List<Long> ids = new ArrayList<>();
+        for (Task task = user.getNextTask(); task != null; task = task.getNextTask()) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+
+    private static User newUser(long id, String entityId, Group group, String... skills) {
+        final User user = new User(id, entityId, true);
+        user.setGroups(group != null ? new HashSet<>(Arrays.asList(group)) : new HashSet<>());
+        user.setLabelValues(DefaultLabels.SKILLS.name(), new HashSet<>(Arrays.asList(skills)));
+        return user;
+    }
+
+    private static Task newTask(long id, OrganizationalEntity potentialOwner, String... skills) {
+        final Task task = new Task(id, "task" + id, 0);
+        task.setDurationInMinutes(10);
+        task.getPotentialOwners().add(potentialOwner);
+        task.setLabelValues(DefaultLabels.SKILLS.name(), new HashSet<>(Arrays.asList(skills)));
+        return task;
+    }
+}
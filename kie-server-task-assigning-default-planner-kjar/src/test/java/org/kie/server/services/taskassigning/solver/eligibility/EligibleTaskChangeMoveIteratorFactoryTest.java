@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.solver.eligibility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.server.services.taskassigning.core.model.ModelConstants;
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.kie.server.services.taskassigning.core.model.TaskOrUser;
+import org.kie.server.services.taskassigning.core.model.User;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.assign;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.buildScoreDirector;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.newSolution;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.task;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.user;
+
+public class EligibleTaskChangeMoveIteratorFactoryTest {
+
+    private TaskAssigningSolution solution;
+
+    private InnerScoreDirector<TaskAssigningSolution> scoreDirector;
+
+    private User user1;
+
+    private User user2;
+
+    private User user3;
+
+    private User planningUser;
+
+    @Before
+    public void setUp() {
+        solution = newSolution();
+        scoreDirector = buildScoreDirector(solution);
+        user1 = user(solution, "user1");
+        user2 = user(solution, "user2");
+        user3 = user(solution, "user3");
+        planningUser = user(solution, ModelConstants.PLANNING_USER_ID);
+    }
+
+    @After
+    public void tearDown() {
+        scoreDirector.close();
+    }
+
+    @Test
+    public void eligibleUsers() {
+        final EligibilityIndex index = new EligibilityIndex(solution);
+        // potential owners group and required skill.
+        assertEquals(Arrays.asList(user1, planningUser), index.getEligibleUsers(task(solution, 1)));
+        // potential owners group without skills.
+        assertEquals(Arrays.asList(user1, user2, planningUser), index.getEligibleUsers(task(solution, 2)));
+        // potential owner user and required skill.
+        assertEquals(Arrays.asList(user3, planningUser), index.getEligibleUsers(task(solution, 3)));
+        // nobody has the required skill.
+        assertEquals(Arrays.asList(planningUser), index.getEligibleUsers(task(solution, 4)));
+        assertTrue(index.isEligible(task(solution, 2), user2));
+        assertFalse(index.isEligible(task(solution, 1), user2));
+        assertFalse(index.isEligible(task(solution, 1), user3));
+    }
+
+    @Test
+    public void originalMovesOnlyTargetTheEligibleUsers() {
+        final EligibleTaskChangeMoveIteratorFactory factory = new EligibleTaskChangeMoveIteratorFactory();
+        final List<TaskChangeMove> moves = toList(factory.createOriginalMoveIterator(scoreDirector));
+        // each not assigned task can go to the beginning of each eligible user chain.
+        assertEquals(2 + 3 + 2 + 1, moves.size());
+        assertEquals(moves.size(), factory.getSize(scoreDirector));
+        final EligibilityIndex index = new EligibilityIndex(solution);
+        for (TaskChangeMove move : moves) {
+            assertTrue(move.toString(), index.isEligible(move.getTask(), move.getDestination().getUser()));
+        }
+    }
+
+    @Test
+    public void originalMovesSkipThePinnedTasksAndTheirPositions() {
+        final Task task1 = task(solution, 1);
+        final Task task2 = task(solution, 2);
+        assign(scoreDirector, user1, task1, task2);
+        task1.setPinned(true);
+        final List<TaskChangeMove> moves = toList(new EligibleTaskChangeMoveIteratorFactory().createOriginalMoveIterator(scoreDirector));
+        final Set<Task> movedTasks = new HashSet<>();
+        for (TaskChangeMove move : moves) {
+            movedTasks.add(move.getTask());
+            // nothing is inserted before the pinned task.
+            assertNotSame(move.toString(), user1, move.getDestination());
+        }
+        assertEquals(new HashSet<>(Arrays.asList(task2, task(solution, 3), task(solution, 4))), movedTasks);
+        // task2 can only go to the user2 and planning user chains, its own positions are excluded.
+        assertEquals(2, moves.stream().filter(move -> move.getTask() == task2).count());
+    }
+
+    @Test
+    public void randomMovesOnlyTargetTheEligibleUsers() {
+        final Task task1 = task(solution, 1);
+        assign(scoreDirector, user1, task1, task(solution, 2));
+        task1.setPinned(true);
+        final EligibilityIndex index = new EligibilityIndex(solution);
+        final Iterator<TaskChangeMove> moves = new EligibleTaskChangeMoveIteratorFactory().createRandomMoveIterator(scoreDirector, new Random(1));
+        for (int i = 0; i < 100; i++) {
+            assertTrue(moves.hasNext());
+            final TaskChangeMove move = moves.next();
+            assertFalse(move.getTask().isPinned());
+            assertTrue(move.toString(), index.isEligible(move.getTask(), move.getDestination().getUser()));
+            if (move.getDestination() == user1) {
+                // there are no available positions in the user1 chain, and the not doable move is discarded.
+                assertFalse(move.toString(), move.isMoveDoable(scoreDirector));
+            }
+        }
+    }
+
+    @Test
+    public void randomPosition() {
+        final Task task1 = task(solution, 1);
+        final Task task2 = task(solution, 2);
+        assign(scoreDirector, user1, task1, task2);
+        final Random random = new Random(1);
+        final Set<TaskOrUser> positions = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            positions.add(EligibleTaskChangeMoveIteratorFactory.randomPosition(user2, task2, random));
+        }
+        assertEquals(new HashSet<>(Arrays.asList(user2)), positions);
+        positions.clear();
+        for (int i = 0; i < 100; i++) {
+            positions.add(EligibleTaskChangeMoveIteratorFactory.randomPosition(user1, task(solution, 3), random));
+        }
+        assertEquals(new HashSet<>(Arrays.asList(user1, task1, task2)), positions);
+    }
+
+    @Test
+    public void indexIsRebuiltWhenTheWorkingSolutionChanges() {
+        final EligibleTaskChangeMoveIteratorFactory factory = new EligibleTaskChangeMoveIteratorFactory();
+        assertEquals(8, factory.getSize(scoreDirector));
+
+        final TaskAssigningSolution other = newSolution();
+        other.getTaskList().remove(3);
+        try (InnerScoreDirector<TaskAssigningSolution> otherScoreDirector = buildScoreDirector(other)) {
+            assertEquals(7, factory.getSize(otherScoreDirector));
+        }
+    }
+
+    private static List<TaskChangeMove> toList(Iterator<TaskChangeMove> iterator) {
+        final List<TaskChangeMove> moves = new ArrayList<>();
+        iterator.forEachRemaining(moves::add);
+        return moves;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.solver.eligibility;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.kie.server.services.taskassigning.core.model.ModelConstants;
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.kie.server.services.taskassigning.core.model.User;
+import org.optaplanner.core.api.score.buildin.bendablelong.BendableLongScore;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.assign;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.buildScoreDirector;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.chain;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.newSolution;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.task;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.user;
+
+public class EligibleTaskConstructionHeuristicCommandTest {
+
+    @Test
+    public void tasksAreAssignedToEligibleUsers() {
+        final TaskAssigningSolution solution = newSolution();
+        try (InnerScoreDirector<TaskAssigningSolution> scoreDirector = buildScoreDirector(solution)) {
+            new EligibleTaskConstructionHeuristicCommand().changeWorkingSolution(scoreDirector);
+            final EligibilityIndex index = new EligibilityIndex(solution);
+            for (Task task : solution.getTaskList()) {
+                assertTrue(task.toString(), task.getPreviousTaskOrUser() != null);
+                assertTrue(task.toString(), index.isEligible(task, task.getUser()));
+            }
+            // task4 required skill is not present in any user.
+            assertSame(user(solution, ModelConstants.PLANNING_USER_ID), task(solution, 4).getUser());
+            final BendableLongScore score = (BendableLongScore) scoreDirector.calculateScore();
+            assertTrue(score.isSolutionInitialized());
+            assertEquals(0L, score.getHardScore(0));
+        }
+    }
+
+    @Test
+    public void initializedAndPinnedTasksAreKept() {
+        final TaskAssigningSolution solution = newSolution();
+        try (InnerScoreDirector<TaskAssigningSolution> scoreDirector = buildScoreDirector(solution)) {
+            final User user2 = user(solution, "user2");
+            final Task task1 = task(solution, 1);
+            final Task task2 = task(solution, 2);
+            // not eligible, but already assigned.
+            assign(scoreDirector, user2, task1);
+            task1.setPinned(true);
+            new EligibleTaskConstructionHeuristicCommand().changeWorkingSolution(scoreDirector);
+            assertSame(user2, task1.getUser());
+            assertSame(user2, task1.getPreviousTaskOrUser());
+            // nothing is inserted before the pinned task.
+            assertSame(task1, user2.getNextTask());
+            assertTrue(task2.getPreviousTaskOrUser() != null);
+        }
+    }
+
+    @Test
+    public void bestPositionIsSelected() {
+        final TaskAssigningSolution solution = newSolution();
+        try (InnerScoreDirector<TaskAssigningSolution> scoreDirector = buildScoreDirector(solution)) {
+            new EligibleTaskConstructionHeuristicCommand().changeWorkingSolution(scoreDirector);
+            // assigning task3 to user3 instead of the planning user doesn't break any constraint and is preferred.
+            assertEquals(Collections.singletonList(3L), chain(user(solution, "user3")));
+        }
+    }
+}
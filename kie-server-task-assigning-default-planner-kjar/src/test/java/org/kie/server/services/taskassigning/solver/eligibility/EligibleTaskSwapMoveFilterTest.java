@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.solver.eligibility;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.kie.server.services.taskassigning.core.model.ModelConstants;
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.optaplanner.core.impl.heuristic.selector.move.generic.SwapMove;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.assign;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.buildScoreDirector;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.newSolution;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.task;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.user;
+
+public class EligibleTaskSwapMoveFilterTest {
+
+    private final EligibleTaskSwapMoveFilter filter = new EligibleTaskSwapMoveFilter();
+
+    @Test
+    public void accept() {
+        final TaskAssigningSolution solution = newSolution();
+        try (InnerScoreDirector<TaskAssigningSolution> scoreDirector = buildScoreDirector(solution)) {
+            final Task task1 = task(solution, 1);
+            final Task task2 = task(solution, 2);
+            final Task task3 = task(solution, 3);
+            assign(scoreDirector, user(solution, "user1"), task1);
+            assign(scoreDirector, user(solution, "user2"), task2);
+            assign(scoreDirector, user(solution, ModelConstants.PLANNING_USER_ID), task3);
+            // task1 can't go to user2.
+            assertFalse(filter.accept(scoreDirector, swapMove(scoreDirector, task1, task2)));
+            // task3 can't go to user1, but task1 can go to the planning user.
+            assertFalse(filter.accept(scoreDirector, swapMove(scoreDirector, task1, task3)));
+            // task2 can go to the planning user, but task3 can't go to user2.
+            assertFalse(filter.accept(scoreDirector, swapMove(scoreDirector, task2, task3)));
+            // not assigned tasks are not filtered.
+            assertTrue(filter.accept(scoreDirector, swapMove(scoreDirector, task1, task(solution, 4))));
+        }
+    }
+
+    @Test
+    public void acceptWhenBothUsersAreEligible() {
+        final TaskAssigningSolution solution = newSolution();
+        try (InnerScoreDirector<TaskAssigningSolution> scoreDirector = buildScoreDirector(solution)) {
+            assign(scoreDirector, user(solution, "user1"), task(solution, 1));
+            assign(scoreDirector, user(solution, ModelConstants.PLANNING_USER_ID), task(solution, 2));
+            assertTrue(filter.accept(scoreDirector, swapMove(scoreDirector, task(solution, 1), task(solution, 2))));
+        }
+    }
+
+    @Test
+    public void indexIsRebuiltWhenTheWorkingSolutionChanges() {
+        acceptWhenBothUsersAreEligible();
+        // the same filter instance evaluates the moves of a new working solution.
+        acceptWhenBothUsersAreEligible();
+    }
+
+    private static SwapMove<TaskAssigningSolution> swapMove(InnerScoreDirector<TaskAssigningSolution> scoreDirector, Task left, Task right) {
+        return new SwapMove<>(Collections.singletonList(scoreDirector.getSolutionDescriptor()
+                                                                .findEntityDescriptorOrFail(Task.class)
+                                                                .getGenuineVariableDescriptor(TaskChangeMove.PREVIOUS_TASK_OR_USER)),
+                              left, right);
+    }
+}
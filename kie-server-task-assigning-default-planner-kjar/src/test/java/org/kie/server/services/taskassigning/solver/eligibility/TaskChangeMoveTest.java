@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.solver.eligibility;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.kie.server.services.taskassigning.core.model.User;
+import org.optaplanner.core.api.score.Score;
+import org.optaplanner.core.impl.heuristic.move.Move;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.assign;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.buildScoreDirector;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.chain;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.newSolution;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.task;
+import static org.kie.server.services.taskassigning.solver.eligibility.EligibilityTestSolutions.user;
+
+public class TaskChangeMoveTest {
+
+    private TaskAssigningSolution solution;
+
+    private InnerScoreDirector<TaskAssigningSolution> scoreDirector;
+
+    private User user1;
+
+    private User user2;
+
+    @Before
+    public void setUp() {
+        solution = newSolution();
+        scoreDirector = buildScoreDirector(solution);
+        user1 = user(solution, "user1");
+        user2 = user(solution, "user2");
+        assign(scoreDirector, user1, task(solution, 1), task(solution, 2), task(solution, 3));
+        assign(scoreDirector, user2, task(solution, 4));
+    }
+
+    @After
+    public void tearDown() {
+        scoreDirector.close();
+    }
+
+    @Test
+    public void assignNotInitializedTask() {
+        final TaskAssigningSolution other = newSolution();
+        try (InnerScoreDirector<TaskAssigningSolution> otherScoreDirector = buildScoreDirector(other)) {
+            final User user = user(other, "user1");
+            final Task task = task(other, 1);
+            final Move<TaskAssigningSolution> undoMove = doMove(otherScoreDirector, new TaskChangeMove(task, user));
+            assertEquals(Collections.singletonList(1L), chain(user));
+            assertSame(user, task.getUser());
+
+            doMove(otherScoreDirector, undoMove);
+            assertTrue(chain(user).isEmpty());
+            assertNull(task.getPreviousTaskOrUser());
+            assertNull(task.getUser());
+        }
+    }
+
+    @Test
+    public void moveToAnotherChainRewiresBothChains() {
+        final Task task2 = task(solution, 2);
+        final Move<TaskAssigningSolution> undoMove = doMove(scoreDirector, new TaskChangeMove(task2, user2));
+        assertEquals(Arrays.asList(1L, 3L), chain(user1));
+        assertEquals(Arrays.asList(2L, 4L), chain(user2));
+        assertSame(user2, task2.getUser());
+        assertSame(task(solution, 1), task(solution, 3).getPreviousTaskOrUser());
+
+        doMove(scoreDirector, undoMove);
+        assertEquals(Arrays.asList(1L, 2L, 3L), chain(user1));
+        assertEquals(Collections.singletonList(4L), chain(user2));
+        assertSame(user1, task2.getUser());
+    }
+
+    @Test
+    public void moveWithinTheSameChain() {
+        final Move<TaskAssigningSolution> undoMove = doMove(scoreDirector, new TaskChangeMove(task(solution, 1), task(solution, 3)));
+        assertEquals(Arrays.asList(2L, 3L, 1L), chain(user1));
+
+        doMove(scoreDirector, undoMove);
+        assertEquals(Arrays.asList(1L, 2L, 3L), chain(user1));
+    }
+
+    @Test
+    public void undoRestoresTheScore() {
+        final Score<?> score = scoreDirector.calculateScore();
+        final Move<TaskAssigningSolution> undoMove = doMove(scoreDirector, new TaskChangeMove(task(solution, 3), task(solution, 4)));
+        doMove(scoreDirector, undoMove);
+        assertEquals(score, scoreDirector.calculateScore());
+    }
+
+    @Test
+    public void nullDestinationTakesTheTaskOutOfTheChain() {
+        final Task task2 = task(solution, 2);
+        final TaskChangeMove move = new TaskChangeMove(task2, null);
+        assertTrue(move.isMoveDoable(scoreDirector));
+        doMove(scoreDirector, move);
+        assertEquals(Arrays.asList(1L, 3L), chain(user1));
+        assertNull(task2.getPreviousTaskOrUser());
+        assertFalse(new TaskChangeMove(task2, null).isMoveDoable(scoreDirector));
+    }
+
+    @Test
+    public void isMoveDoable() {
+        final Task task1 = task(solution, 1);
+        final Task task2 = task(solution, 2);
+        assertTrue(new TaskChangeMove(task2, user2).isMoveDoable(scoreDirector));
+        assertTrue(new TaskChangeMove(task1, task(solution, 3)).isMoveDoable(scoreDirector));
+        // the task is already there.
+        assertFalse(new TaskChangeMove(task2, task1).isMoveDoable(scoreDirector));
+        assertFalse(new TaskChangeMove(task2, task2).isMoveDoable(scoreDirector));
+
+        // the destination is not in a chain.
+        final TaskAssigningSolution other = newSolution();
+        assertFalse(new TaskChangeMove(task1, task(other, 1)).isMoveDoable(scoreDirector));
+    }
+
+    @Test
+    public void pinnedTasksAreNotMoved() {
+        final Task task1 = task(solution, 1);
+        task1.setPinned(true);
+        assertFalse(new TaskChangeMove(task1, user2).isMoveDoable(scoreDirector));
+        // nothing can be inserted before a pinned task.
+        assertFalse(new TaskChangeMove(task(solution, 4), user1).isMoveDoable(scoreDirector));
+        assertTrue(new TaskChangeMove(task(solution, 4), task1).isMoveDoable(scoreDirector));
+    }
+
+    @Test
+    public void rebase() {
+        final TaskAssigningSolution other = newSolution();
+        try (InnerScoreDirector<TaskAssigningSolution> otherScoreDirector = buildScoreDirector(other)) {
+            final TaskChangeMove move = new TaskChangeMove(task(solution, 2), user2);
+            // the solutions objects have the same ids, so they are looked up by id.
+            final TaskChangeMove rebased = move.rebase(otherScoreDirector);
+            assertSame(task(other, 2), rebased.getTask());
+            assertSame(user(other, "user2"), rebased.getDestination());
+        }
+    }
+
+    private static Move<TaskAssigningSolution> doMove(InnerScoreDirector<TaskAssigningSolution> scoreDirector, Move<TaskAssigningSolution> move) {
+        final Move<TaskAssigningSolution> undoMove = move.doMove(scoreDirector);
+        scoreDirector.calculateScore();
+        return undoMove;
+    }
+}
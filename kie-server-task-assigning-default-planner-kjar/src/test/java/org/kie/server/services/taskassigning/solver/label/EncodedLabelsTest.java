@@ -0,0 +1,195 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.solver.label;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.kie.server.services.taskassigning.core.model.DefaultLabels;
+import org.kie.server.services.taskassigning.core.model.ModelConstants;
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.User;
+import org.kie.server.services.taskassigning.core.model.solver.TaskHelper;
+import org.kie.server.services.taskassigning.core.model.solver.condition.TaskAssigningConditions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class EncodedLabelsTest {
+
+    private static final String SKILLS = DefaultLabels.SKILLS.name();
+
+    private static final String[] VALUES = {"EN", "ES", "FR", "DE", "IT", "PT", "ZH", "JA"};
+
+    @Test
+    public void userMeetsRequiredSkillsOrPlanningUserConditionMatchesTheSetSemantics() {
+        final Random random = new Random(1234);
+        for (int i = 0; i < 2000; i++) {
+            final Set<Object> taskValues = randomValues(random);
+            final Set<Object> userValues = randomValues(random);
+            final User user = newUser(i, "user" + i, random.nextInt(10) > 0, userValues);
+            final Task plainTask = newTask(i, taskValues);
+            final Task encodedTask = newEncodedTask(i, taskValues);
+            assertEquals("task: " + taskValues + ", user: " + userValues + ", enabled: " + user.isEnabled(),
+                         TaskAssigningConditions.userMeetsRequiredSkillsOrPlanningUserCondition(plainTask, user),
+                         EncodedLabels.userMeetsRequiredSkillsOrPlanningUserCondition(encodedTask, user));
+        }
+    }
+
+    @Test
+    public void countMatchingLabelsMatchesTheSetSemantics() {
+        final Random random = new Random(4321);
+        for (int i = 0; i < 2000; i++) {
+            final Set<Object> taskValues = randomValues(random);
+            final Set<Object> userValues = randomValues(random);
+            final User user = newUser(i, "user" + i, true, userValues);
+            final Task plainTask = newTask(i, taskValues);
+            final Task encodedTask = newEncodedTask(i, taskValues);
+            assertEquals("task: " + taskValues + ", user: " + userValues,
+                         TaskHelper.countMatchingLabels(plainTask, user, SKILLS),
+                         EncodedLabels.countMatchingLabels(encodedTask, user, SKILLS));
+        }
+    }
+
+    @Test
+    public void userMeetsRequiredSkillsOrPlanningUserConditionWithNullUser() {
+        assertFalse(EncodedLabels.userMeetsRequiredSkillsOrPlanningUserCondition(newEncodedTask(1, values("EN")), null));
+        assertFalse(EncodedLabels.userMeetsRequiredSkillsOrPlanningUserCondition(newEncodedTask(1, values()), null));
+    }
+
+    @Test
+    public void userMeetsRequiredSkillsOrPlanningUserConditionWithPlanningUser() {
+        final Task task = newEncodedTask(1, values("EN", "ZH"));
+        assertTrue(EncodedLabels.userMeetsRequiredSkillsOrPlanningUserCondition(task, newUser(1, ModelConstants.PLANNING_USER_ID, true, null)));
+        assertFalse(EncodedLabels.userMeetsRequiredSkillsOrPlanningUserCondition(task, newUser(1, ModelConstants.PLANNING_USER_ID, false, null)));
+    }
+
+    @Test
+    public void userMeetsRequiredSkillsOrPlanningUserConditionWithDisabledUser() {
+        final User user = newUser(1, "user1", false, values("EN"));
+        assertFalse(EncodedLabels.userMeetsRequiredSkillsOrPlanningUserCondition(newEncodedTask(1, values("EN")), user));
+        assertFalse(EncodedLabels.userMeetsRequiredSkillsOrPlanningUserCondition(newEncodedTask(1, values()), user));
+    }
+
+    @Test
+    public void countMatchingLabelsWithNullUser() {
+        assertEquals(0, EncodedLabels.countMatchingLabels(newEncodedTask(1, values("EN")), null, SKILLS));
+    }
+
+    @Test
+    public void userLabelsAreRecalculatedWhenTheUserLabelsChange() {
+        final Task task = newEncodedTask(1, values("EN"));
+        final User user = newUser(1, "user1", true, values("ES"));
+        assertFalse(EncodedLabels.userMeetsRequiredSkillsOrPlanningUserCondition(task, user));
+        user.setLabelValues(SKILLS, values("EN", "ES"));
+        assertTrue(EncodedLabels.userMeetsRequiredSkillsOrPlanningUserCondition(task, user));
+        assertEquals(1, EncodedLabels.countMatchingLabels(task, user, SKILLS));
+    }
+
+    @Test
+    public void userLabelsCacheReusesTheEncodedLabels() {
+        final EncodedLabels.UserLabelsCache cache = new EncodedLabels.UserLabelsCache(10);
+        final EncodedLabelSet taskLabels = encode(values("EN"));
+        final User user = newUser(1, "user1", true, values("EN", "ES"));
+        final EncodedLabelSet userLabels = cache.get(user, SKILLS, taskLabels);
+        assertEquals(values("EN", "ES"), userLabels);
+        assertSame(userLabels, cache.get(user, SKILLS, taskLabels));
+        assertEquals(1, cache.size(SKILLS));
+    }
+
+    @Test
+    public void userLabelsCacheWithNullLabels() {
+        final EncodedLabels.UserLabelsCache cache = new EncodedLabels.UserLabelsCache(10);
+        assertNull(cache.get(newUser(1, "user1", true, null), SKILLS, encode(values("EN"))));
+        assertEquals(0, cache.size(SKILLS));
+    }
+
+    @Test
+    public void userLabelsCacheIsBounded() {
+        final int maxSize = 5;
+        final EncodedLabels.UserLabelsCache cache = new EncodedLabels.UserLabelsCache(maxSize);
+        final EncodedLabelSet taskLabels = encode(values("EN"));
+        for (int i = 0; i < maxSize; i++) {
+            cache.get(newUser(i, "user" + i, true, values("EN")), SKILLS, taskLabels);
+        }
+        assertEquals(maxSize, cache.size(SKILLS));
+        final User user = newUser(maxSize, "user" + maxSize, true, values("ES"));
+        final EncodedLabelSet userLabels = cache.get(user, SKILLS, taskLabels);
+        assertEquals(1, cache.size(SKILLS));
+        assertEquals(values("ES"), userLabels);
+        assertSame(userLabels, cache.get(user, SKILLS, taskLabels));
+    }
+
+    @Test
+    public void userLabelsCacheUpdateDoesNotEvict() {
+        final EncodedLabels.UserLabelsCache cache = new EncodedLabels.UserLabelsCache(2);
+        final EncodedLabelSet taskLabels = encode(values("EN"));
+        final User user1 = newUser(1, "user1", true, values("EN"));
+        final User user2 = newUser(2, "user2", true, values("EN"));
+        cache.get(user1, SKILLS, taskLabels);
+        cache.get(user2, SKILLS, taskLabels);
+        user2.setLabelValues(SKILLS, values("ES"));
+        assertEquals(values("ES"), cache.get(user2, SKILLS, taskLabels));
+        assertEquals(2, cache.size(SKILLS));
+    }
+
+    private static Set<Object> randomValues(Random random) {
+        final int kind = random.nextInt(10);
+        if (kind == 0) {
+            return null;
+        }
+        final Set<Object> values = new HashSet<>();
+        if (kind > 1) {
+            final int size = random.nextInt(VALUES.length);
+            for (int i = 0; i < size; i++) {
+                values.add(VALUES[random.nextInt(VALUES.length)]);
+            }
+        }
+        return values;
+    }
+
+    private static Set<Object> values(Object... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+
+    private static EncodedLabelSet encode(Set<Object> values) {
+        return EncodedLabelSet.encode(LabelDictionary.forLabel(SKILLS), values);
+    }
+
+    private static User newUser(long id, String entityId, boolean enabled, Set<Object> skills) {
+        final User user = new User(id, entityId, enabled);
+        user.setLabelValues(SKILLS, skills);
+        return user;
+    }
+
+    private static Task newTask(long id, Set<Object> skills) {
+        final Task task = new Task(id, "task" + id, 0);
+        task.setLabelValues(SKILLS, skills);
+        return task;
+    }
+
+    private static Task newEncodedTask(long id, Set<Object> skills) {
+        return newTask(id, skills != null ? encode(skills) : null);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.solver.label;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class LabelValuesCacheTest {
+
+    private final AtomicInteger invocations = new AtomicInteger();
+
+    private final Function<String, Set<Object>> function = key -> {
+        invocations.incrementAndGet();
+        return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(key.split(","))));
+    };
+
+    @Test
+    public void getReturnsTheSameSetForTheSameKey() {
+        final LabelValuesCache<String> cache = new LabelValuesCache<>(10);
+        final Set<Object> values = cache.get("EN,ES", function);
+        assertEquals(new HashSet<>(Arrays.asList("EN", "ES")), values);
+        assertSame(values, cache.get("EN,ES", function));
+        assertSame(values, cache.get(new String("EN,ES"), function));
+        assertEquals(1, invocations.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void getEvictsTheLeastRecentlyUsedEntryAtTheBound() {
+        final LabelValuesCache<String> cache = new LabelValuesCache<>(2);
+        final Set<Object> en = cache.get("EN", function);
+        final Set<Object> es = cache.get("ES", function);
+        // EN is accessed again, so ES becomes the least recently used entry.
+        assertSame(en, cache.get("EN", function));
+        cache.get("FR", function);
+        assertEquals(2, cache.size());
+        assertEquals(3, invocations.get());
+
+        assertSame(en, cache.get("EN", function));
+        assertEquals(3, invocations.get());
+
+        final Set<Object> recomputedEs = cache.get("ES", function);
+        assertEquals(es, recomputedEs);
+        assertNotSame(es, recomputedEs);
+        assertEquals(4, invocations.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void getDoesNotCacheNullResults() {
+        final LabelValuesCache<String> cache = new LabelValuesCache<>(10);
+        assertNull(cache.get("EN", key -> {
+            invocations.incrementAndGet();
+            return null;
+        }));
+        assertEquals(0, cache.size());
+        cache.get("EN", function);
+        assertEquals(2, invocations.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void clear() {
+        final LabelValuesCache<String> cache = new LabelValuesCache<>(10);
+        final Set<Object> values = cache.get("EN", function);
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNotSame(values, cache.get("EN", function));
+        assertEquals(2, invocations.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxSizeMustBeGreaterThanZero() {
+        new LabelValuesCache<String>(0);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.solver.partition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.kie.server.services.taskassigning.core.model.DefaultLabels;
+import org.kie.server.services.taskassigning.core.model.Group;
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.kie.server.services.taskassigning.core.model.User;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.kie.server.services.taskassigning.core.model.ModelConstants.PLANNING_USER_ID;
+
+public class TaskAssigningSolutionPartitionerTest {
+
+    private static final String SCORE_RULES_SOLVER_CONFIG = "org/kie/server/services/taskassigning/solver/score/taskAssigningScoreRulesSolverConfig.xml";
+
+    private final SolverFactory<TaskAssigningSolution> solverFactory = SolverFactory.createFromXmlResource(SCORE_RULES_SOLVER_CONFIG);
+
+    @Test
+    public void splitWorkingSolution() {
+        final Group groupA = new Group(1, "groupA");
+        final Group groupB = new Group(2, "groupB");
+        final User planningUser = newUser(0, PLANNING_USER_ID);
+        final User user1 = newUser(1, "user1", groupA);
+        final User user2 = newUser(2, "user2", groupA);
+        final User user3 = newUser(3, "user3", groupB);
+        final Task task1 = newTask(1, groupA);
+        final Task task2 = newTask(2, groupA);
+        final Task task3 = newTask(3, groupB);
+        final Task task4 = newTask(4, groupB);
+        task4.setPreviousTaskOrUser(user3);
+        task4.setUser(user3);
+        user3.setNextTask(task4);
+        final TaskAssigningSolution solution = new TaskAssigningSolution(1, new ArrayList<>(Arrays.asList(planningUser, user1, user2, user3)),
+                                                                         new ArrayList<>(Arrays.asList(task1, task2, task3, task4)));
+
+        final TaskAssigningSolutionPartitioner partitioner = new TaskAssigningSolutionPartitioner();
+        partitioner.setPartCount(4);
+        final List<TaskAssigningSolution> partitions;
+        try (ScoreDirector<TaskAssigningSolution> scoreDirector = solverFactory.getScoreDirectorFactory().buildScoreDirector()) {
+            scoreDirector.setWorkingSolution(solution);
+            partitions = partitioner.splitWorkingSolution(scoreDirector, null);
+        }
+
+        // the planning user, without tasks to keep, is a component by itself.
+        assertEquals(3, partitions.size());
+        final Map<String, Set<String>> entityIdsByPartition = new HashMap<>();
+        final Set<Object> partitionedEntities = new HashSet<>();
+        for (TaskAssigningSolution partition : partitions) {
+            final Set<String> entityIds = new HashSet<>();
+            for (User user : partition.getUserList()) {
+                assertTrue(solution.getUserList().stream().noneMatch(original -> original == user));
+                assertTrue("the partitions must not share entities", partitionedEntities.add(user));
+                entityIds.add(user.getEntityId());
+            }
+            for (Task task : partition.getTaskList()) {
+                assertTrue(solution.getTaskList().stream().noneMatch(original -> original == task));
+                assertTrue("the partitions must not share entities", partitionedEntities.add(task));
+                entityIds.add("task" + task.getId());
+                if (task.getUser() != null) {
+                    assertTrue(partition.getUserList().contains(task.getUser()));
+                }
+            }
+            entityIdsByPartition.put(partition.getUserList().get(0).getEntityId(), entityIds);
+        }
+        assertEquals(new HashSet<>(Arrays.asList("user1", "user2", "task1", "task2")), entityIdsByPartition.get("user1"));
+        assertEquals(new HashSet<>(Arrays.asList("user3", "task3", "task4")), entityIdsByPartition.get("user3"));
+        assertEquals(Collections.singleton(PLANNING_USER_ID), entityIdsByPartition.get(PLANNING_USER_ID));
+
+        final TaskAssigningSolution partition = partitions.stream().filter(part -> part.getTaskList().size() == 2 && part.getUserList().size() == 1)
+                .findFirst().orElseThrow(IllegalStateException::new);
+        final User clonedUser3 = partition.getUserList().get(0);
+        final Task clonedTask4 = partition.getTaskList().stream().filter(task -> task.getId() == 4).findFirst().orElseThrow(IllegalStateException::new);
+        assertNotSame(user3, clonedUser3);
+        assertSame(clonedTask4, clonedUser3.getNextTask());
+        assertSame(clonedUser3, clonedTask4.getPreviousTaskOrUser());
+        assertFalse(partition.getTaskList().stream().anyMatch(task -> task == task4));
+    }
+
+    private static User newUser(long id, String entityId, Group... groups) {
+        final User user = new User(id, entityId, true);
+        user.setGroups(new HashSet<>(Arrays.asList(groups)));
+        user.setLabelValues(DefaultLabels.SKILLS.name(), Collections.emptySet());
+        return user;
+    }
+
+    private static Task newTask(long id, Group potentialOwner) {
+        final Task task = new Task(id, "task" + id, 0);
+        task.setDurationInMinutes(10);
+        task.setLabelValues(DefaultLabels.SKILLS.name(), Collections.emptySet());
+        task.getPotentialOwners().add(potentialOwner);
+        return task;
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.solver.score;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.kie.server.services.taskassigning.core.model.DefaultLabels;
+import org.kie.server.services.taskassigning.core.model.Group;
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.kie.server.services.taskassigning.core.model.TaskOrUser;
+import org.kie.server.services.taskassigning.core.model.User;
+import org.kie.server.services.taskassigning.solver.capacity.UserCapacity;
+import org.kie.server.services.taskassigning.solver.label.EncodedLabelSet;
+import org.kie.server.services.taskassigning.solver.label.LabelDictionary;
+import org.optaplanner.core.api.score.buildin.bendablelong.BendableLongScore;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.test.impl.score.buildin.bendablelong.BendableLongScoreVerifier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.kie.server.services.taskassigning.core.model.ModelConstants.PLANNING_USER_ID;
+
+/**
+ * Checks that the TaskAssigningIncrementalScoreCalculator produces exactly the same score as the
+ * taskAssigningScoreRules.drl for random solutions and for the moves applied by a FULL_ASSERT solver.
+ */
+public class TaskAssigningIncrementalScoreCalculatorTest {
+
+    private static final String EQUIVALENCE_SOLVER_CONFIG = "org/kie/server/services/taskassigning/solver/score/taskAssigningScoreEquivalenceSolverConfig.xml";
+    private static final String SCORE_RULES_SOLVER_CONFIG = "org/kie/server/services/taskassigning/solver/score/taskAssigningScoreRulesSolverConfig.xml";
+
+    private static final int GROUPS = 3;
+    private static final String[] SKILLS = {"EN", "ES", "ZH", "VISA"};
+    private static final String[] AFFINITIES = {"A", "B", "C"};
+
+    private static final LabelDictionary SKILLS_DICTIONARY = LabelDictionary.forLabel(DefaultLabels.SKILLS.name());
+
+    private final SolverFactory<TaskAssigningSolution> scoreRulesSolverFactory = SolverFactory.createFromXmlResource(SCORE_RULES_SOLVER_CONFIG);
+
+    @Test
+    public void incrementalScoreMatchesScoreRulesOnRandomMoves() {
+        final SolverFactory<TaskAssigningSolution> solverFactory = SolverFactory.createFromXmlResource(EQUIVALENCE_SOLVER_CONFIG);
+        for (int seed = 1; seed <= 3; seed++) {
+            final Solver<TaskAssigningSolution> solver = solverFactory.buildSolver();
+            // FULL_ASSERT fails with an IllegalStateException as soon as a move score differs from the rules score.
+            final TaskAssigningSolution bestSolution = solver.solve(generate(new Random(seed), 5, 15, false));
+            assertTrue(bestSolution.getScore().isSolutionInitialized());
+            assertEquals(calculateRulesScore(bestSolution), bestSolution.getScore());
+        }
+    }
+
+    @Test
+    public void incrementalScoreMatchesScoreRulesOnRandomSolutions() {
+        for (int seed = 1; seed <= 50; seed++) {
+            final TaskAssigningSolution solution = generate(new Random(seed), 6, 25, true);
+            assertEquals("seed: " + seed, calculateRulesScore(solution), calculateIncrementalScore(solution));
+        }
+    }
+
+    @Test
+    public void userCapacity() {
+        final User user = newUser(1, "user1", 10);
+        final Task task1 = newTask(1, 10, 8);
+        final Task task2 = newTask(2, 10, 6);
+        final TaskAssigningSolution solution = new TaskAssigningSolution(-1, new ArrayList<>(Collections.singletonList(user)),
+                                                                         new ArrayList<>(Arrays.asList(task1, task2)));
+        assign(user, task1, task2);
+
+        final BendableLongScoreVerifier<TaskAssigningSolution> verifier = new BendableLongScoreVerifier<>(scoreRulesSolverFactory);
+        // the user work ends at minute 14, 4 minutes beyond the available ones.
+        verifier.assertSoftWeight("Minimize makespan (starting with the latest ending user first)", 3, -196, solution);
+        verifier.assertSoftWeight("User capacity", 3, -16, solution);
+        assertEquals(calculateRulesScore(solution), calculateIncrementalScore(solution));
+    }
+
+    @Test
+    public void priority() {
+        final User user = newUser(1, "user1", null);
+        final Task highPriority = newTask(1, 0, 5);
+        final Task lowPriority = newTask(2, 9, 3);
+        final TaskAssigningSolution solution = new TaskAssigningSolution(-1, new ArrayList<>(Collections.singletonList(user)),
+                                                                         new ArrayList<>(Arrays.asList(highPriority, lowPriority)));
+        assign(user, highPriority, lowPriority);
+
+        final BendableLongScoreVerifier<TaskAssigningSolution> verifier = new BendableLongScoreVerifier<>(scoreRulesSolverFactory);
+        verifier.assertSoftWeight("Priority", PriorityPenalties.getSoftLevel(0), PriorityPenalties.calculatePenalty(0, 5), solution);
+        verifier.assertSoftWeight("Priority", PriorityPenalties.getSoftLevel(9), PriorityPenalties.calculatePenalty(9, 8), solution);
+        assertEquals(calculateRulesScore(solution), calculateIncrementalScore(solution));
+    }
+
+    private BendableLongScore calculateRulesScore(TaskAssigningSolution solution) {
+        try (ScoreDirector<TaskAssigningSolution> scoreDirector = scoreRulesSolverFactory.getScoreDirectorFactory().buildScoreDirector()) {
+            scoreDirector.setWorkingSolution(solution);
+            return (BendableLongScore) scoreDirector.calculateScore();
+        }
+    }
+
+    private static BendableLongScore calculateIncrementalScore(TaskAssigningSolution solution) {
+        final TaskAssigningIncrementalScoreCalculator calculator = new TaskAssigningIncrementalScoreCalculator();
+        calculator.resetWorkingSolution(solution);
+        return calculator.calculateScore();
+    }
+
+    /**
+     * Generates a random solution with users that have different groups, skills, affinities, capacities and shifts, and
+     * tasks with group or user potential owners, encoded or regular skills and affinities, and all the priorities.
+     * @param assigned true for assigning all the tasks randomly, including to not eligible users and to the
+     * planning user, false for an uninitialized solution.
+     */
+    private static TaskAssigningSolution generate(Random random, int usersSize, int tasksSize, boolean assigned) {
+        final List<Group> groups = new ArrayList<>();
+        for (int i = 0; i < GROUPS; i++) {
+            groups.add(new Group(i, "group" + i));
+        }
+
+        final List<User> users = new ArrayList<>();
+        users.add(new User(0, PLANNING_USER_ID, true));
+        for (int i = 1; i <= usersSize; i++) {
+            final User user = new User(i, "user" + i, random.nextDouble() < 0.8);
+            final Set<Group> userGroups = new HashSet<>();
+            for (Group group : groups) {
+                if (random.nextBoolean()) {
+                    userGroups.add(group);
+                }
+            }
+            user.setGroups(userGroups);
+            user.setLabelValues(DefaultLabels.SKILLS.name(), randomSubset(random, SKILLS));
+            user.setLabelValues(DefaultLabels.AFFINITIES.name(), randomSubset(random, AFFINITIES));
+            final Map<String, Object> attributes = new HashMap<>();
+            switch (random.nextInt(4)) {
+                case 0:
+                    attributes.put(UserCapacity.AVAILABLE_MINUTES, random.nextInt(60));
+                    break;
+                case 1:
+                    attributes.put(UserCapacity.AVAILABLE_MINUTES, Integer.toString(random.nextInt(60)));
+                    break;
+                case 2:
+                    // the working calendar is resolved at the planning time by the PlanningTimeCommand.
+                    attributes.put(UserCapacity.CAPACITY_MINUTES, random.nextInt(60));
+                    attributes.put(UserCapacity.SHIFT_START_MINUTE, random.nextInt(24 * 60));
+                    attributes.put(UserCapacity.SHIFT_END_MINUTE, random.nextInt(24 * 60));
+                    break;
+                default:
+                    break;
+            }
+            user.setAttributes(attributes);
+            users.add(user);
+        }
+
+        final List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < tasksSize; i++) {
+            final Task task = newTask(i, random.nextInt(PriorityPenalties.MAX_PRIORITY + 1), 1 + random.nextInt(20));
+            if (random.nextDouble() < 0.7) {
+                task.getPotentialOwners().add(groups.get(random.nextInt(groups.size())));
+            } else {
+                task.getPotentialOwners().add(users.get(1 + random.nextInt(usersSize)));
+            }
+            final Set<Object> skills = randomSubset(random, SKILLS);
+            task.setLabelValues(DefaultLabels.SKILLS.name(), random.nextBoolean() ? EncodedLabelSet.encode(SKILLS_DICTIONARY, skills) : skills);
+            task.setLabelValues(DefaultLabels.AFFINITIES.name(), randomSubset(random, AFFINITIES));
+            tasks.add(task);
+        }
+
+        if (assigned) {
+            final Map<User, List<Task>> assignments = new HashMap<>();
+            for (Task task : tasks) {
+                assignments.computeIfAbsent(users.get(random.nextInt(users.size())), user -> new ArrayList<>()).add(task);
+            }
+            assignments.forEach((user, userTasks) -> assign(user, userTasks.toArray(new Task[0])));
+        }
+        return new TaskAssigningSolution(-1, users, tasks);
+    }
+
+    private static Set<Object> randomSubset(Random random, String[] values) {
+        final Set<Object> result = new HashSet<>();
+        for (String value : values) {
+            if (random.nextDouble() < 0.4) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    private static User newUser(long id, String entityId, Integer availableMinutes) {
+        final User user = new User(id, entityId, true);
+        final Map<String, Object> attributes = new HashMap<>();
+        if (availableMinutes != null) {
+            attributes.put(UserCapacity.AVAILABLE_MINUTES, availableMinutes);
+        }
+        user.setAttributes(attributes);
+        return user;
+    }
+
+    private static Task newTask(long id, int priority, int durationInMinutes) {
+        final Task task = new Task(id, "task" + id, priority);
+        task.setDurationInMinutes(durationInMinutes);
+        return task;
+    }
+
+    /**
+     * Chains the tasks to the user and sets the shadow variables in the same way the solver does.
+     */
+    private static void assign(User user, Task... tasks) {
+        TaskOrUser previous = user;
+        int endTime = 0;
+        for (Task task : tasks) {
+            task.setPreviousTaskOrUser(previous);
+            previous.setNextTask(task);
+            task.setUser(user);
+            task.setStartTimeInMinutes(endTime);
+            endTime += task.getDurationInMinutes();
+            task.setEndTime(endTime);
+            previous = task;
+        }
+    }
+}
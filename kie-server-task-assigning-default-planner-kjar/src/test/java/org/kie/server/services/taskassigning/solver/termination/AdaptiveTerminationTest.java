@@ -0,0 +1,258 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.solver.termination;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.impl.localsearch.scope.LocalSearchPhaseScope;
+import org.optaplanner.core.impl.localsearch.scope.LocalSearchStepScope;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+import org.optaplanner.core.impl.solver.scope.DefaultSolverScope;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveTerminationTest {
+
+    private static final String INCREMENTAL_SOLVER_CONFIG = "org/kie/server/services/taskassigning/solver/taskAssigningIncrementalSolverConfig.xml";
+
+    private static final SolverFactory<TaskAssigningSolution> SOLVER_FACTORY = SolverFactory.createFromXmlResource(INCREMENTAL_SOLVER_CONFIG);
+
+    private static final BacklogSizeProfile SMALL = BacklogSizeProfile.SMALL;
+
+    private long now;
+
+    private InnerScoreDirector<TaskAssigningSolution> scoreDirector;
+
+    private LocalSearchPhaseScope<TaskAssigningSolution> phaseScope;
+
+    private AdaptiveTermination termination;
+
+    @Before
+    public void setUp() {
+        startPhase(10);
+    }
+
+    @After
+    public void tearDown() {
+        scoreDirector.close();
+    }
+
+    @Test
+    public void profileIsChosenByTheBacklogSize() {
+        assertEquals(SMALL, termination.getProfile());
+        scoreDirector.close();
+        startPhase(600);
+        assertEquals(BacklogSizeProfile.MEDIUM, termination.getProfile());
+    }
+
+    @Test
+    public void unimprovedSpentLimit() {
+        advance(SMALL.getUnimprovedSpentLimitMillis() - 1);
+        assertNotTerminated();
+        advance(1);
+        assertTerminated("UNIMPROVED");
+    }
+
+    @Test
+    public void bestScoreImprovementRestartsTheUnimprovedSpentLimit() {
+        advance(SMALL.getMinSpentMillis());
+        improve();
+        advance(SMALL.getUnimprovedSpentLimitMillis() - 1);
+        assertNotTerminated();
+        advance(1);
+        assertTerminated("UNIMPROVED");
+    }
+
+    @Test
+    public void stepWithoutBestScoreImprovementDoesNotRestartTheUnimprovedSpentLimit() {
+        advance(SMALL.getMinSpentMillis());
+        step(false);
+        advance(SMALL.getUnimprovedSpentLimitMillis() - SMALL.getMinSpentMillis());
+        assertTerminated("UNIMPROVED");
+    }
+
+    @Test
+    public void maxSpent() {
+        // improvements at a steady rate never make a plateau nor reach the unimproved spent limit.
+        final long interval = 1_000;
+        while (now + interval < SMALL.getMaxSpentMillis()) {
+            advance(interval);
+            improve();
+            assertNotTerminated();
+        }
+        advance(SMALL.getMaxSpentMillis() - now - 1);
+        assertNotTerminated();
+        advance(1);
+        assertTerminated("MAX_SPENT");
+    }
+
+    @Test
+    public void plateau() {
+        final long interval = 100;
+        improve(AdaptiveTermination.IMPROVEMENTS_WINDOW, interval);
+        final long plateauMillis = AdaptiveTermination.PLATEAU_FACTOR * interval;
+        assertTrue(now + plateauMillis < SMALL.getMinSpentMillis());
+        advance(plateauMillis);
+        // the plateau is reached but the phase didn't run the profile minSpentMillis yet.
+        assertNotTerminated();
+        advance(SMALL.getMinSpentMillis() - now - 1);
+        assertNotTerminated();
+        advance(1);
+        assertTerminated("PLATEAU");
+    }
+
+    @Test
+    public void plateauAfterTheMinSpent() {
+        advance(SMALL.getMinSpentMillis());
+        final long interval = 100;
+        improve(AdaptiveTermination.IMPROVEMENTS_WINDOW, interval);
+        final long plateauMillis = AdaptiveTermination.PLATEAU_FACTOR * interval;
+        advance(plateauMillis - 1);
+        assertNotTerminated();
+        advance(1);
+        assertTerminated("PLATEAU");
+    }
+
+    @Test
+    public void plateauNeedsTheImprovementsWindow() {
+        final long interval = 100;
+        improve(AdaptiveTermination.IMPROVEMENTS_WINDOW - 1, interval);
+        advance(SMALL.getMinSpentMillis());
+        assertNotTerminated();
+        advance(SMALL.getUnimprovedSpentLimitMillis() - SMALL.getMinSpentMillis());
+        assertTerminated("UNIMPROVED");
+    }
+
+    @Test
+    public void plateauUsesTheMedianImprovementInterval() {
+        final long shortInterval = 10;
+        final int longIntervals = AdaptiveTermination.IMPROVEMENTS_WINDOW / 2 - 1;
+        improve(AdaptiveTermination.IMPROVEMENTS_WINDOW - longIntervals, shortInterval);
+        improve(longIntervals, 400);
+        // a few slow improvements don't move the median, so the plateau is PLATEAU_FACTOR times the short interval.
+        advance(SMALL.getMinSpentMillis() - now);
+        assertTerminated("PLATEAU");
+    }
+
+    @Test
+    public void plateauIsRecalculatedWhenTheImprovementRateChanges() {
+        improve(AdaptiveTermination.IMPROVEMENTS_WINDOW, 10);
+        // the improvements become slower, and the window only holds the slow ones.
+        final long interval = 400;
+        improve(AdaptiveTermination.IMPROVEMENTS_WINDOW, interval);
+        assertTrue(now > SMALL.getMinSpentMillis());
+        advance(AdaptiveTermination.PLATEAU_FACTOR * interval - 1);
+        assertNotTerminated();
+        advance(1);
+        assertTerminated("PLATEAU");
+    }
+
+    @Test
+    public void phaseRestartResetsTheTermination() {
+        advance(SMALL.getUnimprovedSpentLimitMillis());
+        assertTerminated("UNIMPROVED");
+        termination.phaseEnded(phaseScope);
+        termination.phaseStarted(phaseScope);
+        assertNotTerminated();
+        advance(SMALL.getUnimprovedSpentLimitMillis());
+        assertTerminated("UNIMPROVED");
+    }
+
+    @Test
+    public void phaseTimeGradient() {
+        assertEquals(0.0, termination.calculatePhaseTimeGradient(phaseScope), 0.0);
+        advance(SMALL.getUnimprovedSpentLimitMillis() / 2);
+        assertEquals(0.5, termination.calculatePhaseTimeGradient(phaseScope), 0.0);
+        improve();
+        assertEquals((double) now / SMALL.getMaxSpentMillis(), termination.calculatePhaseTimeGradient(phaseScope), 0.0);
+        advance(SMALL.getMaxSpentMillis());
+        assertEquals(1.0, termination.calculatePhaseTimeGradient(phaseScope), 0.0);
+    }
+
+    @Test
+    public void childThreadTerminationUsesTheSameLimits() {
+        final AdaptiveTermination child = (AdaptiveTermination) termination.createChildThreadTermination(phaseScope.getSolverScope(), null);
+        child.phaseStarted(phaseScope);
+        advance(SMALL.getUnimprovedSpentLimitMillis());
+        assertTrue(child.isPhaseTerminated(phaseScope));
+        assertEquals("UNIMPROVED", child.getTerminationReason());
+    }
+
+    @Test
+    public void solverIsNeverTerminated() {
+        advance(SMALL.getMaxSpentMillis());
+        assertFalse(termination.isSolverTerminated(phaseScope.getSolverScope()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void startPhase(int tasks) {
+        final List<Task> taskList = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            taskList.add(new Task(i, "task" + i, 0));
+        }
+        scoreDirector = (InnerScoreDirector<TaskAssigningSolution>) SOLVER_FACTORY.getScoreDirectorFactory().buildScoreDirector();
+        scoreDirector.setWorkingSolution(new TaskAssigningSolution(-1, new ArrayList<>(), taskList));
+        final DefaultSolverScope<TaskAssigningSolution> solverScope = new DefaultSolverScope<>();
+        solverScope.setScoreDirector(scoreDirector);
+        phaseScope = new LocalSearchPhaseScope<>(solverScope);
+        now = 0;
+        termination = new AdaptiveTermination(() -> now);
+        termination.phaseStarted(phaseScope);
+    }
+
+    private void advance(long millis) {
+        now += millis;
+    }
+
+    private void improve() {
+        step(true);
+    }
+
+    private void improve(int improvements, long interval) {
+        for (int i = 0; i < improvements; i++) {
+            advance(interval);
+            improve();
+        }
+    }
+
+    private void step(boolean bestScoreImproved) {
+        final LocalSearchStepScope<TaskAssigningSolution> stepScope = new LocalSearchStepScope<>(phaseScope);
+        stepScope.setBestScoreImproved(bestScoreImproved);
+        termination.stepEnded(stepScope);
+    }
+
+    private void assertNotTerminated() {
+        assertFalse(termination.isPhaseTerminated(phaseScope));
+        assertNull(termination.getTerminationReason());
+    }
+
+    private void assertTerminated(String reason) {
+        assertTrue(termination.isPhaseTerminated(phaseScope));
+        assertEquals(reason, termination.getTerminationReason());
+    }
+}
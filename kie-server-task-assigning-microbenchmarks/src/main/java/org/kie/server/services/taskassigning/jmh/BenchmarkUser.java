@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.jmh;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import org.kie.server.services.taskassigning.user.system.api.Group;
+import org.kie.server.services.taskassigning.user.system.api.User;
+
+/**
+ * Minimal User implementation for feeding the user label value extractors.
+ */
+public class BenchmarkUser implements User {
+
+    private final String id;
+
+    private final Map<String, Object> attributes;
+
+    public BenchmarkUser(String id, Map<String, Object> attributes) {
+        this.id = id;
+        this.attributes = attributes;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public Set<Group> getGroups() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.jmh;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.kie.server.services.taskassigning.user.system.api.User;
+import org.kie.server.services.taskassigning.user.system.db.DBUserSystemService;
+import org.kie.server.services.taskassigning.user.system.db.DBUserSystemSkillLabelValueExtractor;
+import org.kie.server.services.taskassigning.user.system.db.benchmarks.BenchmarksDBUsersInitializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the DBUserSystemService findAllUsers() and findUser() operations, and the
+ * DBUserSystemSkillLabelValueExtractor, against an embedded H2 database. The database is created by the h2 schema
+ * migrations, see DBSchemaMigrator, and seeded with 3 x usersSetSize users by the BenchmarksDBUsersInitializer. The
+ * connections are managed by the embedded DBConnectionPool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DBUserSystemServiceBenchmark {
+
+    private static final String SKILLS_DISTRIBUTION = "CITI:0.5,VISA:0.5,MASTER:0.3,AMERICAN_EXPRESS:0.2,EN:0.8,ES:0.4,ZH:0.1,HI:0.1";
+
+    @Param({"1000", "10000"})
+    private int usersSetSize;
+
+    @Param({"JOIN", "MULTI_QUERY"})
+    private String loader;
+
+    @Param({"false", "true"})
+    private boolean cache;
+
+    private DBUserSystemService service;
+
+    private String[] userIds;
+
+    private List<User> users;
+
+    private final DBUserSystemSkillLabelValueExtractor skillExtractor = new DBUserSystemSkillLabelValueExtractor();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty(DBUserSystemService.URL_PROPERTY, "jdbc:h2:mem:ta-benchmark-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        System.setProperty(DBUserSystemService.SCHEMA_PROPERTY, "h2");
+        System.setProperty(DBUserSystemService.USERS_LOADER_PROPERTY, loader);
+        System.setProperty(DBUserSystemService.CACHE_PROPERTY, Boolean.toString(cache));
+        System.setProperty(DBUserSystemService.USERS_INITIALIZER_PROPERTY, "BenchmarksDBUsersInitializer");
+        System.setProperty(BenchmarksDBUsersInitializer.USERS_SET_SIZE, Integer.toString(usersSetSize));
+        System.setProperty(BenchmarksDBUsersInitializer.SKILLS_DISTRIBUTION, SKILLS_DISTRIBUTION);
+        service = new DBUserSystemService();
+        service.start();
+        users = service.findAllUsers();
+        userIds = new String[users.size()];
+        for (int i = 0; i < userIds.length; i++) {
+            userIds[i] = users.get(i).getId();
+        }
+    }
+
+    @Benchmark
+    public List<User> findAllUsers() {
+        return service.findAllUsers();
+    }
+
+    @Benchmark
+    public User findUser() {
+        return service.findUser(userIds[ThreadLocalRandom.current().nextInt(userIds.length)]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Set<Object> dbUserSystemSkillLabelValueExtractor() {
+        return skillExtractor.extract(users.get(ThreadLocalRandom.current().nextInt(users.size())));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.jmh;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.kie.server.services.taskassigning.user.system.db.DBUserDictionary;
+import org.kie.server.services.taskassigning.user.system.db.DBUserSystemService;
+import org.kie.server.services.taskassigning.user.system.db.DBUsersFilter;
+import org.kie.server.services.taskassigning.user.system.db.DBUsersLoader;
+import org.kie.server.services.taskassigning.user.system.db.JoinDBUsersLoader;
+import org.kie.server.services.taskassigning.user.system.db.MultiQueryDBUsersLoader;
+import org.kie.server.services.taskassigning.user.system.db.benchmarks.BenchmarksDBUsersInitializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the DBUsersLoaders when loading all the users of an embedded H2 database, seeded with 3 x usersSetSize
+ * users by the BenchmarksDBUsersInitializer. Besides the time and the allocation rate reported by the gc profiler, the
+ * number of rows read by each loader is logged when the trial starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DBUsersLoaderBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DBUsersLoaderBenchmark.class);
+
+    private static final String SKILLS_DISTRIBUTION = "CITI:0.5,VISA:0.5,MASTER:0.3,AMERICAN_EXPRESS:0.2,EN:0.8,ES:0.4,ZH:0.1,HI:0.1";
+
+    private static final int FETCH_SIZE = 1000;
+
+    @Param({"1000", "10000"})
+    private int usersSetSize;
+
+    @Param({"JOIN", "MULTI_QUERY"})
+    private String loader;
+
+    private DBUsersLoader usersLoader;
+
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        final String url = "jdbc:h2:mem:ta-loader-benchmark-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        System.setProperty(DBUserSystemService.URL_PROPERTY, url);
+        System.setProperty(DBUserSystemService.SCHEMA_PROPERTY, "h2");
+        System.setProperty(DBUserSystemService.USERS_INITIALIZER_PROPERTY, "BenchmarksDBUsersInitializer");
+        System.setProperty(BenchmarksDBUsersInitializer.USERS_SET_SIZE, Integer.toString(usersSetSize));
+        System.setProperty(BenchmarksDBUsersInitializer.SKILLS_DISTRIBUTION, SKILLS_DISTRIBUTION);
+        // the service start migrates the schema and seeds the users.
+        new DBUserSystemService().start();
+        connection = DriverManager.getConnection(url);
+        usersLoader = "JOIN".equals(loader) ?
+                new JoinDBUsersLoader(new DBUserDictionary(), DBUsersFilter.NONE, true) :
+                new MultiQueryDBUsersLoader(new DBUserDictionary(), FETCH_SIZE, DBUsersFilter.NONE, true);
+        logLoadedUsers();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long loadAllUsers(Blackhole blackhole) throws SQLException {
+        return usersLoader.loadAllUsers(connection, blackhole::consume);
+    }
+
+    private void logLoadedUsers() throws SQLException {
+        final long[] users = new long[1];
+        final long rows = usersLoader.loadAllUsers(connection, user -> users[0]++);
+        LOGGER.info("loader: {}, users: {}, rows: {}", usersLoader.getName(), users[0], rows);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.jmh;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.kie.server.api.model.taskassigning.TaskData;
+import org.kie.server.api.model.taskassigning.data.TaskDataExampleValueExtractor;
+import org.kie.server.services.taskassigning.user.system.api.User;
+import org.kie.server.services.taskassigning.user.system.simple.data.UserExampleValueExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the TaskDataExampleValueExtractor and UserExampleValueExtractor extraction over a population of tasks and
+ * users with the CreditDispute skills, as done on each solution refresh. Each operation extracts the labels of one
+ * entity. The extraction of unchanged entities is expected to be allocation free, i.e. gc.alloc.rate.norm close to 0.
+ * <p>
+ * The DBUserSystemSkillLabelValueExtractor needs users loaded by the DBUserSystemService, see
+ * DBUserSystemServiceBenchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LabelValueExtractorsBenchmark {
+
+    private static final String[] CARD_TYPES = {"CITI", "VISA", "MASTER", "AMERICAN_EXPRESS"};
+
+    private static final String[] LANGUAGES = {"EN", "ES", "ZH", "HI"};
+
+    @Param({"10000"})
+    private int size;
+
+    private TaskData[] tasks;
+
+    private User[] users;
+
+    private int index;
+
+    private final TaskDataExampleValueExtractor taskDataExtractor = new TaskDataExampleValueExtractor();
+
+    private final UserExampleValueExtractor userExtractor = new UserExampleValueExtractor();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(1);
+        tasks = new TaskData[size];
+        users = new User[size];
+        for (int i = 0; i < size; i++) {
+            final String[] skills = random.nextBoolean() ? CARD_TYPES : LANGUAGES;
+            final TaskData task = new TaskData();
+            task.setTaskId((long) i);
+            task.setInputData(Collections.singletonMap("skills", skills[random.nextInt(skills.length)]));
+            tasks[i] = task;
+            users[i] = new BenchmarkUser("user" + i, Collections.singletonMap("skills", skills[random.nextInt(skills.length)]));
+        }
+    }
+
+    @Benchmark
+    public Set<Object> taskDataExampleValueExtractor() {
+        return taskDataExtractor.extract(tasks[nextIndex()]);
+    }
+
+    @Benchmark
+    public Set<Object> userExampleValueExtractor() {
+        return userExtractor.extract(users[nextIndex()]);
+    }
+
+    private int nextIndex() {
+        final int result = index;
+        index = result + 1 == size ? 0 : result + 1;
+        return result;
+    }
+}
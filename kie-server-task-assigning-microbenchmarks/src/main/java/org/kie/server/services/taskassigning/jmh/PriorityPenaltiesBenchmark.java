@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.kie.server.services.taskassigning.core.model.solver.PriorityHelper;
+import org.kie.server.services.taskassigning.solver.score.PriorityPenalties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the priority penalty calculation of the former "High level priority", "Medium level priority" and "Low level
+ * priority" rules, i.e. the three PriorityHelper level checks plus the weighted penalty, with the PriorityPenalties
+ * lookup of the consolidated "Priority" rule. Each operation calculates the penalty of one task, with the priorities
+ * uniformly distributed in the 0..10 range as the TaskAssigningSolutionGenerator does.
+ * <p>
+ * The score calculation speed of the whole solver is compared by the "DRL separate priority rules" planner benchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriorityPenaltiesBenchmark {
+
+    private static final int MAX_PRIORITY = 10;
+
+    private static final int MAX_END_TIME_IN_MINUTES = 10000;
+
+    @Param({"10000"})
+    private int size;
+
+    private int[] priorities;
+
+    private int[] endTimesInMinutes;
+
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(1);
+        priorities = new int[size];
+        endTimesInMinutes = new int[size];
+        for (int i = 0; i < size; i++) {
+            priorities[i] = random.nextInt(MAX_PRIORITY + 1);
+            endTimesInMinutes[i] = random.nextInt(MAX_END_TIME_IN_MINUTES);
+        }
+    }
+
+    @Benchmark
+    public long separatePriorityRules() {
+        final int i = nextIndex();
+        final int priority = priorities[i];
+        long penalty = 0;
+        if (PriorityHelper.isHighLevel(priority)) {
+            penalty += PriorityHelper.calculateWeightedPenalty(priority, endTimesInMinutes[i]);
+        }
+        if (PriorityHelper.isMediumLevel(priority)) {
+            penalty += PriorityHelper.calculateWeightedPenalty(priority, endTimesInMinutes[i]);
+        }
+        if (PriorityHelper.isLowLevel(priority)) {
+            penalty += PriorityHelper.calculateWeightedPenalty(priority, endTimesInMinutes[i]);
+        }
+        return penalty;
+    }
+
+    @Benchmark
+    public long priorityPenalties() {
+        final int i = nextIndex();
+        final int priority = priorities[i];
+        return PriorityPenalties.isPenalized(priority) ? PriorityPenalties.calculatePenalty(priority, endTimesInMinutes[i]) : 0;
+    }
+
+    private int nextIndex() {
+        final int result = index;
+        index = result + 1 == size ? 0 : result + 1;
+        return result;
+    }
+}
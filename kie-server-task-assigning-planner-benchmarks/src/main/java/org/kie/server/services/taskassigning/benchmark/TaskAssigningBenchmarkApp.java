@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.benchmark;
+
+import java.util.Collections;
+
+import org.optaplanner.benchmark.api.PlannerBenchmarkFactory;
+
+/**
+ * Runs a planner benchmark configuration and shows the report in the browser.
+ * <p>
+ * From the module directory: mvn exec:java [-Dbenchmark.dataSets=large] [-Dbenchmark.config=org/.../config.xml]
+ * <p>
+ * Configurations ending with .ftl are Freemarker templates, e.g. the taskAssigningBenchmarkConfigTemplate.xml.ftl,
+ * and get the dataSets argument as the "dataSets" model value. The data set paths of the configurations are relative
+ * to the module directory, and the reports are written to local/benchmarkReport.
+ */
+public class TaskAssigningBenchmarkApp {
+
+    public static final String DEFAULT_CONFIG = "org/kie/server/services/taskassigning/benchmark/taskAssigningBenchmarkConfigTemplate.xml.ftl";
+
+    public static final String DEFAULT_DATA_SETS = "default";
+
+    public static void main(String[] args) {
+        final String config = args.length > 0 ? args[0] : DEFAULT_CONFIG;
+        final String dataSets = args.length > 1 ? args[1] : DEFAULT_DATA_SETS;
+        final PlannerBenchmarkFactory benchmarkFactory = config.endsWith(".ftl") ?
+                PlannerBenchmarkFactory.createFromFreemarkerXmlResource(config, Collections.singletonMap("dataSets", dataSets)) :
+                PlannerBenchmarkFactory.createFromXmlResource(config);
+        benchmarkFactory.buildPlannerBenchmark()
+                .benchmarkAndShowReportInBrowser();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.optaplanner.persistence.common.api.domain.solution.SolutionFileIO;
+
+/**
+ * Reads the benchmark data sets from .properties spec files, e.g. data/taskassigning/1k-tasks-100-users.properties,
+ * and generates the solution by using the TaskAssigningSolutionGenerator. Spec files are a few lines long, instead of
+ * the hundreds of MB that a serialized 50k tasks x 10k users solution would take.
+ */
+public class TaskAssigningSolutionFileIO implements SolutionFileIO<TaskAssigningSolution> {
+
+    @Override
+    public String getInputFileExtension() {
+        return "properties";
+    }
+
+    @Override
+    public TaskAssigningSolution read(File inputSolutionFile) {
+        final Properties spec = new Properties();
+        try (InputStream in = Files.newInputStream(inputSolutionFile.toPath())) {
+            spec.load(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("An error was produced while reading the data set spec: " + inputSolutionFile + ", " + e.getMessage(), e);
+        }
+        return TaskAssigningSolutionGenerator.generate(spec);
+    }
+
+    @Override
+    public void write(TaskAssigningSolution solution, File outputSolutionFile) {
+        throw new UnsupportedOperationException("Generated solutions can't be written, please keep the writeOutputSolutionEnabled disabled.");
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+
+import org.kie.server.services.taskassigning.core.model.DefaultLabels;
+import org.kie.server.services.taskassigning.core.model.Group;
+import org.kie.server.services.taskassigning.core.model.Task;
+import org.kie.server.services.taskassigning.core.model.TaskAssigningSolution;
+import org.kie.server.services.taskassigning.core.model.User;
+import org.kie.server.services.taskassigning.solver.label.EncodedLabelSet;
+import org.kie.server.services.taskassigning.solver.label.LabelDictionary;
+
+import static org.kie.server.services.taskassigning.core.model.ModelConstants.PLANNING_USER_ID;
+
+/**
+ * Generates unassigned TaskAssigningSolutions that follow the CreditDispute process model:
+ * <ul>
+ * <li>ResolveDispute tasks, assigned to the CreditAnalyst group and requiring the cardType as skill.</li>
+ * <li>NotifyCustomer tasks, assigned to the ClientRelations group and requiring the language as skill.</li>
+ * </ul>
+ * Users belong to one or both groups and get each card type and language skill with a configurable probability.
+ * The generation is fully determined by the spec, including the random seed, so the data sets are reproducible.
+ * <p>
+ * The task skills are encoded in the same way the TaskDataExampleValueExtractor does, and the users skills are
+ * regular sets, in the same way the user system extractors produce them.
+ */
+public class TaskAssigningSolutionGenerator {
+
+    public static final String RESOLVE_DISPUTE = "ResolveDispute";
+    public static final String NOTIFY_CUSTOMER = "NotifyCustomer";
+
+    public static final String CREDIT_ANALYST = "CreditAnalyst";
+    public static final String CLIENT_RELATIONS = "ClientRelations";
+
+    static final String PROCESS_ID = "task-assigning-example-processes.CreditDispute";
+    static final String CONTAINER_ID = "task-assigning-example-processes_1.0.0-SNAPSHOT";
+
+    /**
+     * Status of the generated tasks, i.e. not yet assigned tasks.
+     */
+    static final String READY = "Ready";
+
+    /**
+     * Number of tasks to generate.
+     */
+    public static final String TASKS = "tasks";
+
+    /**
+     * Number of users to generate, the planning user is always added on top of them.
+     */
+    public static final String USERS = "users";
+
+    /**
+     * Random generation seed. Defaults to 1.
+     */
+    public static final String SEED = "seed";
+
+    /**
+     * Ratio of ResolveDispute tasks, the remaining ones are NotifyCustomer tasks. Defaults to 0.5.
+     */
+    public static final String RESOLVE_DISPUTE_RATIO = "resolveDisputeRatio";
+
+    /**
+     * Probability of a user to belong to the CreditAnalyst group. Defaults to 0.5.
+     */
+    public static final String CREDIT_ANALYST_PROBABILITY = "creditAnalystProbability";
+
+    /**
+     * Probability of a user to belong to the ClientRelations group. Defaults to 0.6.
+     * Users that doesn't get any of the groups are added to one of them randomly.
+     */
+    public static final String CLIENT_RELATIONS_PROBABILITY = "clientRelationsProbability";
+
+    /**
+     * Card type skills distribution, given as a comma separated list of skill:probability pairs.
+     */
+    public static final String CARD_TYPE_SKILLS = "cardTypeSkills";
+
+    /**
+     * Language skills distribution, given as a comma separated list of skill:probability pairs.
+     */
+    public static final String LANGUAGE_SKILLS = "languageSkills";
+
+    static final String DEFAULT_CARD_TYPE_SKILLS = "CITI:0.3,VISA:0.6,MASTER:0.6,AMERICAN_EXPRESS:0.2";
+    static final String DEFAULT_LANGUAGE_SKILLS = "EN:0.9,ES:0.4,ZH:0.1,HI:0.1";
+
+    private static final int MAX_PRIORITY = 10;
+
+    private static final LabelDictionary SKILLS_DICTIONARY = LabelDictionary.forLabel(DefaultLabels.SKILLS.name());
+
+    private TaskAssigningSolutionGenerator() {
+    }
+
+    public static TaskAssigningSolution generate(Properties spec) {
+        final int tasksSize = parseInt(spec, TASKS, null);
+        final int usersSize = parseInt(spec, USERS, null);
+        final Random random = new Random(parseInt(spec, SEED, "1"));
+        final double resolveDisputeRatio = parseDouble(spec, RESOLVE_DISPUTE_RATIO, "0.5");
+        final double creditAnalystProbability = parseDouble(spec, CREDIT_ANALYST_PROBABILITY, "0.5");
+        final double clientRelationsProbability = parseDouble(spec, CLIENT_RELATIONS_PROBABILITY, "0.6");
+        final Map<String, Double> cardTypeSkills = parseDistribution(spec, CARD_TYPE_SKILLS, DEFAULT_CARD_TYPE_SKILLS);
+        final Map<String, Double> languageSkills = parseDistribution(spec, LANGUAGE_SKILLS, DEFAULT_LANGUAGE_SKILLS);
+
+        final Group creditAnalyst = new Group(0, CREDIT_ANALYST);
+        final Group clientRelations = new Group(1, CLIENT_RELATIONS);
+
+        final List<User> users = new ArrayList<>(usersSize + 1);
+        users.add(new User(0, PLANNING_USER_ID, true));
+        for (int i = 1; i <= usersSize; i++) {
+            final User user = new User(i, "user-" + i, true);
+            final Set<Group> groups = new HashSet<>();
+            if (random.nextDouble() < creditAnalystProbability) {
+                groups.add(creditAnalyst);
+            }
+            if (random.nextDouble() < clientRelationsProbability) {
+                groups.add(clientRelations);
+            }
+            if (groups.isEmpty()) {
+                groups.add(random.nextBoolean() ? creditAnalyst : clientRelations);
+            }
+            user.setGroups(groups);
+            final Set<Object> skills = new HashSet<>();
+            addSkills(skills, cardTypeSkills, random);
+            addSkills(skills, languageSkills, random);
+            user.setLabelValues(DefaultLabels.SKILLS.name(), skills);
+            users.add(user);
+        }
+
+        final List<String> cardTypes = new ArrayList<>(cardTypeSkills.keySet());
+        final List<String> languages = new ArrayList<>(languageSkills.keySet());
+        final List<Task> tasks = new ArrayList<>(tasksSize);
+        for (int i = 0; i < tasksSize; i++) {
+            final boolean resolveDispute = random.nextDouble() < resolveDisputeRatio;
+            final String skill;
+            final Map<String, Object> inputData = new HashMap<>();
+            if (resolveDispute) {
+                skill = cardTypes.get(random.nextInt(cardTypes.size()));
+                inputData.put("cardType", skill);
+            } else {
+                skill = languages.get(random.nextInt(languages.size()));
+                inputData.put("language", skill);
+            }
+            inputData.put("skills", skill);
+            final Task task = new Task(i, i, PROCESS_ID, CONTAINER_ID, resolveDispute ? RESOLVE_DISPUTE : NOTIFY_CUSTOMER,
+                                       random.nextInt(MAX_PRIORITY + 1), READY, inputData);
+            task.getPotentialOwners().add(resolveDispute ? creditAnalyst : clientRelations);
+            task.setLabelValues(DefaultLabels.SKILLS.name(), EncodedLabelSet.encode(SKILLS_DICTIONARY, Collections.singleton(skill)));
+            tasks.add(task);
+        }
+        return new TaskAssigningSolution(-1, users, tasks);
+    }
+
+    private static void addSkills(Set<Object> skills, Map<String, Double> distribution, Random random) {
+        for (Map.Entry<String, Double> entry : distribution.entrySet()) {
+            if (random.nextDouble() < entry.getValue()) {
+                skills.add(entry.getKey());
+            }
+        }
+    }
+
+    private static int parseInt(Properties spec, String property, String defaultValue) {
+        final String value = spec.getProperty(property, defaultValue);
+        if (value == null) {
+            throw new IllegalArgumentException("Property " + property + " is required");
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(property + " wasn't properly set: " + e.getMessage(), e);
+        }
+    }
+
+    private static double parseDouble(Properties spec, String property, String defaultValue) {
+        try {
+            return Double.parseDouble(spec.getProperty(property, defaultValue).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(property + " wasn't properly set: " + e.getMessage(), e);
+        }
+    }
+
+    private static Map<String, Double> parseDistribution(Properties spec, String property, String defaultValue) {
+        final Map<String, Double> distribution = new LinkedHashMap<>();
+        for (String pair : spec.getProperty(property, defaultValue).split(",")) {
+            final String[] skillAndProbability = pair.split(":");
+            if (skillAndProbability.length != 2) {
+                throw new IllegalArgumentException(property + " wasn't properly set, skill:probability pair was expected: " + pair);
+            }
+            distribution.put(skillAndProbability[0].trim(), parseDouble(skillAndProbability[1], property));
+        }
+        if (distribution.isEmpty()) {
+            throw new IllegalArgumentException(property + " wasn't properly set, at least one skill is required");
+        }
+        return distribution;
+    }
+
+    private static double parseDouble(String value, String property) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(property + " wasn't properly set: " + e.getMessage(), e);
+        }
+    }
+}
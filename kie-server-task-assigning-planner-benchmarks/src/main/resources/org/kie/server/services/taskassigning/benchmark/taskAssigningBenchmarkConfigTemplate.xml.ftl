@@ -0,0 +1,256 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<#--
+  Compares the taskAssigningSolverConfig.xml of the default planner kjar, i.e. the "Default" benchmark, with variants
+  of the score implementation, the move thread count, the move selectors and the termination.
+  The phases of the "Default" benchmark are defined once by the defaultPhases macro, please keep it in sync with the
+  taskAssigningSolverConfig.xml, every variant only states where it differs from it.
+  The "DRL generic selectors" benchmark uses the generic move selectors with the TaskByGroupAndSkillsChangeMoveFilter
+  in the construction heuristic, instead of the eligible users selectors.
+  The "DRL partitioned search" benchmark corresponds to the taskAssigningPartitionedSolverConfig.xml.
+  The "DRL adaptive termination" benchmark corresponds to the taskAssigningAdaptiveSolverConfig.xml.
+  The "DRL separate priority rules" benchmark uses the former high, medium and low level priority rules instead of
+  the consolidated "Priority" rule, for comparing the score calculation speed of both.
+  The daemon mode is not used, so every benchmark finishes by means of its termination.
+
+  The dataSets model value selects the data sets:
+  - default: up to 10k tasks, with all the variants.
+  - large: up to 50k tasks, with only the score implementation, priority rules, move thread count, partitioned search
+    and adaptive termination variants. Consider giving the JVM at least 8 GB of heap, e.g. MAVEN_OPTS="-Xmx8g".
+-->
+<#assign large = (dataSets!"default") == "large">
+
+<#macro scoreRules drl="org/kie/server/services/taskassigning/solver/taskAssigningScoreRules.drl">
+      <scoreDirectorFactory>
+        <scoreDrl>${drl}</scoreDrl>
+      </scoreDirectorFactory>
+</#macro>
+
+<#macro incrementalScore>
+      <scoreDirectorFactory>
+        <incrementalScoreCalculatorClass>org.kie.server.services.taskassigning.solver.score.TaskAssigningIncrementalScoreCalculator</incrementalScoreCalculatorClass>
+      </scoreDirectorFactory>
+</#macro>
+
+<#macro eligibleConstructionHeuristic>
+      <customPhase>
+        <customPhaseCommandClass>org.kie.server.services.taskassigning.solver.eligibility.EligibleTaskConstructionHeuristicCommand</customPhaseCommandClass>
+      </customPhase>
+</#macro>
+
+<#-- the nested content is the local search termination -->
+<#macro eligibleLocalSearch>
+      <localSearch>
+        <unionMoveSelector>
+          <moveIteratorFactory>
+            <moveIteratorFactoryClass>org.kie.server.services.taskassigning.solver.eligibility.EligibleTaskChangeMoveIteratorFactory</moveIteratorFactoryClass>
+          </moveIteratorFactory>
+          <swapMoveSelector>
+            <filterClass>org.kie.server.services.taskassigning.solver.eligibility.EligibleTaskSwapMoveFilter</filterClass>
+          </swapMoveSelector>
+        </unionMoveSelector>
+        <termination>
+          <#nested>
+        </termination>
+      </localSearch>
+</#macro>
+
+<#macro planningTime>
+      <customPhase>
+        <customPhaseCommandClass>org.kie.server.services.taskassigning.solver.capacity.PlanningTimeCommand</customPhaseCommandClass>
+      </customPhase>
+</#macro>
+
+<#macro warmStart>
+      <customPhase>
+        <customPhaseCommandClass>org.kie.server.services.taskassigning.solver.checkpoint.WarmStartRestoreCommand</customPhaseCommandClass>
+      </customPhase>
+</#macro>
+
+<#-- same phases as the taskAssigningSolverConfig.xml, the nested content is the local search termination -->
+<#macro defaultPhases>
+      <@planningTime/>
+      <@warmStart/>
+      <@eligibleConstructionHeuristic/>
+      <@eligibleLocalSearch><#nested></@eligibleLocalSearch>
+</#macro>
+
+<#macro defaultTermination>
+          <unimprovedSpentLimit>PT2M</unimprovedSpentLimit>
+</#macro>
+
+<#macro genericSelectorsConstructionHeuristic>
+      <constructionHeuristic>
+        <changeMoveSelector>
+          <filterClass>org.kie.server.services.taskassigning.core.model.solver.filter.TaskByGroupAndSkillsChangeMoveFilter</filterClass>
+        </changeMoveSelector>
+      </constructionHeuristic>
+</#macro>
+
+<plannerBenchmark>
+
+  <benchmarkDirectory>local/benchmarkReport</benchmarkDirectory>
+  <warmUpSecondsSpentLimit>30</warmUpSecondsSpentLimit>
+
+  <inheritedSolverBenchmark>
+    <solver>
+      <solutionClass>org.kie.server.services.taskassigning.core.model.TaskAssigningSolution</solutionClass>
+      <entityClass>org.kie.server.services.taskassigning.core.model.TaskOrUser</entityClass>
+      <entityClass>org.kie.server.services.taskassigning.core.model.Task</entityClass>
+      <termination>
+        <!-- upper bound for every single benchmark, the local search unimprovedSpentLimit usually finishes before. -->
+        <minutesSpentLimit><#if large>15<#else>5</#if></minutesSpentLimit>
+      </termination>
+    </solver>
+    <problemBenchmarks>
+      <solutionFileIOClass>org.kie.server.services.taskassigning.benchmark.TaskAssigningSolutionFileIO</solutionFileIOClass>
+      <!-- the data sets are generated from .properties specs, so the solutions can't be written back. -->
+      <writeOutputSolutionEnabled>false</writeOutputSolutionEnabled>
+<#if large>
+      <inputSolutionFile>data/taskassigning/10k-tasks-10k-users.properties</inputSolutionFile>
+      <inputSolutionFile>data/taskassigning/50k-tasks-100-users.properties</inputSolutionFile>
+      <inputSolutionFile>data/taskassigning/50k-tasks-1k-users.properties</inputSolutionFile>
+      <inputSolutionFile>data/taskassigning/50k-tasks-10k-users.properties</inputSolutionFile>
+<#else>
+      <inputSolutionFile>data/taskassigning/1k-tasks-100-users.properties</inputSolutionFile>
+      <inputSolutionFile>data/taskassigning/1k-tasks-1k-users.properties</inputSolutionFile>
+      <inputSolutionFile>data/taskassigning/1k-tasks-10k-users.properties</inputSolutionFile>
+      <inputSolutionFile>data/taskassigning/10k-tasks-100-users.properties</inputSolutionFile>
+      <inputSolutionFile>data/taskassigning/10k-tasks-1k-users.properties</inputSolutionFile>
+</#if>
+      <problemStatisticType>BEST_SCORE</problemStatisticType>
+      <problemStatisticType>STEP_SCORE</problemStatisticType>
+      <problemStatisticType>SCORE_CALCULATION_SPEED</problemStatisticType>
+    </problemBenchmarks>
+  </inheritedSolverBenchmark>
+
+  <solverBenchmark>
+    <name>Default</name>
+    <solver>
+      <@scoreRules/>
+      <moveThreadCount>AUTO</moveThreadCount>
+      <@defaultPhases><@defaultTermination/></@defaultPhases>
+    </solver>
+  </solverBenchmark>
+
+  <solverBenchmark>
+    <name>DRL separate priority rules</name>
+    <solver>
+      <@scoreRules drl="org/kie/server/services/taskassigning/benchmark/taskAssigningSeparatePriorityRules.drl"/>
+      <moveThreadCount>AUTO</moveThreadCount>
+      <@defaultPhases><@defaultTermination/></@defaultPhases>
+    </solver>
+  </solverBenchmark>
+
+  <solverBenchmark>
+    <name>DRL generic selectors</name>
+    <solver>
+      <@scoreRules/>
+      <moveThreadCount>AUTO</moveThreadCount>
+      <@genericSelectorsConstructionHeuristic/>
+      <localSearch>
+        <termination>
+          <@defaultTermination/>
+        </termination>
+      </localSearch>
+    </solver>
+  </solverBenchmark>
+
+<#list ["NONE", "4"] as moveThreadCount>
+<#if !large || moveThreadCount == "NONE">
+  <solverBenchmark>
+    <name>DRL moveThreadCount ${moveThreadCount}</name>
+    <solver>
+      <@scoreRules/>
+      <moveThreadCount>${moveThreadCount}</moveThreadCount>
+      <@defaultPhases><@defaultTermination/></@defaultPhases>
+    </solver>
+  </solverBenchmark>
+</#if>
+</#list>
+
+<#list ["AUTO", "NONE"] as moveThreadCount>
+  <solverBenchmark>
+    <name>Incremental<#if moveThreadCount != "AUTO"> moveThreadCount ${moveThreadCount}</#if></name>
+    <solver>
+      <@incrementalScore/>
+      <moveThreadCount>${moveThreadCount}</moveThreadCount>
+      <@defaultPhases><@defaultTermination/></@defaultPhases>
+    </solver>
+  </solverBenchmark>
+</#list>
+
+<#if !large>
+  <solverBenchmark>
+    <name>DRL unfiltered construction heuristic</name>
+    <solver>
+      <@scoreRules/>
+      <moveThreadCount>AUTO</moveThreadCount>
+      <constructionHeuristic/>
+      <localSearch>
+        <termination>
+          <@defaultTermination/>
+        </termination>
+      </localSearch>
+    </solver>
+  </solverBenchmark>
+
+  <solverBenchmark>
+    <name>DRL entity tabu local search</name>
+    <solver>
+      <@scoreRules/>
+      <moveThreadCount>AUTO</moveThreadCount>
+      <@genericSelectorsConstructionHeuristic/>
+      <localSearch>
+        <unionMoveSelector>
+          <changeMoveSelector/>
+          <swapMoveSelector/>
+        </unionMoveSelector>
+        <acceptor>
+          <entityTabuSize>7</entityTabuSize>
+        </acceptor>
+        <forager>
+          <acceptedCountLimit>1000</acceptedCountLimit>
+        </forager>
+        <termination>
+          <@defaultTermination/>
+        </termination>
+      </localSearch>
+    </solver>
+  </solverBenchmark>
+
+  <solverBenchmark>
+    <name>DRL unimprovedSpentLimit PT30S</name>
+    <solver>
+      <@scoreRules/>
+      <moveThreadCount>AUTO</moveThreadCount>
+      <@defaultPhases><unimprovedSpentLimit>PT30S</unimprovedSpentLimit></@defaultPhases>
+    </solver>
+  </solverBenchmark>
+</#if>
+
+  <solverBenchmark>
+    <name>DRL partitioned search</name>
+    <solver>
+      <@scoreRules/>
+      <@planningTime/>
+      <@warmStart/>
+      <partitionedSearch>
+        <solutionPartitionerClass>org.kie.server.services.taskassigning.solver.partition.TaskAssigningSolutionPartitioner</solutionPartitionerClass>
+        <runnablePartThreadLimit>AUTO</runnablePartThreadLimit>
+        <@eligibleConstructionHeuristic/>
+        <@eligibleLocalSearch><unimprovedSpentLimit>PT30S</unimprovedSpentLimit></@eligibleLocalSearch>
+      </partitionedSearch>
+      <@eligibleLocalSearch><@defaultTermination/></@eligibleLocalSearch>
+    </solver>
+  </solverBenchmark>
+
+  <solverBenchmark>
+    <name>DRL adaptive termination</name>
+    <solver>
+      <@scoreRules/>
+      <moveThreadCount>AUTO</moveThreadCount>
+      <@defaultPhases><terminationClass>org.kie.server.services.taskassigning.solver.termination.AdaptiveTermination</terminationClass></@defaultPhases>
+    </solver>
+  </solverBenchmark>
+
+</plannerBenchmark>
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.optaplanner.benchmark.api.PlannerBenchmarkFactory;
+import org.optaplanner.benchmark.config.PlannerBenchmarkConfig;
+import org.optaplanner.benchmark.config.SolverBenchmarkConfig;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.phase.PhaseConfig;
+import org.optaplanner.core.config.phase.custom.CustomPhaseConfig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.kie.server.services.taskassigning.benchmark.TaskAssigningBenchmarkApp.DEFAULT_CONFIG;
+
+public class TaskAssigningBenchmarkConfigTemplateTest {
+
+    private static final String SOLVER_CONFIG = "org/kie/server/services/taskassigning/solver/taskAssigningSolverConfig.xml";
+
+    @Test
+    public void defaultDataSets() {
+        final PlannerBenchmarkConfig config = createConfig("default");
+        assertEquals(12, config.getSolverBenchmarkConfigList().size());
+        assertEquals(5, config.getInheritedSolverBenchmarkConfig().getProblemBenchmarksConfig().getInputSolutionFileList().size());
+        assertUniqueNames(config);
+    }
+
+    @Test
+    public void largeDataSets() {
+        final PlannerBenchmarkConfig config = createConfig("large");
+        assertEquals(8, config.getSolverBenchmarkConfigList().size());
+        assertEquals(4, config.getInheritedSolverBenchmarkConfig().getProblemBenchmarksConfig().getInputSolutionFileList().size());
+        assertUniqueNames(config);
+    }
+
+    @Test
+    public void writeOutputSolutionDisabled() {
+        assertFalse(createConfig("default").getInheritedSolverBenchmarkConfig().getProblemBenchmarksConfig().getWriteOutputSolutionEnabled());
+    }
+
+    @Test
+    public void defaultBenchmarkHasTheSolverConfigPhases() {
+        final List<PhaseConfig> solverPhases = SolverFactory.createFromXmlResource(SOLVER_CONFIG).getSolverConfig().getPhaseConfigList();
+        for (String dataSets : new String[]{"default", "large"}) {
+            final SolverBenchmarkConfig defaultBenchmark = createConfig(dataSets).getSolverBenchmarkConfigList().get(0);
+            assertEquals("Default", defaultBenchmark.getName());
+            assertEquals(describe(solverPhases), describe(defaultBenchmark.getSolverConfig().getPhaseConfigList()));
+        }
+    }
+
+    private static PlannerBenchmarkConfig createConfig(String dataSets) {
+        return PlannerBenchmarkFactory.createFromFreemarkerXmlResource(DEFAULT_CONFIG, Collections.singletonMap("dataSets", dataSets))
+                .getPlannerBenchmarkConfig();
+    }
+
+    private static void assertUniqueNames(PlannerBenchmarkConfig config) {
+        final Set<String> names = new HashSet<>();
+        for (SolverBenchmarkConfig solverBenchmarkConfig : config.getSolverBenchmarkConfigList()) {
+            names.add(solverBenchmarkConfig.getName());
+        }
+        assertEquals(config.getSolverBenchmarkConfigList().size(), names.size());
+    }
+
+    private static List<String> describe(List<PhaseConfig> phaseConfigs) {
+        final List<String> result = new ArrayList<>();
+        for (PhaseConfig phaseConfig : phaseConfigs) {
+            if (phaseConfig instanceof CustomPhaseConfig) {
+                result.add(((CustomPhaseConfig) phaseConfig).getCustomPhaseCommandClassList().toString());
+            } else {
+                result.add(phaseConfig.getClass().getSimpleName());
+            }
+        }
+        return result;
+    }
+}
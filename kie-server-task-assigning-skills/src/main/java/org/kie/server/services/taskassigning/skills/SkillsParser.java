@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.skills;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Parses a skills value, e.g. the "skills" input of the CreditDispute tasks, given as a comma separated list of skills
+ * like "EN, ES", into the set of individual skills. Each skill is trimmed, optionally upper cased, and interned in a
+ * bounded vocabulary so that equal skills share the same instance. Already parsed values are kept in a bounded cache,
+ * and the returned sets are immutable and shared.
+ * <p>
+ * The parser is used by the TaskDataExampleValueExtractor of the default planner kjar for the tasks skills, and by the
+ * UserExampleValueExtractor of the simple user system kjar for the users skills, so that both sides produce matching
+ * skills. The UPPER_CASE_PROPERTY is read by both. The DBUserDictionary of the database user system kjar normalizes
+ * the users skills the same way too.
+ * <p>
+ * The extractors parse the values of every task and user on each solution refresh, so parse() doesn't lock. When the
+ * cache is full it's cleared instead of evicting the least recently used entries, the distinct skills values are
+ * usually far less than the cache size, and a cleared value is just parsed again.
+ */
+public class SkillsParser {
+
+    /**
+     * System property for upper casing the parsed skills, e.g. when the tasks and the users skills are not written
+     * with the same case. Defaults to false.
+     */
+    public static final String UPPER_CASE_PROPERTY = "org.kie.server.services.taskassigning.SkillsParser.upperCase";
+
+    public static final char SEPARATOR = ',';
+
+    public static final int DEFAULT_VOCABULARY_MAX_SIZE = 4096;
+
+    public static final int DEFAULT_CACHE_MAX_SIZE = 1024;
+
+    private final boolean upperCase;
+
+    private final int vocabularyMaxSize;
+
+    private final int cacheMaxSize;
+
+    private final ConcurrentMap<String, String> vocabulary = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Set<Object>> cache = new ConcurrentHashMap<>();
+
+    public SkillsParser() {
+        this(Boolean.parseBoolean(System.getProperty(UPPER_CASE_PROPERTY, "false")), DEFAULT_VOCABULARY_MAX_SIZE, DEFAULT_CACHE_MAX_SIZE);
+    }
+
+    public SkillsParser(boolean upperCase, int vocabularyMaxSize, int cacheMaxSize) {
+        this.upperCase = upperCase;
+        this.vocabularyMaxSize = vocabularyMaxSize;
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    /**
+     * @return the not modifiable set of skills in the value, empty if the value has no skills.
+     */
+    public Set<Object> parse(String value) {
+        final Set<Object> cached = cache.get(value);
+        if (cached != null) {
+            return cached;
+        }
+        if (cache.size() >= cacheMaxSize) {
+            cache.clear();
+        }
+        final Set<Object> result = doParse(value);
+        // a concurrent parse of the same value might have won, its set is returned so that the instance is shared.
+        final Set<Object> previous = cache.putIfAbsent(value, result);
+        return previous != null ? previous : result;
+    }
+
+    public int getVocabularySize() {
+        return vocabulary.size();
+    }
+
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    private Set<Object> doParse(String value) {
+        Set<Object> skills = null;
+        String firstSkill = null;
+        int start = 0;
+        while (start <= value.length()) {
+            int end = value.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = value.length();
+            }
+            final String skill = normalize(value.substring(start, end));
+            if (skill != null) {
+                if (firstSkill == null) {
+                    firstSkill = skill;
+                } else {
+                    if (skills == null) {
+                        skills = new LinkedHashSet<>();
+                        skills.add(firstSkill);
+                    }
+                    skills.add(skill);
+                }
+            }
+            start = end + 1;
+        }
+        if (skills != null) {
+            return Collections.unmodifiableSet(skills);
+        }
+        return firstSkill != null ? Collections.singleton(firstSkill) : Collections.emptySet();
+    }
+
+    private String normalize(String skill) {
+        String result = skill.trim();
+        if (result.isEmpty()) {
+            return null;
+        }
+        if (upperCase) {
+            result = result.toUpperCase(Locale.ROOT);
+        }
+        return intern(result);
+    }
+
+    /**
+     * Interns the skill while the vocabulary has room for it, otherwise the skill is used as is. Since skills are
+     * compared by equals the matching is not affected, only the instances sharing.
+     */
+    private String intern(String skill) {
+        final String interned = vocabulary.get(skill);
+        if (interned != null) {
+            return interned;
+        }
+        if (vocabulary.size() >= vocabularyMaxSize) {
+            return skill;
+        }
+        final String previous = vocabulary.putIfAbsent(skill, skill);
+        return previous != null ? previous : skill;
+    }
+}
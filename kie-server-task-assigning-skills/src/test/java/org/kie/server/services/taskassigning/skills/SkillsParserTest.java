@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.skills;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class SkillsParserTest {
+
+    @Test
+    public void parse() {
+        final SkillsParser parser = new SkillsParser(false, 10, 10);
+        assertEquals(new LinkedHashSet<>(Arrays.asList("EN", "es")), parser.parse(" EN, es ,,EN"));
+        assertEquals(Collections.singleton("EN"), parser.parse("EN"));
+        assertEquals(Collections.emptySet(), parser.parse(" , "));
+        assertSame(parser.parse("EN, ES"), parser.parse("EN, ES"));
+    }
+
+    @Test
+    public void parseUpperCase() {
+        final SkillsParser parser = new SkillsParser(true, 10, 10);
+        assertEquals(new LinkedHashSet<>(Arrays.asList("EN", "ES")), parser.parse("en, Es"));
+    }
+
+    @Test
+    public void parsedSetsAreNotModifiable() {
+        final SkillsParser parser = new SkillsParser(false, 10, 10);
+        for (String value : Arrays.asList("EN", "EN, ES", "")) {
+            try {
+                parser.parse(value).add("FR");
+                fail("the set parsed from: \"" + value + "\" was expected to be not modifiable");
+            } catch (UnsupportedOperationException e) {
+                // expected.
+            }
+        }
+    }
+
+    @Test
+    public void cacheIsBounded() {
+        final SkillsParser parser = new SkillsParser(false, 10, 3);
+        final Set<Object> first = parser.parse("A");
+        parser.parse("B");
+        parser.parse("C");
+        assertEquals(3, parser.getCacheSize());
+        assertSame(first, parser.parse("A"));
+        parser.parse("D");
+        assertEquals(1, parser.getCacheSize());
+        // evicted values are parsed again, with equal results.
+        assertEquals(first, parser.parse("A"));
+        assertEquals(2, parser.getCacheSize());
+    }
+
+    @Test
+    public void vocabularyIsBounded() {
+        final SkillsParser parser = new SkillsParser(false, 2, 10);
+        parser.parse("A, B, C, D");
+        assertEquals(2, parser.getVocabularySize());
+        assertEquals(new LinkedHashSet<>(Arrays.asList("A", "B", "C", "D")), parser.parse("A, B, C, D"));
+    }
+
+    @Test
+    public void concurrentParsesShareTheSet() throws Exception {
+        final SkillsParser parser = new SkillsParser(false, 100, 100);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Set<Object>>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(executor.submit(() -> parser.parse("EN, ES, FR")));
+            }
+            final Set<Object> expected = parser.parse("EN, ES, FR");
+            for (Future<Set<Object>> result : results) {
+                assertSame(expected, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
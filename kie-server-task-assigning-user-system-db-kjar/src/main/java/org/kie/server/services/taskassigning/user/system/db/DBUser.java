@@ -16,25 +16,59 @@
 
 package org.kie.server.services.taskassigning.user.system.db;
 
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
 
 import org.kie.server.services.taskassigning.user.system.api.Group;
 import org.kie.server.services.taskassigning.user.system.api.User;
 
+/**
+ * Immutable user loaded by the DBUserSystemService.
+ * <p>
+ * Groups and skills are kept as sorted arrays of indexes into a shared DBUserDictionary, and exposed as not modifiable
+ * set views over these arrays. The hash code is calculated once at creation time.
+ * <p>
+ * The user capacity and working calendar, see DBUserAvailability, are exposed as the user attributes.
+ */
 public class DBUser implements User {
 
-    private String id;
+    private static final int[] EMPTY = new int[0];
+
+    private final String id;
+
+    private final DBUserDictionary dictionary;
+
+    private final int[] groups;
+
+    private final int[] skills;
+
+    private final DBUserAvailability availability;
+
+    private final int hash;
 
-    private Set<Group> groups;
+    private Set<Group> groupsView;
 
-    private Set<String> skills;
+    private Set<String> skillsView;
 
-    public DBUser(String id, Set<Group> groups, Set<String> skills) {
+    private Set<Object> skillLabelValues;
+
+    /**
+     * @param groups sorted and not repeated indexes of the user groups in the dictionary.
+     * @param skills sorted and not repeated indexes of the user skills in the dictionary.
+     */
+    DBUser(String id, DBUserDictionary dictionary, int[] groups, int[] skills, DBUserAvailability availability) {
         this.id = id;
-        this.groups = groups;
-        this.skills = skills;
+        this.dictionary = dictionary;
+        this.groups = groups.length > 0 ? groups : EMPTY;
+        this.skills = skills.length > 0 ? skills : EMPTY;
+        this.availability = availability != null ? availability : DBUserAvailability.UNLIMITED;
+        this.hash = calculateHash();
     }
 
     @Override
@@ -44,16 +78,47 @@ public class DBUser implements User {
 
     @Override
     public Set<Group> getGroups() {
-        return groups;
+        Set<Group> result = groupsView;
+        if (result == null) {
+            result = new GroupsView();
+            groupsView = result;
+        }
+        return result;
     }
 
+    /**
+     * @return the user capacity and working calendar values, see DBUserAvailability. An empty map when the user has no
+     * availability restrictions.
+     */
     @Override
     public Map<String, Object> getAttributes() {
-        return null;
+        return availability.getAttributes();
+    }
+
+    public DBUserAvailability getAvailability() {
+        return availability;
     }
 
     public Set<String> getSkills() {
-        return skills;
+        Set<String> result = skillsView;
+        if (result == null) {
+            result = new SkillsView();
+            skillsView = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return the skills as a not modifiable set of label values, e.g. for the SKILLS label. The set is created once
+     * and shared by all the invocations.
+     */
+    public Set<Object> getSkillLabelValues() {
+        Set<Object> result = skillLabelValues;
+        if (result == null) {
+            result = Collections.unmodifiableSet(getSkills());
+            skillLabelValues = result;
+        }
+        return result;
     }
 
     @Override
@@ -65,13 +130,111 @@ public class DBUser implements User {
             return false;
         }
         DBUser dbUser = (DBUser) o;
-        return Objects.equals(id, dbUser.id) &&
-                Objects.equals(groups, dbUser.groups) &&
-                Objects.equals(skills, dbUser.skills);
+        if (hash != dbUser.hash || !Objects.equals(id, dbUser.id) || !availability.equals(dbUser.availability)) {
+            return false;
+        }
+        if (dictionary == dbUser.dictionary) {
+            return Arrays.equals(groups, dbUser.groups) && Arrays.equals(skills, dbUser.skills);
+        }
+        return getGroups().equals(dbUser.getGroups()) && getSkills().equals(dbUser.getSkills());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, groups, skills);
+        return hash;
+    }
+
+    /**
+     * Calculates the hash code in terms of the groups and skills values, so that it's consistent with the equals
+     * comparison of users built with different dictionaries.
+     */
+    private int calculateHash() {
+        int groupsHash = 0;
+        for (int group : groups) {
+            groupsHash += dictionary.getGroup(group).hashCode();
+        }
+        int skillsHash = 0;
+        for (int skill : skills) {
+            skillsHash += dictionary.getSkill(skill).hashCode();
+        }
+        return Objects.hash(id, groupsHash, skillsHash, availability);
+    }
+
+    private abstract class IndexesView<T> extends AbstractSet<T> {
+
+        private final int[] indexes;
+
+        IndexesView(int[] indexes) {
+            this.indexes = indexes;
+        }
+
+        abstract T get(int index);
+
+        abstract int find(Object value);
+
+        @Override
+        public boolean contains(Object o) {
+            final int index = find(o);
+            return index >= 0 && Arrays.binarySearch(indexes, index) >= 0;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private int position;
+
+                @Override
+                public boolean hasNext() {
+                    return position < indexes.length;
+                }
+
+                @Override
+                public T next() {
+                    if (position >= indexes.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return get(indexes[position++]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return indexes.length;
+        }
+    }
+
+    private class GroupsView extends IndexesView<Group> {
+
+        GroupsView() {
+            super(groups);
+        }
+
+        @Override
+        Group get(int index) {
+            return dictionary.getGroup(index);
+        }
+
+        @Override
+        int find(Object value) {
+            return value instanceof DBGroup ? dictionary.findGroup(((DBGroup) value).getId()) : -1;
+        }
+    }
+
+    private class SkillsView extends IndexesView<String> {
+
+        SkillsView() {
+            super(skills);
+        }
+
+        @Override
+        String get(int index) {
+            return dictionary.getSkill(index);
+        }
+
+        @Override
+        int find(Object value) {
+            return value instanceof String ? dictionary.findSkill((String) value) : -1;
+        }
     }
 }
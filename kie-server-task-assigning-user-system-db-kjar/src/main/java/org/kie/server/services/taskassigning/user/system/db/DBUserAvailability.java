@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable capacity and working calendar of a DBUser, as stored in the ta_user table columns:
+ * <ul>
+ * <li>capacity_minutes: the maximum amount of work in minutes that can be planned for the user, null for no limit.</li>
+ * <li>working_days: seven characters mask from Monday to Sunday, where '1' stands for a working day, e.g. "1111100".
+ * null for every day.</li>
+ * <li>shift_start_minute and shift_end_minute: the daily working hours as minutes of the day, e.g. 540 and 1020 for
+ * 09:00 to 17:00. A shift end lower or equal than the shift start ends the next day. null when not restricted.</li>
+ * </ul>
+ * The values are exposed as DBUser attributes. The map is built once when the user is loaded, so the attributes don't
+ * change between the user system synchronizations, and the minutes of work a user can take at a given time are
+ * calculated by the planner from these values and the planning time.
+ */
+public final class DBUserAvailability {
+
+    public static final String CAPACITY_MINUTES = "capacityMinutes";
+
+    public static final String WORKING_DAYS = "workingDays";
+
+    public static final String SHIFT_START_MINUTE = "shiftStartMinute";
+
+    public static final String SHIFT_END_MINUTE = "shiftEndMinute";
+
+    static final DBUserAvailability UNLIMITED = new DBUserAvailability(null, null, null, null);
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final Integer capacityMinutes;
+
+    private final String workingDays;
+
+    private final Integer shiftStartMinute;
+
+    private final Integer shiftEndMinute;
+
+    private final Map<String, Object> attributes;
+
+    private DBUserAvailability(Integer capacityMinutes, String workingDays, Integer shiftStartMinute, Integer shiftEndMinute) {
+        this.capacityMinutes = capacityMinutes;
+        this.workingDays = workingDays;
+        this.shiftStartMinute = shiftStartMinute;
+        this.shiftEndMinute = shiftEndMinute;
+        this.attributes = buildAttributes();
+    }
+
+    /**
+     * @return the availability for the given values, the shared UNLIMITED instance when none of them is set. Shift
+     * limits are only considered when both of them are set.
+     */
+    public static DBUserAvailability of(Integer capacityMinutes, String workingDays, Integer shiftStartMinute, Integer shiftEndMinute) {
+        final String days = workingDays != null && !workingDays.trim().isEmpty() ? workingDays.trim() : null;
+        final boolean hasShift = shiftStartMinute != null && shiftEndMinute != null;
+        if (capacityMinutes == null && days == null && !hasShift) {
+            return UNLIMITED;
+        }
+        return new DBUserAvailability(capacityMinutes != null ? Math.max(0, capacityMinutes) : null,
+                                      days,
+                                      hasShift ? Math.floorMod(shiftStartMinute, MINUTES_PER_DAY) : null,
+                                      hasShift ? Math.floorMod(shiftEndMinute, MINUTES_PER_DAY) : null);
+    }
+
+    public boolean isUnlimited() {
+        return this == UNLIMITED;
+    }
+
+    public Integer getCapacityMinutes() {
+        return capacityMinutes;
+    }
+
+    public String getWorkingDays() {
+        return workingDays;
+    }
+
+    public Integer getShiftStartMinute() {
+        return shiftStartMinute;
+    }
+
+    public Integer getShiftEndMinute() {
+        return shiftEndMinute;
+    }
+
+    /**
+     * @return a not modifiable map with the configured values, built once at creation time. An empty map for the
+     * UNLIMITED availability.
+     */
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    private Map<String, Object> buildAttributes() {
+        if (capacityMinutes == null && workingDays == null && shiftStartMinute == null) {
+            return Collections.emptyMap();
+        }
+        final Map<String, Object> result = new HashMap<>();
+        putIfNotNull(result, CAPACITY_MINUTES, capacityMinutes);
+        putIfNotNull(result, WORKING_DAYS, workingDays);
+        putIfNotNull(result, SHIFT_START_MINUTE, shiftStartMinute);
+        putIfNotNull(result, SHIFT_END_MINUTE, shiftEndMinute);
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static void putIfNotNull(Map<String, Object> attributes, String name, Object value) {
+        if (value != null) {
+            attributes.put(name, value);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DBUserAvailability)) {
+            return false;
+        }
+        DBUserAvailability that = (DBUserAvailability) o;
+        return Objects.equals(capacityMinutes, that.capacityMinutes) &&
+                Objects.equals(workingDays, that.workingDays) &&
+                Objects.equals(shiftStartMinute, that.shiftStartMinute) &&
+                Objects.equals(shiftEndMinute, that.shiftEndMinute);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(capacityMinutes, workingDays, shiftStartMinute, shiftEndMinute);
+    }
+}
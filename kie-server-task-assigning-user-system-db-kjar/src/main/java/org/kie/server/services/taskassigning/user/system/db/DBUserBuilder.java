@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.util.Arrays;
+
+/**
+ * Reusable builder for creating DBUsers without intermediate collections. Groups and skills are interned in the
+ * dictionary as they are added, and repeated values are discarded when the user is built.
+ * Not thread safe.
+ */
+public class DBUserBuilder {
+
+    private final DBUserDictionary dictionary;
+
+    private String id;
+
+    private int[] groups = new int[8];
+
+    private int groupsSize;
+
+    private int[] skills = new int[8];
+
+    private int skillsSize;
+
+    private DBUserAvailability availability;
+
+    public DBUserBuilder(DBUserDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public DBUserBuilder reset(String id) {
+        this.id = id;
+        this.groupsSize = 0;
+        this.skillsSize = 0;
+        this.availability = null;
+        return this;
+    }
+
+    public DBUserBuilder addGroup(String groupId) {
+        if (groupId != null && !groupId.isEmpty()) {
+            if (groupsSize == groups.length) {
+                groups = Arrays.copyOf(groups, groupsSize * 2);
+            }
+            groups[groupsSize++] = dictionary.internGroup(groupId);
+        }
+        return this;
+    }
+
+    /**
+     * Adds the skill, or skills if the value is a comma separated list of skills, normalized by the dictionary.
+     */
+    public DBUserBuilder addSkill(String skillId) {
+        if (skillId == null || skillId.isEmpty()) {
+            return this;
+        }
+        int start = 0;
+        int end = skillId.indexOf(DBUserDictionary.SKILLS_SEPARATOR);
+        if (end < 0) {
+            // the single skill value, i.e. the usual one, is normalized without copying.
+            doAddSkill(skillId);
+            return this;
+        }
+        while (start <= skillId.length()) {
+            if (end < 0) {
+                end = skillId.length();
+            }
+            doAddSkill(skillId.substring(start, end));
+            start = end + 1;
+            end = skillId.indexOf(DBUserDictionary.SKILLS_SEPARATOR, start);
+        }
+        return this;
+    }
+
+    private void doAddSkill(String skillId) {
+        final String skill = dictionary.normalizeSkill(skillId);
+        if (skill != null) {
+            if (skillsSize == skills.length) {
+                skills = Arrays.copyOf(skills, skillsSize * 2);
+            }
+            skills[skillsSize++] = dictionary.internSkill(skill);
+        }
+    }
+
+    public DBUserBuilder availability(DBUserAvailability availability) {
+        this.availability = availability;
+        return this;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public DBUser build() {
+        return new DBUser(id, dictionary, sortedUnique(groups, groupsSize), sortedUnique(skills, skillsSize), availability);
+    }
+
+    private static int[] sortedUnique(int[] values, int size) {
+        final int[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        return unique == sorted.length ? sorted : Arrays.copyOf(sorted, unique);
+    }
+}
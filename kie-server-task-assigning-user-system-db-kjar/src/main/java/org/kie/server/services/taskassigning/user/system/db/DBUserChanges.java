@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.kie.server.services.taskassigning.user.system.api.User;
+
+/**
+ * Result of a DBUserSystemService.findChangesSince() invocation.
+ * <p>
+ * When isFullReload() is true, the changes couldn't be calculated incrementally, e.g. because the requested token is
+ * older than the oldest entry in the change log, and getUsers() contains all the enabled users. In any other case,
+ * getUsers() contains the current state of the enabled users that changed since the requested token, and
+ * getRemovedUserIds() the users that were deleted or disabled.
+ * In both cases getToken() must be used for requesting the next changes.
+ */
+public final class DBUserChanges {
+
+    private final long token;
+
+    private final boolean fullReload;
+
+    private final List<DBUser> users;
+
+    private final Set<String> removedUserIds;
+
+    private final Map<Long, Long> pendingChangeIds;
+
+    private DBUserChanges(long token, boolean fullReload, List<DBUser> users, Set<String> removedUserIds, Map<Long, Long> pendingChangeIds) {
+        this.token = token;
+        this.fullReload = fullReload;
+        this.users = users;
+        this.removedUserIds = removedUserIds;
+        this.pendingChangeIds = pendingChangeIds;
+    }
+
+    static DBUserChanges fullReload(long token, List<DBUser> users, Map<Long, Long> pendingChangeIds) {
+        return new DBUserChanges(token, true, Collections.unmodifiableList(users), Collections.emptySet(), pendingChangeIds);
+    }
+
+    static DBUserChanges incremental(long token, List<DBUser> changedUsers, Set<String> removedUserIds, Map<Long, Long> pendingChangeIds) {
+        return new DBUserChanges(token, false, Collections.unmodifiableList(changedUsers), Collections.unmodifiableSet(removedUserIds), pendingChangeIds);
+    }
+
+    public long getToken() {
+        return token;
+    }
+
+    public boolean isFullReload() {
+        return fullReload;
+    }
+
+    public List<User> getUsers() {
+        return Collections.unmodifiableList(users);
+    }
+
+    public Set<String> getRemovedUserIds() {
+        return removedUserIds;
+    }
+
+    public boolean isEmpty() {
+        return !fullReload && users.isEmpty() && removedUserIds.isEmpty();
+    }
+
+    List<DBUser> getDBUsers() {
+        return users;
+    }
+
+    /**
+     * @return the change ids up to the token that were missing in the change log, with the time they were detected
+     * at, or null if unknown.
+     */
+    Map<Long, Long> getPendingChangeIds() {
+        return pendingChangeIds;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared dictionary of the groups and skills known by the DBUserSystemService. Each distinct group and skill is
+ * stored only once and identified by a dense index, so that users can keep their memberships as arrays of indexes,
+ * and all of them share the same DBGroup and skill String instances.
+ * <p>
+ * Indexes are never reused nor removed, so the dictionary grows with the number of distinct groups and skills, that
+ * is expected to be small compared with the number of users. Interning is synchronized, while the lookups are lock
+ * free. A given index is only handed out after its value was stored, and users built with it are published
+ * safely by the DBUserSystemService, which guarantees the value is visible to any thread that reads the user.
+ * <p>
+ * The skills are normalized like the SkillsParser, shared by the default planner and the simple user system kjars,
+ * does with the tasks and the users skills, so that they match: see normalizeSkill().
+ */
+public class DBUserDictionary {
+
+    /**
+     * System property for upper casing the skills, the same one that is read by the SkillsParser. Defaults to false.
+     */
+    public static final String SKILLS_UPPER_CASE_PROPERTY = "org.kie.server.services.taskassigning.SkillsParser.upperCase";
+
+    public static final char SKILLS_SEPARATOR = ',';
+
+    private final boolean upperCaseSkills;
+
+    private final Map<String, Integer> groupIndexes = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> skillIndexes = new ConcurrentHashMap<>();
+
+    private volatile DBGroup[] groups = new DBGroup[16];
+
+    private volatile String[] skills = new String[16];
+
+    private int groupsSize;
+
+    private int skillsSize;
+
+    public DBUserDictionary() {
+        this(Boolean.parseBoolean(System.getProperty(SKILLS_UPPER_CASE_PROPERTY, "false")));
+    }
+
+    public DBUserDictionary(boolean upperCaseSkills) {
+        this.upperCaseSkills = upperCaseSkills;
+    }
+
+    /**
+     * @return the skill trimmed and, if configured, upper cased, or null if it's empty. A value with several
+     * SKILLS_SEPARATOR separated skills must be split before.
+     */
+    public String normalizeSkill(String skillId) {
+        final String result = skillId.trim();
+        if (result.isEmpty()) {
+            return null;
+        }
+        return upperCaseSkills ? result.toUpperCase(Locale.ROOT) : result;
+    }
+
+    public synchronized int internGroup(String groupId) {
+        Integer index = groupIndexes.get(groupId);
+        if (index == null) {
+            DBGroup[] currentGroups = groups;
+            if (groupsSize == currentGroups.length) {
+                currentGroups = Arrays.copyOf(currentGroups, groupsSize * 2);
+            }
+            currentGroups[groupsSize] = new DBGroup(groupId);
+            groups = currentGroups;
+            index = groupsSize++;
+            groupIndexes.put(groupId, index);
+        }
+        return index;
+    }
+
+    public synchronized int internSkill(String skillId) {
+        Integer index = skillIndexes.get(skillId);
+        if (index == null) {
+            String[] currentSkills = skills;
+            if (skillsSize == currentSkills.length) {
+                currentSkills = Arrays.copyOf(currentSkills, skillsSize * 2);
+            }
+            currentSkills[skillsSize] = skillId;
+            skills = currentSkills;
+            index = skillsSize++;
+            skillIndexes.put(skillId, index);
+        }
+        return index;
+    }
+
+    /**
+     * @return the index of the group, or -1 if the group is not in the dictionary.
+     */
+    public int findGroup(String groupId) {
+        final Integer index = groupIndexes.get(groupId);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @return the index of the skill, or -1 if the skill is not in the dictionary.
+     */
+    public int findSkill(String skillId) {
+        final Integer index = skillIndexes.get(skillId);
+        return index != null ? index : -1;
+    }
+
+    public DBGroup getGroup(int index) {
+        return groups[index];
+    }
+
+    public String getSkill(int index) {
+        return skills[index];
+    }
+
+    public synchronized int getGroupsSize() {
+        return groupsSize;
+    }
+
+    public synchronized int getSkillsSize() {
+        return skillsSize;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import org.kie.server.services.taskassigning.user.system.api.User;
+
+/**
+ * Coalesces concurrent single user lookups into batch lookups.
+ * <p>
+ * The first thread that requests a user when no batch is being collected becomes the leader of a new batch. The
+ * leader waits for the configured window, while the user ids requested by other threads are added to the same batch,
+ * then closes the batch, executes one batch lookup for all the collected ids and completes the waiting threads.
+ * If the batch lookup fails, whatever the failure is, all the threads waiting for the batch get the failure.
+ */
+public class DBUserLookupCoalescer {
+
+    private final Function<Collection<String>, Map<String, User>> batchLookup;
+
+    private final long windowNanos;
+
+    private final Object lock = new Object();
+
+    private Map<String, CompletableFuture<User>> pendingBatch;
+
+    public DBUserLookupCoalescer(Function<Collection<String>, Map<String, User>> batchLookup, long windowMillis) {
+        this.batchLookup = batchLookup;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    public User find(String userId) {
+        final Map<String, CompletableFuture<User>> batch;
+        final CompletableFuture<User> result;
+        boolean leader = false;
+        synchronized (lock) {
+            if (pendingBatch == null) {
+                pendingBatch = new HashMap<>();
+                leader = true;
+            }
+            batch = pendingBatch;
+            result = batch.computeIfAbsent(userId, id -> new CompletableFuture<>());
+        }
+        if (leader) {
+            LockSupport.parkNanos(windowNanos);
+            synchronized (lock) {
+                // from now on no other thread can add ids to this batch.
+                pendingBatch = null;
+            }
+            execute(batch);
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void execute(Map<String, CompletableFuture<User>> batch) {
+        try {
+            final Map<String, User> users = batchLookup.apply(batch.keySet());
+            for (Map.Entry<String, CompletableFuture<User>> entry : batch.entrySet()) {
+                entry.getValue().complete(users.get(entry.getKey()));
+            }
+        } catch (Throwable e) {
+            // checked exceptions might be sneaky thrown by the lookup, and errors must not leave the batch waiting.
+            for (CompletableFuture<User> future : batch.values()) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
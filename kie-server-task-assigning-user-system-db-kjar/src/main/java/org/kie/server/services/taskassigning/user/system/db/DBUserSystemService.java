@@ -21,11 +21,23 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
@@ -33,6 +45,9 @@ import javax.sql.DataSource;
 
 import org.kie.server.services.taskassigning.user.system.api.User;
 import org.kie.server.services.taskassigning.user.system.api.UserSystemService;
+import org.kie.server.services.taskassigning.user.system.db.metrics.DBUserSystemMetrics;
+import org.kie.server.services.taskassigning.user.system.db.pool.DBConnectionPool;
+import org.kie.server.services.taskassigning.user.system.db.schema.DBSchemaMigrator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,29 +70,302 @@ public class DBUserSystemService implements UserSystemService {
      */
     public static final String DATA_SOURCE_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.ds";
 
+    /**
+     * System property for restricting the users to the ones that belong to any of the given comma separated groups,
+     * e.g. "HR,IT", when a KIE Server container only plans the tasks of these groups. The restriction is applied by
+     * the users queries, so the remaining users are not read nor kept in memory, and a user that leaves the groups is
+     * handled as a removed user. When not configured the users are not restricted by group.
+     * @see DBUsersFilter
+     */
+    public static final String GROUPS_FILTER_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.groups";
+
+    /**
+     * System property for restricting the users to the ones which id starts with any of the given comma separated
+     * prefixes, e.g. "HR-user,IT-user". Combined with the GROUPS_FILTER_PROPERTY, when configured, users must satisfy
+     * both restrictions. When not configured the users are not restricted by id.
+     * @see DBUsersFilter
+     */
+    public static final String USER_ID_PREFIXES_FILTER_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.userIdPrefixes";
+
+    /**
+     * System property for wrapping the DATA_SOURCE_PROPERTY data source with the embedded DBConnectionPool, e.g. when
+     * the application server data source is not pooled. Defaults to false.
+     */
+    public static final String POOL_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.pool";
+
+    /**
+     * System property for configuring a JDBC url to connect to. When configured the DATA_SOURCE_PROPERTY is ignored,
+     * and the connections are created by the DriverManager and managed by the embedded DBConnectionPool, e.g. for
+     * running outside an application server.
+     */
+    public static final String URL_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.url";
+
+    /**
+     * System property for configuring the user for the URL_PROPERTY connections.
+     */
+    public static final String USER_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.user";
+
+    /**
+     * System property for configuring the password for the URL_PROPERTY connections.
+     */
+    public static final String PASSWORD_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.password";
+
+    /**
+     * System property for configuring the JDBC driver class to load for the URL_PROPERTY connections, if any.
+     */
+    public static final String DRIVER_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.driver";
+
+    /**
+     * System property for configuring the max number of connections of the embedded pool. Defaults to 10.
+     */
+    public static final String POOL_MAX_SIZE_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.poolMaxSize";
+
+    /**
+     * System property for configuring the max time in milliseconds to wait for an embedded pool connection.
+     * Defaults to 30000.
+     */
+    public static final String POOL_TIMEOUT_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.poolTimeout";
+
+    /**
+     * System property for configuring the query for validating the embedded pool connections, e.g. "select 1".
+     * When not configured Connection.isValid() is used instead.
+     */
+    public static final String VALIDATION_QUERY_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.validationQuery";
+
+    /**
+     * System property for configuring the time in milliseconds an embedded pool connection can be idle before being
+     * validated on borrow. Defaults to 5000.
+     */
+    public static final String VALIDATION_INTERVAL_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.validationInterval";
+
+    /**
+     * System property for configuring the max number of prepared statements cached per embedded pool connection.
+     * Defaults to 50, 0 disables the cache.
+     */
+    public static final String STATEMENT_CACHE_SIZE_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.statementCacheSize";
+
+    /**
+     * System property for applying the pending schema migrations at start-up, see DBSchemaMigrator. Valid values are
+     * the dialect of the migration scripts to use, postgresql or h2. When not configured no migrations are applied.
+     */
+    public static final String SCHEMA_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.schema";
+
     /**
      * System property for configuring the database users initializer if any.
      */
     public static final String USERS_INITIALIZER_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUsersInitializer.name";
 
+    /**
+     * System property for enabling the in-memory users snapshot. When enabled, the users loaded by findAllUsers() are
+     * kept in an immutable snapshot that is used for serving findUser() and that is replaced atomically on each refresh.
+     */
+    public static final String CACHE_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.cache";
+
+    /**
+     * System property for configuring the strategy for loading the users, JOIN (default) or MULTI_QUERY.
+     * @see JoinDBUsersLoader
+     * @see MultiQueryDBUsersLoader
+     */
+    public static final String USERS_LOADER_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.loader";
+
+    /**
+     * System property for configuring the fetch size used by the MULTI_QUERY users loader.
+     */
+    public static final String FETCH_SIZE_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.fetchSize";
+
+    /**
+     * System property for configuring the max number of users read at a time by forEachUser(). Defaults to 1000.
+     */
+    public static final String PAGE_SIZE_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.pageSize";
+
+    /**
+     * System property for configuring an optional change detection query. The query must return one row, and the
+     * values of its columns are used as the version of the users snapshot, e.g.
+     * "select count(*), max(last_modified) from ta_user". When configured, and the cache is enabled, a findAllUsers()
+     * invocation that detects the same version as the current snapshot returns it without reloading the users.
+     */
+    public static final String CHANGE_DETECTION_QUERY_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.changeDetectionQuery";
+
+    /**
+     * System property for enabling the use of the ta_user_change log table, see tables.sql. When enabled, and the
+     * cache is enabled, findAllUsers() applies the changes produced since the current snapshot instead of reloading
+     * all the users, so the cost of a refresh depends on the number of changed users instead of the population.
+     * Defaults to false.
+     */
+    public static final String CHANGE_LOG_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.changeLog";
+
+    /**
+     * System property for configuring the number of change ids below the latest one in which a late commit is looked
+     * for. Change ids are assigned when the change is produced, so a transaction might commit a change with a lower id
+     * than an already read one. The users snapshot refresh remembers the ids missing in the change log, i.e. the
+     * not yet committed or rolled back ones, and only checks them again, until they are committed, fall out of these
+     * last change ids, or the changeLogGapTimeout expires. The findChangesSince() invocations don't have that
+     * information, so these last entries are read again instead. Re-applying a change is harmless since the changed
+     * users are always reloaded. Defaults to 1000.
+     */
+    public static final String CHANGE_LOG_OVERLAP_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.changeLogOverlap";
+
+    /**
+     * System property for configuring the time in milliseconds a change id missing in the change log is checked again
+     * by the users snapshot refresh, see CHANGE_LOG_OVERLAP_PROPERTY. Must be longer than the users modification
+     * transactions. Defaults to 60000.
+     */
+    public static final String CHANGE_LOG_GAP_TIMEOUT_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.changeLogGapTimeout";
+
+    private static final String CHANGE_LOG_BOUNDS_QUERY = "select min(c.changeid), max(c.changeid) from ta_user_change c";
+
+    private static final String CHANGED_USERS_QUERY = "select c.changeid, c.userid from ta_user_change c where c.changeid > ? and c.changeid <= ?";
+
+    private static final String PENDING_CHANGES_QUERY = "select c.changeid, c.userid from ta_user_change c where c.changeid in (%s)";
+
+    /**
+     * System property for configuring the max number of user ids to query at a time by findUsers(). Defaults to 500.
+     */
+    public static final String FIND_USERS_BATCH_SIZE_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.findUsersBatchSize";
+
+    /**
+     * System property for configuring the window in milliseconds for coalescing concurrent findUser() invocations
+     * into findUsers() batches. Defaults to 0, i.e. no coalescing.
+     */
+    public static final String FIND_USER_COALESCING_WINDOW_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.findUserCoalescingWindow";
+
+    /**
+     * System property for enabling the collection of the DBUserSystemService metrics. When enabled, the metrics are
+     * exposed by JMX under the name DBUserSystemMetrics.OBJECT_NAME.
+     */
+    public static final String METRICS_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.metrics";
+
+    /**
+     * System property for enabling the asynchronous start. When enabled, start() only reads the configuration and
+     * looks up the data source, while the schema migrations, the DBUsersInitializer and the warm-up of the users
+     * snapshot, when the cache is enabled, are executed in a background thread. The users finding methods wait for
+     * them, see getReadiness(), while test() only checks the database connectivity until they are completed, so that
+     * the container health check doesn't fail during a long start-up, see isStarting(). Defaults to false.
+     */
+    public static final String ASYNC_START_PROPERTY = "org.kie.server.services.taskassigning.user.system.DBUserSystemService.asyncStart";
+
+    private static final String ASYNC_START_THREAD_NAME = "DBUserSystemService-start";
+
+    private static final int TEST_CONNECTION_TIMEOUT_SECONDS = 5;
+
     private DataSource dataSource;
 
-    private static final String FIND_ALL_USERS_QUERY = "select u.userid, u.enabled, g.groupid, s.skillid from ta_user u left join ta_user_group g on (u.userid = g.userid) left join ta_user_skill s on (u.userid = s.userid) where u.enabled = ?";
+    private DBConnectionPool connectionPool;
+
+    private boolean cacheEnabled;
+
+    private String changeDetectionQuery;
+
+    private boolean changeLogEnabled;
+
+    private int changeLogOverlap;
+
+    private long changeLogGapTimeout;
+
+    private final AtomicReference<DBUsersSnapshot> snapshot = new AtomicReference<>();
+
+    private final Object refreshLock = new Object();
+
+    private final DBUserDictionary dictionary = new DBUserDictionary();
+
+    private DBUsersFilter usersFilter = DBUsersFilter.NONE;
+
+    private String usersLoaderName;
+
+    private int pageSize;
+
+    /**
+     * Created on first use, when the ta_user table columns can be inspected, see getUsersLoader().
+     */
+    private volatile DBUsersLoader usersLoader;
 
-    private static final String FIND_USER_QUERY = "select u.userid, u.enabled, g.groupid, s.skillid from ta_user u left join ta_user_group g on (u.userid = g.userid) left join ta_user_skill s on (u.userid = s.userid) where u.userid = ? and u.enabled = ?";
+    private volatile KeysetDBUsersPager usersPager;
+
+    private DBUserSystemMetrics metrics = new DBUserSystemMetrics(false);
+
+    private int findUsersBatchSize;
+
+    private DBUserLookupCoalescer lookupCoalescer;
+
+    private volatile CompletableFuture<Void> readiness = CompletableFuture.completedFuture(null);
+
+    /**
+     * True when the snapshot loaded by the asynchronous start warm-up was not yet returned by findAllUsers().
+     */
+    private final AtomicBoolean warmSnapshotPending = new AtomicBoolean();
 
     public String getName() {
         return NAME;
     }
 
     public void start() {
-        String dataSourceName = System.getProperty(DATA_SOURCE_PROPERTY, "java:jboss/datasources/ExampleDS");
+        metrics = new DBUserSystemMetrics(Boolean.parseBoolean(System.getProperty(METRICS_PROPERTY, "false")));
+        if (metrics.isEnabled()) {
+            metrics.register();
+        }
+        dataSource = createDataSource();
+        cacheEnabled = Boolean.parseBoolean(System.getProperty(CACHE_PROPERTY, "false"));
+        changeDetectionQuery = System.getProperty(CHANGE_DETECTION_QUERY_PROPERTY);
+        if (changeDetectionQuery != null && changeDetectionQuery.trim().isEmpty()) {
+            changeDetectionQuery = null;
+        }
+        changeLogEnabled = Boolean.parseBoolean(System.getProperty(CHANGE_LOG_PROPERTY, "false"));
+        changeLogOverlap = Math.max(0, parseIntProperty(CHANGE_LOG_OVERLAP_PROPERTY, "1000", "changeLogOverlap"));
+        changeLogGapTimeout = Math.max(0, parseIntProperty(CHANGE_LOG_GAP_TIMEOUT_PROPERTY, "60000", "changeLogGapTimeout"));
+        usersFilter = DBUsersFilter.parse(System.getProperty(GROUPS_FILTER_PROPERTY), System.getProperty(USER_ID_PREFIXES_FILTER_PROPERTY));
+        usersLoaderName = parseUsersLoaderName();
+        pageSize = Math.max(1, parseIntProperty(PAGE_SIZE_PROPERTY, "1000", "pageSize"));
+        usersLoader = null;
+        usersPager = null;
+        findUsersBatchSize = Math.max(1, parseIntProperty(FIND_USERS_BATCH_SIZE_PROPERTY, "500", "findUsersBatchSize"));
+        final int coalescingWindow = parseIntProperty(FIND_USER_COALESCING_WINDOW_PROPERTY, "0", "findUserCoalescingWindow");
+        lookupCoalescer = coalescingWindow > 0 ? new DBUserLookupCoalescer(this::findUsers, coalescingWindow) : null;
+        final boolean asyncStart = Boolean.parseBoolean(System.getProperty(ASYNC_START_PROPERTY, "false"));
+        LOGGER.info("DBUserSystemService users cache enabled: {}, change detection query: {}, change log enabled: {}, users loader: {}, users filter: {}, async start: {}",
+                    cacheEnabled, changeDetectionQuery, changeLogEnabled, usersLoaderName, usersFilter, asyncStart);
+        warmSnapshotPending.set(false);
+        if (!asyncStart) {
+            initialize();
+            readiness = CompletableFuture.completedFuture(null);
+            return;
+        }
+        final CompletableFuture<Void> startReadiness = new CompletableFuture<>();
+        readiness = startReadiness;
+        final Thread thread = new Thread(() -> startAsync(startReadiness), ASYNC_START_THREAD_NAME);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return a future that is completed when the service is ready for finding users, i.e. when the start-up
+     * initialization has finished, or completed exceptionally with the start-up error. When the asynchronous start is
+     * not enabled, it's already completed when start() returns. Completing the returned future has no effect on the
+     * service.
+     * @see #ASYNC_START_PROPERTY
+     */
+    public CompletableFuture<Void> getReadiness() {
+        return readiness.thenApply(Function.identity());
+    }
+
+    private void startAsync(CompletableFuture<Void> startReadiness) {
+        final long start = System.nanoTime();
         try {
-            InitialContext initialContext = new InitialContext();
-            dataSource = (DataSource) initialContext.lookup(dataSourceName);
-        } catch (NamingException e) {
-            throw new DBUserSystemServiceException("Unable to find data source under name " + dataSourceName, e);
+            initialize();
+            if (cacheEnabled) {
+                final DBUsersSnapshot warmSnapshot = refreshSnapshot();
+                warmSnapshotPending.set(true);
+                LOGGER.info("Users snapshot was warmed up with {} users.", warmSnapshot.getUsers().size());
+            }
+            startReadiness.complete(null);
+            LOGGER.info("DBUserSystemService asynchronous start was completed in {} ms.", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            LOGGER.error("An error was produced during DBUserSystemService asynchronous start: {}", e.getMessage(), e);
+            startReadiness.completeExceptionally(e);
         }
+    }
+
+    private void initialize() {
+        migrateSchema();
         try {
             initializeUsers();
         } catch (Exception e) {
@@ -85,40 +373,97 @@ public class DBUserSystemService implements UserSystemService {
         }
     }
 
+    /**
+     * @return true while the asynchronous start is in progress, false when it was completed, failed, or not enabled.
+     * @see #ASYNC_START_PROPERTY
+     */
+    public boolean isStarting() {
+        return !readiness.isDone();
+    }
+
+    /**
+     * Verifies that the users can be read from the database. While the asynchronous start is in progress the schema
+     * might not be migrated yet, so only the database connectivity is verified. When the asynchronous start failed,
+     * the start-up error is thrown.
+     */
     public void test() throws Exception {
-        try (Connection conn = dataSource.getConnection(); PreparedStatement stmt = conn.prepareStatement(FIND_ALL_USERS_QUERY)) {
-            stmt.setShort(1, (short) 1);
-            stmt.executeQuery();
+        final long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        try (Connection conn = getConnection()) {
+            if (isStarting()) {
+                if (!conn.isValid(TEST_CONNECTION_TIMEOUT_SECONDS)) {
+                    throw new DBUserSystemServiceException("DBUserSystemService is starting and the database connection is not valid", null);
+                }
+                LOGGER.debug("DBUserSystemService asynchronous start is still in progress, only the database connectivity was tested.");
+                return;
+            }
+            awaitReadiness();
+            try (PreparedStatement stmt = conn.prepareStatement(JoinDBUsersLoader.FIND_ALL_USERS_QUERY)) {
+                stmt.setShort(1, (short) 1);
+                stmt.executeQuery();
+            }
+        } finally {
+            if (metrics.isEnabled()) {
+                metrics.recordTest(System.nanoTime() - start);
+            }
         }
     }
 
     public List<User> findAllUsers() {
-        try (Connection conn = dataSource.getConnection(); PreparedStatement stmt = conn.prepareStatement(FIND_ALL_USERS_QUERY)) {
-            final List<User> result = new ArrayList<>();
-            stmt.setShort(1, (short) 1);
-            final ResultSet rs = stmt.executeQuery();
-            String userId;
-            String groupId;
-            String skillId;
-            final Map<String, DBUser> usersMap = new HashMap<>();
-            while (rs.next()) {
-                userId = getTrimmedStringValue(rs, 1);
-                groupId = getTrimmedStringValue(rs, 3);
-                skillId = getTrimmedStringValue(rs, 4);
-                if (userId != null && !userId.isEmpty()) {
-                    DBUser user = usersMap.get(userId);
-                    if (user == null) {
-                        user = new DBUser(userId, new HashSet<>(), new HashSet<>());
-                        usersMap.put(userId, user);
-                        result.add(user);
-                    }
-                    addGroupIfNotEmpty(user, groupId);
-                    addSkillIfNotEmpty(user, skillId);
+        final long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        try {
+            awaitReadiness();
+            if (!cacheEnabled) {
+                try (Connection conn = getConnection()) {
+                    // no snapshot is kept, so the loaded list is returned as is instead of being indexed and copied.
+                    return Collections.unmodifiableList(loadUsers(conn));
+                } catch (SQLException e) {
+                    throw new DBUserSystemServiceException("An error was produced while finding all users: " + e.getMessage(), e);
                 }
             }
-            return result;
+            if (warmSnapshotPending.compareAndSet(true, false)) {
+                // the snapshot was just loaded by the asynchronous start, no need to refresh it yet.
+                final DBUsersSnapshot warmSnapshot = snapshot.get();
+                if (warmSnapshot != null) {
+                    return warmSnapshot.getUsers();
+                }
+            }
+            return refreshSnapshot().getUsers();
+        } finally {
+            if (metrics.isEnabled()) {
+                metrics.recordFindAllUsers(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Delivers all the enabled users to the consumer without materializing them in a list, so that very large users
+     * directories can be processed with a memory given by the PAGE_SIZE_PROPERTY. When the cache is enabled, the users
+     * are already in memory and are taken from the refreshed snapshot instead.
+     * @param consumer receives each user exactly once.
+     * @return the number of delivered users.
+     * @see KeysetDBUsersPager
+     */
+    public long forEachUser(Consumer<? super User> consumer) {
+        awaitReadiness();
+        if (cacheEnabled) {
+            final List<User> users = refreshSnapshot().getUsers();
+            users.forEach(consumer);
+            return users.size();
+        }
+        final long[] counters = new long[3];
+        try (Connection conn = getConnection()) {
+            final KeysetDBUsersPager pager = getUsersPager(conn);
+            final long rows = pager.readAllUsers(conn, user -> {
+                counters[0]++;
+                counters[1] += user.getGroups().size();
+                counters[2] += user.getSkills().size();
+                consumer.accept(user);
+            });
+            metrics.recordLoad(rows, counters[0], counters[1], counters[2]);
+            LOGGER.debug("{} users were delivered from {} rows in pages of {} users.", counters[0], rows, pager.getPageSize());
+            return counters[0];
         } catch (SQLException e) {
-            throw new DBUserSystemServiceException("An error was produced while finding all users: " + e.getMessage(), e);
+            throw new DBUserSystemServiceException("An error was produced while reading all users: " + e.getMessage(), e);
         }
     }
 
@@ -126,24 +471,461 @@ public class DBUserSystemService implements UserSystemService {
         if (userId == null) {
             return null;
         }
-        try (Connection conn = dataSource.getConnection(); PreparedStatement stmt = conn.prepareStatement(FIND_USER_QUERY)) {
-            stmt.setString(1, userId);
-            stmt.setShort(2, (short) 1);
-            final ResultSet rs = stmt.executeQuery();
-            String groupId;
-            String skillId;
-            DBUser result = null;
-            while (rs.next()) {
-                result = new DBUser(userId, new HashSet<>(), new HashSet<>());
-                groupId = getTrimmedStringValue(rs, 3);
-                skillId = getTrimmedStringValue(rs, 4);
-                addGroupIfNotEmpty(result, groupId);
-                addSkillIfNotEmpty(result, skillId);
+        final long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        try {
+            return doFindUser(userId);
+        } finally {
+            if (metrics.isEnabled()) {
+                metrics.recordFindUser(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * @return the metrics collected by this service.
+     */
+    public DBUserSystemMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Finds a set of users in a batch manner. The users present in the current snapshot, if any, are taken from it,
+     * and the remaining ones are loaded from the database in chunks of the configured batch size.
+     * @param userIds the identifiers of the users to find.
+     * @return a map with the found users by id. Users that don't exist or are not enabled are omitted.
+     */
+    public Map<String, User> findUsers(Collection<String> userIds) {
+        final Map<String, User> result = new HashMap<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return result;
+        }
+        awaitReadiness();
+        final DBUsersSnapshot currentSnapshot = snapshot.get();
+        final Set<String> pendingIds = new LinkedHashSet<>();
+        for (String userId : userIds) {
+            final DBUser user = currentSnapshot != null && userId != null ? currentSnapshot.getUser(userId) : null;
+            if (user != null) {
+                result.put(userId, user);
+            } else if (userId != null) {
+                pendingIds.add(userId);
             }
+        }
+        if (pendingIds.isEmpty()) {
             return result;
+        }
+        final List<String> ids = new ArrayList<>(pendingIds);
+        final List<DBUser> loadedUsers = new ArrayList<>();
+        try (Connection conn = getConnection()) {
+            final DBUsersLoader loader = getUsersLoader(conn);
+            long rows = 0;
+            for (int from = 0; from < ids.size(); from += findUsersBatchSize) {
+                rows += loader.loadUsers(conn, ids.subList(from, Math.min(from + findUsersBatchSize, ids.size())), loadedUsers::add);
+            }
+            recordLoad(rows, loadedUsers);
         } catch (SQLException e) {
-            throw new DBUserSystemServiceException("An error was produced while finding all users: " + e.getMessage(), e);
+            throw new DBUserSystemServiceException("An error was produced while finding users: " + e.getMessage(), e);
+        }
+        for (DBUser user : loadedUsers) {
+            result.put(user.getId(), user);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the user changes produced since the given token by using the ta_user_change log table.
+     * @param token a token returned by a previous invocation, or a negative value for getting all the users.
+     * No state is kept between invocations, so when new changes were logged since the token, the last
+     * changeLogOverlap entries before it are read again for picking up the late commits, see
+     * CHANGE_LOG_OVERLAP_PROPERTY. When nothing was logged since the token, the change log is not read.
+     * @return the changes produced since the token, or all the enabled users if the changes couldn't be calculated
+     * incrementally, e.g. the token is older than the oldest change log entry.
+     * @see DBUserChanges
+     */
+    public DBUserChanges findChangesSince(long token) {
+        awaitReadiness();
+        try (Connection conn = getConnection()) {
+            return readChanges(conn, token, null);
+        } catch (SQLException e) {
+            throw new DBUserSystemServiceException("An error was produced while finding the users changes: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param pendingChangeIds the change ids that were missing in the change log when the token was produced, with
+     * the time they were detected at, or null if unknown. When unknown, the last changeLogOverlap entries before the
+     * token are read again, and the returned changes don't track the missing ids either.
+     */
+    private DBUserChanges readChanges(Connection conn, long token, Map<Long, Long> pendingChangeIds) throws SQLException {
+        final long minChangeId;
+        final long maxChangeId;
+        try (PreparedStatement stmt = conn.prepareStatement(CHANGE_LOG_BOUNDS_QUERY);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            // both values are 0 when the change log is empty.
+            minChangeId = rs.getLong(1);
+            maxChangeId = rs.getLong(2);
+        }
+        // when the change log was pruned beyond the token, or completely, the changes in the middle are unknown.
+        if (token < 0 || (token > 0 && maxChangeId == 0) || token < minChangeId - 1) {
+            // the max change id is read before loading the users. If a change is produced in the middle, the next
+            // invocation will just apply it again.
+            final List<DBUser> users = new ArrayList<>();
+            final long rows = getUsersLoader(conn).loadAllUsers(conn, users::add);
+            recordLoad(rows, users);
+            LOGGER.debug("Users change log token: {} couldn't be applied incrementally, {} users were loaded.", token, users.size());
+            return DBUserChanges.fullReload(maxChangeId, users, pendingChangeIds != null ? readPendingChangeIds(conn, minChangeId, maxChangeId) : null);
+        }
+        if (maxChangeId == token && (pendingChangeIds == null || pendingChangeIds.isEmpty())) {
+            // nothing was logged since the token, and no late commit is expected.
+            return DBUserChanges.incremental(token, Collections.emptyList(), Collections.emptySet(), pendingChangeIds);
         }
+        final long from = pendingChangeIds != null ? token : Math.max(0, token - changeLogOverlap);
+        final Set<String> changedUserIds = new LinkedHashSet<>();
+        final Set<Long> readChangeIds = new HashSet<>();
+        if (maxChangeId > from) {
+            try (PreparedStatement stmt = conn.prepareStatement(CHANGED_USERS_QUERY)) {
+                stmt.setLong(1, from);
+                stmt.setLong(2, maxChangeId);
+                readChangedUsers(stmt, changedUserIds, readChangeIds);
+            }
+        }
+        if (pendingChangeIds != null && !pendingChangeIds.isEmpty()) {
+            final List<Long> ids = new ArrayList<>(pendingChangeIds.keySet());
+            for (int start = 0; start < ids.size(); start += findUsersBatchSize) {
+                final List<Long> batch = ids.subList(start, Math.min(start + findUsersBatchSize, ids.size()));
+                try (PreparedStatement stmt = conn.prepareStatement(String.format(PENDING_CHANGES_QUERY, placeholders(batch.size())))) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        stmt.setLong(i + 1, batch.get(i));
+                    }
+                    readChangedUsers(stmt, changedUserIds, readChangeIds);
+                }
+            }
+        }
+        final long nextToken = Math.max(token, maxChangeId);
+        final Map<Long, Long> nextPendingChangeIds = calculatePendingChangeIds(from, minChangeId, nextToken, readChangeIds, pendingChangeIds);
+        if (changedUserIds.isEmpty()) {
+            return DBUserChanges.incremental(nextToken, Collections.emptyList(), Collections.emptySet(), nextPendingChangeIds);
+        }
+        final List<String> ids = new ArrayList<>(changedUserIds);
+        final List<DBUser> changedUsers = new ArrayList<>();
+        final DBUsersLoader loader = getUsersLoader(conn);
+        long rows = 0;
+        for (int start = 0; start < ids.size(); start += findUsersBatchSize) {
+            rows += loader.loadUsers(conn, ids.subList(start, Math.min(start + findUsersBatchSize, ids.size())), changedUsers::add);
+        }
+        recordLoad(rows, changedUsers);
+        final Set<String> removedUserIds = new HashSet<>(changedUserIds);
+        for (DBUser user : changedUsers) {
+            removedUserIds.remove(user.getId());
+        }
+        LOGGER.debug("Users change log token: {} -> {}, {} users changed and {} users were removed.", token, nextToken,
+                     changedUsers.size(), removedUserIds.size());
+        return DBUserChanges.incremental(nextToken, changedUsers, removedUserIds, nextPendingChangeIds);
+    }
+
+    private Map<Long, Long> readPendingChangeIds(Connection conn, long minChangeId, long maxChangeId) throws SQLException {
+        final long from = Math.max(0, maxChangeId - changeLogOverlap);
+        final Set<Long> readChangeIds = new HashSet<>();
+        if (maxChangeId > from) {
+            try (PreparedStatement stmt = conn.prepareStatement(CHANGED_USERS_QUERY)) {
+                stmt.setLong(1, from);
+                stmt.setLong(2, maxChangeId);
+                readChangedUsers(stmt, new HashSet<>(), readChangeIds);
+            }
+        }
+        return calculatePendingChangeIds(from, minChangeId, maxChangeId, readChangeIds, null);
+    }
+
+    private static void readChangedUsers(PreparedStatement stmt, Set<String> changedUserIds, Set<Long> readChangeIds) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                readChangeIds.add(rs.getLong(1));
+                final String userId = DBUsersLoaderUtil.getTrimmedStringValue(rs, 2);
+                if (userId != null && !userId.isEmpty()) {
+                    changedUserIds.add(userId);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the change ids up to the nextToken that are still missing in the change log, i.e. the previously pending
+     * ones that were not read yet, plus the ones missing in the read range. Only the last changeLogOverlap ids are
+     * considered, and the ids pending for longer than the changeLogGapTimeout are discarded, e.g. the ids consumed by
+     * rolled back transactions.
+     */
+    private Map<Long, Long> calculatePendingChangeIds(long from, long minChangeId, long nextToken, Set<Long> readChangeIds,
+                                                      Map<Long, Long> pendingChangeIds) {
+        final long now = System.currentTimeMillis();
+        final long lowestChangeId = Math.max(minChangeId, nextToken - changeLogOverlap + 1);
+        final Map<Long, Long> result = new TreeMap<>();
+        if (pendingChangeIds != null) {
+            for (Map.Entry<Long, Long> pending : pendingChangeIds.entrySet()) {
+                if (pending.getKey() >= lowestChangeId && !readChangeIds.contains(pending.getKey()) && now - pending.getValue() < changeLogGapTimeout) {
+                    result.put(pending.getKey(), pending.getValue());
+                }
+            }
+        }
+        for (long changeId = Math.max(from + 1, lowestChangeId); changeId <= nextToken; changeId++) {
+            if (!readChangeIds.contains(changeId)) {
+                result.put(changeId, now);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static String placeholders(int size) {
+        final StringBuilder result = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            result.append(i == 0 ? "?" : ", ?");
+        }
+        return result.toString();
+    }
+
+    /**
+     * Waits for the asynchronous start, if any, to finish.
+     * @throws DBUserSystemServiceException if the start failed.
+     */
+    private void awaitReadiness() {
+        final CompletableFuture<Void> currentReadiness = readiness;
+        if (currentReadiness.isDone() && !currentReadiness.isCompletedExceptionally()) {
+            return;
+        }
+        try {
+            currentReadiness.join();
+        } catch (CompletionException e) {
+            throw new DBUserSystemServiceException("DBUserSystemService start failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private User doFindUser(String userId) {
+        final DBUsersSnapshot currentSnapshot = snapshot.get();
+        if (currentSnapshot != null) {
+            final DBUser user = currentSnapshot.getUser(userId);
+            if (user != null) {
+                return user;
+            }
+        }
+        if (lookupCoalescer != null) {
+            return lookupCoalescer.find(userId);
+        }
+        return findUsers(Collections.singletonList(userId)).get(userId);
+    }
+
+    /**
+     * @return the current users snapshot if the cache is enabled and a snapshot was already loaded, null in any other
+     * case.
+     */
+    public DBUsersSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    private DBUsersSnapshot refreshSnapshot() {
+        synchronized (refreshLock) {
+            try (Connection conn = getConnection()) {
+                final DBUsersSnapshot currentSnapshot = snapshot.get();
+                if (changeLogEnabled) {
+                    return refreshSnapshotFromChangeLog(conn, currentSnapshot);
+                }
+                String version = null;
+                if (changeDetectionQuery != null) {
+                    // the version is read before loading the users. If a change is produced in the middle, the
+                    // snapshot might contain newer data than its version says, and the next refresh will just reload.
+                    version = readVersion(conn);
+                    if (currentSnapshot != null && version.equals(currentSnapshot.getVersion())) {
+                        LOGGER.debug("Users snapshot version: {} has not changed, no reload is needed.", version);
+                        return currentSnapshot;
+                    }
+                }
+                final DBUsersSnapshot refreshedSnapshot = loadSnapshot(conn, version);
+                snapshot.set(refreshedSnapshot);
+                return refreshedSnapshot;
+            } catch (SQLException e) {
+                throw new DBUserSystemServiceException("An error was produced while refreshing the users snapshot: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private DBUsersSnapshot refreshSnapshotFromChangeLog(Connection conn, DBUsersSnapshot currentSnapshot) throws SQLException {
+        final long token = currentSnapshot != null ? currentSnapshot.getChangeToken() : -1;
+        final DBUserChanges changes = readChanges(conn, token, currentSnapshot != null ? currentSnapshot.getPendingChangeIds() : Collections.emptyMap());
+        if (changes.isEmpty() && currentSnapshot != null && changes.getToken() == token) {
+            if (!changes.getPendingChangeIds().equals(currentSnapshot.getPendingChangeIds())) {
+                final DBUsersSnapshot refreshedSnapshot = currentSnapshot.withPendingChangeIds(changes.getPendingChangeIds());
+                snapshot.set(refreshedSnapshot);
+                return refreshedSnapshot;
+            }
+            return currentSnapshot;
+        }
+        final DBUsersSnapshot refreshedSnapshot = changes.isFullReload() || currentSnapshot == null ?
+                new DBUsersSnapshot(null, changes.getToken(), new ArrayList<>(changes.getDBUsers()), changes.getPendingChangeIds()) :
+                currentSnapshot.applyChanges(changes);
+        snapshot.set(refreshedSnapshot);
+        return refreshedSnapshot;
+    }
+
+    private String readVersion(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(changeDetectionQuery);
+             ResultSet rs = stmt.executeQuery()) {
+            final StringBuilder version = new StringBuilder();
+            if (rs.next()) {
+                final int columns = rs.getMetaData().getColumnCount();
+                for (int i = 1; i <= columns; i++) {
+                    version.append(rs.getString(i)).append('|');
+                }
+            }
+            return version.toString();
+        }
+    }
+
+    private DBUsersSnapshot loadSnapshot(Connection conn, String version) throws SQLException {
+        return new DBUsersSnapshot(version, loadUsers(conn));
+    }
+
+    private List<DBUser> loadUsers(Connection conn) throws SQLException {
+        final DBUsersLoader loader = getUsersLoader(conn);
+        final List<DBUser> users = new ArrayList<>();
+        final long rows = loader.loadAllUsers(conn, users::add);
+        LOGGER.debug("{} users were loaded from {} rows by the {} loader.", users.size(), rows, loader.getName());
+        recordLoad(rows, users);
+        return users;
+    }
+
+    private void recordLoad(long rows, List<DBUser> users) {
+        if (metrics.isEnabled()) {
+            long groups = 0;
+            long skills = 0;
+            for (DBUser user : users) {
+                groups += user.getGroups().size();
+                skills += user.getSkills().size();
+            }
+            metrics.recordLoad(rows, users.size(), groups, skills);
+        }
+    }
+
+    private Connection getConnection() throws SQLException {
+        if (!metrics.isEnabled()) {
+            return dataSource.getConnection();
+        }
+        final long start = System.nanoTime();
+        final Connection connection = dataSource.getConnection();
+        metrics.recordConnectionAcquisition(System.nanoTime() - start);
+        return connection;
+    }
+
+    private DataSource createDataSource() {
+        final DBConnectionPool.ConnectionFactory connectionFactory;
+        final String url = System.getProperty(URL_PROPERTY);
+        if (url != null && !url.trim().isEmpty()) {
+            loadDriver();
+            connectionFactory = DBConnectionPool.driverManagerConnectionFactory(url, System.getProperty(USER_PROPERTY), System.getProperty(PASSWORD_PROPERTY));
+            LOGGER.info("DBUserSystemService will use the embedded connection pool for url: {}", url);
+        } else {
+            final DataSource lookedUpDataSource = lookupDataSource();
+            if (!Boolean.parseBoolean(System.getProperty(POOL_PROPERTY, "false"))) {
+                return lookedUpDataSource;
+            }
+            connectionFactory = DBConnectionPool.dataSourceConnectionFactory(lookedUpDataSource);
+            LOGGER.info("DBUserSystemService will use the embedded connection pool for the configured data source.");
+        }
+        String validationQuery = System.getProperty(VALIDATION_QUERY_PROPERTY);
+        if (validationQuery != null && validationQuery.trim().isEmpty()) {
+            validationQuery = null;
+        }
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
+        connectionPool = new DBConnectionPool(connectionFactory,
+                                              parseIntProperty(POOL_MAX_SIZE_PROPERTY, "10", "poolMaxSize"),
+                                              parseIntProperty(POOL_TIMEOUT_PROPERTY, "30000", "poolTimeout"),
+                                              validationQuery,
+                                              parseIntProperty(VALIDATION_INTERVAL_PROPERTY, "5000", "validationInterval"),
+                                              parseIntProperty(STATEMENT_CACHE_SIZE_PROPERTY, "50", "statementCacheSize"));
+        metrics.setConnectionPool(connectionPool);
+        return connectionPool;
+    }
+
+    private DataSource lookupDataSource() {
+        String dataSourceName = System.getProperty(DATA_SOURCE_PROPERTY, "java:jboss/datasources/ExampleDS");
+        try {
+            InitialContext initialContext = new InitialContext();
+            return (DataSource) initialContext.lookup(dataSourceName);
+        } catch (NamingException e) {
+            throw new DBUserSystemServiceException("Unable to find data source under name " + dataSourceName, e);
+        }
+    }
+
+    private void loadDriver() {
+        final String driver = System.getProperty(DRIVER_PROPERTY);
+        if (driver != null && !driver.trim().isEmpty()) {
+            try {
+                Class.forName(driver.trim(), true, getClass().getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new DBUserSystemServiceException("JDBC driver: " + driver + " was not found in current classpath", e);
+            }
+        }
+    }
+
+    private static String parseUsersLoaderName() {
+        final String loaderName = System.getProperty(USERS_LOADER_PROPERTY, JoinDBUsersLoader.NAME);
+        if (!JoinDBUsersLoader.NAME.equals(loaderName) && !MultiQueryDBUsersLoader.NAME.equals(loaderName)) {
+            throw new DBUserSystemServiceException("Unknown users loader: " + loaderName + ", valid values are "
+                                                           + JoinDBUsersLoader.NAME + " and " + MultiQueryDBUsersLoader.NAME, null);
+        }
+        return loaderName;
+    }
+
+    /**
+     * @return the configured users loader. It's created on first use, after the schema migrations, if any, were
+     * applied, and reads the users availability only when the ta_user table has the availability columns, i.e. the
+     * database was migrated to the schema version 4. Databases not migrated by the SCHEMA_PROPERTY keep working, and
+     * their users have no availability restrictions.
+     */
+    private DBUsersLoader getUsersLoader(Connection conn) throws SQLException {
+        DBUsersLoader loader = usersLoader;
+        if (loader == null) {
+            synchronized (refreshLock) {
+                loader = usersLoader;
+                if (loader == null) {
+                    final boolean readAvailability = DBUsersLoaderUtil.hasAvailabilityColumns(conn);
+                    if (!readAvailability) {
+                        LOGGER.info("ta_user availability columns were not found, users will be loaded without availability restrictions.");
+                    }
+                    loader = JoinDBUsersLoader.NAME.equals(usersLoaderName) ?
+                            new JoinDBUsersLoader(dictionary, usersFilter, readAvailability) :
+                            new MultiQueryDBUsersLoader(dictionary, parseFetchSize(), usersFilter, readAvailability);
+                    usersPager = new KeysetDBUsersPager(loader, pageSize);
+                    usersLoader = loader;
+                }
+            }
+        }
+        return loader;
+    }
+
+    private KeysetDBUsersPager getUsersPager(Connection conn) throws SQLException {
+        getUsersLoader(conn);
+        return usersPager;
+    }
+
+    private static int parseFetchSize() {
+        return parseIntProperty(FETCH_SIZE_PROPERTY, "1000", "fetchSize");
+    }
+
+    private static int parseIntProperty(String property, String defaultValue, String name) {
+        try {
+            return Integer.parseInt(System.getProperty(property, defaultValue));
+        } catch (NumberFormatException e) {
+            throw new DBUserSystemServiceException(name + " wasn't properly set: " + e.getMessage(), e);
+        }
+    }
+
+    private void migrateSchema() {
+        final String schema = System.getProperty(SCHEMA_PROPERTY);
+        if (schema == null || schema.trim().isEmpty()) {
+            return;
+        }
+        final int applied = new DBSchemaMigrator(schema.trim()).migrate(dataSource);
+        LOGGER.info("DBSchemaMigrator applied {} migrations, schema version is: {}", applied, DBSchemaMigrator.getLatestVersion());
     }
 
     private void initializeUsers() {
@@ -164,23 +946,10 @@ public class DBUserSystemService implements UserSystemService {
             LOGGER.info("DBUserInitializer: {} was not found in current classpath.", usersInitializer);
             return;
         }
+        final long start = System.nanoTime();
         initializer.initializeUsers(dataSource);
-    }
-
-    private static void addGroupIfNotEmpty(DBUser user, String groupId) {
-        if (groupId != null && !groupId.isEmpty()) {
-            user.getGroups().add(new DBGroup(groupId));
-        }
-    }
-
-    private static void addSkillIfNotEmpty(DBUser user, String skillId) {
-        if (skillId != null && !skillId.isEmpty()) {
-            user.getSkills().add(skillId);
-        }
-    }
-
-    private static String getTrimmedStringValue(ResultSet rs, int columnIndex) throws SQLException {
-        String value = rs.getString(columnIndex);
-        return value != null ? value.trim() : null;
+        final long elapsed = System.nanoTime() - start;
+        metrics.recordInitializer(elapsed);
+        LOGGER.info("DBUserInitializer: {} was executed in {} ms.", usersInitializer, TimeUnit.NANOSECONDS.toMillis(elapsed));
     }
 }
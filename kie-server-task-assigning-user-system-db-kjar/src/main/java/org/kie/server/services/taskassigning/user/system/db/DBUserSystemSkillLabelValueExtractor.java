@@ -17,7 +17,6 @@
 package org.kie.server.services.taskassigning.user.system.db;
 
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
 
 import org.kie.server.api.model.taskassigning.data.LabelValueExtractor;
@@ -29,6 +28,9 @@ import org.kie.server.services.taskassigning.user.system.api.User;
  * Note: Value extractors must be declared in the resource
  * <p>
  * src/main/resources/META-INF/services/org.kie.server.api.model.taskassigning.data.LabelValueExtractor
+ * <p>
+ * The extracted set is the not modifiable skills view cached by each DBUser, so users that were not reloaded, e.g.
+ * the users kept by the snapshot on a refresh, are extracted without allocating.
  */
 public class DBUserSystemSkillLabelValueExtractor implements LabelValueExtractor<User> {
 
@@ -46,6 +48,6 @@ public class DBUserSystemSkillLabelValueExtractor implements LabelValueExtractor
 
     public Set<Object> extract(User source) {
         DBUser dbUser = (DBUser) source;
-        return dbUser != null ? new HashSet<>(dbUser.getSkills()) : Collections.emptySet();
+        return dbUser != null ? dbUser.getSkillLabelValues() : Collections.emptySet();
     }
 }
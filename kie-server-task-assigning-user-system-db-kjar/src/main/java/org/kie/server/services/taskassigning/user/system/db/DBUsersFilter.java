@@ -0,0 +1,167 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.kie.server.services.taskassigning.user.system.db.DBUsersLoaderUtil.inParameters;
+import static org.kie.server.services.taskassigning.user.system.db.DBUsersLoaderUtil.setStringParameters;
+
+/**
+ * Restricts the users read by the DBUsersLoaders to a subset of the users directory, e.g. when every KIE Server
+ * container only plans the tasks of a subset of the groups. The restriction is added as an SQL condition on the
+ * ta_user u table, so that the users out of the subset are not read from the database at all.
+ * <p>
+ * A user is accepted when it belongs to any of the groups, and its id starts with any of the user id prefixes.
+ * An empty groups or prefixes collection doesn't restrict the users. The accepted users are loaded with all their
+ * groups and skills, not only with the filtering groups.
+ */
+public final class DBUsersFilter {
+
+    public static final DBUsersFilter NONE = new DBUsersFilter(Collections.emptySet(), Collections.emptySet());
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private final Set<String> groupIds;
+
+    private final Set<String> userIdPrefixes;
+
+    private final String condition;
+
+    private final List<String> parameters;
+
+    private DBUsersFilter(Set<String> groupIds, Set<String> userIdPrefixes) {
+        this.groupIds = Collections.unmodifiableSet(groupIds);
+        this.userIdPrefixes = Collections.unmodifiableSet(userIdPrefixes);
+        final StringBuilder builder = new StringBuilder();
+        final List<String> values = new ArrayList<>(groupIds.size() + userIdPrefixes.size());
+        if (!groupIds.isEmpty()) {
+            builder.append(" and exists (select 1 from ta_user_group fg where fg.userid = u.userid and fg.groupid in (")
+                    .append(inParameters(groupIds.size()))
+                    .append("))");
+            values.addAll(groupIds);
+        }
+        if (!userIdPrefixes.isEmpty()) {
+            builder.append(" and (");
+            boolean first = true;
+            for (String prefix : userIdPrefixes) {
+                if (!first) {
+                    builder.append(" or ");
+                }
+                builder.append("u.userid like ? escape '").append(LIKE_ESCAPE).append('\'');
+                values.add(escapeLike(prefix) + '%');
+                first = false;
+            }
+            builder.append(')');
+        }
+        this.condition = builder.toString();
+        this.parameters = Collections.unmodifiableList(values);
+    }
+
+    /**
+     * @param groupIds the groups a user must belong to any of, null or empty for not restricting by groups.
+     * @param userIdPrefixes the prefixes a user id must start with any of, null or empty for not restricting by id.
+     * Blank values are ignored.
+     */
+    public static DBUsersFilter of(Collection<String> groupIds, Collection<String> userIdPrefixes) {
+        final Set<String> groups = trimmed(groupIds);
+        final Set<String> prefixes = trimmed(userIdPrefixes);
+        return groups.isEmpty() && prefixes.isEmpty() ? NONE : new DBUsersFilter(groups, prefixes);
+    }
+
+    /**
+     * Parses the comma separated groups and user id prefixes, e.g. "HR,IT" and "HR-user,IT-user".
+     */
+    public static DBUsersFilter parse(String groupIds, String userIdPrefixes) {
+        return of(split(groupIds), split(userIdPrefixes));
+    }
+
+    public Set<String> getGroupIds() {
+        return groupIds;
+    }
+
+    public Set<String> getUserIdPrefixes() {
+        return userIdPrefixes;
+    }
+
+    public boolean isEmpty() {
+        return condition.isEmpty();
+    }
+
+    /**
+     * @return the condition to append to a query that has the ta_user u table in its where clause, i.e. starting
+     * with " and ", or an empty string when no restriction is needed.
+     */
+    String getCondition() {
+        return condition;
+    }
+
+    /**
+     * Sets the getCondition() parameters starting at the given index.
+     * @return the index of the next parameter.
+     */
+    int setParameters(PreparedStatement stmt, int startIndex) throws SQLException {
+        return setStringParameters(stmt, startIndex, parameters);
+    }
+
+    static String escapeLike(String value) {
+        final StringBuilder builder = new StringBuilder(value.length() + 4);
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                builder.append(LIKE_ESCAPE);
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    private static Set<String> trimmed(Collection<String> values) {
+        final Set<String> result = new LinkedHashSet<>();
+        if (values != null) {
+            for (String value : values) {
+                if (value != null && !value.trim().isEmpty()) {
+                    result.add(value.trim());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static List<String> split(String values) {
+        final List<String> result = new ArrayList<>();
+        if (values != null) {
+            Collections.addAll(result, values.split(","));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "DBUsersFilter{" +
+                "groupIds=" + groupIds +
+                ", userIdPrefixes=" + userIdPrefixes +
+                '}';
+    }
+}
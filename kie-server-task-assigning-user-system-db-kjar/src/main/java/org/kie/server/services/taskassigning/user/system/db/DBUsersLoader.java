@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Contract for the strategies that read the enabled users from the DBUserSystemService database structure.
+ */
+public interface DBUsersLoader {
+
+    /**
+     * @return the name of this DBUsersLoader.
+     */
+    String getName();
+
+    /**
+     * @return the filter that restricts the users loaded by this DBUsersLoader, DBUsersFilter.NONE when all the users
+     * are loaded.
+     */
+    DBUsersFilter getUsersFilter();
+
+    /**
+     * Loads all the enabled users accepted by the users filter.
+     * @param connection the connection to use. Implementations must not close it.
+     * @param consumer receives each loaded user exactly once. Users are delivered with their groups and skills
+     * completely loaded and not modifiable.
+     * @return the number of rows read from the database.
+     * @throws SQLException if an error is produced while reading the users.
+     */
+    long loadAllUsers(Connection connection, Consumer<DBUser> consumer) throws SQLException;
+
+    /**
+     * Loads the enabled users with the given identifiers. Users that don't exist, are not enabled or are not accepted
+     * by the users filter are omitted.
+     * @param connection the connection to use. Implementations must not close it.
+     * @param userIds the identifiers of the users to load. Callers are responsible for keeping the collection size
+     * under the database limits for the number of parameters of a query.
+     * @param consumer receives each loaded user exactly once.
+     * @return the number of rows read from the database.
+     * @throws SQLException if an error is produced while reading the users.
+     */
+    long loadUsers(Connection connection, Collection<String> userIds, Consumer<DBUser> consumer) throws SQLException;
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+class DBUsersLoaderUtil {
+
+    /**
+     * The ta_user u table availability columns, see DBUserAvailability. They only exist from the schema version 4 on.
+     */
+    static final String AVAILABILITY_COLUMNS = "u.capacity_minutes, u.working_days, u.shift_start_minute, u.shift_end_minute";
+
+    private static final String USER_TABLE = "ta_user";
+
+    private static final List<String> AVAILABILITY_COLUMN_NAMES = Arrays.asList("capacity_minutes", "working_days", "shift_start_minute", "shift_end_minute");
+
+    private DBUsersLoaderUtil() {
+    }
+
+    /**
+     * @return true if the ta_user table has the AVAILABILITY_COLUMNS, i.e. the database was migrated to the schema
+     * version 4, false otherwise.
+     */
+    static boolean hasAvailabilityColumns(Connection connection) throws SQLException {
+        final DatabaseMetaData metaData = connection.getMetaData();
+        String table = USER_TABLE;
+        if (metaData.storesUpperCaseIdentifiers()) {
+            table = table.toUpperCase(Locale.ROOT);
+        }
+        final Set<String> columns = new HashSet<>();
+        try (ResultSet rs = metaData.getColumns(connection.getCatalog(), null, table, null)) {
+            while (rs.next()) {
+                columns.add(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+            }
+        }
+        return columns.containsAll(AVAILABILITY_COLUMN_NAMES);
+    }
+
+    /**
+     * @return a string in the form "?, ?, ..., ?" with as many parameters as indicated.
+     */
+    static String inParameters(int size) {
+        final StringBuilder builder = new StringBuilder(size * 3);
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append('?');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Sets the values as consecutive string parameters starting at the given index.
+     * @return the index of the next parameter.
+     */
+    static int setStringParameters(PreparedStatement stmt, int startIndex, Collection<String> values) throws SQLException {
+        int index = startIndex;
+        for (String value : values) {
+            stmt.setString(index++, value);
+        }
+        return index;
+    }
+
+    static String getTrimmedStringValue(ResultSet rs, int columnIndex) throws SQLException {
+        String value = rs.getString(columnIndex);
+        return value != null ? value.trim() : null;
+    }
+
+    static Integer getIntegerValue(ResultSet rs, int columnIndex) throws SQLException {
+        final int value = rs.getInt(columnIndex);
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * Reads the availability from the AVAILABILITY_COLUMNS values starting at the given index.
+     */
+    static DBUserAvailability getAvailability(ResultSet rs, int startIndex) throws SQLException {
+        return DBUserAvailability.of(getIntegerValue(rs, startIndex),
+                                     getTrimmedStringValue(rs, startIndex + 1),
+                                     getIntegerValue(rs, startIndex + 2),
+                                     getIntegerValue(rs, startIndex + 3));
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.kie.server.services.taskassigning.user.system.api.User;
+
+/**
+ * Immutable view of the enabled users loaded by the DBUserSystemService at a given point in time.
+ * Instances are never modified after creation, so they can be safely shared between threads and replaced atomically
+ * when a refresh is produced.
+ */
+public final class DBUsersSnapshot {
+
+    private final String version;
+
+    private final long changeToken;
+
+    private final List<User> users;
+
+    private final Map<String, DBUser> usersById;
+
+    private final Map<Long, Long> pendingChangeIds;
+
+    /**
+     * @param version a value that identifies the database state the snapshot was loaded from, or null if no change
+     * detection is being used.
+     * @param users the loaded users. The snapshot takes ownership of the list.
+     */
+    public DBUsersSnapshot(String version, List<DBUser> users) {
+        this(version, -1, users);
+    }
+
+    /**
+     * @param version a value that identifies the database state the snapshot was loaded from, or null if no change
+     * detection is being used.
+     * @param changeToken the change log token the snapshot is up to date with, or -1 if the change log is not being
+     * used.
+     * @param users the loaded users. The snapshot takes ownership of the list.
+     */
+    public DBUsersSnapshot(String version, long changeToken, List<DBUser> users) {
+        this(version, changeToken, users, null);
+    }
+
+    DBUsersSnapshot(String version, long changeToken, List<DBUser> users, Map<Long, Long> pendingChangeIds) {
+        this.version = version;
+        this.changeToken = changeToken;
+        final Map<String, DBUser> byId = new HashMap<>(users.size() * 2);
+        for (DBUser user : users) {
+            byId.put(user.getId(), user);
+        }
+        this.users = Collections.unmodifiableList(new ArrayList<>(users));
+        this.usersById = Collections.unmodifiableMap(byId);
+        this.pendingChangeIds = pendingChangeIds;
+    }
+
+    private DBUsersSnapshot(DBUsersSnapshot snapshot, Map<Long, Long> pendingChangeIds) {
+        this.version = snapshot.version;
+        this.changeToken = snapshot.changeToken;
+        this.users = snapshot.users;
+        this.usersById = snapshot.usersById;
+        this.pendingChangeIds = pendingChangeIds;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public long getChangeToken() {
+        return changeToken;
+    }
+
+    /**
+     * @return a new snapshot with the given incremental changes applied. The users keep their current order and the
+     * new users are added at the end.
+     */
+    public DBUsersSnapshot applyChanges(DBUserChanges changes) {
+        if (changes.isFullReload()) {
+            return new DBUsersSnapshot(null, changes.getToken(), new ArrayList<>(changes.getDBUsers()));
+        }
+        final Map<String, DBUser> updatedUsers = new LinkedHashMap<>(users.size() * 2);
+        for (User user : users) {
+            updatedUsers.put(user.getId(), (DBUser) user);
+        }
+        for (String removedUserId : changes.getRemovedUserIds()) {
+            updatedUsers.remove(removedUserId);
+        }
+        for (DBUser changedUser : changes.getDBUsers()) {
+            updatedUsers.put(changedUser.getId(), changedUser);
+        }
+        return new DBUsersSnapshot(null, changes.getToken(), new ArrayList<>(updatedUsers.values()), changes.getPendingChangeIds());
+    }
+
+    /**
+     * @return the change ids up to the change token that were missing in the change log, i.e. not yet committed or
+     * rolled back, with the time they were detected at, or null if unknown.
+     */
+    Map<Long, Long> getPendingChangeIds() {
+        return pendingChangeIds;
+    }
+
+    /**
+     * @return a snapshot with the same users and change token, and the given pending change ids.
+     */
+    DBUsersSnapshot withPendingChangeIds(Map<Long, Long> pendingChangeIds) {
+        return new DBUsersSnapshot(this, pendingChangeIds);
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public DBUser getUser(String userId) {
+        return usersById.get(userId);
+    }
+
+    public int size() {
+        return users.size();
+    }
+}
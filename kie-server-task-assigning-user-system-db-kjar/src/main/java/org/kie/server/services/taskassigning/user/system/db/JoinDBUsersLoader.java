@@ -0,0 +1,137 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.kie.server.services.taskassigning.user.system.db.DBUsersLoaderUtil.AVAILABILITY_COLUMNS;
+import static org.kie.server.services.taskassigning.user.system.db.DBUsersLoaderUtil.getAvailability;
+import static org.kie.server.services.taskassigning.user.system.db.DBUsersLoaderUtil.getTrimmedStringValue;
+import static org.kie.server.services.taskassigning.user.system.db.DBUsersLoaderUtil.inParameters;
+import static org.kie.server.services.taskassigning.user.system.db.DBUsersLoaderUtil.setStringParameters;
+
+/**
+ * Loads the users by joining the users, groups and skills tables in a single query. A user with G groups and S skills
+ * produces G x S rows, that are de-duplicated in memory.
+ */
+public class JoinDBUsersLoader implements DBUsersLoader {
+
+    public static final String NAME = "JOIN";
+
+    static final String FIND_ALL_USERS_QUERY = "select u.userid, u.enabled, g.groupid, s.skillid from ta_user u left join ta_user_group g on (u.userid = g.userid) left join ta_user_skill s on (u.userid = s.userid) where u.enabled = ?";
+
+    static final String FIND_ALL_USERS_WITH_AVAILABILITY_QUERY = "select u.userid, u.enabled, g.groupid, s.skillid, " + AVAILABILITY_COLUMNS + " from ta_user u left join ta_user_group g on (u.userid = g.userid) left join ta_user_skill s on (u.userid = s.userid) where u.enabled = ?";
+
+    private final DBUserDictionary dictionary;
+
+    private final DBUsersFilter usersFilter;
+
+    private final boolean readAvailability;
+
+    private final String findAllUsersQuery;
+
+    public JoinDBUsersLoader(DBUserDictionary dictionary) {
+        this(dictionary, DBUsersFilter.NONE);
+    }
+
+    public JoinDBUsersLoader(DBUserDictionary dictionary, DBUsersFilter usersFilter) {
+        this(dictionary, usersFilter, false);
+    }
+
+    /**
+     * @param readAvailability true for reading the user availability columns, that only exist from the schema version 4
+     * on, see DBUserAvailability. When false the users have no availability restrictions.
+     */
+    public JoinDBUsersLoader(DBUserDictionary dictionary, DBUsersFilter usersFilter, boolean readAvailability) {
+        this.dictionary = dictionary;
+        this.usersFilter = usersFilter;
+        this.readAvailability = readAvailability;
+        this.findAllUsersQuery = readAvailability ? FIND_ALL_USERS_WITH_AVAILABILITY_QUERY : FIND_ALL_USERS_QUERY;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public DBUsersFilter getUsersFilter() {
+        return usersFilter;
+    }
+
+    @Override
+    public long loadAllUsers(Connection connection, Consumer<DBUser> consumer) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(findAllUsersQuery + usersFilter.getCondition())) {
+            stmt.setShort(1, (short) 1);
+            usersFilter.setParameters(stmt, 2);
+            return readUsers(stmt.executeQuery(), consumer);
+        }
+    }
+
+    @Override
+    public long loadUsers(Connection connection, Collection<String> userIds, Consumer<DBUser> consumer) throws SQLException {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        try (PreparedStatement stmt = connection.prepareStatement(findAllUsersQuery + usersFilter.getCondition() + " and u.userid in (" + inParameters(userIds.size()) + ")")) {
+            stmt.setShort(1, (short) 1);
+            setStringParameters(stmt, usersFilter.setParameters(stmt, 2), userIds);
+            return readUsers(stmt.executeQuery(), consumer);
+        }
+    }
+
+    private long readUsers(ResultSet rs, Consumer<DBUser> consumer) throws SQLException {
+        try {
+            long rows = 0;
+            String userId;
+            String groupId;
+            String skillId;
+            final Map<String, DBUserBuilder> usersMap = new LinkedHashMap<>();
+            while (rs.next()) {
+                rows++;
+                userId = getTrimmedStringValue(rs, 1);
+                groupId = getTrimmedStringValue(rs, 3);
+                skillId = getTrimmedStringValue(rs, 4);
+                if (userId != null && !userId.isEmpty()) {
+                    DBUserBuilder user = usersMap.get(userId);
+                    if (user == null) {
+                        user = new DBUserBuilder(dictionary).reset(userId);
+                        if (readAvailability) {
+                            user.availability(getAvailability(rs, 5));
+                        }
+                        usersMap.put(userId, user);
+                    }
+                    user.addGroup(groupId);
+                    user.addSkill(skillId);
+                }
+            }
+            for (DBUserBuilder user : usersMap.values()) {
+                consumer.accept(user.build());
+            }
+            return rows;
+        } finally {
+            rs.close();
+        }
+    }
+}
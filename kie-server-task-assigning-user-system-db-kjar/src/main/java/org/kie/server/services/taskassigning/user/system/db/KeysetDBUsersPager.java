@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads all the enabled users accepted by the DBUsersLoader users filter in pages of at most pageSize users by using
+ * keyset pagination on the userid column.
+ * Each page is resolved by querying the next pageSize user ids after the last id of the previous page, and loading
+ * them with the configured DBUsersLoader. So the memory needed is given by the page size instead of by the number of
+ * users, and no page depends on an offset or on a long lived cursor.
+ * <p>
+ * The pages are read in independent queries, so the users are not read as a consistent snapshot, a user inserted or
+ * deleted while the reading is in progress might be delivered or not.
+ */
+public class KeysetDBUsersPager {
+
+    static final String FIND_USER_IDS_PAGE_QUERY = "select u.userid from ta_user u where u.enabled = ?";
+
+    static final String NEXT_PAGE_CONDITION = " and u.userid > ?";
+
+    static final String ORDER_BY_USER_ID = " order by u.userid";
+
+    private final DBUsersLoader usersLoader;
+
+    private final int pageSize;
+
+    private final String firstPageQuery;
+
+    private final String nextPageQuery;
+
+    public KeysetDBUsersPager(DBUsersLoader usersLoader, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be greater than zero: " + pageSize);
+        }
+        this.usersLoader = usersLoader;
+        this.pageSize = pageSize;
+        // the user ids pages are restricted by the same filter as the loaded users, so that pages are not wasted.
+        final String filterCondition = usersLoader.getUsersFilter().getCondition();
+        this.firstPageQuery = FIND_USER_IDS_PAGE_QUERY + filterCondition + ORDER_BY_USER_ID;
+        this.nextPageQuery = FIND_USER_IDS_PAGE_QUERY + filterCondition + NEXT_PAGE_CONDITION + ORDER_BY_USER_ID;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    String getFirstPageQuery() {
+        return firstPageQuery;
+    }
+
+    String getNextPageQuery() {
+        return nextPageQuery;
+    }
+
+    /**
+     * @param connection the connection to use. It's not closed by this method.
+     * @param consumer receives each loaded user exactly once. The users of a page are delivered before the next page
+     * is read.
+     * @return the number of rows read from the database.
+     * @throws SQLException if an error is produced while reading the users.
+     */
+    public long readAllUsers(Connection connection, Consumer<DBUser> consumer) throws SQLException {
+        long rows = 0;
+        final List<String> pageUserIds = new ArrayList<>(pageSize);
+        String lastUserId = null;
+        do {
+            pageUserIds.clear();
+            readUserIdsPage(connection, lastUserId, pageUserIds);
+            if (pageUserIds.isEmpty()) {
+                break;
+            }
+            rows += pageUserIds.size();
+            rows += usersLoader.loadUsers(connection, pageUserIds, consumer);
+            lastUserId = pageUserIds.get(pageUserIds.size() - 1);
+        } while (pageUserIds.size() == pageSize);
+        return rows;
+    }
+
+    /**
+     * Reads the next page of user ids. The ids are kept as returned by the database, i.e. not trimmed, since they are
+     * used as the pagination key and as the loading parameters.
+     */
+    private void readUserIdsPage(Connection connection, String lastUserId, List<String> pageUserIds) throws SQLException {
+        final String query = lastUserId == null ? firstPageQuery : nextPageQuery;
+        try (PreparedStatement stmt = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setMaxRows(pageSize);
+            stmt.setFetchSize(pageSize);
+            stmt.setShort(1, (short) 1);
+            final int nextIndex = usersLoader.getUsersFilter().setParameters(stmt, 2);
+            if (lastUserId != null) {
+                stmt.setString(nextIndex, lastUserId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                String userId;
+                while (rs.next()) {
+                    userId = rs.getString(1);
+                    if (userId != null) {
+                        pageUserIds.add(userId);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.Consumer;
+
+import static org.kie.server.services.taskassigning.user.system.db.DBUsersLoaderUtil.AVAILABILITY_COLUMNS;
+import static org.kie.server.services.taskassigning.user.system.db.DBUsersLoaderUtil.getAvailability;
+import static org.kie.server.services.taskassigning.user.system.db.DBUsersLoaderUtil.getTrimmedStringValue;
+import static org.kie.server.services.taskassigning.user.system.db.DBUsersLoaderUtil.inParameters;
+import static org.kie.server.services.taskassigning.user.system.db.DBUsersLoaderUtil.setStringParameters;
+
+/**
+ * Loads the users by reading the users, groups and skills as three result sets ordered by userid, and merging them in
+ * a single streaming pass. A user with G groups and S skills produces 1 + G + S rows instead of the G x S rows
+ * produced by the JoinDBUsersLoader, and each user is delivered as soon as its rows were read.
+ * <p>
+ * The result sets are opened forward only and read only, with the configured fetch size. When the given connection is
+ * in auto commit mode, the three queries are executed in a single REPEATABLE READ transaction, so that all of them
+ * see the same snapshot of the database, e.g. under the PostgreSQL default READ COMMITTED isolation a user enabled
+ * between the users and the groups queries would otherwise produce group rows for a user not returned by the users
+ * query. The transaction also makes drivers like PostgreSQL use server side cursors. It's always read only, so it's
+ * committed when the load succeeds and rolled back when it fails, and the connection settings are restored
+ * afterwards. When the connection is not in auto commit mode the caller's transaction is used as is.
+ */
+public class MultiQueryDBUsersLoader implements DBUsersLoader {
+
+    public static final String NAME = "MULTI_QUERY";
+
+    static final String FIND_ALL_USERS_QUERY = "select u.userid from ta_user u where u.enabled = ?";
+
+    static final String FIND_ALL_USERS_WITH_AVAILABILITY_QUERY = "select u.userid, " + AVAILABILITY_COLUMNS + " from ta_user u where u.enabled = ?";
+
+    static final String FIND_ALL_USERS_GROUPS_QUERY = "select g.userid, g.groupid from ta_user_group g inner join ta_user u on (u.userid = g.userid) where u.enabled = ?";
+
+    static final String FIND_ALL_USERS_SKILLS_QUERY = "select s.userid, s.skillid from ta_user_skill s inner join ta_user u on (u.userid = s.userid) where u.enabled = ?";
+
+    static final String ORDER_BY_USER_ID = " order by u.userid";
+
+    private final DBUserDictionary dictionary;
+
+    private final int fetchSize;
+
+    private final DBUsersFilter usersFilter;
+
+    private final boolean readAvailability;
+
+    public MultiQueryDBUsersLoader(DBUserDictionary dictionary, int fetchSize) {
+        this(dictionary, fetchSize, DBUsersFilter.NONE);
+    }
+
+    public MultiQueryDBUsersLoader(DBUserDictionary dictionary, int fetchSize, DBUsersFilter usersFilter) {
+        this(dictionary, fetchSize, usersFilter, false);
+    }
+
+    /**
+     * @param readAvailability true for reading the user availability columns, that only exist from the schema version 4
+     * on, see DBUserAvailability. When false the users have no availability restrictions.
+     */
+    public MultiQueryDBUsersLoader(DBUserDictionary dictionary, int fetchSize, DBUsersFilter usersFilter, boolean readAvailability) {
+        this.dictionary = dictionary;
+        this.fetchSize = fetchSize;
+        this.usersFilter = usersFilter;
+        this.readAvailability = readAvailability;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public DBUsersFilter getUsersFilter() {
+        return usersFilter;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    @Override
+    public long loadAllUsers(Connection connection, Consumer<DBUser> consumer) throws SQLException {
+        return load(connection, "", Collections.emptyList(), consumer);
+    }
+
+    @Override
+    public long loadUsers(Connection connection, Collection<String> userIds, Consumer<DBUser> consumer) throws SQLException {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        return load(connection, " and u.userid in (" + inParameters(userIds.size()) + ")", userIds, consumer);
+    }
+
+    /**
+     * @param filter an optional additional condition on the ta_user u table, that is applied after the users filter.
+     * @param filterParameters the string parameters for the filter condition.
+     */
+    private long load(Connection connection, String filter, Collection<String> filterParameters, Consumer<DBUser> consumer) throws SQLException {
+        final boolean ownTransaction = connection.getAutoCommit();
+        final int isolation = connection.getTransactionIsolation();
+        if (ownTransaction) {
+            connection.setAutoCommit(false);
+            if (isolation < Connection.TRANSACTION_REPEATABLE_READ
+                    && connection.getMetaData().supportsTransactionIsolationLevel(Connection.TRANSACTION_REPEATABLE_READ)) {
+                connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            }
+        }
+        try {
+            final long rows = executeAndMerge(connection, filter, filterParameters, consumer);
+            if (ownTransaction) {
+                connection.commit();
+            }
+            return rows;
+        } catch (SQLException | RuntimeException e) {
+            if (ownTransaction) {
+                connection.rollback();
+            }
+            throw e;
+        } finally {
+            if (ownTransaction) {
+                if (connection.getTransactionIsolation() != isolation) {
+                    connection.setTransactionIsolation(isolation);
+                }
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private long executeAndMerge(Connection connection, String filter, Collection<String> filterParameters, Consumer<DBUser> consumer) throws SQLException {
+        final String condition = usersFilter.getCondition() + filter + ORDER_BY_USER_ID;
+        try (PreparedStatement usersStmt = prepareStatement(connection, (readAvailability ? FIND_ALL_USERS_WITH_AVAILABILITY_QUERY : FIND_ALL_USERS_QUERY) + condition, filterParameters);
+             PreparedStatement groupsStmt = prepareStatement(connection, FIND_ALL_USERS_GROUPS_QUERY + condition, filterParameters);
+             PreparedStatement skillsStmt = prepareStatement(connection, FIND_ALL_USERS_SKILLS_QUERY + condition, filterParameters);
+             ResultSet usersRs = usersStmt.executeQuery();
+             ResultSet groupsRs = groupsStmt.executeQuery();
+             ResultSet skillsRs = skillsStmt.executeQuery()) {
+            return merge(usersRs, readAvailability, new ChildRowsCursor(groupsRs), new ChildRowsCursor(skillsRs), new DBUserBuilder(dictionary), consumer);
+        }
+    }
+
+    /**
+     * Merges the users with their groups and skills. The three result sets are ordered by the same userid column, and
+     * the groups and skills queries only return rows for users returned by the users query. So the child rows for
+     * each user are found at the current position of the child cursors, and equality is enough for detecting them,
+     * regardless of the database collation.
+     * <p>
+     * If the result sets were not read from the same snapshot, e.g. the caller's transaction is READ COMMITTED, a child
+     * cursor might stop at a user that the users query didn't return, and the following users would miss their groups
+     * or skills. Such a cursor never reaches its end, so the merge fails when unread child rows remain, instead of
+     * silently delivering incomplete users.
+     * @throws DBUserSystemServiceException if unread child rows remain after all the users were read.
+     */
+    static long merge(ResultSet usersRs, boolean readAvailability, ChildRowsCursor groups, ChildRowsCursor skills, DBUserBuilder builder,
+                      Consumer<DBUser> consumer) throws SQLException {
+        long rows = 0;
+        String rawUserId;
+        String userId;
+        while (usersRs.next()) {
+            rows++;
+            rawUserId = usersRs.getString(1);
+            userId = rawUserId != null ? rawUserId.trim() : null;
+            builder.reset(userId);
+            if (readAvailability) {
+                builder.availability(getAvailability(usersRs, 2));
+            }
+            while (groups.isAtUser(rawUserId)) {
+                builder.addGroup(groups.getTrimmedValue());
+                groups.next();
+            }
+            while (skills.isAtUser(rawUserId)) {
+                builder.addSkill(skills.getTrimmedValue());
+                skills.next();
+            }
+            if (userId != null && !userId.isEmpty()) {
+                consumer.accept(builder.build());
+            }
+        }
+        if (groups.hasRow() || skills.hasRow()) {
+            throw new DBUserSystemServiceException("Users groups or skills were found for a user that was not read, the users"
+                                                           + " were probably modified while being loaded: " + (groups.hasRow() ? groups.userId : skills.userId), null);
+        }
+        return rows + groups.getRows() + skills.getRows();
+    }
+
+    private PreparedStatement prepareStatement(Connection connection, String query, Collection<String> filterParameters) throws SQLException {
+        final PreparedStatement stmt = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        if (fetchSize > 0) {
+            stmt.setFetchSize(fetchSize);
+        }
+        stmt.setShort(1, (short) 1);
+        setStringParameters(stmt, usersFilter.setParameters(stmt, 2), filterParameters);
+        return stmt;
+    }
+
+    /**
+     * Forward only cursor over a (userid, value) result set.
+     */
+    static class ChildRowsCursor {
+
+        private final ResultSet rs;
+        private boolean hasRow;
+        private String userId;
+        private long rows;
+
+        ChildRowsCursor(ResultSet rs) throws SQLException {
+            this.rs = rs;
+            next();
+        }
+
+        boolean hasRow() {
+            return hasRow;
+        }
+
+        boolean isAtUser(String rawUserId) {
+            return hasRow && userId.equals(rawUserId);
+        }
+
+        String getTrimmedValue() throws SQLException {
+            return getTrimmedStringValue(rs, 2);
+        }
+
+        void next() throws SQLException {
+            hasRow = rs.next();
+            if (hasRow) {
+                rows++;
+                userId = rs.getString(1);
+            }
+        }
+
+        long getRows() {
+            return rows;
+        }
+    }
+}
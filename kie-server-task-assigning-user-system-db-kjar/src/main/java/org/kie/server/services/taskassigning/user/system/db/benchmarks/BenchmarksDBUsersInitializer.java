@@ -17,23 +17,51 @@
 package org.kie.server.services.taskassigning.user.system.db.benchmarks;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.sql.DataSource;
 
 import org.kie.server.services.taskassigning.user.system.db.DBUserSystemServiceException;
 import org.kie.server.services.taskassigning.user.system.db.DBUsersInitializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * Initializes a users set for benchmarking purposes. For each of the HR, IT and ENG prefixes, usersSetSize users are
+ * created. Each user belongs to the "user" group and to the group given by its prefix, and optionally has a set of
+ * skills given by the configured skills distribution.
+ * <p>
+ * The inserts are executed as JDBC batches of batchSize rows, and committed every commitSize users. The users set can
+ * optionally be split into partitions, by prefix and id range, that are inserted in parallel using one connection per
+ * partition.
+ */
 public class BenchmarksDBUsersInitializer implements DBUsersInitializer {
 
-    private static String INSERT_USER_QUERY = "insert into ta_user values (?, ?, ?)";
+    private static final Logger LOGGER = LoggerFactory.getLogger(BenchmarksDBUsersInitializer.class);
+
+    private static String INSERT_USER_QUERY = "insert into ta_user (userid, enabled, descritpion) values (?, ?, ?)";
     private static String INSERT_USER_GROUP_QUERY = "insert into ta_user_group values (?, ?)";
+    private static String INSERT_USER_SKILL_QUERY = "insert into ta_user_skill values (?, ?)";
     private static String DELETE_USERS_QUERY = "delete from ta_user where userid like ?";
-    private static String DELETE_USERS_GROUPS_QUERY = "delete from ta_user_group where userid like ?";
-    private static String DELETE_USERS_SKILLS_QUERY = "delete from ta_user_skill where userid like ?";
+    private static String DELETE_USERS_GROUPS_QUERY = "delete from ta_user_group where userid in (select userid from ta_user where userid like ?)";
+    private static String DELETE_USERS_SKILLS_QUERY = "delete from ta_user_skill where userid in (select userid from ta_user where userid like ?)";
+    private static String INSERT_GROUP_QUERY = "insert into ta_group (groupid) select cast(? as varchar(255)) where not exists (select 1 from ta_group where groupid = ?)";
+    private static String INSERT_SKILL_QUERY = "insert into ta_skill (skillid) select cast(? as varchar(255)) where not exists (select 1 from ta_skill where skillid = ?)";
+    private static final String DICTIONARY_TABLE = "ta_group";
 
     private static final String HR_USER_PREFIX = "HR-user";
     private static final String IT_USER_PREFIX = "IT-user";
@@ -42,6 +70,33 @@ public class BenchmarksDBUsersInitializer implements DBUsersInitializer {
 
     public static final String USERS_SET_SIZE = "org.kie.server.services.taskassigning.user.system.db.benchmarks.BenchmarksDBUsersInitializer.usersSetSize";
 
+    /**
+     * Number of rows to add to a JDBC batch before executing it. Defaults to 1000.
+     */
+    public static final String BATCH_SIZE = "org.kie.server.services.taskassigning.user.system.db.benchmarks.BenchmarksDBUsersInitializer.batchSize";
+
+    /**
+     * Number of users to insert before committing the transaction. Defaults to 10000.
+     */
+    public static final String COMMIT_SIZE = "org.kie.server.services.taskassigning.user.system.db.benchmarks.BenchmarksDBUsersInitializer.commitSize";
+
+    /**
+     * Number of partitions, each one inserted by a different thread and connection. Defaults to 1.
+     */
+    public static final String PARTITIONS = "org.kie.server.services.taskassigning.user.system.db.benchmarks.BenchmarksDBUsersInitializer.partitions";
+
+    /**
+     * Skills distribution, given as a comma separated list of skill:probability pairs, e.g. "english:0.8,spanish:0.3".
+     * Each user gets each skill with the given probability. Defaults to no skills.
+     */
+    public static final String SKILLS_DISTRIBUTION = "org.kie.server.services.taskassigning.user.system.db.benchmarks.BenchmarksDBUsersInitializer.skillsDistribution";
+
+    /**
+     * Seed for the skills distribution random generation. Defaults to 1. The skills of each user are derived from
+     * the seed and the user id only, so the same users are generated regardless of the number of partitions.
+     */
+    public static final String SEED = "org.kie.server.services.taskassigning.user.system.db.benchmarks.BenchmarksDBUsersInitializer.seed";
+
     @Override
     public String getName() {
         return "BenchmarksDBUsersInitializer";
@@ -49,15 +104,30 @@ public class BenchmarksDBUsersInitializer implements DBUsersInitializer {
 
     @Override
     public void initializeUsers(DataSource dataSource) {
-        int usersSetSize;
-        try {
-            usersSetSize = Integer.parseInt(System.getProperty(USERS_SET_SIZE, "0"));
-        } catch (NumberFormatException e) {
-            throw new DBUserSystemServiceException("usersSetSize wasn't properly set: " + e.getMessage(), e);
+        final int usersSetSize = parseIntProperty(USERS_SET_SIZE, "0", "usersSetSize");
+        final int batchSize = Math.max(1, parseIntProperty(BATCH_SIZE, "1000", "batchSize"));
+        final int commitSize = Math.max(1, parseIntProperty(COMMIT_SIZE, "10000", "commitSize"));
+        final int partitions = Math.max(1, parseIntProperty(PARTITIONS, "1", "partitions"));
+        final long seed = parseIntProperty(SEED, "1", "seed");
+        final Map<String, Double> skillsDistribution = parseSkillsDistribution(System.getProperty(SKILLS_DISTRIBUTION, ""));
+
+        final long start = System.currentTimeMillis();
+        deleteUsers(dataSource);
+        insertDictionaries(dataSource, skillsDistribution.keySet());
+        final List<UsersRange> ranges = splitRanges(usersSetSize, partitions);
+        if (partitions == 1) {
+            for (UsersRange range : ranges) {
+                insertUsers(dataSource, range, batchSize, commitSize, skillsDistribution, seed);
+            }
+        } else {
+            insertUsersInParallel(dataSource, ranges, partitions, batchSize, commitSize, skillsDistribution, seed);
         }
+        LOGGER.info("BenchmarksDBUsersInitializer created {} users in {} ms, partitions: {}, batchSize: {}, commitSize: {}",
+                    usersSetSize * USER_PREFIXES.size(), System.currentTimeMillis() - start, partitions, batchSize, commitSize);
+    }
+
+    private static void deleteUsers(DataSource dataSource) {
         try (Connection connection = dataSource.getConnection();
-             PreparedStatement insertUserStmt = connection.prepareStatement(INSERT_USER_QUERY);
-             PreparedStatement insertGroupStmt = connection.prepareStatement(INSERT_USER_GROUP_QUERY);
              PreparedStatement deleteUsersStmt = connection.prepareStatement(DELETE_USERS_QUERY);
              PreparedStatement deleteUsersGroupsStmt = connection.prepareStatement(DELETE_USERS_GROUPS_QUERY);
              PreparedStatement deleteUsersSkillsStmt = connection.prepareStatement(DELETE_USERS_SKILLS_QUERY);
@@ -76,40 +146,240 @@ public class BenchmarksDBUsersInitializer implements DBUsersInitializer {
                 deleteUsersStmt.setString(1, userPrefix + "%");
                 deleteUsersStmt.executeUpdate();
             }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new DBUserSystemServiceException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Registers the groups and skills used by the users set in the ta_group and ta_skill dictionary tables, referred
+     * by the ta_user_group and ta_user_skill foreign keys. Databases without the dictionary tables, i.e. with a
+     * schema version lower than 3, are left untouched.
+     */
+    private static void insertDictionaries(DataSource dataSource, Collection<String> skills) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!tableExists(connection, DICTIONARY_TABLE)) {
+                return;
+            }
+            connection.setAutoCommit(false);
+            final List<String> groups = new ArrayList<>();
+            groups.add("user");
+            for (String userPrefix : USER_PREFIXES) {
+                groups.add(getUserGroup(userPrefix));
+            }
+            insertDictionaryValues(connection, INSERT_GROUP_QUERY, groups);
+            insertDictionaryValues(connection, INSERT_SKILL_QUERY, skills);
+            connection.commit();
+        } catch (SQLException e) {
+            throw new DBUserSystemServiceException(e.getMessage(), e);
+        }
+    }
+
+    private static void insertDictionaryValues(Connection connection, String query, Collection<String> values) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            for (String value : values) {
+                stmt.setString(1, value);
+                stmt.setString(2, value);
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String tableName) throws SQLException {
+        final DatabaseMetaData metaData = connection.getMetaData();
+        for (String name : Arrays.asList(tableName, tableName.toUpperCase())) {
+            try (ResultSet rs = metaData.getTables(null, null, name, new String[]{"TABLE"})) {
+                if (rs.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void insertUsersInParallel(DataSource dataSource, List<UsersRange> ranges, int partitions, int batchSize,
+                                              int commitSize, Map<String, Double> skillsDistribution, long seed) {
+        final ExecutorService executor = Executors.newFixedThreadPool(partitions);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (UsersRange range : ranges) {
+                futures.add(executor.submit(() -> insertUsers(dataSource, range, batchSize, commitSize, skillsDistribution, seed)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DBUserSystemServiceException("Users initialization was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new DBUserSystemServiceException("An error was produced during users initialization: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void insertUsers(DataSource dataSource, UsersRange range, int batchSize, int commitSize,
+                                    Map<String, Double> skillsDistribution, long seed) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insertUserStmt = connection.prepareStatement(INSERT_USER_QUERY);
+             PreparedStatement insertGroupStmt = connection.prepareStatement(INSERT_USER_GROUP_QUERY);
+             PreparedStatement insertSkillStmt = connection.prepareStatement(INSERT_USER_SKILL_QUERY)
+        ) {
+            connection.setAutoCommit(false);
+            final String userGroup = getUserGroup(range.prefix);
+            final Batch usersBatch = new Batch(insertUserStmt, batchSize, null);
+            final Batch groupsBatch = new Batch(insertGroupStmt, batchSize, usersBatch);
+            final Batch skillsBatch = new Batch(insertSkillStmt, batchSize, usersBatch);
+            int uncommittedUsers = 0;
+            for (int i = range.from; i < range.to; i++) {
+                String userId = range.prefix + i;
+
+                insertUserStmt.setString(1, userId);
+                insertUserStmt.setShort(2, (short) 1);
+                insertUserStmt.setString(3, userId + " Description");
+                usersBatch.add();
 
-            for (int i = 1; i < usersSetSize + 1; i++) {
-                for (String userPrefix : USER_PREFIXES) {
-                    String userId = userPrefix + i;
-                    String userGroup;
-
-                    insertUserStmt.clearParameters();
-                    insertUserStmt.setString(1, userId);
-                    insertUserStmt.setShort(2, (short) 1);
-                    insertUserStmt.setString(3, userId + " Description");
-                    insertUserStmt.executeUpdate();
-
-                    insertGroupStmt.clearParameters();
-                    insertGroupStmt.setString(1, userId);
-                    insertGroupStmt.setString(2, "user");
-                    insertGroupStmt.executeUpdate();
-
-                    if (HR_USER_PREFIX.equals(userPrefix)) {
-                        userGroup = "HR";
-                    } else if (IT_USER_PREFIX.equals(userPrefix)) {
-                        userGroup = "IT";
-                    } else {
-                        userGroup = "ENG";
+                insertGroupStmt.setString(1, userId);
+                insertGroupStmt.setString(2, "user");
+                groupsBatch.add();
+
+                insertGroupStmt.setString(1, userId);
+                insertGroupStmt.setString(2, userGroup);
+                groupsBatch.add();
+
+                final SplittableRandom random = userRandom(seed, userId);
+                for (Map.Entry<String, Double> skill : skillsDistribution.entrySet()) {
+                    if (random.nextDouble() < skill.getValue()) {
+                        insertSkillStmt.setString(1, userId);
+                        insertSkillStmt.setString(2, skill.getKey());
+                        skillsBatch.add();
                     }
+                }
 
-                    insertGroupStmt.clearParameters();
-                    insertGroupStmt.setString(1, userId);
-                    insertGroupStmt.setString(2, userGroup);
-                    insertGroupStmt.executeUpdate();
+                if (++uncommittedUsers == commitSize) {
+                    groupsBatch.flush();
+                    skillsBatch.flush();
+                    connection.commit();
+                    uncommittedUsers = 0;
                 }
             }
+            groupsBatch.flush();
+            skillsBatch.flush();
+            usersBatch.flush();
             connection.commit();
         } catch (SQLException e) {
             throw new DBUserSystemServiceException(e.getMessage(), e);
         }
     }
+
+    /**
+     * SplittableRandom mixes its seed, so that users with consecutive ids don't get correlated values as it would
+     * happen with java.util.Random.
+     */
+    static SplittableRandom userRandom(long seed, String userId) {
+        return new SplittableRandom(seed * 31 + userId.hashCode());
+    }
+
+    private static String getUserGroup(String userPrefix) {
+        if (HR_USER_PREFIX.equals(userPrefix)) {
+            return "HR";
+        } else if (IT_USER_PREFIX.equals(userPrefix)) {
+            return "IT";
+        } else {
+            return "ENG";
+        }
+    }
+
+    /**
+     * Splits the users set of each prefix into id ranges, so that the total number of ranges is roughly the number
+     * of partitions.
+     */
+    static List<UsersRange> splitRanges(int usersSetSize, int partitions) {
+        final List<UsersRange> ranges = new ArrayList<>();
+        final int rangesPerPrefix = Math.max(1, (partitions + USER_PREFIXES.size() - 1) / USER_PREFIXES.size());
+        final int rangeSize = Math.max(1, (usersSetSize + rangesPerPrefix - 1) / rangesPerPrefix);
+        for (String userPrefix : USER_PREFIXES) {
+            for (int from = 1; from < usersSetSize + 1; from += rangeSize) {
+                ranges.add(new UsersRange(userPrefix, from, Math.min(from + rangeSize, usersSetSize + 1)));
+            }
+        }
+        return ranges;
+    }
+
+    static Map<String, Double> parseSkillsDistribution(String value) {
+        final Map<String, Double> result = new LinkedHashMap<>();
+        for (String item : value.split(",")) {
+            final String trimmedItem = item.trim();
+            if (trimmedItem.isEmpty()) {
+                continue;
+            }
+            final int index = trimmedItem.lastIndexOf(':');
+            try {
+                if (index <= 0) {
+                    throw new NumberFormatException("expected skill:probability but got: " + trimmedItem);
+                }
+                result.put(trimmedItem.substring(0, index).trim(), Double.parseDouble(trimmedItem.substring(index + 1).trim()));
+            } catch (NumberFormatException e) {
+                throw new DBUserSystemServiceException("skillsDistribution wasn't properly set: " + e.getMessage(), e);
+            }
+        }
+        return result;
+    }
+
+    private static int parseIntProperty(String property, String defaultValue, String name) {
+        try {
+            return Integer.parseInt(System.getProperty(property, defaultValue));
+        } catch (NumberFormatException e) {
+            throw new DBUserSystemServiceException(name + " wasn't properly set: " + e.getMessage(), e);
+        }
+    }
+
+    static class UsersRange {
+
+        private final String prefix;
+        private final int from;
+        private final int to;
+
+        UsersRange(String prefix, int from, int to) {
+            this.prefix = prefix;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * JDBC batch that is executed every batchSize rows. When a parent batch is given, e.g. the users batch for the
+     * groups batch, the parent is always executed first so that the referred rows already exist.
+     */
+    private static class Batch {
+
+        private final PreparedStatement stmt;
+        private final int batchSize;
+        private final Batch parent;
+        private int size;
+
+        private Batch(PreparedStatement stmt, int batchSize, Batch parent) {
+            this.stmt = stmt;
+            this.batchSize = batchSize;
+            this.parent = parent;
+        }
+
+        private void add() throws SQLException {
+            stmt.addBatch();
+            if (++size == batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (parent != null) {
+                parent.flush();
+            }
+            if (size > 0) {
+                stmt.executeBatch();
+                size = 0;
+            }
+        }
+    }
 }
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.kie.server.services.taskassigning.user.system.db.pool.DBConnectionPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the DBUserSystemService hot path metrics and exposes them by JMX under the OBJECT_NAME name.
+ * <p>
+ * When the metrics are not enabled, all the record methods return immediately. Callers are expected to check
+ * isEnabled() before taking the timestamps, so that a disabled instance costs a field read and nothing else.
+ */
+public class DBUserSystemMetrics implements DBUserSystemMetricsMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DBUserSystemMetrics.class);
+
+    public static final String OBJECT_NAME = "org.kie.server.services.taskassigning.user.system.db:type=DBUserSystemMetrics";
+
+    private static final long NANOS_PER_MICRO = 1000;
+
+    private final boolean enabled;
+
+    private final Histogram findAllUsersTimings = new Histogram();
+    private final Histogram findUserTimings = new Histogram();
+    private final Histogram testTimings = new Histogram();
+    private final Histogram connectionAcquisitionTimings = new Histogram();
+    private final Histogram initializerTimings = new Histogram();
+
+    private final LongAdder rowsRead = new LongAdder();
+    private final LongAdder usersMaterialized = new LongAdder();
+    private final LongAdder groupsMaterialized = new LongAdder();
+    private final LongAdder skillsMaterialized = new LongAdder();
+
+    private volatile DBConnectionPool connectionPool;
+
+    public DBUserSystemMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void recordFindAllUsers(long nanos) {
+        if (enabled) {
+            findAllUsersTimings.record(nanos);
+        }
+    }
+
+    public void recordFindUser(long nanos) {
+        if (enabled) {
+            findUserTimings.record(nanos);
+        }
+    }
+
+    public void recordTest(long nanos) {
+        if (enabled) {
+            testTimings.record(nanos);
+        }
+    }
+
+    public void recordConnectionAcquisition(long nanos) {
+        if (enabled) {
+            connectionAcquisitionTimings.record(nanos);
+        }
+    }
+
+    public void recordInitializer(long nanos) {
+        if (enabled) {
+            initializerTimings.record(nanos);
+        }
+    }
+
+    public void recordLoad(long rows, long users, long groups, long skills) {
+        if (enabled) {
+            rowsRead.add(rows);
+            usersMaterialized.add(users);
+            groupsMaterialized.add(groups);
+            skillsMaterialized.add(skills);
+        }
+    }
+
+    /**
+     * Sets the embedded connection pool, if any, for exposing its usage. The pool keeps its own counters regardless of
+     * the metrics being enabled.
+     */
+    public void setConnectionPool(DBConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    @Override
+    public HistogramSnapshot getFindAllUsersTimings() {
+        return findAllUsersTimings.snapshot(NANOS_PER_MICRO);
+    }
+
+    @Override
+    public HistogramSnapshot getFindUserTimings() {
+        return findUserTimings.snapshot(NANOS_PER_MICRO);
+    }
+
+    @Override
+    public HistogramSnapshot getTestTimings() {
+        return testTimings.snapshot(NANOS_PER_MICRO);
+    }
+
+    @Override
+    public HistogramSnapshot getConnectionAcquisitionTimings() {
+        return connectionAcquisitionTimings.snapshot(NANOS_PER_MICRO);
+    }
+
+    @Override
+    public HistogramSnapshot getInitializerTimings() {
+        return initializerTimings.snapshot(NANOS_PER_MICRO);
+    }
+
+    @Override
+    public long getRowsRead() {
+        return rowsRead.sum();
+    }
+
+    @Override
+    public long getUsersMaterialized() {
+        return usersMaterialized.sum();
+    }
+
+    @Override
+    public long getGroupsMaterialized() {
+        return groupsMaterialized.sum();
+    }
+
+    @Override
+    public long getSkillsMaterialized() {
+        return skillsMaterialized.sum();
+    }
+
+    @Override
+    public int getPoolMaxSize() {
+        final DBConnectionPool pool = connectionPool;
+        return pool != null ? pool.getMaxSize() : 0;
+    }
+
+    @Override
+    public int getPoolActiveConnections() {
+        final DBConnectionPool pool = connectionPool;
+        return pool != null ? pool.getActiveConnections() : 0;
+    }
+
+    @Override
+    public int getPoolIdleConnections() {
+        final DBConnectionPool pool = connectionPool;
+        return pool != null ? pool.getIdleConnections() : 0;
+    }
+
+    @Override
+    public long getPoolCreatedConnections() {
+        final DBConnectionPool pool = connectionPool;
+        return pool != null ? pool.getCreatedConnections() : 0;
+    }
+
+    @Override
+    public long getPoolDestroyedConnections() {
+        final DBConnectionPool pool = connectionPool;
+        return pool != null ? pool.getDestroyedConnections() : 0;
+    }
+
+    @Override
+    public long getPoolAcquisitionTimeouts() {
+        final DBConnectionPool pool = connectionPool;
+        return pool != null ? pool.getAcquisitionTimeouts() : 0;
+    }
+
+    @Override
+    public long getPoolValidationFailures() {
+        final DBConnectionPool pool = connectionPool;
+        return pool != null ? pool.getValidationFailures() : 0;
+    }
+
+    @Override
+    public long getPoolStatementCacheHits() {
+        final DBConnectionPool pool = connectionPool;
+        return pool != null ? pool.getStatementCacheHits() : 0;
+    }
+
+    @Override
+    public long getPoolStatementCacheMisses() {
+        final DBConnectionPool pool = connectionPool;
+        return pool != null ? pool.getStatementCacheMisses() : 0;
+    }
+
+    @Override
+    public void reset() {
+        findAllUsersTimings.reset();
+        findUserTimings.reset();
+        testTimings.reset();
+        connectionAcquisitionTimings.reset();
+        initializerTimings.reset();
+        rowsRead.reset();
+        usersMaterialized.reset();
+        groupsMaterialized.reset();
+        skillsMaterialized.reset();
+    }
+
+    /**
+     * Registers this instance in the platform MBeanServer, replacing any previously registered instance, e.g. the
+     * one registered by a previous deployment of the kjar.
+     */
+    public void register() {
+        try {
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(this, objectName);
+        } catch (JMException e) {
+            LOGGER.warn("DBUserSystemMetrics couldn't be registered under name {}: {}", OBJECT_NAME, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db.metrics;
+
+/**
+ * Management interface for the DBUserSystemService metrics. All the timings are given in microseconds.
+ */
+public interface DBUserSystemMetricsMXBean {
+
+    boolean isEnabled();
+
+    HistogramSnapshot getFindAllUsersTimings();
+
+    HistogramSnapshot getFindUserTimings();
+
+    HistogramSnapshot getTestTimings();
+
+    HistogramSnapshot getConnectionAcquisitionTimings();
+
+    HistogramSnapshot getInitializerTimings();
+
+    long getRowsRead();
+
+    long getUsersMaterialized();
+
+    long getGroupsMaterialized();
+
+    long getSkillsMaterialized();
+
+    /**
+     * The connection pool values are 0 when the embedded DBConnectionPool is not used.
+     */
+    int getPoolMaxSize();
+
+    int getPoolActiveConnections();
+
+    int getPoolIdleConnections();
+
+    long getPoolCreatedConnections();
+
+    long getPoolDestroyedConnections();
+
+    long getPoolAcquisitionTimeouts();
+
+    long getPoolValidationFailures();
+
+    long getPoolStatementCacheHits();
+
+    long getPoolStatementCacheMisses();
+
+    void reset();
+}
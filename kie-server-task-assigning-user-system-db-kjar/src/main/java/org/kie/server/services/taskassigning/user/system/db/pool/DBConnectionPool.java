@@ -0,0 +1,309 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db.pool;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * Minimal connection pool with a per connection prepared statement cache, intended for the cases where the
+ * DBUserSystemService runs outside an application server, or where the configured data source is not pooled.
+ * (relies on core java.sql apis intentionally)
+ * <p>
+ * The connections are handed out as proxies, closing a connection returns it to the pool and closing a prepared
+ * statement returns it to the statement cache of its connection, so the callers use the regular JDBC idioms.
+ * Idle connections are reused in LIFO order and validated when they were idle for longer than the validation interval,
+ * with the validation query if configured or with Connection.isValid() otherwise.
+ */
+public class DBConnectionPool implements DataSource {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    /**
+     * Provides the physical connections of the pool.
+     */
+    public interface ConnectionFactory {
+
+        Connection createConnection() throws SQLException;
+    }
+
+    private final ConnectionFactory connectionFactory;
+
+    private final int maxSize;
+
+    private final long timeoutMillis;
+
+    private final String validationQuery;
+
+    private final long validationIntervalNanos;
+
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+
+    private final Deque<PooledConnection> idleConnections = new ArrayDeque<>();
+
+    private final AtomicInteger activeConnections = new AtomicInteger();
+
+    private final LongAdder createdConnections = new LongAdder();
+    private final LongAdder destroyedConnections = new LongAdder();
+    private final LongAdder acquisitionTimeouts = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    private volatile boolean closed;
+
+    /**
+     * @param connectionFactory the physical connections provider.
+     * @param maxSize max number of connections.
+     * @param timeoutMillis max time to wait for a connection when all of them are in use.
+     * @param validationQuery an optional query for validating the idle connections, null for using Connection.isValid().
+     * @param validationIntervalMillis idle connections are validated on borrow after this time.
+     * @param statementCacheSize max number of prepared statements cached per connection, 0 disables the cache.
+     */
+    public DBConnectionPool(ConnectionFactory connectionFactory, int maxSize, long timeoutMillis, String validationQuery,
+                            long validationIntervalMillis, int statementCacheSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than zero: " + maxSize);
+        }
+        this.connectionFactory = connectionFactory;
+        this.maxSize = maxSize;
+        this.timeoutMillis = timeoutMillis;
+        this.validationQuery = validationQuery;
+        this.validationIntervalNanos = TimeUnit.MILLISECONDS.toNanos(validationIntervalMillis);
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * @return a factory that creates the connections with the DriverManager.
+     */
+    public static ConnectionFactory driverManagerConnectionFactory(String url, String user, String password) {
+        return () -> DriverManager.getConnection(url, user, password);
+    }
+
+    /**
+     * @return a factory that takes the connections from another data source, e.g. a not pooled application server
+     * data source.
+     */
+    public static ConnectionFactory dataSourceConnectionFactory(DataSource dataSource) {
+        return dataSource::getConnection;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        acquirePermit();
+        try {
+            PooledConnection pooledConnection;
+            while ((pooledConnection = pollIdleConnection()) != null && !validate(pooledConnection)) {
+                destroy(pooledConnection);
+            }
+            if (pooledConnection == null) {
+                pooledConnection = new PooledConnection(this, connectionFactory.createConnection(), statementCacheSize);
+                createdConnections.increment();
+            }
+            activeConnections.incrementAndGet();
+            return pooledConnection.borrow();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Invoked when a borrowed connection is closed.
+     */
+    void release(PooledConnection pooledConnection) {
+        activeConnections.decrementAndGet();
+        try {
+            if (!closed && pooledConnection.reset()) {
+                synchronized (idleConnections) {
+                    idleConnections.push(pooledConnection);
+                }
+            } else {
+                destroy(pooledConnection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    void recordStatementCacheHit() {
+        statementCacheHits.increment();
+    }
+
+    void recordStatementCacheMiss() {
+        statementCacheMisses.increment();
+    }
+
+    /**
+     * Closes the idle connections, the connections in use are closed when returned to the pool.
+     */
+    public void close() {
+        closed = true;
+        PooledConnection pooledConnection;
+        while ((pooledConnection = pollIdleConnection()) != null) {
+            destroy(pooledConnection);
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    public int getIdleConnections() {
+        synchronized (idleConnections) {
+            return idleConnections.size();
+        }
+    }
+
+    public long getCreatedConnections() {
+        return createdConnections.sum();
+    }
+
+    public long getDestroyedConnections() {
+        return destroyedConnections.sum();
+    }
+
+    public long getAcquisitionTimeouts() {
+        return acquisitionTimeouts.sum();
+    }
+
+    public long getValidationFailures() {
+        return validationFailures.sum();
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+
+    private void acquirePermit() throws SQLException {
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                acquisitionTimeouts.increment();
+                throw new SQLTransientConnectionException("No connection was available in the pool after " + timeoutMillis
+                                                                  + " ms, max pool size is " + maxSize);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+    }
+
+    private PooledConnection pollIdleConnection() {
+        synchronized (idleConnections) {
+            return idleConnections.poll();
+        }
+    }
+
+    private boolean validate(PooledConnection pooledConnection) {
+        if (System.nanoTime() - pooledConnection.getLastUsedNanos() < validationIntervalNanos) {
+            return true;
+        }
+        final Connection connection = pooledConnection.getPhysicalConnection();
+        try {
+            if (validationQuery != null) {
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.setQueryTimeout(VALIDATION_TIMEOUT_SECONDS);
+                    stmt.execute(validationQuery);
+                }
+                return true;
+            }
+            if (connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                return true;
+            }
+        } catch (SQLException e) {
+            // the connection is discarded.
+        }
+        validationFailures.increment();
+        return false;
+    }
+
+    private void destroy(PooledConnection pooledConnection) {
+        destroyedConnections.increment();
+        pooledConnection.closePhysicalConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("The connection pool uses the configured credentials");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        // not used.
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        // not used.
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("DBConnectionPool is not a wrapper for " + iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A physical connection of the DBConnectionPool and its prepared statements cache. Instances are only used by one
+ * thread at a time, the one that borrowed the connection, so no synchronization is needed.
+ */
+final class PooledConnection {
+
+    private final DBConnectionPool pool;
+
+    private final Connection physicalConnection;
+
+    private final boolean defaultAutoCommit;
+
+    private final int statementCacheSize;
+
+    private final Map<StatementKey, PreparedStatement> statementCache;
+
+    private final List<StatementHandler> openStatements = new ArrayList<>();
+
+    private long lastUsedNanos = System.nanoTime();
+
+    PooledConnection(DBConnectionPool pool, Connection physicalConnection, int statementCacheSize) throws SQLException {
+        this.pool = pool;
+        this.physicalConnection = physicalConnection;
+        this.defaultAutoCommit = physicalConnection.getAutoCommit();
+        this.statementCacheSize = statementCacheSize;
+        this.statementCache = new LinkedHashMap<StatementKey, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<StatementKey, PreparedStatement> eldest) {
+                if (size() > PooledConnection.this.statementCacheSize) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    Connection getPhysicalConnection() {
+        return physicalConnection;
+    }
+
+    long getLastUsedNanos() {
+        return lastUsedNanos;
+    }
+
+    Connection borrow() {
+        return (Connection) Proxy.newProxyInstance(PooledConnection.class.getClassLoader(),
+                                                   new Class<?>[]{Connection.class},
+                                                   new ConnectionHandler());
+    }
+
+    /**
+     * Restores the connection default state when it's returned to the pool.
+     * @return true if the connection can be reused, false in any other case.
+     */
+    boolean reset() {
+        for (StatementHandler statement : new ArrayList<>(openStatements)) {
+            // statements not closed by the caller.
+            statement.closePhysicalStatement();
+        }
+        openStatements.clear();
+        try {
+            if (physicalConnection.isClosed()) {
+                return false;
+            }
+            if (physicalConnection.getAutoCommit() != defaultAutoCommit) {
+                physicalConnection.rollback();
+                physicalConnection.setAutoCommit(defaultAutoCommit);
+            }
+            physicalConnection.clearWarnings();
+            lastUsedNanos = System.nanoTime();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void closePhysicalConnection() {
+        statementCache.clear();
+        try {
+            physicalConnection.close();
+        } catch (SQLException e) {
+            // nothing else can be done.
+        }
+    }
+
+    private PreparedStatement prepareStatement(Connection connectionProxy, String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        if (statementCacheSize <= 0) {
+            return physicalConnection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+        }
+        final StatementKey key = new StatementKey(sql, resultSetType, resultSetConcurrency);
+        // a cached statement is removed while in use, so it can't be handed out twice.
+        PreparedStatement statement = statementCache.remove(key);
+        if (statement != null) {
+            pool.recordStatementCacheHit();
+        } else {
+            pool.recordStatementCacheMiss();
+            statement = physicalConnection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+        }
+        final StatementHandler handler = new StatementHandler(key, statement, connectionProxy);
+        openStatements.add(handler);
+        return (PreparedStatement) Proxy.newProxyInstance(PooledConnection.class.getClassLoader(),
+                                                          new Class<?>[]{PreparedStatement.class},
+                                                          handler);
+    }
+
+    private void returnToCache(StatementHandler handler) {
+        openStatements.remove(handler);
+        try {
+            handler.statement.clearParameters();
+            handler.statement.clearWarnings();
+        } catch (SQLException e) {
+            closeQuietly(handler.statement);
+            return;
+        }
+        if (statementCache.containsKey(handler.key)) {
+            closeQuietly(handler.statement);
+        } else {
+            statementCache.put(handler.key, handler.statement);
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // nothing else can be done.
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Handler for the connection proxy of a single borrow.
+     */
+    private class ConnectionHandler implements InvocationHandler {
+
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            final String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physicalConnection + "]";
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || physicalConnection.isClosed();
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection is closed");
+            }
+            if ("prepareStatement".equals(name) && args != null) {
+                final Class<?>[] types = method.getParameterTypes();
+                if (args.length == 1) {
+                    return prepareStatement((Connection) proxy, (String) args[0], ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                } else if (args.length == 3 && types[1] == int.class && types[2] == int.class) {
+                    return prepareStatement((Connection) proxy, (String) args[0], (Integer) args[1], (Integer) args[2]);
+                }
+            }
+            return PooledConnection.invoke(physicalConnection, method, args);
+        }
+    }
+
+    /**
+     * Handler for the proxy of a prepared statement taken from the cache.
+     */
+    private class StatementHandler implements InvocationHandler {
+
+        private final StatementKey key;
+        private final PreparedStatement statement;
+        private final Connection connectionProxy;
+        private boolean closed;
+
+        private StatementHandler(StatementKey key, PreparedStatement statement, Connection connectionProxy) {
+            this.key = key;
+            this.statement = statement;
+            this.connectionProxy = connectionProxy;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedPreparedStatement[" + key.sql + "]";
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        returnToCache(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || statement.isClosed();
+                case "getConnection":
+                    return connectionProxy;
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+            return PooledConnection.invoke(statement, method, args);
+        }
+
+        private void closePhysicalStatement() {
+            closed = true;
+            closeQuietly(statement);
+        }
+    }
+
+    private static final class StatementKey {
+
+        private final String sql;
+        private final int resultSetType;
+        private final int resultSetConcurrency;
+        private final int hash;
+
+        private StatementKey(String sql, int resultSetType, int resultSetConcurrency) {
+            this.sql = sql;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+            this.hash = Objects.hash(sql, resultSetType, resultSetConcurrency);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StatementKey)) {
+                return false;
+            }
+            final StatementKey other = (StatementKey) o;
+            return resultSetType == other.resultSetType && resultSetConcurrency == other.resultSetConcurrency && sql.equals(other.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db.schema;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.kie.server.services.taskassigning.user.system.db.DBUserSystemServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Brings the DBUserSystemService database structure to the latest schema version by applying the pending migration
+ * scripts of the given dialect, see the resources in this package. The applied versions are registered in the
+ * ta_schema_version table.
+ * <p>
+ * Databases created before the schema was versioned, e.g. with a previous tables.sql, are detected by the existing
+ * tables and baselined to the corresponding version before applying the pending migrations.
+ * <p>
+ * Every migration is applied in its own transaction. PostgreSQL DDL is transactional, so a failed migration is
+ * rolled back completely, and the ta_schema_version table is locked while each migration is applied, so that the
+ * nodes of a cluster starting at the same time don't apply the same migration twice. H2 instead commits every DDL
+ * statement implicitly, which means that the rollback can't undo a half applied migration and that the lock is
+ * released by the first DDL statement. A failed H2 migration must be fixed manually, and concurrent migrations of
+ * the same H2 database are not supported.
+ * <p>
+ * The build applies the H2 migrations only, since no PostgreSQL server is available to the tests. The PostgreSQL
+ * scripts are checked to parse and to create the same tables, columns, constraints and indexes as the H2 ones, but
+ * they must be verified against a PostgreSQL database when they are changed.
+ */
+public class DBSchemaMigrator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DBSchemaMigrator.class);
+
+    public static final String POSTGRESQL = "postgresql";
+
+    public static final String H2 = "h2";
+
+    static final List<String> MIGRATIONS = Arrays.asList("V1__users.sql",
+                                                         "V2__change_log.sql",
+                                                         "V3__keys_indexes_dictionaries.sql",
+                                                         "V4__user_availability.sql");
+
+    private static final String SCHEMA_VERSION_TABLE = "ta_schema_version";
+
+    private static final String CREATE_SCHEMA_VERSION_TABLE = "CREATE TABLE ta_schema_version (" +
+            "version integer NOT NULL, " +
+            "description character varying(255) NOT NULL, " +
+            "installed_on timestamp DEFAULT CURRENT_TIMESTAMP NOT NULL, " +
+            "CONSTRAINT ta_schema_version_pkey PRIMARY KEY (version))";
+
+    // blocks the other writers, i.e. the concurrent migrations, until the commit. Plain reads are not blocked.
+    private static final String LOCK_SCHEMA_VERSION_TABLE = "LOCK TABLE ta_schema_version IN EXCLUSIVE MODE";
+
+    private static final String CURRENT_VERSION_QUERY = "select max(v.version) from ta_schema_version v";
+
+    private static final String INSERT_VERSION_QUERY = "insert into ta_schema_version (version, description) values (?, ?)";
+
+    private final String dialect;
+
+    public DBSchemaMigrator(String dialect) {
+        if (!POSTGRESQL.equals(dialect) && !H2.equals(dialect)) {
+            throw new DBUserSystemServiceException("Unsupported schema dialect: " + dialect + ", valid values are " + POSTGRESQL + " and " + H2, null);
+        }
+        this.dialect = dialect;
+    }
+
+    public static int getLatestVersion() {
+        return MIGRATIONS.size();
+    }
+
+    /**
+     * @return the number of applied migrations.
+     */
+    public int migrate(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            final boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                createOrBaselineVersionTable(connection);
+                int applied = 0;
+                while (true) {
+                    // the lock is released by every commit, the version is read again once it's taken.
+                    lockVersionTable(connection);
+                    final int version = readVersion(connection);
+                    if (version >= MIGRATIONS.size()) {
+                        connection.commit();
+                        return applied;
+                    }
+                    final String migration = MIGRATIONS.get(version);
+                    final long start = System.currentTimeMillis();
+                    for (String sql : parseStatements(readMigration(migration))) {
+                        try (Statement stmt = connection.createStatement()) {
+                            stmt.execute(sql);
+                        }
+                    }
+                    insertVersion(connection, version + 1, migration);
+                    connection.commit();
+                    applied++;
+                    LOGGER.info("Schema migration: {} was applied in {} ms.", migration, System.currentTimeMillis() - start);
+                }
+            } catch (SQLException | RuntimeException e) {
+                // H2 has already committed the executed DDL statements, see the class comment.
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new DBUserSystemServiceException("An error was produced during the schema migration: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates the ta_schema_version table if it doesn't exist, and baselines the existing not versioned schema if
+     * any. When another node creates the table at the same time, the resulting duplicate table error is ignored since
+     * that node has already baselined the schema in the same transaction.
+     */
+    private void createOrBaselineVersionTable(Connection connection) throws SQLException {
+        if (tableExists(connection, SCHEMA_VERSION_TABLE)) {
+            return;
+        }
+        final int version;
+        try {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute(CREATE_SCHEMA_VERSION_TABLE);
+            }
+            version = readBaselineVersion(connection);
+            for (int i = 1; i <= version; i++) {
+                insertVersion(connection, i, MIGRATIONS.get(i - 1) + " (baseline)");
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            if (!tableExists(connection, SCHEMA_VERSION_TABLE)) {
+                throw e;
+            }
+            LOGGER.info("Table: {} was created by another node in the meantime: {}", SCHEMA_VERSION_TABLE, e.getMessage());
+            return;
+        }
+        if (version > 0) {
+            LOGGER.info("Existing not versioned schema was baselined to version: {}", version);
+        }
+    }
+
+    private static int readBaselineVersion(Connection connection) throws SQLException {
+        int version = 0;
+        if (tableExists(connection, "ta_user")) {
+            version = 1;
+            if (tableExists(connection, "ta_user_change")) {
+                version = 2;
+            }
+        }
+        return version;
+    }
+
+    private void lockVersionTable(Connection connection) throws SQLException {
+        if (POSTGRESQL.equals(dialect)) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute(LOCK_SCHEMA_VERSION_TABLE);
+            }
+        }
+    }
+
+    private static int readVersion(Connection connection) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(CURRENT_VERSION_QUERY);
+             ResultSet rs = stmt.executeQuery()) {
+            // max() is null, i.e. 0, when no version was registered yet.
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void insertVersion(Connection connection, int version, String description) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(INSERT_VERSION_QUERY)) {
+            stmt.setInt(1, version);
+            stmt.setString(2, description);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String tableName) throws SQLException {
+        final DatabaseMetaData metaData = connection.getMetaData();
+        // unquoted identifiers are stored in lower case by PostgreSQL and in upper case by H2.
+        for (String name : Arrays.asList(tableName, tableName.toUpperCase())) {
+            try (ResultSet rs = metaData.getTables(null, null, name, new String[]{"TABLE"})) {
+                if (rs.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    String readMigration(String migration) {
+        final String resource = dialect + "/" + migration;
+        try (InputStream in = DBSchemaMigrator.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new DBUserSystemServiceException("Schema migration: " + resource + " was not found", null);
+            }
+            final StringBuilder script = new StringBuilder();
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                script.append(line).append('\n');
+            }
+            return script.toString();
+        } catch (IOException e) {
+            throw new DBUserSystemServiceException("An error was produced while reading schema migration: " + resource, e);
+        }
+    }
+
+    /**
+     * Splits a script into statements separated by ';'. Line comments, quoted strings and PostgreSQL dollar quoted
+     * bodies, e.g. function bodies, are taken into account.
+     */
+    static List<String> parseStatements(String script) {
+        final List<String> statements = new ArrayList<>();
+        final StringBuilder current = new StringBuilder();
+        int i = 0;
+        while (i < script.length()) {
+            final char c = script.charAt(i);
+            if (c == '-' && script.startsWith("--", i)) {
+                final int end = script.indexOf('\n', i);
+                i = end < 0 ? script.length() : end + 1;
+            } else if (c == '\'') {
+                final int end = script.indexOf('\'', i + 1);
+                i = appendUntil(script, current, i, end < 0 ? script.length() : end + 1);
+            } else if (c == '$' && script.startsWith("$$", i)) {
+                final int end = script.indexOf("$$", i + 2);
+                i = appendUntil(script, current, i, end < 0 ? script.length() : end + 2);
+            } else if (c == ';') {
+                addStatement(statements, current);
+                i++;
+            } else {
+                current.append(c);
+                i++;
+            }
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static int appendUntil(String script, StringBuilder current, int from, int to) {
+        current.append(script, from, to);
+        return to;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        final String statement = current.toString().trim();
+        if (!statement.isEmpty()) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+}
@@ -0,0 +1,19 @@
+-- users, groups and skills tables, as originally defined by tables.sql.
+
+CREATE TABLE ta_user (
+  userid character varying(255) NOT NULL,
+  enabled smallint NOT NULL,
+  descritpion VARCHAR(255),
+
+  CONSTRAINT ta_user_pkey PRIMARY KEY (userid)
+);
+
+CREATE TABLE ta_user_group (
+  userid character varying(255) NOT NULL,
+  groupid character varying(255)
+);
+
+CREATE TABLE ta_user_skill (
+  userid character varying(255) NOT NULL,
+  skillid character varying(255)
+);
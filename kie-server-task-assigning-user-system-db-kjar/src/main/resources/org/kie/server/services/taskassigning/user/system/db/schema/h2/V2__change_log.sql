@@ -0,0 +1,11 @@
+-- change log for the DBUserSystemService incremental synchronization.
+-- H2 triggers must be implemented as java classes, and the kjar relies on core java.sql apis only, so the table is
+-- not populated automatically. Applications that use H2 and the change log must register the changes by themselves.
+
+CREATE TABLE ta_user_change (
+  changeid bigint GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+  userid character varying(255) NOT NULL,
+  changed_at timestamp DEFAULT CURRENT_TIMESTAMP NOT NULL,
+
+  CONSTRAINT ta_user_change_pkey PRIMARY KEY (changeid)
+);
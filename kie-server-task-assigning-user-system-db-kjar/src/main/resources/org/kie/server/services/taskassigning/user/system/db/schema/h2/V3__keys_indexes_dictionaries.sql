@@ -0,0 +1,62 @@
+-- composite primary keys, foreign keys and supporting indexes, and the group and skill dictionary tables.
+
+-- remove the rows that can't satisfy the new constraints, i.e. null values, not existing users and duplicates.
+
+DELETE FROM ta_user_group WHERE groupid IS NULL OR userid NOT IN (SELECT userid FROM ta_user);
+
+CREATE TABLE ta_user_group_dedup AS SELECT DISTINCT userid, groupid FROM ta_user_group;
+
+DELETE FROM ta_user_group;
+
+INSERT INTO ta_user_group (userid, groupid) SELECT userid, groupid FROM ta_user_group_dedup;
+
+DROP TABLE ta_user_group_dedup;
+
+DELETE FROM ta_user_skill WHERE skillid IS NULL OR userid NOT IN (SELECT userid FROM ta_user);
+
+CREATE TABLE ta_user_skill_dedup AS SELECT DISTINCT userid, skillid FROM ta_user_skill;
+
+DELETE FROM ta_user_skill;
+
+INSERT INTO ta_user_skill (userid, skillid) SELECT userid, skillid FROM ta_user_skill_dedup;
+
+DROP TABLE ta_user_skill_dedup;
+
+CREATE TABLE ta_group (
+  groupid character varying(255) NOT NULL,
+
+  CONSTRAINT ta_group_pkey PRIMARY KEY (groupid)
+);
+
+CREATE TABLE ta_skill (
+  skillid character varying(255) NOT NULL,
+
+  CONSTRAINT ta_skill_pkey PRIMARY KEY (skillid)
+);
+
+INSERT INTO ta_group (groupid) SELECT DISTINCT groupid FROM ta_user_group;
+
+INSERT INTO ta_skill (skillid) SELECT DISTINCT skillid FROM ta_user_skill;
+
+ALTER TABLE ta_user_group ALTER COLUMN groupid SET NOT NULL;
+
+ALTER TABLE ta_user_group ADD CONSTRAINT ta_user_group_pkey PRIMARY KEY (userid, groupid);
+
+ALTER TABLE ta_user_group ADD CONSTRAINT ta_user_group_user_fk FOREIGN KEY (userid) REFERENCES ta_user (userid) ON DELETE CASCADE;
+
+ALTER TABLE ta_user_group ADD CONSTRAINT ta_user_group_group_fk FOREIGN KEY (groupid) REFERENCES ta_group (groupid);
+
+CREATE INDEX ta_user_group_groupid_idx ON ta_user_group (groupid);
+
+ALTER TABLE ta_user_skill ALTER COLUMN skillid SET NOT NULL;
+
+ALTER TABLE ta_user_skill ADD CONSTRAINT ta_user_skill_pkey PRIMARY KEY (userid, skillid);
+
+ALTER TABLE ta_user_skill ADD CONSTRAINT ta_user_skill_user_fk FOREIGN KEY (userid) REFERENCES ta_user (userid) ON DELETE CASCADE;
+
+ALTER TABLE ta_user_skill ADD CONSTRAINT ta_user_skill_skill_fk FOREIGN KEY (skillid) REFERENCES ta_skill (skillid);
+
+CREATE INDEX ta_user_skill_skillid_idx ON ta_user_skill (skillid);
+
+-- supports the "where u.enabled = ? order by u.userid" users queries.
+CREATE INDEX ta_user_enabled_idx ON ta_user (enabled, userid);
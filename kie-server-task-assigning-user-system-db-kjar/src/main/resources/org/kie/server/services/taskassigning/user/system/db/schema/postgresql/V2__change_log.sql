@@ -0,0 +1,35 @@
+-- change log for the DBUserSystemService incremental synchronization, populated by triggers.
+
+CREATE TABLE ta_user_change (
+  changeid bigserial NOT NULL,
+  userid character varying(255) NOT NULL,
+  changed_at timestamp NOT NULL DEFAULT now(),
+
+  CONSTRAINT ta_user_change_pkey PRIMARY KEY (changeid)
+);
+
+CREATE OR REPLACE FUNCTION ta_user_change_log() RETURNS trigger AS $$
+BEGIN
+  IF (TG_OP = 'DELETE') THEN
+    INSERT INTO ta_user_change (userid) VALUES (OLD.userid);
+    RETURN OLD;
+  END IF;
+  IF (TG_OP = 'UPDATE' AND OLD.userid <> NEW.userid) THEN
+    INSERT INTO ta_user_change (userid) VALUES (OLD.userid);
+  END IF;
+  INSERT INTO ta_user_change (userid) VALUES (NEW.userid);
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER ta_user_change_trigger
+  AFTER INSERT OR UPDATE OR DELETE ON ta_user
+  FOR EACH ROW EXECUTE PROCEDURE ta_user_change_log();
+
+CREATE TRIGGER ta_user_group_change_trigger
+  AFTER INSERT OR UPDATE OR DELETE ON ta_user_group
+  FOR EACH ROW EXECUTE PROCEDURE ta_user_change_log();
+
+CREATE TRIGGER ta_user_skill_change_trigger
+  AFTER INSERT OR UPDATE OR DELETE ON ta_user_skill
+  FOR EACH ROW EXECUTE PROCEDURE ta_user_change_log();
@@ -0,0 +1,9 @@
+-- user capacity and working calendar, see the DBUserAvailability. null values stand for no restriction.
+
+ALTER TABLE ta_user ADD COLUMN capacity_minutes integer;
+
+ALTER TABLE ta_user ADD COLUMN working_days character varying(7);
+
+ALTER TABLE ta_user ADD COLUMN shift_start_minute smallint;
+
+ALTER TABLE ta_user ADD COLUMN shift_end_minute smallint;
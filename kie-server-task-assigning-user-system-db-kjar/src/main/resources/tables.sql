@@ -1,28 +1,134 @@
 -- postgres sql database structure for the DBUserSystemService implementation.
+-- This is the consolidated result of the versioned migrations in
+-- org/kie/server/services/taskassigning/user/system/db/schema/postgresql, see the DBSchemaMigrator.
+-- Databases created by a previous version of this file can be upgraded by setting the
+-- DBUserSystemService.SCHEMA_PROPERTY, or by applying the pending migration scripts manually.
+
+CREATE TABLE public.ta_schema_version (
+  version integer NOT NULL,
+  description character varying(255) NOT NULL,
+  installed_on timestamp DEFAULT CURRENT_TIMESTAMP NOT NULL,
+
+  CONSTRAINT ta_schema_version_pkey PRIMARY KEY (version)
+);
 
 CREATE TABLE public.ta_user (
   userid character varying(255) NOT NULL,
   enabled smallint NOT NULL,
   descritpion VARCHAR(255),
+  -- capacity and working calendar, see the DBUserAvailability. null values stand for no restriction.
+  capacity_minutes integer,
+  working_days character varying(7),
+  shift_start_minute smallint,
+  shift_end_minute smallint,
 
   CONSTRAINT ta_user_pkey PRIMARY KEY (userid)
 );
 
+CREATE TABLE public.ta_group (
+  groupid character varying(255) NOT NULL,
+
+  CONSTRAINT ta_group_pkey PRIMARY KEY (groupid)
+);
+
+CREATE TABLE public.ta_skill (
+  skillid character varying(255) NOT NULL,
+
+  CONSTRAINT ta_skill_pkey PRIMARY KEY (skillid)
+);
+
 CREATE TABLE public.ta_user_group (
   userid character varying(255) NOT NULL,
-  groupid character varying(255)
+  groupid character varying(255) NOT NULL,
+
+  CONSTRAINT ta_user_group_pkey PRIMARY KEY (userid, groupid),
+  CONSTRAINT ta_user_group_user_fk FOREIGN KEY (userid) REFERENCES public.ta_user (userid) ON DELETE CASCADE,
+  CONSTRAINT ta_user_group_group_fk FOREIGN KEY (groupid) REFERENCES public.ta_group (groupid)
 );
 
 CREATE TABLE public.ta_user_skill (
   userid character varying(255) NOT NULL,
-  skillid character varying(255)
+  skillid character varying(255) NOT NULL,
+
+  CONSTRAINT ta_user_skill_pkey PRIMARY KEY (userid, skillid),
+  CONSTRAINT ta_user_skill_user_fk FOREIGN KEY (userid) REFERENCES public.ta_user (userid) ON DELETE CASCADE,
+  CONSTRAINT ta_user_skill_skill_fk FOREIGN KEY (skillid) REFERENCES public.ta_skill (skillid)
 );
 
+-- the primary keys lead with userid and support the per user lookups and the "order by userid" merges, these
+-- indexes support the lookups by group or skill, and the "where u.enabled = ? order by u.userid" users queries.
+CREATE INDEX ta_user_group_groupid_idx ON public.ta_user_group (groupid);
+
+CREATE INDEX ta_user_skill_skillid_idx ON public.ta_user_skill (skillid);
+
+CREATE INDEX ta_user_enabled_idx ON public.ta_user (enabled, userid);
+
+ALTER TABLE public.ta_schema_version
+  OWNER TO jbpm;
+
 ALTER TABLE public.ta_user
   OWNER TO jbpm;
 
+ALTER TABLE public.ta_group
+  OWNER TO jbpm;
+
+ALTER TABLE public.ta_skill
+  OWNER TO jbpm;
+
 ALTER TABLE public.ta_user_group
   OWNER TO jbpm;
 
 ALTER TABLE public.ta_user_skill
-  OWNER TO jbpm;
\ No newline at end of file
+  OWNER TO jbpm;
+
+-- Change log for the DBUserSystemService incremental synchronization, see the DBUserSystemService.CHANGE_LOG_PROPERTY.
+-- Every insert, update or delete on the users, groups and skills tables registers the affected userid.
+-- The table can be pruned periodically, but please keep the newest entry, e.g.
+-- DELETE FROM public.ta_user_change WHERE changed_at < now() - interval '1 day'
+--   AND changeid < (SELECT max(changeid) FROM public.ta_user_change);
+-- A pruned token is detected by the service and resolved with a full reload.
+
+CREATE TABLE public.ta_user_change (
+  changeid bigserial NOT NULL,
+  userid character varying(255) NOT NULL,
+  changed_at timestamp NOT NULL DEFAULT now(),
+
+  CONSTRAINT ta_user_change_pkey PRIMARY KEY (changeid)
+);
+
+ALTER TABLE public.ta_user_change
+  OWNER TO jbpm;
+
+CREATE OR REPLACE FUNCTION public.ta_user_change_log() RETURNS trigger AS $$
+BEGIN
+  IF (TG_OP = 'DELETE') THEN
+    INSERT INTO public.ta_user_change (userid) VALUES (OLD.userid);
+    RETURN OLD;
+  END IF;
+  IF (TG_OP = 'UPDATE' AND OLD.userid <> NEW.userid) THEN
+    INSERT INTO public.ta_user_change (userid) VALUES (OLD.userid);
+  END IF;
+  INSERT INTO public.ta_user_change (userid) VALUES (NEW.userid);
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER ta_user_change_trigger
+  AFTER INSERT OR UPDATE OR DELETE ON public.ta_user
+  FOR EACH ROW EXECUTE PROCEDURE public.ta_user_change_log();
+
+CREATE TRIGGER ta_user_group_change_trigger
+  AFTER INSERT OR UPDATE OR DELETE ON public.ta_user_group
+  FOR EACH ROW EXECUTE PROCEDURE public.ta_user_change_log();
+
+CREATE TRIGGER ta_user_skill_change_trigger
+  AFTER INSERT OR UPDATE OR DELETE ON public.ta_user_skill
+  FOR EACH ROW EXECUTE PROCEDURE public.ta_user_change_log();
+
+INSERT INTO public.ta_schema_version (version, description) VALUES (1, 'V1__users.sql');
+
+INSERT INTO public.ta_schema_version (version, description) VALUES (2, 'V2__change_log.sql');
+
+INSERT INTO public.ta_schema_version (version, description) VALUES (3, 'V3__keys_indexes_dictionaries.sql');
+
+INSERT INTO public.ta_schema_version (version, description) VALUES (4, 'V4__user_availability.sql');
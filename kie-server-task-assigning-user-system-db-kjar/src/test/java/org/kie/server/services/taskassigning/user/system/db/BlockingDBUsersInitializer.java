@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+/**
+ * Test DBUsersInitializer that blocks the DBUserSystemService start until it's released, for checking the service
+ * behaviour while the asynchronous start is in progress. It's registered in the test META-INF/services.
+ */
+public class BlockingDBUsersInitializer implements DBUsersInitializer {
+
+    public static final String NAME = "BlockingDBUsersInitializer";
+
+    private static volatile CountDownLatch started = new CountDownLatch(1);
+
+    private static volatile CountDownLatch released = new CountDownLatch(1);
+
+    private static volatile boolean fail;
+
+    private static volatile String[] userIds = new String[0];
+
+    /**
+     * Prepares the next initialization.
+     * @param failInitialization true for failing the initialization once released.
+     * @param enabledUserIds the users created by the initialization once released.
+     */
+    public static void reset(boolean failInitialization, String... enabledUserIds) {
+        started = new CountDownLatch(1);
+        released = new CountDownLatch(1);
+        fail = failInitialization;
+        userIds = enabledUserIds;
+    }
+
+    public static boolean awaitStarted() throws InterruptedException {
+        return started.await(10, TimeUnit.SECONDS);
+    }
+
+    public static void release() {
+        released.countDown();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void initializeUsers(DataSource dataSource) {
+        started.countDown();
+        try {
+            if (!released.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("BlockingDBUsersInitializer was not released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        if (fail) {
+            throw new IllegalStateException("BlockingDBUsersInitializer failure");
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement("insert into ta_user (userid, enabled) values (?, 1)")) {
+            for (String userId : userIds) {
+                stmt.setString(1, userId);
+                stmt.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
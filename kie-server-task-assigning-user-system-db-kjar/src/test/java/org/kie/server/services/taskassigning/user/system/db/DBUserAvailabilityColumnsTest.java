@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Test;
+import org.kie.server.services.taskassigning.user.system.api.User;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class DBUserAvailabilityColumnsTest {
+
+    @After
+    public void tearDown() {
+        System.clearProperty(DBUserSystemService.URL_PROPERTY);
+    }
+
+    @Test
+    public void hasAvailabilityColumns() throws Exception {
+        try (Connection connection = H2TestDatabase.createMigrated().getConnection()) {
+            assertTrue(DBUsersLoaderUtil.hasAvailabilityColumns(connection));
+        }
+        try (Connection connection = H2TestDatabase.createNotVersioned().getConnection()) {
+            assertFalse(DBUsersLoaderUtil.hasAvailabilityColumns(connection));
+        }
+    }
+
+    @Test
+    public void loadersReadTheAvailability() throws Exception {
+        final H2TestDatabase database = createMigratedWithAvailability();
+        for (DBUsersLoader loader : Arrays.asList(new JoinDBUsersLoader(new DBUserDictionary(), DBUsersFilter.NONE, true),
+                                                  new MultiQueryDBUsersLoader(new DBUserDictionary(), 10, DBUsersFilter.NONE, true))) {
+            final Map<String, DBUser> users = loadAllUsers(database, loader);
+            final Map<String, Object> attributes = users.get("user1").getAttributes();
+            assertEquals(480, attributes.get(DBUserAvailability.CAPACITY_MINUTES));
+            assertEquals("1111100", attributes.get(DBUserAvailability.WORKING_DAYS));
+            assertEquals(540, attributes.get(DBUserAvailability.SHIFT_START_MINUTE));
+            assertEquals(1020, attributes.get(DBUserAvailability.SHIFT_END_MINUTE));
+            assertTrue(users.get("user2").getAttributes().isEmpty());
+        }
+    }
+
+    @Test
+    public void loadersIgnoreTheAvailabilityWhenNotRead() throws Exception {
+        final H2TestDatabase database = createMigratedWithAvailability();
+        for (DBUsersLoader loader : Arrays.asList(new JoinDBUsersLoader(new DBUserDictionary()),
+                                                  new MultiQueryDBUsersLoader(new DBUserDictionary(), 10))) {
+            final Map<String, DBUser> users = loadAllUsers(database, loader);
+            assertEquals(set("user1", "user2"), users.keySet());
+            assertTrue(users.get("user1").getAttributes().isEmpty());
+        }
+    }
+
+    /**
+     * The MultiQueryDBUsersLoader is not exercised on the not versioned H2 schema since the H2 1.4.200 repeatable read
+     * transactions fail on tables without constraints, like the not versioned ta_user_group and ta_user_skill.
+     */
+    @Test
+    public void loaderLoadsNotVersionedDatabases() throws Exception {
+        final Map<String, DBUser> users = loadAllUsers(createNotVersionedWithUsers(), new JoinDBUsersLoader(new DBUserDictionary()));
+        assertEquals(set("user1", "user2"), users.keySet());
+        assertEquals(set("EN"), users.get("user1").getSkills());
+        assertTrue(users.get("user1").getAttributes().isEmpty());
+    }
+
+    @Test
+    public void serviceWorksOnNotVersionedDatabases() throws Exception {
+        System.setProperty(DBUserSystemService.URL_PROPERTY, createNotVersionedWithUsers().getUrl());
+        final DBUserSystemService service = new DBUserSystemService();
+        service.start();
+        service.test();
+        final List<User> users = service.findAllUsers();
+        assertEquals(set("user1", "user2"), users.stream().map(User::getId).collect(Collectors.toSet()));
+        final User user = service.findUser("user1");
+        assertNotNull(user);
+        assertTrue(user.getAttributes().isEmpty());
+    }
+
+    @Test
+    public void serviceReadsTheAvailabilityOnMigratedDatabases() throws Exception {
+        System.setProperty(DBUserSystemService.URL_PROPERTY, createMigratedWithAvailability().getUrl());
+        final DBUserSystemService service = new DBUserSystemService();
+        service.start();
+        assertEquals(480, service.findUser("user1").getAttributes().get(DBUserAvailability.CAPACITY_MINUTES));
+    }
+
+    private static H2TestDatabase createMigratedWithAvailability() throws Exception {
+        final H2TestDatabase database = H2TestDatabase.createMigrated();
+        database.insertUser("user1", true, new String[]{"HR"}, new String[]{"EN"});
+        database.insertUser("user2", true, new String[]{"IT"}, new String[]{});
+        database.execute("update ta_user set capacity_minutes = 480, working_days = '1111100', shift_start_minute = 540, " +
+                                 "shift_end_minute = 1020 where userid = 'user1'");
+        return database;
+    }
+
+    private static H2TestDatabase createNotVersionedWithUsers() throws Exception {
+        final H2TestDatabase database = H2TestDatabase.createNotVersioned();
+        database.insertUser("user1", true, new String[]{"HR"}, new String[]{"EN"});
+        database.insertUser("user2", true, new String[]{"IT"}, new String[]{});
+        database.insertUser("user3", false, new String[]{"IT"}, new String[]{});
+        return database;
+    }
+
+    private static Map<String, DBUser> loadAllUsers(H2TestDatabase database, DBUsersLoader loader) throws Exception {
+        final Map<String, DBUser> users = new HashMap<>();
+        try (Connection connection = database.getConnection()) {
+            loader.loadAllUsers(connection, user -> users.put(user.getId(), user));
+        }
+        return users;
+    }
+
+    private static Set<String> set(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Test;
+import org.kie.server.services.taskassigning.user.system.api.User;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class DBUserLookupCoalescerTest {
+
+    private static final long WINDOW_MILLIS = 500;
+
+    private static final int THREADS = 8;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    private final List<Collection<String>> batches = new CopyOnWriteArrayList<>();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentLookupsAreCoalesced() throws Exception {
+        final DBUserLookupCoalescer coalescer = new DBUserLookupCoalescer(recording(this::lookup), WINDOW_MILLIS);
+        final List<Future<User>> results = findConcurrently(coalescer, "user0", "user1", "user2", "user3", "user4", "user5", "user6", "user7");
+        for (int i = 0; i < THREADS; i++) {
+            assertEquals("user" + i, results.get(i).get(10, TimeUnit.SECONDS).getId());
+        }
+        assertEquals(1, batches.size());
+        assertEquals(THREADS, batches.get(0).size());
+    }
+
+    @Test
+    public void concurrentLookupsOfTheSameUserShareTheResult() throws Exception {
+        final DBUserLookupCoalescer coalescer = new DBUserLookupCoalescer(recording(this::lookup), WINDOW_MILLIS);
+        final List<Future<User>> results = findConcurrently(coalescer, "user1", "user1", "user1", "user1");
+        final User user = results.get(0).get(10, TimeUnit.SECONDS);
+        for (Future<User> result : results) {
+            assertSame(user, result.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, batches.size());
+        assertEquals(1, batches.get(0).size());
+    }
+
+    @Test
+    public void notFoundUser() {
+        final DBUserLookupCoalescer coalescer = new DBUserLookupCoalescer(recording(this::lookup), 1);
+        assertNull(coalescer.find("missing"));
+    }
+
+    @Test
+    public void lookupAfterTheBatchStartsANewBatch() {
+        final DBUserLookupCoalescer coalescer = new DBUserLookupCoalescer(recording(this::lookup), 1);
+        assertEquals("user1", coalescer.find("user1").getId());
+        assertEquals("user2", coalescer.find("user2").getId());
+        assertEquals(2, batches.size());
+    }
+
+    @Test
+    public void runtimeExceptionIsPropagatedToAllTheWaitingThreads() throws Exception {
+        final IllegalStateException failure = new IllegalStateException("lookup failed");
+        final DBUserLookupCoalescer coalescer = new DBUserLookupCoalescer(recording(ids -> {
+            throw failure;
+        }), WINDOW_MILLIS);
+        assertFailure(failure, findConcurrently(coalescer, "user0", "user1", "user2", "user3"));
+    }
+
+    @Test
+    public void errorIsPropagatedToAllTheWaitingThreads() throws Exception {
+        final Error failure = new OutOfMemoryError("lookup failed");
+        final DBUserLookupCoalescer coalescer = new DBUserLookupCoalescer(recording(ids -> {
+            throw failure;
+        }), WINDOW_MILLIS);
+        assertFailure(failure, findConcurrently(coalescer, "user0", "user1", "user2", "user3"));
+    }
+
+    @Test
+    public void failedBatchDoesNotAffectTheNextOne() {
+        final boolean[] fail = {true};
+        final DBUserLookupCoalescer coalescer = new DBUserLookupCoalescer(recording(ids -> {
+            if (fail[0]) {
+                throw new IllegalStateException("lookup failed");
+            }
+            return lookup(ids);
+        }), 1);
+        try {
+            coalescer.find("user1");
+            fail("the lookup failure was expected");
+        } catch (IllegalStateException e) {
+            // expected.
+        }
+        fail[0] = false;
+        assertEquals("user1", coalescer.find("user1").getId());
+    }
+
+    private List<Future<User>> findConcurrently(DBUserLookupCoalescer coalescer, String... userIds) throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(userIds.length);
+        final List<Future<User>> results = new ArrayList<>();
+        for (String userId : userIds) {
+            results.add(executor.submit(() -> {
+                started.countDown();
+                return coalescer.find(userId);
+            }));
+        }
+        started.await(10, TimeUnit.SECONDS);
+        return results;
+    }
+
+    private static void assertFailure(Throwable failure, List<Future<User>> results) throws Exception {
+        for (Future<User> result : results) {
+            try {
+                result.get(10, TimeUnit.SECONDS);
+                fail("the lookup failure was expected");
+            } catch (ExecutionException e) {
+                assertSame(failure, e.getCause());
+            }
+        }
+    }
+
+    private Function<Collection<String>, Map<String, User>> recording(Function<Collection<String>, Map<String, User>> lookup) {
+        return ids -> {
+            batches.add(new ArrayList<>(ids));
+            return lookup.apply(ids);
+        };
+    }
+
+    private Map<String, User> lookup(Collection<String> ids) {
+        final Map<String, User> users = new HashMap<>();
+        for (String id : ids) {
+            if (id.startsWith("user")) {
+                users.put(id, new DBUser(id, new DBUserDictionary(), new int[0], new int[0], null));
+            }
+        }
+        return users;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.server.services.taskassigning.user.system.api.User;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DBUserSystemServiceAsyncStartTest {
+
+    private static final String[] PROPERTIES = {
+            DBUserSystemService.URL_PROPERTY,
+            DBUserSystemService.SCHEMA_PROPERTY,
+            DBUserSystemService.CACHE_PROPERTY,
+            DBUserSystemService.ASYNC_START_PROPERTY,
+            DBUserSystemService.USERS_INITIALIZER_PROPERTY
+    };
+
+    private static final int CALLERS = 4;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS * 3);
+
+    private DBUserSystemService service;
+
+    @Before
+    public void setUp() {
+        final H2TestDatabase database = H2TestDatabase.createEmpty();
+        System.setProperty(DBUserSystemService.URL_PROPERTY, database.getUrl());
+        System.setProperty(DBUserSystemService.SCHEMA_PROPERTY, "h2");
+        System.setProperty(DBUserSystemService.ASYNC_START_PROPERTY, "true");
+        System.setProperty(DBUserSystemService.USERS_INITIALIZER_PROPERTY, BlockingDBUsersInitializer.NAME);
+        BlockingDBUsersInitializer.reset(false, "user1", "user2");
+        service = new DBUserSystemService();
+    }
+
+    @After
+    public void tearDown() {
+        // never leave the start thread blocked.
+        BlockingDBUsersInitializer.release();
+        executor.shutdownNow();
+        for (String property : PROPERTIES) {
+            System.clearProperty(property);
+        }
+    }
+
+    @Test
+    public void testWhileStarting() throws Exception {
+        service.start();
+        assertTrue(BlockingDBUsersInitializer.awaitStarted());
+        assertTrue(service.isStarting());
+        // only the database connectivity is tested, so the health check doesn't fail while starting.
+        service.test();
+
+        BlockingDBUsersInitializer.release();
+        service.getReadiness().get(10, TimeUnit.SECONDS);
+        assertFalse(service.isStarting());
+        service.test();
+    }
+
+    @Test
+    public void testAfterAFailedStart() throws Exception {
+        BlockingDBUsersInitializer.reset(true);
+        service.start();
+        assertTrue(BlockingDBUsersInitializer.awaitStarted());
+        service.test();
+
+        BlockingDBUsersInitializer.release();
+        try {
+            service.getReadiness().get(10, TimeUnit.SECONDS);
+            fail("the start failure was expected");
+        } catch (ExecutionException e) {
+            // expected.
+        }
+        assertFalse(service.isStarting());
+        try {
+            service.test();
+            fail("the start failure was expected");
+        } catch (DBUserSystemServiceException e) {
+            assertStartFailure(e);
+        }
+        try {
+            service.findAllUsers();
+            fail("the start failure was expected");
+        } catch (DBUserSystemServiceException e) {
+            assertStartFailure(e);
+        }
+    }
+
+    @Test
+    public void synchronousStartIsNeverStarting() throws Exception {
+        System.setProperty(DBUserSystemService.ASYNC_START_PROPERTY, "false");
+        BlockingDBUsersInitializer.release();
+        service.start();
+        assertFalse(service.isStarting());
+        assertTrue(service.getReadiness().isDone());
+        service.test();
+    }
+
+    @Test
+    public void callersRacingTheInitialLoadWithoutCache() throws Exception {
+        assertCallersRacingTheInitialLoad();
+    }
+
+    @Test
+    public void callersRacingTheInitialLoadWithCache() throws Exception {
+        System.setProperty(DBUserSystemService.CACHE_PROPERTY, "true");
+        assertCallersRacingTheInitialLoad();
+        assertNotNull(service.getSnapshot());
+        assertEquals(set("user1", "user2"), userIds(service.getSnapshot().getUsers()));
+    }
+
+    private void assertCallersRacingTheInitialLoad() throws Exception {
+        service.start();
+        assertTrue(BlockingDBUsersInitializer.awaitStarted());
+        final List<Future<List<User>>> allUsers = new ArrayList<>();
+        final List<Future<User>> users = new ArrayList<>();
+        final List<Future<Set<String>>> deliveredUsers = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            allUsers.add(executor.submit(() -> service.findAllUsers()));
+            users.add(executor.submit(() -> service.findUser("user1")));
+            deliveredUsers.add(executor.submit(() -> {
+                final List<User> delivered = new ArrayList<>();
+                service.forEachUser(delivered::add);
+                return userIds(delivered);
+            }));
+        }
+        // the callers wait for the start instead of reading a not yet initialized database.
+        Thread.sleep(200);
+        for (int i = 0; i < CALLERS; i++) {
+            assertFalse(allUsers.get(i).isDone());
+            assertFalse(users.get(i).isDone());
+            assertFalse(deliveredUsers.get(i).isDone());
+        }
+
+        BlockingDBUsersInitializer.release();
+        for (int i = 0; i < CALLERS; i++) {
+            assertEquals(set("user1", "user2"), userIds(allUsers.get(i).get(10, TimeUnit.SECONDS)));
+            assertEquals("user1", users.get(i).get(10, TimeUnit.SECONDS).getId());
+            assertEquals(set("user1", "user2"), deliveredUsers.get(i).get(10, TimeUnit.SECONDS));
+        }
+        assertFalse(service.isStarting());
+    }
+
+    private static void assertStartFailure(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        assertEquals("BlockingDBUsersInitializer failure", cause.getMessage());
+    }
+
+    private static Set<String> userIds(List<User> users) {
+        final Set<String> result = new HashSet<>();
+        for (User user : users) {
+            result.add(user.getId());
+        }
+        return result;
+    }
+
+    @SafeVarargs
+    private static <T> Set<T> set(T... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.server.services.taskassigning.user.system.api.User;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DBUserSystemServiceChangeLogTest {
+
+    private static final String[] PROPERTIES = {
+            DBUserSystemService.URL_PROPERTY,
+            DBUserSystemService.CACHE_PROPERTY,
+            DBUserSystemService.CHANGE_LOG_PROPERTY,
+            DBUserSystemService.CHANGE_LOG_GAP_TIMEOUT_PROPERTY
+    };
+
+    private H2TestDatabase database;
+
+    private DBUserSystemService service;
+
+    @Before
+    public void setUp() throws Exception {
+        database = H2TestDatabase.createMigrated();
+        database.insertUser("user1", true, new String[]{"HR"}, new String[]{});
+        database.insertUser("user2", true, new String[]{"IT"}, new String[]{});
+        database.insertUser("user3", true, new String[]{"IT"}, new String[]{});
+        System.setProperty(DBUserSystemService.URL_PROPERTY, database.getUrl());
+        System.setProperty(DBUserSystemService.CACHE_PROPERTY, "true");
+        System.setProperty(DBUserSystemService.CHANGE_LOG_PROPERTY, "true");
+        service = new DBUserSystemService();
+    }
+
+    @After
+    public void tearDown() {
+        for (String property : PROPERTIES) {
+            System.clearProperty(property);
+        }
+    }
+
+    @Test
+    public void refreshWithoutChangesReturnsTheSameSnapshot() throws Exception {
+        logChange(1, "user1");
+        service.start();
+        assertEquals(set("user1", "user2", "user3"), userIds(service.findAllUsers()));
+        final DBUsersSnapshot snapshot = service.getSnapshot();
+        assertTrue(snapshot.getPendingChangeIds().isEmpty());
+        service.findAllUsers();
+        assertSame(snapshot, service.getSnapshot());
+    }
+
+    @Test
+    public void lateCommittedChangeIsApplied() throws Exception {
+        logChange(1, "user1");
+        service.start();
+        service.findAllUsers();
+
+        // the change 2 is not yet committed when the change 3 is read.
+        disableUser("user2");
+        logChange(3, "user2");
+        assertEquals(set("user1", "user3"), userIds(service.findAllUsers()));
+        assertEquals(3, service.getSnapshot().getChangeToken());
+        assertEquals(set(2L), service.getSnapshot().getPendingChangeIds().keySet());
+
+        disableUser("user3");
+        logChange(2, "user3");
+        assertEquals(set("user1"), userIds(service.findAllUsers()));
+        assertEquals(3, service.getSnapshot().getChangeToken());
+        assertTrue(service.getSnapshot().getPendingChangeIds().isEmpty());
+
+        final DBUsersSnapshot snapshot = service.getSnapshot();
+        service.findAllUsers();
+        assertSame(snapshot, service.getSnapshot());
+    }
+
+    @Test
+    public void missingChangeIsDiscardedAfterTheGapTimeout() throws Exception {
+        System.setProperty(DBUserSystemService.CHANGE_LOG_GAP_TIMEOUT_PROPERTY, "0");
+        logChange(1, "user1");
+        service.start();
+        service.findAllUsers();
+
+        // the change 2 is never committed, e.g. it was rolled back.
+        disableUser("user2");
+        logChange(3, "user2");
+        assertEquals(set("user1", "user3"), userIds(service.findAllUsers()));
+        final DBUsersSnapshot snapshot = service.getSnapshot();
+        assertEquals(set(2L), snapshot.getPendingChangeIds().keySet());
+
+        service.findAllUsers();
+        final DBUsersSnapshot refreshedSnapshot = service.getSnapshot();
+        assertNotSame(snapshot, refreshedSnapshot);
+        assertSame(snapshot.getUsers(), refreshedSnapshot.getUsers());
+        assertTrue(refreshedSnapshot.getPendingChangeIds().isEmpty());
+    }
+
+    @Test
+    public void findChangesSince() throws Exception {
+        logChange(1, "user1");
+        logChange(3, "user1");
+        service.start();
+        assertTrue(service.findChangesSince(3).isEmpty());
+
+        // the change 2 is committed after the token 3 was returned, it's picked up with the next changes.
+        disableUser("user2");
+        logChange(2, "user2");
+        assertTrue(service.findChangesSince(3).isEmpty());
+        logChange(4, "user3");
+        final DBUserChanges changes = service.findChangesSince(3);
+        assertEquals(4, changes.getToken());
+        assertEquals(set("user2"), changes.getRemovedUserIds());
+        assertEquals(set("user1", "user3"), userIds(changes.getUsers()));
+    }
+
+    private void logChange(long changeId, String userId) throws Exception {
+        database.execute("insert into ta_user_change (changeid, userid) values (" + changeId + ", '" + userId + "')");
+    }
+
+    private void disableUser(String userId) throws Exception {
+        database.execute("update ta_user set enabled = 0 where userid = '" + userId + "'");
+    }
+
+    private static Set<String> userIds(List<User> users) {
+        final Set<String> result = new HashSet<>();
+        for (User user : users) {
+            result.add(user.getId());
+        }
+        return result;
+    }
+
+    @SafeVarargs
+    private static <T> Set<T> set(T... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
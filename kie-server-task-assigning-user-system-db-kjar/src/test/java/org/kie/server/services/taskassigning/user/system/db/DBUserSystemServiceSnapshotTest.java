@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.server.services.taskassigning.user.system.api.User;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class DBUserSystemServiceSnapshotTest {
+
+    private static final String[] PROPERTIES = {
+            DBUserSystemService.URL_PROPERTY,
+            DBUserSystemService.CACHE_PROPERTY,
+            DBUserSystemService.CHANGE_DETECTION_QUERY_PROPERTY
+    };
+
+    private static final String CHANGE_DETECTION_QUERY = "select count(*) from ta_user where enabled = 1";
+
+    private H2TestDatabase database;
+
+    private DBUserSystemService service;
+
+    @Before
+    public void setUp() throws Exception {
+        database = H2TestDatabase.createMigrated();
+        database.insertUser("user1", true, new String[]{"HR"}, new String[]{"EN"});
+        database.insertUser("user2", true, new String[]{"IT"}, new String[]{});
+        database.insertUser("user3", true, new String[]{"IT"}, new String[]{"ES"});
+        System.setProperty(DBUserSystemService.URL_PROPERTY, database.getUrl());
+        service = new DBUserSystemService();
+    }
+
+    @After
+    public void tearDown() {
+        for (String property : PROPERTIES) {
+            System.clearProperty(property);
+        }
+    }
+
+    @Test
+    public void findAllUsersWithoutCache() throws Exception {
+        service.start();
+        final List<User> users = service.findAllUsers();
+        assertEquals(set("user1", "user2", "user3"), userIds(users));
+        assertNull(service.getSnapshot());
+
+        disableUser("user2");
+        final List<User> refreshedUsers = service.findAllUsers();
+        assertEquals(set("user1", "user3"), userIds(refreshedUsers));
+        assertEquals(set("user1", "user2", "user3"), userIds(users));
+        assertNull(service.getSnapshot());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void findAllUsersWithoutCacheIsUnmodifiable() {
+        service.start();
+        service.findAllUsers().clear();
+    }
+
+    @Test
+    public void findAllUsersWithCacheRefreshesTheSnapshot() throws Exception {
+        System.setProperty(DBUserSystemService.CACHE_PROPERTY, "true");
+        service.start();
+        assertEquals(set("user1", "user2", "user3"), userIds(service.findAllUsers()));
+        final DBUsersSnapshot snapshot = service.getSnapshot();
+        assertNull(snapshot.getVersion());
+        assertSame(snapshot.getUser("user1"), service.findUser("user1"));
+
+        // without change detection every invocation reloads the users.
+        final List<User> reloadedUsers = service.findAllUsers();
+        assertNotSame(snapshot, service.getSnapshot());
+        assertSame(service.getSnapshot().getUsers(), reloadedUsers);
+        assertEquals(set("user1", "user2", "user3"), userIds(reloadedUsers));
+
+        disableUser("user2");
+        database.insertUser("user4", true, new String[]{"HR"}, new String[]{});
+        final List<User> refreshedUsers = service.findAllUsers();
+        assertEquals(set("user1", "user3", "user4"), userIds(refreshedUsers));
+        final DBUsersSnapshot refreshedSnapshot = service.getSnapshot();
+        assertNotSame(snapshot, refreshedSnapshot);
+        assertSame(refreshedSnapshot.getUsers(), refreshedUsers);
+        assertNull(refreshedSnapshot.getUser("user2"));
+        assertSame(refreshedSnapshot.getUser("user4"), service.findUser("user4"));
+        // the previous snapshot is not modified by the refresh.
+        assertEquals(set("user1", "user2", "user3"), userIds(snapshot.getUsers()));
+    }
+
+    @Test
+    public void changeDetectionKeepsTheSnapshotWhileTheVersionIsTheSame() throws Exception {
+        System.setProperty(DBUserSystemService.CACHE_PROPERTY, "true");
+        System.setProperty(DBUserSystemService.CHANGE_DETECTION_QUERY_PROPERTY, CHANGE_DETECTION_QUERY);
+        service.start();
+        final List<User> users = service.findAllUsers();
+        final DBUsersSnapshot snapshot = service.getSnapshot();
+        assertEquals("3|", snapshot.getVersion());
+        assertSame(users, service.findAllUsers());
+        assertSame(snapshot, service.getSnapshot());
+    }
+
+    @Test
+    public void changeDetectionReloadsWhenTheVersionChanges() throws Exception {
+        System.setProperty(DBUserSystemService.CACHE_PROPERTY, "true");
+        System.setProperty(DBUserSystemService.CHANGE_DETECTION_QUERY_PROPERTY, CHANGE_DETECTION_QUERY);
+        service.start();
+        service.findAllUsers();
+        final DBUsersSnapshot snapshot = service.getSnapshot();
+
+        disableUser("user2");
+        assertEquals(set("user1", "user3"), userIds(service.findAllUsers()));
+        final DBUsersSnapshot refreshedSnapshot = service.getSnapshot();
+        assertNotSame(snapshot, refreshedSnapshot);
+        assertEquals("2|", refreshedSnapshot.getVersion());
+    }
+
+    @Test
+    public void changeDetectionOnlySeesTheChangesReflectedInTheVersion() throws Exception {
+        System.setProperty(DBUserSystemService.CACHE_PROPERTY, "true");
+        System.setProperty(DBUserSystemService.CHANGE_DETECTION_QUERY_PROPERTY, CHANGE_DETECTION_QUERY);
+        service.start();
+        service.findAllUsers();
+        final DBUsersSnapshot snapshot = service.getSnapshot();
+
+        // the number of enabled users doesn't change, so the query gives the same version.
+        disableUser("user2");
+        database.insertUser("user4", true, new String[]{"HR"}, new String[]{});
+        assertEquals(set("user1", "user2", "user3"), userIds(service.findAllUsers()));
+        assertSame(snapshot, service.getSnapshot());
+
+        database.insertUser("user5", true, new String[]{"HR"}, new String[]{});
+        assertEquals(set("user1", "user3", "user4", "user5"), userIds(service.findAllUsers()));
+    }
+
+    private void disableUser(String userId) throws Exception {
+        database.execute("update ta_user set enabled = 0 where userid = '" + userId + "'");
+    }
+
+    private static Set<String> userIds(List<User> users) {
+        final Set<String> result = new HashSet<>();
+        for (User user : users) {
+            result.add(user.getId());
+        }
+        return result;
+    }
+
+    @SafeVarargs
+    private static <T> Set<T> set(T... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DBUserSystemSkillLabelValueExtractorTest {
+
+    private final DBUserSystemSkillLabelValueExtractor extractor = new DBUserSystemSkillLabelValueExtractor();
+
+    @Test
+    public void extractReturnsTheUserSkills() {
+        final DBUser user = newUser("user1", "EN", "ES");
+        assertEquals(new HashSet<>(Arrays.asList("EN", "ES")), extractor.extract(user));
+        assertEquals(Collections.emptySet(), extractor.extract(newUser("user2")));
+        assertEquals(Collections.emptySet(), extractor.extract(null));
+    }
+
+    @Test
+    public void extractReturnsTheSameSetForTheSameUser() {
+        final DBUser user = newUser("user1", "EN", "ES");
+        final Set<Object> skills = extractor.extract(user);
+        assertSame(skills, extractor.extract(user));
+        assertSame(skills, user.getSkillLabelValues());
+        assertSame(user.getSkills(), user.getSkills());
+    }
+
+    @Test
+    public void extractedSetsAreNotModifiable() {
+        final DBUser user = newUser("user1", "EN");
+        final Set<Object> skills = extractor.extract(user);
+        try {
+            skills.add("FR");
+            fail("the extracted set must not be modifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            skills.remove("EN");
+            fail("the extracted set must not be modifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            user.getSkills().clear();
+            fail("the skills view must not be modifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertEquals(Collections.singleton("EN"), extractor.extract(user));
+        assertTrue(user.getSkills().contains("EN"));
+    }
+
+    private static DBUser newUser(String id, String... skills) {
+        final DBUserBuilder builder = new DBUserBuilder(new DBUserDictionary()).reset(id);
+        for (String skill : skills) {
+            builder.addSkill(skill);
+        }
+        return builder.build();
+    }
+}
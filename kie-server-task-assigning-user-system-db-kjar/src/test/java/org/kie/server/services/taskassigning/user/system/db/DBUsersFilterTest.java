@@ -0,0 +1,228 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.server.services.taskassigning.user.system.api.Group;
+import org.kie.server.services.taskassigning.user.system.api.User;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DBUsersFilterTest {
+
+    private static final String[] PROPERTIES = {
+            DBUserSystemService.URL_PROPERTY,
+            DBUserSystemService.CACHE_PROPERTY,
+            DBUserSystemService.USERS_LOADER_PROPERTY,
+            DBUserSystemService.PAGE_SIZE_PROPERTY,
+            DBUserSystemService.GROUPS_FILTER_PROPERTY,
+            DBUserSystemService.USER_ID_PREFIXES_FILTER_PROPERTY
+    };
+
+    private static final String[] LOADERS = {"JOIN", "MULTI_QUERY"};
+
+    private static final String PERCENT_USER = "a%b-1";
+    private static final String PERCENT_LOOK_ALIKE_USER = "azzb-1";
+    private static final String UNDERSCORE_USER = "a_b-1";
+    private static final String UNDERSCORE_LOOK_ALIKE_USER = "axb-1";
+    private static final String BACKSLASH_USER = "a\\b-1";
+    private static final String BACKSLASH_LOOK_ALIKE_USER = "ab-1";
+
+    private H2TestDatabase database;
+
+    @Before
+    public void setUp() throws Exception {
+        database = H2TestDatabase.createMigrated();
+        database.insertUser("hr-1", true, new String[]{"HR"}, new String[]{"EN"});
+        database.insertUser("hr-2", true, new String[]{"HR", "IT"}, new String[]{"ES"});
+        database.insertUser("hr-3", false, new String[]{"HR"}, new String[]{});
+        database.insertUser("it-1", true, new String[]{"IT"}, new String[]{});
+        database.insertUser("ops-1", true, new String[]{"OPS"}, new String[]{});
+        for (String userId : new String[]{PERCENT_USER, PERCENT_LOOK_ALIKE_USER, UNDERSCORE_USER, UNDERSCORE_LOOK_ALIKE_USER,
+                BACKSLASH_USER, BACKSLASH_LOOK_ALIKE_USER}) {
+            database.insertUser(userId, true, new String[]{"SP"}, new String[]{});
+        }
+        System.setProperty(DBUserSystemService.URL_PROPERTY, database.getUrl());
+        // small pages, so that forEachUser reads the filtered users in more than one page.
+        System.setProperty(DBUserSystemService.PAGE_SIZE_PROPERTY, "2");
+    }
+
+    @After
+    public void tearDown() {
+        for (String property : PROPERTIES) {
+            System.clearProperty(property);
+        }
+    }
+
+    @Test
+    public void noFilter() {
+        assertFilteredUsers(null, null, "hr-1", "hr-2", "it-1", "ops-1", PERCENT_USER, PERCENT_LOOK_ALIKE_USER, UNDERSCORE_USER,
+                            UNDERSCORE_LOOK_ALIKE_USER, BACKSLASH_USER, BACKSLASH_LOOK_ALIKE_USER);
+    }
+
+    @Test
+    public void groupsFilter() {
+        assertFilteredUsers("HR", null, "hr-1", "hr-2");
+        assertFilteredUsers("HR,OPS", null, "hr-1", "hr-2", "ops-1");
+        // a user that belongs to more than one of the groups is read once.
+        assertFilteredUsers("HR,IT", null, "hr-1", "hr-2", "it-1");
+        assertFilteredUsers("UNKNOWN", null);
+    }
+
+    @Test
+    public void userIdPrefixesFilter() {
+        assertFilteredUsers(null, "hr-", "hr-1", "hr-2");
+        assertFilteredUsers(null, "hr-,it-", "hr-1", "hr-2", "it-1");
+        assertFilteredUsers(null, "unknown-");
+    }
+
+    @Test
+    public void groupsAndUserIdPrefixesFilter() {
+        assertFilteredUsers("IT", "hr-", "hr-2");
+        assertFilteredUsers("HR,OPS", "hr-1,ops-", "hr-1", "ops-1");
+        assertFilteredUsers("OPS", "hr-");
+    }
+
+    @Test
+    public void userIdPrefixWithPercent() {
+        assertFilteredUsers(null, "a%b", PERCENT_USER);
+    }
+
+    @Test
+    public void userIdPrefixWithUnderscore() {
+        assertFilteredUsers(null, "a_b", UNDERSCORE_USER);
+    }
+
+    @Test
+    public void userIdPrefixWithBackslash() {
+        assertFilteredUsers(null, "a\\b", BACKSLASH_USER);
+        assertFilteredUsers(null, "a\\", BACKSLASH_USER);
+    }
+
+    @Test
+    public void filteredUsersHaveAllTheirGroups() {
+        for (String loader : LOADERS) {
+            final DBUserSystemService service = startService(loader, false, "HR", null);
+            final User user = findAllUsersById(service).get("hr-2");
+            assertEquals(loader, set("HR", "IT"), groupIds(user));
+            assertEquals(loader, set("HR", "IT"), groupIds(service.findUser("hr-2")));
+        }
+    }
+
+    @Test
+    public void parse() {
+        final DBUsersFilter filter = DBUsersFilter.parse(" HR, ,IT ", "hr-,, it- ");
+        assertEquals(set("HR", "IT"), filter.getGroupIds());
+        assertEquals(set("hr-", "it-"), filter.getUserIdPrefixes());
+        assertSame(DBUsersFilter.NONE, DBUsersFilter.parse(null, " , "));
+        assertTrue(DBUsersFilter.NONE.isEmpty());
+    }
+
+    @Test
+    public void escapeLike() {
+        assertEquals("a\\%b\\_c\\\\d", DBUsersFilter.escapeLike("a%b_c\\d"));
+        assertEquals("abc", DBUsersFilter.escapeLike("abc"));
+    }
+
+    /**
+     * Asserts the users read by findAllUsers(), findUsers() and forEachUser() with the given filter, for all the
+     * loaders, and with and without the cache.
+     */
+    private void assertFilteredUsers(String groups, String userIdPrefixes, String... expectedUserIds) {
+        final Set<String> expected = set(expectedUserIds);
+        final Collection<String> allUserIds = Arrays.asList("hr-1", "hr-2", "hr-3", "it-1", "ops-1", PERCENT_USER, PERCENT_LOOK_ALIKE_USER,
+                                                            UNDERSCORE_USER, UNDERSCORE_LOOK_ALIKE_USER, BACKSLASH_USER, BACKSLASH_LOOK_ALIKE_USER);
+        for (String loader : LOADERS) {
+            for (boolean cache : new boolean[]{false, true}) {
+                final String message = "loader: " + loader + ", cache: " + cache + ", groups: " + groups + ", userIdPrefixes: " + userIdPrefixes;
+                final DBUserSystemService service = startService(loader, cache, groups, userIdPrefixes);
+                final List<User> allUsers = service.findAllUsers();
+                assertEquals(message, expected, userIds(allUsers));
+                assertEquals(message, expected.size(), allUsers.size());
+
+                final Map<String, User> users = service.findUsers(allUserIds);
+                assertEquals(message, expected, users.keySet());
+
+                final List<User> deliveredUsers = new ArrayList<>();
+                assertEquals(message, expected.size(), service.forEachUser(deliveredUsers::add));
+                assertEquals(message, expected, userIds(deliveredUsers));
+                assertEquals(message, expected.size(), deliveredUsers.size());
+            }
+        }
+    }
+
+    private static DBUserSystemService startService(String loader, boolean cache, String groups, String userIdPrefixes) {
+        System.setProperty(DBUserSystemService.USERS_LOADER_PROPERTY, loader);
+        System.setProperty(DBUserSystemService.CACHE_PROPERTY, Boolean.toString(cache));
+        setOrClearProperty(DBUserSystemService.GROUPS_FILTER_PROPERTY, groups);
+        setOrClearProperty(DBUserSystemService.USER_ID_PREFIXES_FILTER_PROPERTY, userIdPrefixes);
+        final DBUserSystemService service = new DBUserSystemService();
+        service.start();
+        return service;
+    }
+
+    private static void setOrClearProperty(String property, String value) {
+        if (value != null) {
+            System.setProperty(property, value);
+        } else {
+            System.clearProperty(property);
+        }
+    }
+
+    private static Map<String, User> findAllUsersById(DBUserSystemService service) {
+        final Map<String, User> result = new HashMap<>();
+        for (User user : service.findAllUsers()) {
+            result.put(user.getId(), user);
+        }
+        return result;
+    }
+
+    private static Set<String> groupIds(User user) {
+        final Set<String> result = new HashSet<>();
+        for (Group group : user.getGroups()) {
+            result.add(group.getId());
+        }
+        return result;
+    }
+
+    private static Set<String> userIds(Collection<User> users) {
+        final Set<String> result = new HashSet<>();
+        for (User user : users) {
+            result.add(user.getId());
+        }
+        return result;
+    }
+
+    @SafeVarargs
+    private static <T> Set<T> set(T... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
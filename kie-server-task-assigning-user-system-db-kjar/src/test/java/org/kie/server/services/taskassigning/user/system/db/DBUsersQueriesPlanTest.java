@@ -0,0 +1,177 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kie.server.services.taskassigning.user.system.db.benchmarks.BenchmarksDBUsersInitializer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+import static org.kie.server.services.taskassigning.user.system.db.DBUsersLoaderUtil.inParameters;
+import static org.kie.server.services.taskassigning.user.system.db.benchmarks.BenchmarksDBUsersInitializer.SKILLS_DISTRIBUTION;
+import static org.kie.server.services.taskassigning.user.system.db.benchmarks.BenchmarksDBUsersInitializer.USERS_SET_SIZE;
+
+/**
+ * Verifies the query plans of the users loaders and pager queries on a migrated H2 database with 100k users created
+ * by the BenchmarksDBUsersInitializer, i.e. with enough rows for the H2 statistics to make the index choices
+ * meaningful.
+ * <p>
+ * The PostgreSQL migrations create the same indexes with the same names, but their plans are not verified by the
+ * build since no PostgreSQL server is available, see DBSchemaMigratorTest.postgresqlMigrationsMirrorTheH2Ones().
+ */
+public class DBUsersQueriesPlanTest {
+
+    // the initializer creates a set of users for each of the HR, IT and ENG prefixes, i.e. 100002 users.
+    private static final int USERS_SET_SIZE_VALUE = 33334;
+
+    private static final String ENABLED_IDX = "TA_USER_ENABLED_IDX";
+
+    private static final String TABLE_SCAN = "tableScan";
+
+    private static final String BY_USER_IDS = " and u.userid in (" + inParameters(3) + ")";
+
+    private static final DBUsersFilter FILTER = DBUsersFilter.of(Arrays.asList("IT"), Arrays.asList("IT-"));
+
+    private static H2TestDatabase database;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        System.setProperty(USERS_SET_SIZE, Integer.toString(USERS_SET_SIZE_VALUE));
+        System.setProperty(SKILLS_DISTRIBUTION, "english:0.5,spanish:0.3,chinese:0.1");
+        try {
+            database = H2TestDatabase.createMigrated();
+            new BenchmarksDBUsersInitializer().initializeUsers(database.getDataSource());
+            database.execute("ANALYZE");
+        } finally {
+            System.clearProperty(USERS_SET_SIZE);
+            System.clearProperty(SKILLS_DISTRIBUTION);
+        }
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        database.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void loadersReadAllTheUsers() throws Exception {
+        assertEquals(3L * USERS_SET_SIZE_VALUE, countRows("select count(*) from ta_user where enabled = 1"));
+        for (DBUsersLoader loader : Arrays.asList(new JoinDBUsersLoader(new DBUserDictionary()),
+                                                  new MultiQueryDBUsersLoader(new DBUserDictionary(), 1000))) {
+            final AtomicInteger users = new AtomicInteger();
+            try (Connection connection = database.getConnection()) {
+                loader.loadAllUsers(connection, user -> users.incrementAndGet());
+            }
+            assertEquals(loader.getName(), 3 * USERS_SET_SIZE_VALUE, users.get());
+        }
+    }
+
+    @Test
+    public void joinLoaderQueries() throws Exception {
+        for (String query : Arrays.asList(JoinDBUsersLoader.FIND_ALL_USERS_QUERY, JoinDBUsersLoader.FIND_ALL_USERS_WITH_AVAILABILITY_QUERY)) {
+            assertPlan(explain(query, DBUsersFilter.NONE), ENABLED_IDX);
+            assertPlan(explain(query + BY_USER_IDS, DBUsersFilter.NONE));
+            assertPlan(explain(query + FILTER.getCondition() + BY_USER_IDS, FILTER));
+        }
+    }
+
+    @Test
+    public void multiQueryLoaderQueries() throws Exception {
+        for (String query : Arrays.asList(MultiQueryDBUsersLoader.FIND_ALL_USERS_QUERY, MultiQueryDBUsersLoader.FIND_ALL_USERS_WITH_AVAILABILITY_QUERY)) {
+            assertPlan(explain(query + MultiQueryDBUsersLoader.ORDER_BY_USER_ID, DBUsersFilter.NONE), ENABLED_IDX);
+            assertPlan(explain(query + BY_USER_IDS + MultiQueryDBUsersLoader.ORDER_BY_USER_ID, DBUsersFilter.NONE));
+            assertPlan(explain(query + FILTER.getCondition() + BY_USER_IDS + MultiQueryDBUsersLoader.ORDER_BY_USER_ID, FILTER));
+        }
+        for (String query : Arrays.asList(MultiQueryDBUsersLoader.FIND_ALL_USERS_GROUPS_QUERY, MultiQueryDBUsersLoader.FIND_ALL_USERS_SKILLS_QUERY)) {
+            // loading all the users reads all the groups and skills rows, so scanning them is the expected plan, but
+            // the users must be looked up by key.
+            final String plan = explain(query + MultiQueryDBUsersLoader.ORDER_BY_USER_ID, DBUsersFilter.NONE);
+            assertFalse(plan, plan.contains("TA_USER." + TABLE_SCAN));
+            assertPlan(explain(query + BY_USER_IDS + MultiQueryDBUsersLoader.ORDER_BY_USER_ID, DBUsersFilter.NONE));
+            assertPlan(explain(query + FILTER.getCondition() + BY_USER_IDS + MultiQueryDBUsersLoader.ORDER_BY_USER_ID, FILTER));
+        }
+    }
+
+    @Test
+    public void keysetPagerQueries() throws Exception {
+        final KeysetDBUsersPager pager = new KeysetDBUsersPager(new JoinDBUsersLoader(new DBUserDictionary()), 1000);
+        assertPlan(explain(pager.getFirstPageQuery(), DBUsersFilter.NONE), ENABLED_IDX);
+        assertPlan(explain(pager.getNextPageQuery(), DBUsersFilter.NONE), ENABLED_IDX);
+
+        final KeysetDBUsersPager filteredPager = new KeysetDBUsersPager(new JoinDBUsersLoader(new DBUserDictionary(), FILTER), 1000);
+        assertPlan(explain(filteredPager.getFirstPageQuery(), FILTER));
+        assertPlan(explain(filteredPager.getNextPageQuery(), FILTER));
+    }
+
+    /**
+     * Asserts that the plan doesn't scan any table, and that it uses the expected indexes.
+     */
+    private static void assertPlan(String plan, String... indexes) {
+        if (plan.contains(TABLE_SCAN)) {
+            fail("Query plan: " + plan + " scans a table");
+        }
+        for (String index : indexes) {
+            if (!plan.contains(index)) {
+                fail("Query plan: " + plan + " doesn't use the index: " + index);
+            }
+        }
+    }
+
+    /**
+     * @return the plan of the query, with the same parameters as the loaders, i.e. the enabled flag, the filter
+     * parameters if any, and the user ids.
+     */
+    private static String explain(String query, DBUsersFilter filter) throws SQLException {
+        final List<String> rows = new ArrayList<>();
+        try (Connection connection = database.getConnection();
+             PreparedStatement stmt = connection.prepareStatement("EXPLAIN " + query)) {
+            stmt.setShort(1, (short) 1);
+            final int parameters = stmt.getParameterMetaData().getParameterCount();
+            for (int i = filter.setParameters(stmt, 2), userId = 1; i <= parameters; i++, userId++) {
+                stmt.setString(i, "IT-user" + userId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(rs.getString(1));
+                }
+            }
+        }
+        return String.join("\n", rows);
+    }
+
+    private static long countRows(String query) throws SQLException {
+        try (Connection connection = database.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
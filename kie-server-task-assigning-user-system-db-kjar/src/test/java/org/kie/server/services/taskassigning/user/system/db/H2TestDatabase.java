@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.kie.server.services.taskassigning.user.system.db.schema.DBSchemaMigrator;
+
+/**
+ * Helper for creating the DBUserSystemService database structure and users in an embedded H2 database.
+ */
+public class H2TestDatabase {
+
+    /**
+     * The users tables as created by the tables.sql that existed before the schema was versioned.
+     */
+    public static final String[] NOT_VERSIONED_SCHEMA = {
+            "CREATE TABLE ta_user (userid character varying(255) NOT NULL, enabled smallint NOT NULL, descritpion VARCHAR(255), " +
+                    "CONSTRAINT ta_user_pkey PRIMARY KEY (userid))",
+            "CREATE TABLE ta_user_group (userid character varying(255) NOT NULL, groupid character varying(255))",
+            "CREATE TABLE ta_user_skill (userid character varying(255) NOT NULL, skillid character varying(255))"
+    };
+
+    private static final AtomicInteger DATABASE_SEQUENCE = new AtomicInteger();
+
+    private final String url;
+
+    private final DataSource dataSource;
+
+    private H2TestDatabase(String url, DataSource dataSource) {
+        this.url = url;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Creates a new and empty in-memory database, that is kept while the JVM is alive.
+     */
+    public static H2TestDatabase createEmpty() {
+        final String url = "jdbc:h2:mem:ta_test_" + DATABASE_SEQUENCE.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+        final JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(url);
+        return new H2TestDatabase(url, dataSource);
+    }
+
+    /**
+     * Creates a new in-memory database with the latest schema version.
+     */
+    public static H2TestDatabase createMigrated() {
+        final H2TestDatabase database = createEmpty();
+        new DBSchemaMigrator(DBSchemaMigrator.H2).migrate(database.getDataSource());
+        return database;
+    }
+
+    /**
+     * Creates a new in-memory database with the NOT_VERSIONED_SCHEMA, i.e. not migrated.
+     */
+    public static H2TestDatabase createNotVersioned() throws SQLException {
+        final H2TestDatabase database = createEmpty();
+        database.execute(NOT_VERSIONED_SCHEMA);
+        return database;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    public void execute(String... statements) throws SQLException {
+        try (Connection connection = getConnection(); Statement stmt = connection.createStatement()) {
+            for (String statement : statements) {
+                stmt.execute(statement);
+            }
+        }
+    }
+
+    /**
+     * Inserts a user with the given groups and skills. The groups and skills are also added to the ta_group and
+     * ta_skill dictionary tables when they exist, i.e. from the schema version 3 on.
+     */
+    public void insertUser(String userId, boolean enabled, String[] groups, String[] skills) throws SQLException {
+        try (Connection connection = getConnection()) {
+            if (hasDictionaries(connection)) {
+                mergeDictionaryValues(connection, "merge into ta_group (groupid) key (groupid) values (?)", groups);
+                mergeDictionaryValues(connection, "merge into ta_skill (skillid) key (skillid) values (?)", skills);
+            }
+            try (PreparedStatement stmt = connection.prepareStatement("insert into ta_user (userid, enabled) values (?, ?)")) {
+                stmt.setString(1, userId);
+                stmt.setShort(2, (short) (enabled ? 1 : 0));
+                stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = connection.prepareStatement("insert into ta_user_group (userid, groupid) values (?, ?)")) {
+                for (String group : groups) {
+                    stmt.setString(1, userId);
+                    stmt.setString(2, group);
+                    stmt.executeUpdate();
+                }
+            }
+            try (PreparedStatement stmt = connection.prepareStatement("insert into ta_user_skill (userid, skillid) values (?, ?)")) {
+                for (String skill : skills) {
+                    stmt.setString(1, userId);
+                    stmt.setString(2, skill);
+                    stmt.executeUpdate();
+                }
+            }
+        }
+    }
+
+    private static boolean hasDictionaries(Connection connection) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getTables(null, null, "TA_GROUP", new String[]{"TABLE"})) {
+            return rs.next();
+        }
+    }
+
+    private static void mergeDictionaryValues(Connection connection, String query, String[] values) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            for (String value : values) {
+                stmt.setString(1, value);
+                stmt.executeUpdate();
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class KeysetDBUsersPagerTest {
+
+    private static final int PAGE_SIZE = 50;
+
+    private static final int USERS = 200;
+
+    private H2TestDatabase database;
+
+    @Before
+    public void setUp() throws Exception {
+        database = H2TestDatabase.createMigrated();
+        database.execute("insert into ta_group (groupid) values ('HR')",
+                         "insert into ta_skill (skillid) values ('EN')");
+    }
+
+    @Test
+    public void readAllUsersMemoryIsGivenByThePageSize() throws Exception {
+        insertUsers(0, USERS);
+        final RecordingUsersLoader loader = readAllUsers();
+        assertEquals(USERS, loader.deliveredUserIds.size());
+        assertEquals(USERS / PAGE_SIZE, loader.loadUsersInvocations);
+        assertEquals(PAGE_SIZE, loader.maxLoadedUserIds);
+        assertEquals(PAGE_SIZE, loader.maxDeliveredUsersPerPage);
+
+        insertUsers(USERS, USERS * 10);
+        final RecordingUsersLoader tenTimesLoader = readAllUsers();
+        assertEquals(USERS * 10, tenTimesLoader.deliveredUserIds.size());
+        assertEquals(USERS * 10 / PAGE_SIZE, tenTimesLoader.loadUsersInvocations);
+        // ten times the users are read in ten times the pages, not in bigger ones.
+        assertEquals(PAGE_SIZE, tenTimesLoader.maxLoadedUserIds);
+        assertEquals(PAGE_SIZE, tenTimesLoader.maxDeliveredUsersPerPage);
+    }
+
+    @Test
+    public void readAllUsersDeliversEachUserOnce() throws Exception {
+        insertUsers(0, USERS + PAGE_SIZE / 2);
+        database.execute("update ta_user set enabled = 0 where userid = 'user00010'");
+        final RecordingUsersLoader loader = readAllUsers();
+        final List<String> expectedUserIds = new ArrayList<>();
+        for (int i = 0; i < USERS + PAGE_SIZE / 2; i++) {
+            if (i != 10) {
+                expectedUserIds.add(userId(i));
+            }
+        }
+        assertEquals(expectedUserIds, loader.deliveredUserIds);
+        assertEquals(USERS / PAGE_SIZE + 1, loader.loadUsersInvocations);
+    }
+
+    @Test
+    public void readAllUsersWithoutUsers() throws Exception {
+        final RecordingUsersLoader loader = readAllUsers();
+        assertEquals(Collections.emptyList(), loader.deliveredUserIds);
+        assertEquals(0, loader.loadUsersInvocations);
+    }
+
+    private RecordingUsersLoader readAllUsers() throws SQLException {
+        final RecordingUsersLoader loader = new RecordingUsersLoader(new MultiQueryDBUsersLoader(new DBUserDictionary(), PAGE_SIZE));
+        try (Connection connection = database.getConnection()) {
+            // the users are not retained by the consumer, only their ids.
+            new KeysetDBUsersPager(loader, PAGE_SIZE).readAllUsers(connection, user -> loader.deliveredUserIds.add(user.getId()));
+        }
+        return loader;
+    }
+
+    private void insertUsers(int from, int to) throws SQLException {
+        final String userId = "'user' || lpad(x, 5, '0')";
+        final String range = " from system_range(" + from + ", " + (to - 1) + ")";
+        database.execute("insert into ta_user (userid, enabled) select " + userId + ", 1" + range,
+                         "insert into ta_user_group (userid, groupid) select " + userId + ", 'HR'" + range,
+                         "insert into ta_user_skill (userid, skillid) select " + userId + ", 'EN'" + range);
+    }
+
+    private static String userId(int i) {
+        return String.format("user%05d", i);
+    }
+
+    /**
+     * Records the sizes of the pages loaded by the pager.
+     */
+    private static class RecordingUsersLoader implements DBUsersLoader {
+
+        private final DBUsersLoader delegate;
+
+        private final List<String> deliveredUserIds = new ArrayList<>();
+
+        private int loadUsersInvocations;
+
+        private int maxLoadedUserIds;
+
+        private int maxDeliveredUsersPerPage;
+
+        private RecordingUsersLoader(DBUsersLoader delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public DBUsersFilter getUsersFilter() {
+            return delegate.getUsersFilter();
+        }
+
+        @Override
+        public long loadAllUsers(Connection connection, Consumer<DBUser> consumer) {
+            throw new UnsupportedOperationException("The pager must not load all the users at once");
+        }
+
+        @Override
+        public long loadUsers(Connection connection, Collection<String> userIds, Consumer<DBUser> consumer) throws SQLException {
+            loadUsersInvocations++;
+            maxLoadedUserIds = Math.max(maxLoadedUserIds, userIds.size());
+            final int[] delivered = new int[1];
+            final long rows = delegate.loadUsers(connection, userIds, user -> {
+                delivered[0]++;
+                consumer.accept(user);
+            });
+            maxDeliveredUsersPerPage = Math.max(maxDeliveredUsersPerPage, delivered[0]);
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.user.system.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.server.services.taskassigning.user.system.api.Group;
+import org.kie.server.services.taskassigning.user.system.db.MultiQueryDBUsersLoader.ChildRowsCursor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MultiQueryDBUsersLoaderTest {
+
+    private H2TestDatabase database;
+
+    @Before
+    public void setUp() throws Exception {
+        database = H2TestDatabase.createMigrated();
+        database.insertUser("user1", true, new String[]{"HR", "IT"}, new String[]{"EN", "ES"});
+        database.insertUser("user2", true, new String[]{"IT"}, new String[]{});
+        database.insertUser("user3", false, new String[]{"HR"}, new String[]{"EN"});
+        database.insertUser("user4", true, new String[]{}, new String[]{"ZH"});
+    }
+
+    @Test
+    public void loadAllUsers() throws Exception {
+        final Map<String, DBUser> users = loadAllUsers(new MultiQueryDBUsersLoader(new DBUserDictionary(), 10));
+        assertEquals(new HashSet<>(Arrays.asList("user1", "user2", "user4")), users.keySet());
+        assertEquals(set("HR", "IT"), groupIds(users.get("user1")));
+        assertEquals(set("EN", "ES"), users.get("user1").getSkills());
+        assertEquals(set("IT"), groupIds(users.get("user2")));
+        assertTrue(users.get("user2").getSkills().isEmpty());
+        assertTrue(users.get("user4").getGroups().isEmpty());
+        assertEquals(set("ZH"), users.get("user4").getSkills());
+    }
+
+    @Test
+    public void loadAllUsersNormalizesTheSkills() throws Exception {
+        database.insertUser("user5", true, new String[]{}, new String[]{" en ", "fr, De,", "EN"});
+        final Map<String, DBUser> users = loadAllUsers(new MultiQueryDBUsersLoader(new DBUserDictionary(true), 10));
+        assertEquals(set("EN", "FR", "DE"), users.get("user5").getSkills());
+        assertEquals(set("EN", "ES"), users.get("user1").getSkills());
+    }
+
+    @Test
+    public void loadUsers() throws Exception {
+        final Map<String, DBUser> users = new HashMap<>();
+        try (Connection connection = database.getConnection()) {
+            new MultiQueryDBUsersLoader(new DBUserDictionary(), 10).loadUsers(connection, Arrays.asList("user2", "user3", "user5"),
+                                                                               user -> users.put(user.getId(), user));
+        }
+        assertEquals(set("user2"), users.keySet());
+        assertEquals(set("IT"), groupIds(users.get("user2")));
+    }
+
+    @Test
+    public void loadRestoresTheConnectionSettings() throws Exception {
+        try (Connection connection = database.getConnection()) {
+            final int isolation = connection.getTransactionIsolation();
+            new MultiQueryDBUsersLoader(new DBUserDictionary(), 10).loadAllUsers(connection, user -> {
+            });
+            assertTrue(connection.getAutoCommit());
+            assertEquals(isolation, connection.getTransactionIsolation());
+        }
+    }
+
+    @Test
+    public void loadRollsBackAndRestoresTheConnectionSettingsOnFailure() throws Exception {
+        try (Connection connection = database.getConnection()) {
+            final int isolation = connection.getTransactionIsolation();
+            try {
+                new MultiQueryDBUsersLoader(new DBUserDictionary(), 10).loadAllUsers(connection, user -> {
+                    throw new IllegalStateException("consumer failure");
+                });
+                fail("the consumer failure was expected to be propagated");
+            } catch (IllegalStateException e) {
+                assertEquals("consumer failure", e.getMessage());
+            }
+            assertTrue(connection.getAutoCommit());
+            assertEquals(isolation, connection.getTransactionIsolation());
+        }
+    }
+
+    @Test
+    public void mergeFailsWhenChildRowsDontMatchTheUsers() throws Exception {
+        // simulates a user enabled between the users and the groups queries, i.e. result sets read from different
+        // snapshots. The groups of user2 are never reached by the cursor, and neither the ones of the following users.
+        try (Connection connection = database.getConnection();
+             PreparedStatement usersStmt = connection.prepareStatement("select u.userid, u.capacity_minutes, u.working_days, u.shift_start_minute, u.shift_end_minute from ta_user u where u.userid <> 'user2' and u.enabled = 1 order by u.userid");
+             PreparedStatement groupsStmt = connection.prepareStatement("select g.userid, g.groupid from ta_user_group g order by g.userid");
+             PreparedStatement skillsStmt = connection.prepareStatement("select s.userid, s.skillid from ta_user_skill s where s.userid <> 'user3' order by s.userid");
+             ResultSet usersRs = usersStmt.executeQuery();
+             ResultSet groupsRs = groupsStmt.executeQuery();
+             ResultSet skillsRs = skillsStmt.executeQuery()) {
+            final List<DBUser> users = new ArrayList<>();
+            try {
+                MultiQueryDBUsersLoader.merge(usersRs, true, new ChildRowsCursor(groupsRs), new ChildRowsCursor(skillsRs),
+                                              new DBUserBuilder(new DBUserDictionary()), users::add);
+                fail("the inconsistent child rows were expected to be detected");
+            } catch (DBUserSystemServiceException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("user2"));
+            }
+        }
+    }
+
+    @Test
+    public void mergeWithConsistentChildRows() throws Exception {
+        try (Connection connection = database.getConnection();
+             PreparedStatement usersStmt = connection.prepareStatement("select u.userid, u.capacity_minutes, u.working_days, u.shift_start_minute, u.shift_end_minute from ta_user u order by u.userid");
+             PreparedStatement groupsStmt = connection.prepareStatement("select g.userid, g.groupid from ta_user_group g order by g.userid");
+             PreparedStatement skillsStmt = connection.prepareStatement("select s.userid, s.skillid from ta_user_skill s order by s.userid");
+             ResultSet usersRs = usersStmt.executeQuery();
+             ResultSet groupsRs = groupsStmt.executeQuery();
+             ResultSet skillsRs = skillsStmt.executeQuery()) {
+            final List<DBUser> users = new ArrayList<>();
+            final long rows = MultiQueryDBUsersLoader.merge(usersRs, true, new ChildRowsCursor(groupsRs), new ChildRowsCursor(skillsRs),
+                                                            new DBUserBuilder(new DBUserDictionary()), users::add);
+            // 4 users, 4 groups and 4 skills.
+            assertEquals(12, rows);
+            assertEquals(4, users.size());
+            assertFalse(users.get(2).getGroups().isEmpty());
+        }
+    }
+
+    private Map<String, DBUser> loadAllUsers(DBUsersLoader loader) throws Exception {
+        final Map<String, DBUser> users = new HashMap<>();
+        try (Connection connection = database.getConnection()) {
+            loader.loadAllUsers(connection, user -> users.put(user.getId(), user));
+        }
+        return users;
+    }
+
+    static Set<String> groupIds(DBUser user) {
+        final Set<String> result = new HashSet<>();
+        for (Group group : user.getGroups()) {
+            result.add(group.getId());
+        }
+        return result;
+    }
+
+    static Set<String> set(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
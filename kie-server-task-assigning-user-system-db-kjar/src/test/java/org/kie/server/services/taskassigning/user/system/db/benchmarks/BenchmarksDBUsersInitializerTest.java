@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.user.system.db.benchmarks;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Test;
+import org.kie.server.services.taskassigning.user.system.db.H2TestDatabase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.kie.server.services.taskassigning.user.system.db.benchmarks.BenchmarksDBUsersInitializer.BATCH_SIZE;
+import static org.kie.server.services.taskassigning.user.system.db.benchmarks.BenchmarksDBUsersInitializer.PARTITIONS;
+import static org.kie.server.services.taskassigning.user.system.db.benchmarks.BenchmarksDBUsersInitializer.SEED;
+import static org.kie.server.services.taskassigning.user.system.db.benchmarks.BenchmarksDBUsersInitializer.SKILLS_DISTRIBUTION;
+import static org.kie.server.services.taskassigning.user.system.db.benchmarks.BenchmarksDBUsersInitializer.USERS_SET_SIZE;
+
+public class BenchmarksDBUsersInitializerTest {
+
+    @After
+    public void tearDown() {
+        System.clearProperty(USERS_SET_SIZE);
+        System.clearProperty(BATCH_SIZE);
+        System.clearProperty(PARTITIONS);
+        System.clearProperty(SEED);
+        System.clearProperty(SKILLS_DISTRIBUTION);
+    }
+
+    @Test
+    public void skillsDontDependOnThePartitions() throws Exception {
+        System.setProperty(USERS_SET_SIZE, "200");
+        System.setProperty(BATCH_SIZE, "7");
+        System.setProperty(SEED, "5");
+        System.setProperty(SKILLS_DISTRIBUTION, "english:0.5,spanish:0.3");
+
+        final Set<String> singlePartition = initializeAndReadSkills("1");
+        final Set<String> fourPartitions = initializeAndReadSkills("4");
+        assertFalse(singlePartition.isEmpty());
+        assertEquals(singlePartition, fourPartitions);
+    }
+
+    private static Set<String> initializeAndReadSkills(String partitions) throws Exception {
+        System.setProperty(PARTITIONS, partitions);
+        final H2TestDatabase database = H2TestDatabase.createMigrated();
+        new BenchmarksDBUsersInitializer().initializeUsers(database.getDataSource());
+        final Set<String> result = new HashSet<>();
+        try (Connection connection = database.getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("select userid, skillid from ta_user_skill")) {
+            while (rs.next()) {
+                result.add(rs.getString(1) + ":" + rs.getString(2));
+            }
+        }
+        return result;
+    }
+}
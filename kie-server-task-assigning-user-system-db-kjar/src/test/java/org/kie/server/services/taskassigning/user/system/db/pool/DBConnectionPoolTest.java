@@ -0,0 +1,332 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.user.system.db.pool;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DBConnectionPoolTest {
+
+    private static final AtomicInteger DATABASE_SEQUENCE = new AtomicInteger();
+
+    private static final String QUERY = "select 1";
+
+    private static final String OTHER_QUERY = "select 2";
+
+    private final String url = "jdbc:h2:mem:ta-pool-test-" + DATABASE_SEQUENCE.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+
+    private DBConnectionPool pool;
+
+    @After
+    public void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void borrowAndReturn() throws Exception {
+        pool = newPool(2, 0, 10);
+        final Connection connection = pool.getConnection();
+        assertEquals(1, pool.getActiveConnections());
+        assertEquals(0, pool.getIdleConnections());
+        final Connection physicalConnection = connection.unwrap(Connection.class);
+        assertQuery(connection);
+
+        connection.close();
+        assertTrue(connection.isClosed());
+        assertFalse(physicalConnection.isClosed());
+        assertEquals(0, pool.getActiveConnections());
+        assertEquals(1, pool.getIdleConnections());
+
+        // closing the same borrow twice has no effect.
+        connection.close();
+        assertEquals(1, pool.getIdleConnections());
+
+        try (Connection reused = pool.getConnection()) {
+            assertNotSame(connection, reused);
+            assertSame(physicalConnection, reused.unwrap(Connection.class));
+        }
+        assertEquals(1, pool.getCreatedConnections());
+        assertEquals(0, pool.getDestroyedConnections());
+    }
+
+    @Test
+    public void closedBorrowCantBeUsed() throws Exception {
+        pool = newPool(1, 0, 10);
+        final Connection connection = pool.getConnection();
+        connection.close();
+        try {
+            connection.prepareStatement(QUERY);
+            fail("a closed connection must not be usable");
+        } catch (SQLException e) {
+            // expected.
+        }
+    }
+
+    @Test
+    public void returnRestoresTheAutoCommit() throws Exception {
+        pool = newPool(1, 0, 10);
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+        }
+        try (Connection connection = pool.getConnection()) {
+            assertTrue(connection.getAutoCommit());
+        }
+        assertEquals(1, pool.getCreatedConnections());
+    }
+
+    @Test
+    public void acquisitionTimeout() throws Exception {
+        pool = newPool(1, 0, 10);
+        try (Connection connection = pool.getConnection()) {
+            try {
+                pool.getConnection();
+                fail("no connection should be available");
+            } catch (SQLTransientConnectionException e) {
+                // expected.
+            }
+            assertEquals(1, pool.getAcquisitionTimeouts());
+            assertEquals(1, pool.getActiveConnections());
+        }
+        // the permit of the failed acquisition was not taken.
+        try (Connection connection = pool.getConnection()) {
+            assertQuery(connection);
+        }
+    }
+
+    @Test
+    public void statementCacheReuse() throws Exception {
+        pool = newPool(1, 0, 10);
+        final PreparedStatement physicalStatement;
+        try (Connection connection = pool.getConnection()) {
+            final PreparedStatement statement = connection.prepareStatement(QUERY);
+            physicalStatement = statement.unwrap(PreparedStatement.class);
+            assertSame(connection, statement.getConnection());
+            assertQuery(statement);
+            statement.close();
+            assertTrue(statement.isClosed());
+            assertFalse(physicalStatement.isClosed());
+
+            try (PreparedStatement reused = connection.prepareStatement(QUERY)) {
+                assertNotSame(statement, reused);
+                assertSame(physicalStatement, reused.unwrap(PreparedStatement.class));
+            }
+        }
+        // the cache belongs to the physical connection, so it's kept between borrows.
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(QUERY)) {
+            assertSame(physicalStatement, statement.unwrap(PreparedStatement.class));
+            assertQuery(statement);
+        }
+        assertEquals(1, pool.getStatementCacheMisses());
+        assertEquals(2, pool.getStatementCacheHits());
+    }
+
+    @Test
+    public void statementInUseIsNotHandedOutTwice() throws Exception {
+        pool = newPool(1, 0, 10);
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(QUERY);
+             PreparedStatement other = connection.prepareStatement(QUERY)) {
+            assertNotSame(statement.unwrap(PreparedStatement.class), other.unwrap(PreparedStatement.class));
+            assertQuery(statement);
+            assertQuery(other);
+        }
+        assertEquals(2, pool.getStatementCacheMisses());
+    }
+
+    @Test
+    public void statementCacheEvictsTheEldestStatement() throws Exception {
+        pool = newPool(1, 0, 1);
+        try (Connection connection = pool.getConnection()) {
+            final PreparedStatement statement = connection.prepareStatement(QUERY);
+            final PreparedStatement physicalStatement = statement.unwrap(PreparedStatement.class);
+            statement.close();
+            try (PreparedStatement other = connection.prepareStatement(OTHER_QUERY)) {
+                assertQuery(other);
+            }
+            assertTrue(physicalStatement.isClosed());
+            try (PreparedStatement reloaded = connection.prepareStatement(QUERY)) {
+                assertNotSame(physicalStatement, reloaded.unwrap(PreparedStatement.class));
+            }
+        }
+        assertEquals(3, pool.getStatementCacheMisses());
+        assertEquals(0, pool.getStatementCacheHits());
+    }
+
+    @Test
+    public void statementCacheDisabled() throws Exception {
+        pool = newPool(1, 0, 0);
+        try (Connection connection = pool.getConnection()) {
+            final PreparedStatement statement = connection.prepareStatement(QUERY);
+            statement.close();
+            assertTrue(statement.isClosed());
+        }
+        assertEquals(0, pool.getStatementCacheMisses());
+        assertEquals(0, pool.getStatementCacheHits());
+    }
+
+    @Test
+    public void statementsNotClosedByTheCallerAreClosedOnReturn() throws Exception {
+        pool = newPool(1, 0, 10);
+        final PreparedStatement statement;
+        try (Connection connection = pool.getConnection()) {
+            statement = connection.prepareStatement(QUERY);
+            assertQuery(statement);
+        }
+        assertTrue(statement.isClosed());
+        try {
+            statement.executeQuery();
+            fail("a statement of a returned connection must not be usable");
+        } catch (SQLException e) {
+            // expected.
+        }
+        // a not closed statement is not cached.
+        try (Connection connection = pool.getConnection();
+             PreparedStatement other = connection.prepareStatement(QUERY)) {
+            assertQuery(other);
+        }
+        assertEquals(2, pool.getStatementCacheMisses());
+    }
+
+    @Test
+    public void brokenConnectionIsDestroyedOnReturn() throws Exception {
+        pool = newPool(1, 0, 10);
+        final Connection physicalConnection;
+        try (Connection connection = pool.getConnection()) {
+            physicalConnection = connection.unwrap(Connection.class);
+            physicalConnection.close();
+        }
+        assertEquals(0, pool.getIdleConnections());
+        assertEquals(1, pool.getDestroyedConnections());
+        try (Connection connection = pool.getConnection()) {
+            assertNotSame(physicalConnection, connection.unwrap(Connection.class));
+            assertQuery(connection);
+        }
+        assertEquals(2, pool.getCreatedConnections());
+    }
+
+    @Test
+    public void brokenIdleConnectionIsEvictedOnBorrow() throws Exception {
+        pool = newPool(1, 0, 10);
+        final Connection physicalConnection;
+        try (Connection connection = pool.getConnection()) {
+            physicalConnection = connection.unwrap(Connection.class);
+        }
+        // e.g. the database closed the connection while it was idle.
+        physicalConnection.close();
+        try (Connection connection = pool.getConnection()) {
+            assertNotSame(physicalConnection, connection.unwrap(Connection.class));
+            assertQuery(connection);
+        }
+        assertEquals(1, pool.getValidationFailures());
+        assertEquals(1, pool.getDestroyedConnections());
+        assertEquals(2, pool.getCreatedConnections());
+    }
+
+    @Test
+    public void brokenIdleConnectionIsEvictedWithTheValidationQuery() throws Exception {
+        pool = new DBConnectionPool(DBConnectionPool.driverManagerConnectionFactory(url, "sa", ""), 1, 100, QUERY, 0, 10);
+        final Connection physicalConnection;
+        try (Connection connection = pool.getConnection()) {
+            physicalConnection = connection.unwrap(Connection.class);
+        }
+        physicalConnection.close();
+        try (Connection connection = pool.getConnection()) {
+            assertQuery(connection);
+        }
+        assertEquals(1, pool.getValidationFailures());
+    }
+
+    @Test
+    public void idleConnectionIsNotValidatedWithinTheValidationInterval() throws Exception {
+        pool = newPool(1, 60_000, 10);
+        try (Connection connection = pool.getConnection()) {
+            assertQuery(connection);
+        }
+        try (Connection connection = pool.getConnection()) {
+            assertQuery(connection);
+        }
+        assertEquals(0, pool.getValidationFailures());
+        assertEquals(1, pool.getCreatedConnections());
+    }
+
+    @Test
+    public void closeWithBorrowedConnections() throws Exception {
+        pool = newPool(2, 0, 10);
+        final Connection borrowed = pool.getConnection();
+        final Connection physicalConnection = borrowed.unwrap(Connection.class);
+        pool.getConnection().close();
+        assertEquals(1, pool.getIdleConnections());
+
+        pool.close();
+        assertEquals(0, pool.getIdleConnections());
+        assertEquals(1, pool.getDestroyedConnections());
+        try {
+            pool.getConnection();
+            fail("a closed pool must not hand out connections");
+        } catch (SQLException e) {
+            // expected.
+        }
+
+        // the borrowed connection is still usable, and it's destroyed when returned.
+        assertQuery(borrowed);
+        borrowed.close();
+        assertTrue(physicalConnection.isClosed());
+        assertEquals(0, pool.getActiveConnections());
+        assertEquals(0, pool.getIdleConnections());
+        assertEquals(2, pool.getDestroyedConnections());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidMaxSize() {
+        newPool(0, 0, 10);
+    }
+
+    private DBConnectionPool newPool(int maxSize, long validationIntervalMillis, int statementCacheSize) {
+        return new DBConnectionPool(DBConnectionPool.driverManagerConnectionFactory(url, "sa", ""), maxSize, 100, null,
+                                    validationIntervalMillis, statementCacheSize);
+    }
+
+    private static void assertQuery(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(QUERY)) {
+            assertQuery(statement);
+        }
+    }
+
+    private static void assertQuery(PreparedStatement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            assertTrue(rs.next());
+        }
+    }
+}
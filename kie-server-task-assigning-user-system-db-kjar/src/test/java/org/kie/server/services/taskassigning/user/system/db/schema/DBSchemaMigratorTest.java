@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.server.services.taskassigning.user.system.db.schema;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.server.services.taskassigning.user.system.db.H2TestDatabase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DBSchemaMigratorTest {
+
+    private static final Pattern CREATED_OBJECT = Pattern.compile("(create table|create index|add constraint|add column) (\\w+)");
+
+    private H2TestDatabase database;
+
+    private DBSchemaMigrator migrator;
+
+    @Before
+    public void setUp() {
+        database = H2TestDatabase.createEmpty();
+        migrator = new DBSchemaMigrator(DBSchemaMigrator.H2);
+    }
+
+    @Test
+    public void migrateEmptyDatabase() throws Exception {
+        assertEquals(DBSchemaMigrator.getLatestVersion(), migrator.migrate(database.getDataSource()));
+        assertEquals(Arrays.asList("1 V1__users.sql",
+                                   "2 V2__change_log.sql",
+                                   "3 V3__keys_indexes_dictionaries.sql",
+                                   "4 V4__user_availability.sql"),
+                     queryRows("select version, description from ta_schema_version order by version"));
+        assertEquals(0, migrator.migrate(database.getDataSource()));
+
+        database.insertUser("user1", true, new String[]{"HR"}, new String[]{"EN"});
+        database.execute("update ta_user set capacity_minutes = 480 where userid = 'user1'",
+                         "insert into ta_user_change (changeid, userid) values (1, 'user1')");
+        assertEquals(Arrays.asList("user1 480"), queryRows("select userid, capacity_minutes from ta_user"));
+    }
+
+    @Test
+    public void migrateNotVersionedSchema() throws Exception {
+        database.execute(H2TestDatabase.NOT_VERSIONED_SCHEMA);
+        database.execute("insert into ta_user (userid, enabled) values ('user1', 1)",
+                         "insert into ta_user (userid, enabled) values ('user2', 0)",
+                         "insert into ta_user_group (userid, groupid) values ('user1', 'HR')",
+                         "insert into ta_user_group (userid, groupid) values ('user1', 'HR')",
+                         "insert into ta_user_group (userid, groupid) values ('user1', null)",
+                         "insert into ta_user_group (userid, groupid) values ('user3', 'IT')",
+                         "insert into ta_user_skill (userid, skillid) values ('user2', 'EN')");
+
+        assertEquals(DBSchemaMigrator.getLatestVersion() - 1, migrator.migrate(database.getDataSource()));
+        assertEquals(Arrays.asList("1 V1__users.sql (baseline)",
+                                   "2 V2__change_log.sql",
+                                   "3 V3__keys_indexes_dictionaries.sql",
+                                   "4 V4__user_availability.sql"),
+                     queryRows("select version, description from ta_schema_version order by version"));
+        assertEquals(Arrays.asList("user1 HR"), queryRows("select userid, groupid from ta_user_group"));
+        assertEquals(Arrays.asList("HR"), queryRows("select groupid from ta_group"));
+        assertEquals(Arrays.asList("user2 EN"), queryRows("select userid, skillid from ta_user_skill"));
+        assertEquals(Arrays.asList("EN"), queryRows("select skillid from ta_skill"));
+        assertEquals(Arrays.asList("user1 null", "user2 null"), queryRows("select userid, capacity_minutes from ta_user order by userid"));
+    }
+
+    @Test
+    public void postgresqlMigrationsParse() {
+        final DBSchemaMigrator postgresql = new DBSchemaMigrator(DBSchemaMigrator.POSTGRESQL);
+        final List<String> statements = DBSchemaMigrator.parseStatements(postgresql.readMigration("V2__change_log.sql"));
+        // the table, the function with its dollar quoted body, and the three triggers.
+        assertEquals(5, statements.size());
+        assertTrue(statements.get(1).startsWith("CREATE OR REPLACE FUNCTION ta_user_change_log()"));
+        assertTrue(statements.get(1).endsWith("LANGUAGE plpgsql"));
+        for (String migration : DBSchemaMigrator.MIGRATIONS) {
+            assertFalse(migration, DBSchemaMigrator.parseStatements(postgresql.readMigration(migration)).isEmpty());
+        }
+    }
+
+    @Test
+    public void postgresqlMigrationsMirrorTheH2Ones() {
+        final DBSchemaMigrator h2 = new DBSchemaMigrator(DBSchemaMigrator.H2);
+        final DBSchemaMigrator postgresql = new DBSchemaMigrator(DBSchemaMigrator.POSTGRESQL);
+        for (String migration : DBSchemaMigrator.MIGRATIONS) {
+            assertEquals(migration, createdObjects(h2.readMigration(migration)), createdObjects(postgresql.readMigration(migration)));
+        }
+    }
+
+    /**
+     * @return the tables, columns, constraints and indexes created by the script. The triggers and functions are
+     * PostgreSQL only, see V2__change_log.sql.
+     */
+    private static Set<String> createdObjects(String script) {
+        final Set<String> objects = new TreeSet<>();
+        final Matcher matcher = CREATED_OBJECT.matcher(script.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            objects.add(matcher.group(1) + " " + matcher.group(2));
+        }
+        return objects;
+    }
+
+    private List<String> queryRows(String query) throws SQLException {
+        final List<String> rows = new ArrayList<>();
+        try (Connection connection = database.getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            final int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                final StringBuilder row = new StringBuilder();
+                for (int i = 1; i <= columns; i++) {
+                    row.append(i > 1 ? " " : "").append(rs.getString(i));
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+}
@@ -17,11 +17,11 @@
 package org.kie.server.services.taskassigning.user.system.simple.data;
 
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 import org.kie.server.api.model.taskassigning.data.LabelValueExtractor;
+import org.kie.server.services.taskassigning.skills.SkillsParser;
 import org.kie.server.services.taskassigning.user.system.api.User;
 
 /**
@@ -33,9 +33,15 @@ import org.kie.server.services.taskassigning.user.system.api.User;
  * Note: Value extractors must be declared in the resource
  * <p>
  * src/main/resources/META-INF/services/org.kie.server.api.model.taskassigning.data.LabelValueExtractor
+ * <p>
+ * String values are parsed by the SkillsParser, so that a value like "EN, ES" produces the individual skills EN and
+ * ES. The extracted sets are immutable and cached by the parser, so users with the same skills share the same set, and
+ * re-extracting them doesn't allocate.
  */
 public class UserExampleValueExtractor implements LabelValueExtractor<User> {
 
+    private static final SkillsParser PARSER = new SkillsParser();
+
     public UserExampleValueExtractor() {
         //SPI constructor.
     }
@@ -55,6 +61,9 @@ public class UserExampleValueExtractor implements LabelValueExtractor<User> {
     public Set<Object> extract(User source) {
         Map<String, Object> inputs = source.getAttributes();
         Object value = inputs != null ? inputs.get("skills") : null;
-        return value != null ? new HashSet<Object>(Collections.singleton(value)) : null;
+        if (value == null) {
+            return null;
+        }
+        return value instanceof String ? PARSER.parse((String) value) : Collections.singleton(value);
     }
 }
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.workload;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.kie.server.api.model.instance.TaskEventInstance;
+import org.kie.server.api.model.instance.TaskSummary;
+import org.kie.server.client.UserTaskServicesClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks the tasks of the process instances started by the generator, and records the assignment latency of each
+ * task, i.e. the time from the task creation to its first assignment event, e.g. the delegation produced by the task
+ * assigning planner. Both instants are given by the server clock. When the task events can't be read, the time the
+ * assignment was observed is used instead, and the latency is bounded by the poll interval.
+ * <p>
+ * The assigned ResolveDispute and NotifyCustomer tasks are completed on behalf of the assigned user with the
+ * configured ratios, which determines the workload mix. Not thread safe, the poll() invocations must not overlap.
+ */
+public class AssignmentTracker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AssignmentTracker.class);
+
+    static final String RESOLVE_DISPUTE = "ResolveDispute";
+    static final String NOTIFY_CUSTOMER = "NotifyCustomer";
+
+    private static final List<String> READY = Collections.singletonList("Ready");
+    private static final List<String> RESERVED = Collections.singletonList("Reserved");
+
+    private static final Set<String> ASSIGNMENT_EVENTS = new HashSet<>(Arrays.asList("CLAIMED", "DELEGATED", "FORWARDED"));
+
+    private static final int EVENTS_PAGE_SIZE = 50;
+
+    private final UserTaskServicesClient taskClient;
+
+    private final String containerId;
+
+    private final String user;
+
+    private final int pageSize;
+
+    private final double resolveDisputeCompletionRatio;
+
+    private final double notifyCustomerCompletionRatio;
+
+    private final Random random;
+
+    private final Set<Long> processInstanceIds = ConcurrentHashMap.newKeySet();
+
+    private final Set<Long> assignedTaskIds = new HashSet<>();
+
+    private final LatencyRecorder assignmentLatencies = new LatencyRecorder();
+
+    private volatile long completedTasks;
+
+    private volatile long failedCompletions;
+
+    private volatile long observedAssignments;
+
+    private volatile int readyTasks;
+
+    public AssignmentTracker(UserTaskServicesClient taskClient, WorkloadSpec spec) {
+        this.taskClient = taskClient;
+        this.containerId = spec.getContainerId();
+        this.user = spec.getUser();
+        this.pageSize = spec.getPageSize();
+        this.resolveDisputeCompletionRatio = spec.getResolveDisputeCompletionRatio();
+        this.notifyCustomerCompletionRatio = spec.getNotifyCustomerCompletionRatio();
+        this.random = new Random(spec.getSeed() + 1);
+    }
+
+    public void track(Long processInstanceId) {
+        processInstanceIds.add(processInstanceId);
+    }
+
+    /**
+     * Reads the Ready and Reserved tasks of the tracked process instances, records the assignment of the new
+     * Reserved ones and completes them with the configured ratios.
+     * @return true if the tracked tasks are stable, i.e. there are no Ready tasks and no task was completed.
+     */
+    public boolean poll() {
+        readyTasks = countTrackedTasks(READY);
+        int completions = 0;
+        int page = 0;
+        List<TaskSummary> tasks;
+        do {
+            tasks = taskClient.findTasksAssignedAsBusinessAdministrator(user, RESERVED, page++, pageSize);
+            for (TaskSummary task : tasks) {
+                if (isTracked(task) && assignedTaskIds.add(task.getId())) {
+                    recordAssignment(task);
+                    if (complete(task)) {
+                        completions++;
+                    }
+                }
+            }
+        } while (tasks.size() == pageSize);
+        LOGGER.debug("Ready tasks: {}, assigned tasks: {}, completed tasks: {}", readyTasks, assignedTaskIds.size(), completedTasks);
+        return readyTasks == 0 && completions == 0;
+    }
+
+    private int countTrackedTasks(List<String> status) {
+        int count = 0;
+        int page = 0;
+        List<TaskSummary> tasks;
+        do {
+            tasks = taskClient.findTasksAssignedAsBusinessAdministrator(user, status, page++, pageSize);
+            for (TaskSummary task : tasks) {
+                if (isTracked(task)) {
+                    count++;
+                }
+            }
+        } while (tasks.size() == pageSize);
+        return count;
+    }
+
+    private boolean isTracked(TaskSummary task) {
+        return containerId.equals(task.getContainerId()) && processInstanceIds.contains(task.getProcessInstanceId());
+    }
+
+    private void recordAssignment(TaskSummary task) {
+        long assignedAt = -1;
+        try {
+            final List<TaskEventInstance> events = taskClient.findTaskEvents(task.getId(), 0, EVENTS_PAGE_SIZE);
+            for (TaskEventInstance event : events) {
+                if (ASSIGNMENT_EVENTS.contains(event.getType()) && event.getLogTime() != null) {
+                    assignedAt = event.getLogTime().getTime();
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.debug("Task events couldn't be read for task: {}, {}", task.getId(), e.getMessage());
+        }
+        if (assignedAt < 0) {
+            assignedAt = System.currentTimeMillis();
+            observedAssignments++;
+        }
+        if (task.getCreatedOn() != null) {
+            assignmentLatencies.record(assignedAt - task.getCreatedOn().getTime());
+        }
+    }
+
+    private boolean complete(TaskSummary task) {
+        final double ratio = RESOLVE_DISPUTE.equals(task.getName()) ? resolveDisputeCompletionRatio :
+                NOTIFY_CUSTOMER.equals(task.getName()) ? notifyCustomerCompletionRatio : 0;
+        if (ratio <= 0 || random.nextDouble() >= ratio) {
+            return false;
+        }
+        final Map<String, Object> outputs = new HashMap<>();
+        if (RESOLVE_DISPUTE.equals(task.getName())) {
+            outputs.put("resolution", "Resolved by the workload generator");
+        }
+        try {
+            taskClient.completeAutoProgress(containerId, task.getId(), task.getActualOwner(), outputs);
+            completedTasks++;
+            return true;
+        } catch (RuntimeException e) {
+            failedCompletions++;
+            LOGGER.debug("Task: {} couldn't be completed on behalf of user: {}, {}", task.getId(), task.getActualOwner(), e.getMessage());
+            return false;
+        }
+    }
+
+    public LatencyRecorder getAssignmentLatencies() {
+        return assignmentLatencies;
+    }
+
+    public int getAssignedTasks() {
+        return assignedTaskIds.size();
+    }
+
+    /**
+     * @return the tracked tasks waiting for an assignment at the last poll.
+     */
+    public int getReadyTasks() {
+        return readyTasks;
+    }
+
+    public long getCompletedTasks() {
+        return completedTasks;
+    }
+
+    public long getFailedCompletions() {
+        return failedCompletions;
+    }
+
+    /**
+     * @return the number of assignments measured by the observation time instead of the task events.
+     */
+    public long getObservedAssignments() {
+        return observedAssignments;
+    }
+}
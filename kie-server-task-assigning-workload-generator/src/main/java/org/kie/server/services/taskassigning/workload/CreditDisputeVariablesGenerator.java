@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.workload;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates the CreditDispute process variables. The ResolveDispute task requires the cardType as skill, and the
+ * NotifyCustomer task requires the language as skill. The priority variable, mapped to the tasks Priority, is given
+ * by the dispute amount, see WorkloadSpec.AMOUNT_PRIORITIES.
+ * <p>
+ * The generation is determined by the spec seed, so the workloads are reproducible. Not thread safe.
+ */
+public class CreditDisputeVariablesGenerator {
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private static final String[] REASONS = {"Duplicate charge", "Goods not received", "Incorrect amount", "Unauthorized transaction"};
+
+    private final Random random;
+
+    private final WeightedValues cardTypes;
+
+    private final WeightedValues languages;
+
+    private final double logAmountMin;
+
+    private final double logAmountRange;
+
+    private final List<double[]> amountPriorities;
+
+    private long sequence;
+
+    public CreditDisputeVariablesGenerator(WorkloadSpec spec) {
+        this.random = new Random(spec.getSeed());
+        this.cardTypes = new WeightedValues(spec.getCardTypes(), WorkloadSpec.CARD_TYPES);
+        this.languages = new WeightedValues(spec.getLanguages(), WorkloadSpec.LANGUAGES);
+        final double amountMin = spec.getAmountMin();
+        final double amountMax = spec.getAmountMax();
+        if (amountMin <= 0 || amountMax < amountMin) {
+            throw new IllegalArgumentException(WorkloadSpec.AMOUNT_MIN + " and " + WorkloadSpec.AMOUNT_MAX + " weren't properly set, 0 < amountMin <= amountMax is expected");
+        }
+        this.logAmountMin = Math.log(amountMin);
+        this.logAmountRange = Math.log(amountMax) - logAmountMin;
+        this.amountPriorities = spec.getAmountPriorities();
+    }
+
+    public Map<String, Object> next() {
+        final long id = ++sequence;
+        final float amount = (float) (Math.round(Math.exp(logAmountMin + random.nextDouble() * logAmountRange) * 100) / 100.0);
+        final Map<String, Object> variables = new HashMap<>();
+        variables.put("cardType", cardTypes.next(random));
+        variables.put("language", languages.next(random));
+        variables.put("cardHolderName", "Card Holder " + id);
+        variables.put("contactNumber", String.format("555-%07d", id % 10_000_000));
+        variables.put("cardNumber", String.format("4000%012d", id));
+        variables.put("email", "holder" + id + "@example.com");
+        variables.put("transactionDate", new Date(System.currentTimeMillis() - random.nextInt(30) * DAY_MILLIS));
+        variables.put("merchantName", "Merchant " + random.nextInt(1000));
+        variables.put("amount", amount);
+        variables.put("disputReason", REASONS[random.nextInt(REASONS.length)]);
+        variables.put("disputDescription", "Generated dispute " + id);
+        final Integer priority = priority(amount);
+        if (priority != null) {
+            variables.put("priority", priority);
+        }
+        return variables;
+    }
+
+    private Integer priority(float amount) {
+        for (double[] amountPriority : amountPriorities) {
+            if (amount >= amountPriority[0]) {
+                return (int) amountPriority[1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Values chosen with a probability proportional to their weight.
+     */
+    private static class WeightedValues {
+
+        private final List<String> values = new ArrayList<>();
+
+        private final double[] cumulativeWeights;
+
+        WeightedValues(Map<String, Double> weights, String property) {
+            cumulativeWeights = new double[weights.size()];
+            double total = 0;
+            for (Map.Entry<String, Double> entry : weights.entrySet()) {
+                if (entry.getValue() < 0) {
+                    throw new IllegalArgumentException(property + " wasn't properly set, negative weight: " + entry.getValue());
+                }
+                total += entry.getValue();
+                cumulativeWeights[values.size()] = total;
+                values.add(entry.getKey());
+            }
+            if (total <= 0) {
+                throw new IllegalArgumentException(property + " wasn't properly set, at least one value with a weight greater than zero is required");
+            }
+        }
+
+        String next(Random random) {
+            final double value = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (value < cumulativeWeights[i]) {
+                    return values.get(i);
+                }
+            }
+            return values.get(values.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.workload;
+
+import java.util.Arrays;
+
+/**
+ * Keeps all the recorded latencies for calculating exact percentiles at the end of the run. Thread safe.
+ */
+public class LatencyRecorder {
+
+    private static final double[] PERCENTILES = {50, 90, 95, 99, 99.9};
+
+    private long[] values = new long[1024];
+
+    private int size;
+
+    public synchronized void record(long millis) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = Math.max(0, millis);
+    }
+
+    public synchronized int getCount() {
+        return size;
+    }
+
+    /**
+     * @return the nearest rank percentile, or 0 if no values were recorded.
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        final long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        return sorted[percentileIndex(percentile, size)];
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (size == 0) {
+            return "count: 0";
+        }
+        final long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        final StringBuilder builder = new StringBuilder("count: ").append(size)
+                .append(", min: ").append(sorted[0]).append(" ms");
+        for (double percentile : PERCENTILES) {
+            builder.append(", p").append(percentile % 1 == 0 ? Long.toString((long) percentile) : Double.toString(percentile))
+                    .append(": ").append(sorted[percentileIndex(percentile, size)]).append(" ms");
+        }
+        return builder.append(", max: ").append(sorted[size - 1]).append(" ms").toString();
+    }
+
+    private static int percentileIndex(double percentile, int size) {
+        final int rank = (int) Math.ceil(percentile / 100.0 * size);
+        return Math.min(size - 1, Math.max(0, rank - 1));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.workload;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.kie.server.api.marshalling.MarshallingFormat;
+import org.kie.server.client.KieServicesClient;
+import org.kie.server.client.KieServicesConfiguration;
+import org.kie.server.client.KieServicesFactory;
+import org.kie.server.client.ProcessServicesClient;
+import org.kie.server.client.UserTaskServicesClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Starts the CreditDispute process instances of a WorkloadSpec against a KIE Server with the task assigning extension
+ * enabled, and waits for the resulting tasks to be assigned.
+ * <p>
+ * The arrivals are open loop: each instance is scheduled at its arrival time regardless of the previous starts having
+ * finished, so a saturated server shows up as growing start latencies, measured from the scheduled arrival time,
+ * instead of as a lower arrival rate.
+ */
+public class WorkloadGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkloadGenerator.class);
+
+    private static final long CLIENT_TIMEOUT_MILLIS = 60_000;
+
+    private final WorkloadSpec spec;
+
+    public WorkloadGenerator(WorkloadSpec spec) {
+        this.spec = spec;
+    }
+
+    public WorkloadReport run() throws InterruptedException {
+        final KieServicesConfiguration configuration = KieServicesFactory.newRestConfiguration(spec.getServerUrl(), spec.getUser(), spec.getPassword());
+        configuration.setMarshallingFormat(MarshallingFormat.JSON);
+        configuration.setTimeout(CLIENT_TIMEOUT_MILLIS);
+        final KieServicesClient client = KieServicesFactory.newKieServicesClient(configuration);
+        final ProcessServicesClient processClient = client.getServicesClient(ProcessServicesClient.class);
+        final UserTaskServicesClient taskClient = client.getServicesClient(UserTaskServicesClient.class);
+
+        final int instances = spec.getInstances();
+        final CreditDisputeVariablesGenerator variablesGenerator = new CreditDisputeVariablesGenerator(spec);
+        final AssignmentTracker tracker = new AssignmentTracker(taskClient, spec);
+        final LatencyRecorder startLatencies = new LatencyRecorder();
+        final AtomicLong startFailures = new AtomicLong();
+
+        final ExecutorService startExecutor = Executors.newFixedThreadPool(spec.getStartThreads());
+        final ScheduledExecutorService pollExecutor = Executors.newSingleThreadScheduledExecutor();
+        pollExecutor.scheduleWithFixedDelay(() -> safePoll(tracker), spec.getPollIntervalMillis(), spec.getPollIntervalMillis(), TimeUnit.MILLISECONDS);
+
+        LOGGER.info("Starting {} instances of {} at {} instances/s", instances, spec.getProcessId(), spec.getArrivalRate());
+        final long startNanos = System.nanoTime();
+        final Random arrivals = new Random(spec.getSeed() + 2);
+        final double meanInterArrivalNanos = TimeUnit.SECONDS.toNanos(1) / spec.getArrivalRate();
+        final boolean poisson = spec.getArrivalDistribution() == WorkloadSpec.ArrivalDistribution.POISSON;
+        long arrivalNanos = startNanos;
+        for (int i = 0; i < instances; i++) {
+            arrivalNanos += poisson ? (long) (-Math.log(1 - arrivals.nextDouble()) * meanInterArrivalNanos) : (long) meanInterArrivalNanos;
+            parkUntil(arrivalNanos);
+            final long scheduledNanos = arrivalNanos;
+            final Map<String, Object> variables = variablesGenerator.next();
+            startExecutor.execute(() -> {
+                try {
+                    tracker.track(processClient.startProcess(spec.getContainerId(), spec.getProcessId(), variables));
+                    startLatencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scheduledNanos));
+                } catch (RuntimeException e) {
+                    startFailures.incrementAndGet();
+                    LOGGER.debug("Process instance couldn't be started: {}", e.getMessage());
+                }
+            });
+        }
+        startExecutor.shutdown();
+        startExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        final long arrivalsNanos = System.nanoTime() - startNanos;
+        pollExecutor.shutdown();
+        pollExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        LOGGER.info("{} instances were started in {} ms, waiting for the tasks assignment", startLatencies.getCount(), TimeUnit.NANOSECONDS.toMillis(arrivalsNanos));
+
+        final long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(spec.getDrainTimeoutSeconds());
+        boolean stable = safePoll(tracker);
+        while (!stable && System.nanoTime() < drainDeadline) {
+            Thread.sleep(spec.getPollIntervalMillis());
+            stable = safePoll(tracker);
+        }
+        final long totalNanos = System.nanoTime() - startNanos;
+        return new WorkloadReport(instances, startLatencies, startFailures.get(), arrivalsNanos, totalNanos, tracker, stable);
+    }
+
+    private static boolean safePoll(AssignmentTracker tracker) {
+        try {
+            return tracker.poll();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Tasks couldn't be queried: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static void parkUntil(long nanos) {
+        long remaining;
+        while ((remaining = nanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.workload;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a CreditDispute workload and logs the throughput and latency percentiles.
+ * <p>
+ * From the module directory: mvn exec:java [-Dworkload.spec=path/to/workload.properties] [-Dworkload.instances=...]
+ * <p>
+ * The target KIE Server must have the task assigning extension enabled, and the task-assigning-example-processes
+ * deployed. The completion of the assigned tasks on behalf of their owners requires the KIE Server
+ * org.kie.server.bypass.auth.user=true system property.
+ */
+public class WorkloadGeneratorApp {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkloadGeneratorApp.class);
+
+    public static final String DEFAULT_SPEC = "org/kie/server/services/taskassigning/workload/creditDisputeWorkload.properties";
+
+    public static void main(String[] args) throws Exception {
+        final WorkloadSpec spec = WorkloadSpec.load(args.length > 0 ? args[0] : DEFAULT_SPEC);
+        final WorkloadReport report = new WorkloadGenerator(spec).run();
+        LOGGER.info("Workload results:{}{}", System.lineSeparator(), report);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.workload;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Results of a WorkloadGenerator run.
+ */
+public class WorkloadReport {
+
+    private final int instances;
+    private final LatencyRecorder startLatencies;
+    private final long startFailures;
+    private final long arrivalsNanos;
+    private final long totalNanos;
+    private final AssignmentTracker tracker;
+    private final boolean drained;
+
+    WorkloadReport(int instances, LatencyRecorder startLatencies, long startFailures, long arrivalsNanos, long totalNanos,
+                   AssignmentTracker tracker, boolean drained) {
+        this.instances = instances;
+        this.startLatencies = startLatencies;
+        this.startFailures = startFailures;
+        this.arrivalsNanos = arrivalsNanos;
+        this.totalNanos = totalNanos;
+        this.tracker = tracker;
+        this.drained = drained;
+    }
+
+    public int getStartedInstances() {
+        return startLatencies.getCount();
+    }
+
+    public long getStartFailures() {
+        return startFailures;
+    }
+
+    /**
+     * @return the achieved process instance starts per second.
+     */
+    public double getStartThroughput() {
+        return perSecond(startLatencies.getCount(), arrivalsNanos);
+    }
+
+    /**
+     * @return the assigned tasks per second over the whole run.
+     */
+    public double getAssignmentThroughput() {
+        return perSecond(tracker.getAssignedTasks(), totalNanos);
+    }
+
+    public LatencyRecorder getStartLatencies() {
+        return startLatencies;
+    }
+
+    public LatencyRecorder getAssignmentLatencies() {
+        return tracker.getAssignmentLatencies();
+    }
+
+    /**
+     * @return false if the drain timeout expired with tasks still waiting for an assignment.
+     */
+    public boolean isDrained() {
+        return drained;
+    }
+
+    private static double perSecond(long count, long nanos) {
+        return nanos > 0 ? count * (double) TimeUnit.SECONDS.toNanos(1) / nanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("instances: %d, started: %d, start failures: %d, start throughput: %.2f instances/s%n" +
+                                     "start latency: %s%n" +
+                                     "assigned tasks: %d, assignment throughput: %.2f tasks/s, completed tasks: %d, completion failures: %d%n" +
+                                     "assignment latency: %s%n" +
+                                     "assignments measured by observation: %d, tasks waiting for assignment: %d%s",
+                             instances, getStartedInstances(), startFailures, getStartThroughput(),
+                             startLatencies,
+                             tracker.getAssignedTasks(), getAssignmentThroughput(), tracker.getCompletedTasks(), tracker.getFailedCompletions(),
+                             tracker.getAssignmentLatencies(),
+                             tracker.getObservedAssignments(), tracker.getReadyTasks(), drained ? "" : " (drain timeout expired)");
+    }
+}
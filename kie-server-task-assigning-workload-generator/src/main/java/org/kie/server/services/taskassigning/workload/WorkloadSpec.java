@@ -0,0 +1,312 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.server.services.taskassigning.workload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Workload specification, given as a properties file. Every property can be overridden by a system property with the
+ * SYSTEM_PROPERTY_PREFIX, e.g. -Dworkload.instances=5000.
+ */
+public class WorkloadSpec {
+
+    public static final String SYSTEM_PROPERTY_PREFIX = "workload.";
+
+    /**
+     * KIE Server REST url. Defaults to http://localhost:8080/kie-server/services/rest/server.
+     */
+    public static final String SERVER_URL = "serverUrl";
+
+    /**
+     * KIE Server user and password. The user must be a business administrator of the CreditDispute tasks, e.g. a
+     * member of the Administrators group, for querying the tasks of all the users. Defaults to wbadmin.
+     */
+    public static final String USER = "user";
+    public static final String PASSWORD = "password";
+
+    /**
+     * Container with the task-assigning-example-processes. Defaults to task-assigning-example-processes_1.0.0-SNAPSHOT.
+     */
+    public static final String CONTAINER_ID = "containerId";
+
+    /**
+     * Defaults to task-assigning-example-processes.CreditDispute.
+     */
+    public static final String PROCESS_ID = "processId";
+
+    /**
+     * Number of process instances to start.
+     */
+    public static final String INSTANCES = "instances";
+
+    /**
+     * Process instances started per second. Defaults to 10.
+     */
+    public static final String ARRIVAL_RATE = "arrivalRate";
+
+    /**
+     * POISSON for exponentially distributed inter arrival times, or CONSTANT. Defaults to POISSON.
+     */
+    public static final String ARRIVAL_DISTRIBUTION = "arrivalDistribution";
+
+    /**
+     * Number of threads starting the process instances. Defaults to 4.
+     */
+    public static final String START_THREADS = "startThreads";
+
+    /**
+     * Random generation seed. Defaults to 1.
+     */
+    public static final String SEED = "seed";
+
+    /**
+     * Card types, i.e. the ResolveDispute skills, given as a comma separated list of skill:weight pairs.
+     */
+    public static final String CARD_TYPES = "cardTypes";
+
+    /**
+     * Languages, i.e. the NotifyCustomer skills, given as a comma separated list of skill:weight pairs.
+     */
+    public static final String LANGUAGES = "languages";
+
+    /**
+     * The dispute amounts are log-uniformly distributed in the [amountMin, amountMax) range. Default to 10 and 20000.
+     */
+    public static final String AMOUNT_MIN = "amountMin";
+    public static final String AMOUNT_MAX = "amountMax";
+
+    /**
+     * Task priority by amount, given as a comma separated list of amount:priority pairs. A dispute gets the priority
+     * of the highest amount lower or equal than the dispute amount, or no priority if none. Defaults to
+     * 5000:1,1000:4,0:8, i.e. a high, medium and low priority level respectively.
+     */
+    public static final String AMOUNT_PRIORITIES = "amountPriorities";
+
+    /**
+     * Ratio of the assigned ResolveDispute tasks that are completed by the generator on behalf of the assigned user,
+     * which creates the NotifyCustomer tasks. Defaults to 0.5.
+     */
+    public static final String RESOLVE_DISPUTE_COMPLETION_RATIO = "resolveDisputeCompletionRatio";
+
+    /**
+     * Ratio of the assigned NotifyCustomer tasks that are completed by the generator. Defaults to 0.
+     */
+    public static final String NOTIFY_CUSTOMER_COMPLETION_RATIO = "notifyCustomerCompletionRatio";
+
+    /**
+     * Interval between the tasks queries. Defaults to 1000.
+     */
+    public static final String POLL_INTERVAL_MILLIS = "pollIntervalMillis";
+
+    /**
+     * Page size of the tasks queries. Defaults to 1000.
+     */
+    public static final String PAGE_SIZE = "pageSize";
+
+    /**
+     * Maximum time for waiting for the tasks assignment once all the instances were started. Defaults to 300.
+     */
+    public static final String DRAIN_TIMEOUT_SECONDS = "drainTimeoutSeconds";
+
+    public enum ArrivalDistribution {
+        POISSON,
+        CONSTANT
+    }
+
+    static final String DEFAULT_CARD_TYPES = "CITI:0.3,VISA:0.6,MASTER:0.6,AMERICAN_EXPRESS:0.2";
+    static final String DEFAULT_LANGUAGES = "EN:0.9,ES:0.4,ZH:0.1,HI:0.1";
+
+    private final Properties properties;
+
+    public WorkloadSpec(Properties properties) {
+        this.properties = new Properties();
+        this.properties.putAll(properties);
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(SYSTEM_PROPERTY_PREFIX)) {
+                this.properties.setProperty(name.substring(SYSTEM_PROPERTY_PREFIX.length()), System.getProperty(name));
+            }
+        }
+    }
+
+    /**
+     * @param location a classpath resource or a file.
+     */
+    public static WorkloadSpec load(String location) throws IOException {
+        final Properties properties = new Properties();
+        final Path path = Paths.get(location);
+        if (Files.isRegularFile(path)) {
+            try (InputStream in = Files.newInputStream(path)) {
+                properties.load(in);
+            }
+        } else {
+            try (InputStream in = WorkloadSpec.class.getClassLoader().getResourceAsStream(location)) {
+                if (in == null) {
+                    throw new IllegalArgumentException("Workload spec wasn't found: " + location);
+                }
+                properties.load(in);
+            }
+        }
+        return new WorkloadSpec(properties);
+    }
+
+    public String getServerUrl() {
+        return getString(SERVER_URL, "http://localhost:8080/kie-server/services/rest/server");
+    }
+
+    public String getUser() {
+        return getString(USER, "wbadmin");
+    }
+
+    public String getPassword() {
+        return getString(PASSWORD, "wbadmin");
+    }
+
+    public String getContainerId() {
+        return getString(CONTAINER_ID, "task-assigning-example-processes_1.0.0-SNAPSHOT");
+    }
+
+    public String getProcessId() {
+        return getString(PROCESS_ID, "task-assigning-example-processes.CreditDispute");
+    }
+
+    public int getInstances() {
+        return getInt(INSTANCES, null);
+    }
+
+    public double getArrivalRate() {
+        final double rate = getDouble(ARRIVAL_RATE, "10");
+        if (rate <= 0) {
+            throw new IllegalArgumentException(ARRIVAL_RATE + " wasn't properly set, a value greater than zero is expected: " + rate);
+        }
+        return rate;
+    }
+
+    public ArrivalDistribution getArrivalDistribution() {
+        final String value = getString(ARRIVAL_DISTRIBUTION, ArrivalDistribution.POISSON.name());
+        try {
+            return ArrivalDistribution.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(ARRIVAL_DISTRIBUTION + " wasn't properly set: " + value, e);
+        }
+    }
+
+    public int getStartThreads() {
+        return Math.max(1, getInt(START_THREADS, "4"));
+    }
+
+    public long getSeed() {
+        return getInt(SEED, "1");
+    }
+
+    public Map<String, Double> getCardTypes() {
+        return parseDistribution(CARD_TYPES, DEFAULT_CARD_TYPES);
+    }
+
+    public Map<String, Double> getLanguages() {
+        return parseDistribution(LANGUAGES, DEFAULT_LANGUAGES);
+    }
+
+    public double getAmountMin() {
+        return getDouble(AMOUNT_MIN, "10");
+    }
+
+    public double getAmountMax() {
+        return getDouble(AMOUNT_MAX, "20000");
+    }
+
+    /**
+     * @return the amount:priority pairs ordered by decreasing amount.
+     */
+    public List<double[]> getAmountPriorities() {
+        final List<double[]> result = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : parseDistribution(AMOUNT_PRIORITIES, "5000:1,1000:4,0:8").entrySet()) {
+            result.add(new double[]{parseDouble(entry.getKey(), AMOUNT_PRIORITIES), entry.getValue()});
+        }
+        result.sort((a, b) -> Double.compare(b[0], a[0]));
+        return result;
+    }
+
+    public double getResolveDisputeCompletionRatio() {
+        return getDouble(RESOLVE_DISPUTE_COMPLETION_RATIO, "0.5");
+    }
+
+    public double getNotifyCustomerCompletionRatio() {
+        return getDouble(NOTIFY_CUSTOMER_COMPLETION_RATIO, "0");
+    }
+
+    public long getPollIntervalMillis() {
+        return Math.max(1, getInt(POLL_INTERVAL_MILLIS, "1000"));
+    }
+
+    public int getPageSize() {
+        return Math.max(1, getInt(PAGE_SIZE, "1000"));
+    }
+
+    public long getDrainTimeoutSeconds() {
+        return getInt(DRAIN_TIMEOUT_SECONDS, "300");
+    }
+
+    private String getString(String property, String defaultValue) {
+        final String value = properties.getProperty(property);
+        return value != null && !value.trim().isEmpty() ? value.trim() : defaultValue;
+    }
+
+    private int getInt(String property, String defaultValue) {
+        final String value = getString(property, defaultValue);
+        if (value == null) {
+            throw new IllegalArgumentException("Property " + property + " is required");
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(property + " wasn't properly set: " + e.getMessage(), e);
+        }
+    }
+
+    private double getDouble(String property, String defaultValue) {
+        return parseDouble(getString(property, defaultValue), property);
+    }
+
+    private Map<String, Double> parseDistribution(String property, String defaultValue) {
+        final Map<String, Double> distribution = new LinkedHashMap<>();
+        for (String pair : getString(property, defaultValue).split(",")) {
+            final String[] valueAndWeight = pair.split(":");
+            if (valueAndWeight.length != 2) {
+                throw new IllegalArgumentException(property + " wasn't properly set, value:weight pair was expected: " + pair);
+            }
+            distribution.put(valueAndWeight[0].trim(), parseDouble(valueAndWeight[1], property));
+        }
+        return distribution;
+    }
+
+    private static double parseDouble(String value, String property) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(property + " wasn't properly set: " + e.getMessage(), e);
+        }
+    }
+}